@@ -0,0 +1,81 @@
+import java.awt.EventQueue;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import javax.swing.Timer;
+
+/**
+ * One frame clock shared by every animation in the window, so fading labels
+ * and sliding tiles advance together in the same EDT event instead of each
+ * panel running its own timer. The clock only runs while something is
+ * animating.
+ *
+ * <p>Animations are ticked on the EDT; starting one from another thread
+ * hands it over to the EDT.</p>
+ */
+public final class AnimationClock {
+    /** About 60 frames per second. */
+    static final int FRAME_MILLIS = 16;
+
+    /** Something that moves with the clock. */
+    public interface Animation {
+        /**
+         * Advances to the given time and repaints what changed.
+         *
+         * @param now {@link System#nanoTime()} for this frame
+         * @return false once finished, which removes it from the clock
+         */
+        boolean tick(long now);
+    }
+
+    private static final AnimationClock SHARED = new AnimationClock();
+
+    private final Set<Animation> running = new LinkedHashSet<>();
+    private final List<Animation> frame = new ArrayList<>();
+    private final Timer timer = new Timer(FRAME_MILLIS, e -> tick());
+
+    private AnimationClock() {
+        timer.setCoalesce(true);
+    }
+
+    /** @return the clock shared by the whole window. */
+    public static AnimationClock shared() {
+        return SHARED;
+    }
+
+    /**
+     * Starts ticking an animation from the next frame. Adding one that is
+     * already running does nothing.
+     *
+     * @param animation The animation to run.
+     */
+    public void start(Animation animation) {
+        if (!EventQueue.isDispatchThread()) {
+            EventQueue.invokeLater(() -> start(animation));
+            return;
+        }
+        if (running.add(animation) && !timer.isRunning()) {
+            timer.start();
+        }
+    }
+
+    /**
+     * Stops an animation without a final tick. Call on the EDT.
+     *
+     * @param animation The animation to stop.
+     */
+    public void stop(Animation animation) {
+        running.remove(animation);
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        frame.addAll(running);
+        for (Animation a : frame) {
+            if (!a.tick(now)) running.remove(a);
+        }
+        frame.clear();
+        if (running.isEmpty()) timer.stop();
+    }
+}
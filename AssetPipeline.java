@@ -0,0 +1,267 @@
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import javax.imageio.ImageIO;
+
+/**
+ * Decodes scene backgrounds and hotspot art off the EDT and keeps them ready
+ * to paint.
+ *
+ * <p>Images are read on a small pool of daemon "asset-decoder" threads,
+ * converted to an image compatible with the screen (so painting them is a
+ * plain copy) and scaled once to the size they are drawn at. Results live in
+ * an LRU cache bounded by decoded bytes, set with
+ * {@code -Dmoonlight.assets.cacheMB} (default 64). An image that cannot be
+ * read is remembered as missing, so it is reported and tried once rather than
+ * on every paint.</p>
+ *
+ * <p>{@link #prefetch} warms the cache for scenes the player can walk to next,
+ * so a scene change paints its background straight away instead of waiting on
+ * a decode. Metrics: {@code assets.lookups.hit}, {@code assets.lookups.miss},
+ * {@code assets.cache.hitRatePercent}, {@code assets.cache.bytes} and the
+ * {@code assets.decode} histogram.</p>
+ */
+public class AssetPipeline {
+    private static final LatencyHistogram DECODE_LATENCY = Metrics.histogram("assets.decode");
+    private static final LongAdder HITS = Metrics.counter("assets.lookups.hit");
+    private static final LongAdder MISSES = Metrics.counter("assets.lookups.miss");
+    private static final LongAdder DECODE_FAILURES = Metrics.counter("assets.decode.failed");
+
+    private static final BufferedImage MISSING = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB); // Cached for a failed decode
+
+    private static AssetPipeline shared;
+
+    /** What an image is cached under: the file and the size it is drawn at. */
+    private static final class Key {
+        String path;
+        int width, height;
+
+        Key(String path, int width, int height) { set(path, width, height); }
+
+        Key set(String path, int width, int height) {
+            this.path = path;
+            this.width = width;
+            this.height = height;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return width == k.width && height == k.height && path.equals(k.path);
+        }
+
+        @Override
+        public int hashCode() { return (path.hashCode() * 31 + width) * 31 + height; }
+    }
+
+    private final long maxBytes;
+    private final ExecutorService decoders;
+
+    // Guarded by this: decoded images in access order, and decodes in flight with who is waiting
+    private final LinkedHashMap<Key, BufferedImage> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<Key, Runnable> pending = new HashMap<>();
+    private final Key probe = new Key(null, 0, 0); // Reused for lookups so painting does not allocate
+    private long cachedBytes;
+
+    /**
+     * @param maxBytes the most decoded image data to keep
+     * @param threads how many decoder threads to run
+     */
+    public AssetPipeline(long maxBytes, int threads) {
+        this.maxBytes = maxBytes;
+        this.decoders = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "asset-decoder");
+            t.setDaemon(true);
+            t.setPriority(Thread.NORM_PRIORITY - 1);
+            return t;
+        });
+    }
+
+    /**
+     * Returns the pipeline shared by every view, creating it on first use. The
+     * cache survives returning to the main menu.
+     *
+     * @return The shared pipeline.
+     */
+    public static synchronized AssetPipeline shared() {
+        if (shared == null) {
+            long mb = Long.getLong("moonlight.assets.cacheMB", 64);
+            int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+            shared = new AssetPipeline(mb * 1024 * 1024, threads);
+
+            AssetPipeline p = shared;
+            Metrics.gauge("assets.cache.bytes", () -> { synchronized (p) { return p.cachedBytes; } });
+            Metrics.gauge("assets.cache.hitRatePercent", () -> {
+                long hits = HITS.sum(), total = hits + MISSES.sum();
+                return total == 0 ? 0 : hits * 100 / total;
+            });
+        }
+        return shared;
+    }
+
+    /**
+     * Looks an image up for display and counts whether it was ready. If it is
+     * not, a decode is started and {@code whenReady} runs (on a decoder
+     * thread) once it is.
+     *
+     * @param path Image file, on the classpath or file system.
+     * @param width Width it will be drawn at.
+     * @param height Height it will be drawn at.
+     * @param whenReady Called after a missing image has been decoded.
+     * @return The image, or {@code null} while it is still decoding.
+     */
+    public BufferedImage lookup(String path, int width, int height, Runnable whenReady) {
+        if (path == null || width <= 0 || height <= 0) return null; // Nothing to show yet
+        BufferedImage image;
+        synchronized (this) {
+            image = cache.get(probe.set(path, width, height));
+        }
+        if (image == MISSING) return null; // Already reported; not tried again
+        if (image != null) {
+            HITS.increment();
+        } else {
+            MISSES.increment();
+            load(path, width, height, whenReady);
+        }
+        return image;
+    }
+
+    /**
+     * Returns a cached image without counting a lookup or starting a decode.
+     * Used while painting.
+     *
+     * @param path Image file.
+     * @param width Width it will be drawn at.
+     * @param height Height it will be drawn at.
+     * @return The image, or {@code null} if it is not cached.
+     */
+    public synchronized BufferedImage peek(String path, int width, int height) {
+        BufferedImage image = cache.get(probe.set(path, width, height));
+        return image == MISSING ? null : image;
+    }
+
+    /**
+     * Starts decoding an image the player may need soon, unless it is cached
+     * or already on its way.
+     *
+     * @param path Image file.
+     * @param width Width it will be drawn at.
+     * @param height Height it will be drawn at.
+     */
+    public void prefetch(String path, int width, int height) {
+        load(path, width, height, null);
+    }
+
+    private void load(String path, int width, int height, Runnable whenReady) {
+        if (path == null || width <= 0 || height <= 0) return;
+        Key key;
+        synchronized (this) {
+            BufferedImage cached = cache.get(probe.set(path, width, height));
+            if (cached != null) {
+                if (whenReady != null && cached != MISSING) whenReady.run();
+                return;
+            }
+            key = new Key(path, width, height);
+            if (pending.containsKey(key)) {
+                if (whenReady != null) pending.merge(key, whenReady, AssetPipeline::both);
+                return;
+            }
+            pending.put(key, whenReady == null ? () -> { } : whenReady);
+        }
+        decoders.execute(() -> decode(key, path, width, height));
+    }
+
+    private void decode(Key key, String path, int width, int height) {
+        long start = System.nanoTime();
+        BufferedImage image = null;
+        Runnable waiting;
+        try {
+            BufferedImage source = read(path);
+            if (source != null) {
+                image = scaled(source, width, height);
+            } else {
+                System.err.println("Asset not found or not an image: " + path);
+            }
+        } catch (IOException | RuntimeException e) { // Image readers throw unchecked exceptions on corrupt files
+            System.err.println("Could not decode " + path + ": " + e);
+        } finally {
+            // Whatever happened, the decode is over: cache the result or that there is none
+            if (image == null) DECODE_FAILURES.increment();
+            DECODE_LATENCY.recordSince(start);
+            synchronized (this) {
+                waiting = pending.remove(key);
+                put(key, image != null ? image : MISSING);
+            }
+        }
+        if (image != null && waiting != null) waiting.run();
+    }
+
+    // Same lookup order as GameDataLoader: classpath first, then the file system.
+    private BufferedImage read(String path) throws IOException {
+        InputStream in = getClass().getClassLoader().getResourceAsStream(path);
+        if (in != null) {
+            try (InputStream stream = in) {
+                return ImageIO.read(stream);
+            }
+        }
+        File file = new File(path);
+        return file.isFile() ? ImageIO.read(file) : null;
+    }
+
+    private static BufferedImage scaled(BufferedImage source, int width, int height) {
+        int transparency = source.getColorModel().getTransparency();
+        BufferedImage target;
+        if (GraphicsEnvironment.isHeadless()) {
+            target = new BufferedImage(width, height,
+                    transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        } else {
+            GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            target = gc.createCompatibleImage(width, height, transparency);
+        }
+        Graphics2D g2 = target.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g2.drawImage(source, 0, 0, width, height, null);
+        g2.dispose();
+        return target;
+    }
+
+    private void put(Key key, BufferedImage image) {
+        long size = bytes(image);
+        if (size > maxBytes) return; // Would evict everything else and still not fit
+        cache.put(key, image);
+        cachedBytes += size;
+        Iterator<BufferedImage> eldest = cache.values().iterator();
+        while (cachedBytes > maxBytes && eldest.hasNext()) {
+            cachedBytes -= bytes(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    private static long bytes(BufferedImage image) {
+        return (long) image.getWidth() * image.getHeight() * Math.max(1, image.getColorModel().getPixelSize() / 8);
+    }
+
+    private static Runnable both(Runnable a, Runnable b) {
+        return () -> {
+            a.run();
+            b.run();
+        };
+    }
+}
@@ -0,0 +1,344 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.prefs.Preferences;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Plays the game's sound effects and music.
+ *
+ * <p>A single "audio-mixer" thread mixes every active voice into one small
+ * period (220 frames, 5 ms) at a time and writes it to a
+ * {@link SourceDataLine} whose buffer holds only a few periods, so a sound
+ * starts within 20 ms of {@link #play(Sound)}. All mixing buffers and
+ * voices are allocated up front; the mixer allocates nothing per period.</p>
+ *
+ * <p>Effects are decoded once into PCM when the engine starts: from
+ * {@code sounds/<name>.wav} if present, otherwise synthesized. Music is
+ * streamed in chunks from {@code -Dmoonlight.music=<file>} (or
+ * {@code music.wav}) by a feeder thread into a ring buffer the mixer reads.</p>
+ *
+ * <p>The music and effects buses each have a gain, bound to the Settings
+ * sliders and remembered between runs. If no audio device is available the
+ * engine stays silent. Metrics: {@code audio.latency} (from {@link #play} to
+ * the sound reaching the speaker), {@code audio.mix} and
+ * {@code audio.underruns}.</p>
+ */
+public class AudioEngine implements Runnable {
+    private static final LatencyHistogram PLAY_LATENCY = Metrics.histogram("audio.latency");
+    private static final LatencyHistogram MIX_LATENCY = Metrics.histogram("audio.mix");
+    private static final LongAdder UNDERRUNS = Metrics.counter("audio.underruns");
+
+    /** The sound effects the game uses. */
+    public enum Sound { CLICK, BEEP, CLUNK, CHIME }
+
+    /** Mixer buses, each with its own gain. */
+    public enum Bus { MUSIC, SFX }
+
+    static final float SAMPLE_RATE = 44100f;
+    static final int PERIOD_FRAMES = 220; // 5 ms
+    static final int LINE_PERIODS = 3;
+    static final int MAX_VOICES = 16;
+    private static final int MUSIC_RING_FRAMES = 1 << 16; // About 1.5 seconds
+    private static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16, 1, true, false);
+
+    private static AudioEngine installed;
+
+    /** One effect being played. Voices are reused; only the mixer touches them. */
+    private static final class Voice {
+        short[] pcm;
+        int position;
+    }
+
+    /** A request to start an effect, handed from the caller's thread to the mixer. */
+    private static final class Trigger {
+        final Sound sound;
+        final long requestedNanos;
+
+        Trigger(Sound sound, long requestedNanos) {
+            this.sound = sound;
+            this.requestedNanos = requestedNanos;
+        }
+    }
+
+    private final Preferences prefs = Preferences.userRoot().node("moonlight-manor/audio");
+    private final short[][] effects = new short[Sound.values().length][];
+    private final ArrayBlockingQueue<Trigger> triggers = new ArrayBlockingQueue<>(64);
+    private final Voice[] voices = new Voice[MAX_VOICES];
+    private final int[] mix = new int[PERIOD_FRAMES];
+    private final byte[] out = new byte[PERIOD_FRAMES * 2];
+    private volatile float musicGain;
+    private volatile float sfxGain;
+
+    // Music ring buffer: the feeder thread writes, the mixer reads
+    private final short[] musicRing = new short[MUSIC_RING_FRAMES];
+    private final AtomicLong musicWritten = new AtomicLong();
+    private final AtomicLong musicRead = new AtomicLong();
+
+    private SourceDataLine line;
+
+    AudioEngine() {
+        for (int i = 0; i < voices.length; i++) voices[i] = new Voice();
+        musicGain = prefs.getInt(Bus.MUSIC.name(), 50) / 100f;
+        sfxGain = prefs.getInt(Bus.SFX.name(), 50) / 100f;
+        for (Sound s : Sound.values()) {
+            effects[s.ordinal()] = load(s);
+        }
+    }
+
+    /**
+     * Opens the audio device and starts the mixer and music threads. Safe to
+     * call more than once; without an audio device the game runs silently.
+     */
+    public static synchronized void install() {
+        if (installed != null) return;
+        installed = new AudioEngine();
+        try {
+            installed.open();
+        } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+            System.err.println("Audio disabled: " + e.getMessage());
+        }
+    }
+
+    /** @return the installed engine, or {@code null} before {@link #install()}. */
+    public static AudioEngine get() { return installed; }
+
+    /**
+     * Plays an effect through the installed engine, if any. Cheap enough to call
+     * straight from an input handler.
+     *
+     * @param sound The effect.
+     */
+    public static void play(Sound sound) {
+        AudioEngine engine = installed;
+        if (engine != null && engine.line != null) {
+            engine.trigger(sound);
+        }
+    }
+
+    /** Hands an effect to the mixer; it starts with the next period. */
+    void trigger(Sound sound) {
+        triggers.offer(new Trigger(sound, System.nanoTime())); // Dropped if 64 are already waiting
+    }
+
+    /**
+     * Returns a bus gain as a slider value.
+     *
+     * @param bus The bus.
+     * @return The gain, 0 to 100.
+     */
+    public int getVolume(Bus bus) {
+        return Math.round((bus == Bus.MUSIC ? musicGain : sfxGain) * 100);
+    }
+
+    /**
+     * Sets a bus gain and remembers it for the next run.
+     *
+     * @param bus The bus.
+     * @param volume The gain, 0 to 100.
+     */
+    public void setVolume(Bus bus, int volume) {
+        int v = Math.max(0, Math.min(100, volume));
+        if (bus == Bus.MUSIC) musicGain = v / 100f;
+        else sfxGain = v / 100f;
+        prefs.putInt(bus.name(), v);
+    }
+
+    private void open() throws LineUnavailableException {
+        line = AudioSystem.getSourceDataLine(FORMAT);
+        line.open(FORMAT, PERIOD_FRAMES * 2 * LINE_PERIODS);
+        line.start();
+
+        Thread mixer = new Thread(this, "audio-mixer");
+        mixer.setDaemon(true);
+        mixer.setPriority(Thread.MAX_PRIORITY);
+        mixer.start();
+
+        File music = new File(System.getProperty("moonlight.music", "music.wav"));
+        if (music.isFile()) {
+            Thread feeder = new Thread(() -> streamMusic(music), "audio-music");
+            feeder.setDaemon(true);
+            feeder.start();
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            long start = System.nanoTime();
+            mixPeriod(start);
+            MIX_LATENCY.recordSince(start);
+
+            if (line.available() >= line.getBufferSize()) UNDERRUNS.increment(); // The device ran dry
+            line.write(out, 0, out.length); // Blocks until there is room, which paces the loop
+        }
+    }
+
+    /**
+     * Mixes one period of every active voice and the music into {@link #out}.
+     * Allocates nothing.
+     */
+    void mixPeriod(long now) {
+        startTriggeredVoices(now);
+        Arrays.fill(mix, 0);
+
+        float sfx = sfxGain;
+        for (Voice v : voices) {
+            if (v.pcm == null) continue;
+            int n = Math.min(PERIOD_FRAMES, v.pcm.length - v.position);
+            for (int i = 0; i < n; i++) {
+                mix[i] += (int) (v.pcm[v.position + i] * sfx);
+            }
+            v.position += n;
+            if (v.position >= v.pcm.length) v.pcm = null;
+        }
+
+        long read = musicRead.get();
+        int available = (int) Math.min(PERIOD_FRAMES, musicWritten.get() - read);
+        float music = musicGain;
+        for (int i = 0; i < available; i++) {
+            mix[i] += (int) (musicRing[(int) ((read + i) & (MUSIC_RING_FRAMES - 1))] * music);
+        }
+        musicRead.set(read + available);
+
+        for (int i = 0; i < PERIOD_FRAMES; i++) {
+            int s = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i]));
+            out[2 * i] = (byte) s;
+            out[2 * i + 1] = (byte) (s >> 8);
+        }
+    }
+
+    private void startTriggeredVoices(long now) {
+        Trigger t;
+        while ((t = triggers.peek()) != null) {
+            Voice free = null;
+            for (Voice v : voices) {
+                if (v.pcm == null) {
+                    free = v;
+                    break;
+                }
+            }
+            if (free == null) return; // All voices busy: this trigger and later ones wait for the next period
+
+            triggers.poll(); // The mixer is the only consumer, so this is the trigger peeked at
+            free.pcm = effects[t.sound.ordinal()];
+            free.position = 0;
+            recordLatency(t.requestedNanos, now);
+        }
+    }
+
+    // Time until the first sample is heard: the wait for this period, plus what is still queued in the line.
+    private void recordLatency(long requestedNanos, long mixStart) {
+        if (line == null) return;
+        int queuedFrames = (line.getBufferSize() - line.available()) / 2;
+        long queuedNanos = (long) (queuedFrames * 1_000_000_000L / SAMPLE_RATE);
+        PLAY_LATENCY.record(mixStart - requestedNanos + queuedNanos);
+    }
+
+    private void streamMusic(File file) {
+        short[] chunk = new short[PERIOD_FRAMES * 8];
+        byte[] bytes = new byte[chunk.length * 2];
+        while (true) {
+            try (AudioInputStream in = AudioSystem.getAudioInputStream(FORMAT, AudioSystem.getAudioInputStream(file))) {
+                int n;
+                while ((n = readFully(in, bytes)) > 0) {
+                    int frames = n / 2;
+                    for (int i = 0; i < frames; i++) {
+                        chunk[i] = (short) ((bytes[2 * i] & 0xff) | (bytes[2 * i + 1] << 8));
+                    }
+                    // Wait for room in the ring, then append the chunk
+                    while (musicWritten.get() - musicRead.get() > MUSIC_RING_FRAMES - frames) {
+                        Thread.sleep(20);
+                    }
+                    long w = musicWritten.get();
+                    for (int i = 0; i < frames; i++) {
+                        musicRing[(int) ((w + i) & (MUSIC_RING_FRAMES - 1))] = chunk[i];
+                    }
+                    musicWritten.set(w + frames);
+                }
+            } catch (IOException | UnsupportedAudioFileException | IllegalArgumentException e) {
+                System.err.println("Music disabled: " + e.getMessage());
+                return;
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private static int readFully(InputStream in, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int n = in.read(buffer, total, buffer.length - total);
+            if (n < 0) break;
+            total += n;
+        }
+        return total - total % 2;
+    }
+
+    // --- Effects: decoded once, from sounds/<name>.wav or synthesized ---
+
+    private static short[] load(Sound sound) {
+        File file = new File("sounds", sound.name().toLowerCase() + ".wav");
+        if (file.isFile()) {
+            try (AudioInputStream in = AudioSystem.getAudioInputStream(FORMAT, AudioSystem.getAudioInputStream(file))) {
+                byte[] bytes = in.readAllBytes();
+                short[] pcm = new short[bytes.length / 2];
+                for (int i = 0; i < pcm.length; i++) {
+                    pcm[i] = (short) ((bytes[2 * i] & 0xff) | (bytes[2 * i + 1] << 8));
+                }
+                return pcm;
+            } catch (IOException | UnsupportedAudioFileException | IllegalArgumentException e) {
+                System.err.println("Could not decode " + file + ", using the built-in sound: " + e.getMessage());
+            }
+        }
+        return synthesize(sound);
+    }
+
+    static short[] synthesize(Sound sound) {
+        switch (sound) {
+            case CLICK: return tone(new double[] {2200}, 0.012, 0.35, 400);
+            case BEEP: return tone(new double[] {1000}, 0.08, 0.4, 30);
+            case CLUNK: return tone(new double[] {90, 140}, 0.16, 0.6, 25);
+            default: {
+                // Rising C-E-G arpeggio
+                short[] c = tone(new double[] {523.25}, 0.5, 0.3, 6);
+                short[] e = tone(new double[] {659.25}, 0.45, 0.3, 6);
+                short[] g = tone(new double[] {783.99}, 0.4, 0.3, 6);
+                int step = (int) (0.09 * SAMPLE_RATE);
+                short[] chime = new short[2 * step + g.length];
+                addInto(chime, c, 0);
+                addInto(chime, e, step);
+                addInto(chime, g, 2 * step);
+                return chime;
+            }
+        }
+    }
+
+    // Sum of sines with an exponential decay; decay is per second.
+    private static short[] tone(double[] freqs, double seconds, double amplitude, double decay) {
+        short[] pcm = new short[(int) (seconds * SAMPLE_RATE)];
+        for (int i = 0; i < pcm.length; i++) {
+            double t = i / SAMPLE_RATE;
+            double v = 0;
+            for (double f : freqs) v += Math.sin(2 * Math.PI * f * t);
+            double attack = Math.min(1, i / 64.0); // Avoids a click at the start
+            pcm[i] = (short) (Short.MAX_VALUE * amplitude * attack * Math.exp(-decay * t) * v / freqs.length);
+        }
+        return pcm;
+    }
+
+    private static void addInto(short[] target, short[] source, int offset) {
+        for (int i = 0; i < source.length && offset + i < target.length; i++) {
+            target[offset + i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, target[offset + i] + source[i]));
+        }
+    }
+}
@@ -0,0 +1,179 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adds up {@link ClickLog} files into where players click and where they get
+ * stuck: for each scene a fixed grid of click counts over the play area, the
+ * clicks that hit nothing, and for each hotspot how many of its clicks did
+ * nothing (no interaction, or the wrong item).
+ *
+ * <p>Every record is a fixed size and is read straight out of the file's
+ * bytes; each file's symbols are looked up once, when they are defined, so a
+ * click costs a few array reads and increments. Millions of clicks a second
+ * on one core, which is what lets the {@link PlayPanel} overlay (F4) rebuild
+ * from the whole log each time it is shown.</p>
+ *
+ * <pre>
+ * java -cp target/moonlight-manor-1.0.jar:gson-2.10.1.jar ClickHeatmap [analytics folder]
+ * </pre>
+ */
+public final class ClickHeatmap {
+    static final int CELL = 16;                 // Play-area pixels per grid cell
+    static final int COLUMNS = 64;              // 1024 pixels across
+    static final int ROWS = 48;                 // 768 down
+
+    /** One scene's clicks. */
+    static final class SceneStats {
+        final String id;
+        final int[] cells = new int[COLUMNS * ROWS];
+        int clicks, misses, hottest;
+        final Map<String, HotspotStats> hotspots = new HashMap<>();
+
+        SceneStats(String id) { this.id = id; }
+
+        /** @return the share of clicks in the scene that hit no hotspot. */
+        double missRate() { return clicks == 0 ? 0 : (double) misses / clicks; }
+
+        HotspotStats hotspot(String hotspotId) {
+            return hotspots.computeIfAbsent(hotspotId, h -> new HotspotStats(h, this));
+        }
+    }
+
+    /** One hotspot's clicks. */
+    static final class HotspotStats {
+        final String id;
+        final SceneStats scene;
+        int clicks, fruitless;
+
+        HotspotStats(String id, SceneStats scene) {
+            this.id = id;
+            this.scene = scene;
+        }
+
+        /** @return the share of its clicks that did nothing. */
+        double missRate() { return clicks == 0 ? 0 : (double) fruitless / clicks; }
+    }
+
+    private final Map<String, SceneStats> scenes = new HashMap<>();
+    private long clicks;
+
+    /**
+     * Reads every log file in a folder.
+     *
+     * @param dir The analytics folder.
+     * @return The totals; empty if there is no log yet.
+     */
+    static ClickHeatmap read(Path dir) throws IOException {
+        ClickHeatmap map = new ClickHeatmap();
+        for (Path file : ClickLog.files(dir)) map.add(ByteBuffer.wrap(Files.readAllBytes(file)));
+        return map;
+    }
+
+    /** @return the clicks added so far. */
+    long clicks() { return clicks; }
+
+    /** @return a scene's totals, or null if it has no clicks. */
+    SceneStats scene(String id) { return scenes.get(id); }
+
+    /** @return every scene with clicks. */
+    List<SceneStats> scenes() { return new ArrayList<>(scenes.values()); }
+
+    /**
+     * Adds one log file. A file cut short, e.g. by a crash while it was being
+     * written, counts up to its last whole record.
+     *
+     * @param file The file's bytes, big-endian as written.
+     */
+    void add(ByteBuffer file) {
+        if (file.remaining() < ClickLog.HEADER_BYTES || file.getInt(file.position()) != ClickLog.MAGIC
+                || file.getInt(file.position() + 4) != ClickLog.VERSION) {
+            System.err.println("Analytics: not a click log, skipped");
+            return;
+        }
+        // This file's symbols, resolved as they are defined
+        String[] names = new String[64];
+        SceneStats[] sceneOf = new SceneStats[64];
+        HotspotStats[] hotspotOf = new HotspotStats[64];
+
+        int at = file.position() + ClickLog.HEADER_BYTES;
+        int end = file.limit();
+        while (at < end) {
+            int type = file.get(at);
+            if (type == ClickLog.CLICK) {
+                if (at + ClickLog.CLICK_BYTES > end) break;
+                int outcome = file.get(at + 1);
+                int scene = file.getShort(at + 2) & 0xFFFF;
+                int hotspot = file.getShort(at + 4) & 0xFFFF;
+                int x = file.getShort(at + 8) & 0xFFFF;
+                int y = file.getShort(at + 10) & 0xFFFF;
+                at += ClickLog.CLICK_BYTES;
+                if (scene == 0 || scene >= names.length || names[scene] == null) continue;
+
+                SceneStats s = sceneOf[scene];
+                if (s == null) s = sceneOf[scene] = scenes.computeIfAbsent(names[scene], SceneStats::new);
+                s.clicks++;
+                clicks++;
+                int col = x / CELL, row = y / CELL;
+                if (col < COLUMNS && row < ROWS) {
+                    int n = ++s.cells[row * COLUMNS + col];
+                    if (n > s.hottest) s.hottest = n;
+                }
+                if (outcome == ClickLog.Outcome.MISS.ordinal()) {
+                    s.misses++;
+                } else if (hotspot != 0 && hotspot < names.length && names[hotspot] != null) {
+                    HotspotStats h = hotspotOf[hotspot];
+                    if (h == null || h.scene != s) h = hotspotOf[hotspot] = s.hotspot(names[hotspot]);
+                    h.clicks++;
+                    if (outcome == ClickLog.Outcome.NOTHING.ordinal()) h.fruitless++;
+                }
+            } else if (type == ClickLog.DEFINE) {
+                if (at + 5 > end) break;
+                int symbol = file.getShort(at + 1) & 0xFFFF;
+                int length = file.getShort(at + 3) & 0xFFFF;
+                if (at + 5 + length > end) break;
+                if (symbol >= names.length) {
+                    int size = Math.max(symbol + 1, names.length * 2);
+                    names = Arrays.copyOf(names, size);
+                    sceneOf = Arrays.copyOf(sceneOf, size);
+                    hotspotOf = Arrays.copyOf(hotspotOf, size);
+                }
+                byte[] bytes = new byte[length];
+                file.get(at + 5, bytes);
+                names[symbol] = new String(bytes, StandardCharsets.UTF_8);
+                at += 5 + length;
+            } else {
+                System.err.println("Analytics: unknown record " + type + ", rest of file skipped");
+                break;
+            }
+        }
+    }
+
+    /** Prints each scene's clicks and misses, and the hotspots that most often do nothing. */
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get(args.length > 0 ? args[0] : System.getProperty("moonlight.analytics", "analytics"));
+        long start = System.nanoTime();
+        ClickHeatmap map = read(dir);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d clicks from %s in %.3f s%n", map.clicks(), dir.toAbsolutePath(), seconds);
+
+        List<SceneStats> scenes = map.scenes();
+        scenes.sort((a, b) -> Integer.compare(b.clicks, a.clicks));
+        for (SceneStats s : scenes) {
+            System.out.printf("%-28s %7d clicks %5.1f%% on nothing%n", s.id, s.clicks, 100 * s.missRate());
+            List<HotspotStats> hotspots = new ArrayList<>(s.hotspots.values());
+            hotspots.sort((a, b) -> Double.compare(b.missRate(), a.missRate()));
+            for (HotspotStats h : hotspots) {
+                System.out.printf("    %-24s %7d clicks %5.1f%% did nothing%n", h.id, h.clicks, 100 * h.missRate());
+            }
+        }
+    }
+}
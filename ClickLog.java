@@ -0,0 +1,346 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local gameplay analytics: every click the game resolves, written to a
+ * rotating binary log so {@link ClickHeatmap} can show where players click and
+ * where they get stuck. Nothing leaves the machine.
+ *
+ * <p>{@link #install()} turns it on for the window game, writing to the
+ * {@code analytics} folder, or to the folder named by
+ * {@code -Dmoonlight.analytics=<dir>}; {@code -Dmoonlight.analytics=off}
+ * turns it off. Tools and tests that never install it record nothing.</p>
+ *
+ * <p>{@link #record} runs on the game-logic thread and only fills a slot of
+ * a preallocated batch: a packed {@code long} and three references to ids the
+ * content already holds. Full batches, and once a second whatever has been
+ * recorded, go to a daemon "click-log" thread that encodes and appends them;
+ * batches are then reused. If the disk falls behind, batches are dropped and
+ * counted rather than queued without end. The EDT is never involved.</p>
+ *
+ * <p>Each file ({@code clicks-<start millis>.mmcl}, or {@code -2}, {@code -3}
+ * ... before the suffix for another started the same millisecond; at most
+ * {@value #FILE_BYTES} bytes, the newest {@value #FILES} kept) starts with a
+ * 16-byte header: magic {@code "MMCL"}, format version, and the wall-clock
+ * millis it was started at. Records follow, big-endian:</p>
+ * <pre>
+ * DEFINE  u8 0, u16 symbol, u16 length, UTF-8 bytes     names an id the first time a file uses it
+ * CLICK   u8 1, u8 outcome, u16 scene, u16 hotspot, u16 item, u16 x, u16 y, u32 millis since the file started
+ * </pre>
+ * <p>Symbol 0 means none: a miss has no hotspot, and most clicks no item.</p>
+ */
+final class ClickLog {
+    /** What a click came to. */
+    enum Outcome {
+        MISS,       // No hotspot there: "Nothing here."
+        NOTHING,    // A hotspot with nothing to do, or the wrong item
+        EXAMINE,
+        PICKUP,
+        USE
+    }
+
+    static final int MAGIC = 0x4D4D434C; // "MMCL"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int DEFINE = 0;
+    static final int CLICK = 1;
+    static final int CLICK_BYTES = 16;
+    static final String SUFFIX = ".mmcl";
+
+    private static final int BATCH = 1024;
+    private static final int MAX_PENDING = 16;      // Batches waiting for the writer before new ones are dropped
+    private static final long FILE_BYTES = 4 << 20;
+    private static final int FILES = 8;
+    private static final long FLUSH_MILLIS = 1000;
+    private static final int MAX_ID_BYTES = 1024;
+
+    private static final LongAdder RECORDED = Metrics.counter("analytics.clicks");
+    private static final LongAdder DROPPED = Metrics.counter("analytics.dropped");
+    private static final LatencyHistogram WRITE_LATENCY = Metrics.histogram("analytics.writeBatch");
+
+    private static volatile ClickLog installed;
+
+    /** Clicks waiting to be written: a packed outcome, point and time, and the ids involved. */
+    private static final class Batch {
+        final long[] packed = new long[BATCH];
+        final String[] scene = new String[BATCH];
+        final String[] hotspot = new String[BATCH];
+        final String[] item = new String[BATCH];
+        int size;
+    }
+
+    private final Path dir;
+    private final long originMillis = System.currentTimeMillis();
+    private final long originNanos = System.nanoTime();
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "click-log");
+        t.setDaemon(true);
+        t.setPriority(Thread.NORM_PRIORITY - 1);
+        return t;
+    });
+    private final ArrayBlockingQueue<Batch> free = new ArrayBlockingQueue<>(MAX_PENDING);
+    private final AtomicInteger pending = new AtomicInteger();
+    private Batch current = new Batch(); // Guarded by this
+
+    // The writer thread's file, and the symbols it has defined in it
+    private FileChannel out;
+    private long fileStartMillis;
+    private long fileBytes;
+    private final Map<String, Integer> symbols = new HashMap<>();
+    private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+    private ClickLog(Path dir) {
+        this.dir = dir;
+        writer.scheduleWithFixedDelay(this::flush, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts logging as the {@code moonlight.analytics} property says. Safe to
+     * call more than once.
+     */
+    static synchronized void install() {
+        if (installed != null) return;
+        String where = System.getProperty("moonlight.analytics", "analytics");
+        if (where.isEmpty() || where.equalsIgnoreCase("off")) return;
+        ClickLog log = new ClickLog(Paths.get(where));
+        Runtime.getRuntime().addShutdownHook(new Thread(log::close, "click-log-close"));
+        installed = log;
+    }
+
+    /** @return the installed log, or null when analytics are off. */
+    static ClickLog get() { return installed; }
+
+    /** @return the folder the log is written to. */
+    Path directory() { return dir; }
+
+    /**
+     * Records one resolved click. Called on the game-logic thread.
+     *
+     * @param outcome What it came to.
+     * @param scene The scene it was made in.
+     * @param x Where, in play-area pixels.
+     * @param y Where, in play-area pixels.
+     * @param hotspot The hotspot hit, or null for a miss.
+     * @param item The item selected at the time, or null.
+     */
+    void record(Outcome outcome, Scene scene, int x, int y, Hotspot hotspot, Item item) {
+        long millis = (System.nanoTime() - originNanos) / 1_000_000;
+        long packed = (long) clamp(x) | (long) clamp(y) << 16 | (long) outcome.ordinal() << 32 | millis << 35;
+        Batch full = null;
+        synchronized (this) {
+            Batch b = current;
+            int i = b.size++;
+            b.packed[i] = packed;
+            b.scene[i] = scene == null ? null : scene.id;
+            b.hotspot[i] = hotspot == null ? null : hotspot.id;
+            b.item[i] = item == null ? null : item.id;
+            if (b.size == BATCH) {
+                full = b;
+                current = fresh();
+            }
+        }
+        RECORDED.increment();
+        if (full != null) submit(full);
+    }
+
+    /**
+     * Hands whatever has been recorded to the writer and waits for it to be on disk.
+     */
+    void sync() {
+        try {
+            writer.submit(this::flush).get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            System.err.println("Analytics: could not flush the click log: " + e);
+        }
+    }
+
+    private static int clamp(int v) { return Math.max(0, Math.min(0xFFFF, v)); }
+
+    private Batch fresh() {
+        Batch b = free.poll();
+        return b != null ? b : new Batch();
+    }
+
+    private void submit(Batch b) {
+        if (pending.incrementAndGet() > MAX_PENDING) {
+            pending.decrementAndGet();
+            DROPPED.add(b.size);
+            recycle(b);
+            return;
+        }
+        writer.execute(() -> {
+            pending.decrementAndGet();
+            write(b);
+        });
+    }
+
+    private void recycle(Batch b) {
+        b.size = 0;
+        Arrays.fill(b.scene, null);
+        Arrays.fill(b.hotspot, null);
+        Arrays.fill(b.item, null);
+        free.offer(b);
+    }
+
+    // --- On the writer thread ---
+
+    private void flush() {
+        Batch b;
+        synchronized (this) {
+            if (current.size == 0) return;
+            b = current;
+            current = fresh();
+        }
+        write(b);
+    }
+
+    private void write(Batch b) {
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < b.size; i++) {
+                long clickMillis = originMillis + (b.packed[i] >>> 35);
+                if (out == null || fileBytes + buffer.position() >= FILE_BYTES || symbols.size() > 0xFFF0) {
+                    if (out != null) drain();
+                    rotate(clickMillis);
+                }
+                int scene = symbol(b.scene[i]);
+                int hotspot = symbol(b.hotspot[i]);
+                int item = symbol(b.item[i]);
+                long p = b.packed[i];
+                ensure(CLICK_BYTES);
+                buffer.put((byte) CLICK).put((byte) (p >>> 32 & 7))
+                        .putShort((short) scene).putShort((short) hotspot).putShort((short) item)
+                        .putShort((short) p).putShort((short) (p >>> 16))
+                        .putInt((int) Math.max(0, Math.min(0xFFFFFFFFL, clickMillis - fileStartMillis)));
+            }
+            drain();
+        } catch (IOException e) {
+            DROPPED.add(b.size);
+            System.err.println("Analytics: could not write the click log: " + e.getMessage());
+            closeFile();
+        } finally {
+            buffer.clear();
+            recycle(b);
+            WRITE_LATENCY.recordSince(start);
+        }
+    }
+
+    // The symbol for an id in the current file, defining it there the first time
+    private int symbol(String id) throws IOException {
+        if (id == null) return 0;
+        Integer s = symbols.get(id);
+        if (s != null) return s;
+        int n = symbols.size() + 1;
+        symbols.put(id, n);
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_ID_BYTES);
+        ensure(5 + length);
+        buffer.put((byte) DEFINE).putShort((short) n).putShort((short) length).put(bytes, 0, length);
+        return n;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) drain();
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) fileBytes += out.write(buffer);
+        buffer.clear();
+    }
+
+    private void rotate(long startMillis) throws IOException {
+        closeFile();
+        Files.createDirectories(dir);
+        fileStartMillis = startMillis;
+        for (int n = 1; out == null; n++) {
+            Path file = dir.resolve("clicks-" + startMillis + (n == 1 ? "" : "-" + n) + SUFFIX);
+            try {
+                out = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            } catch (FileAlreadyExistsException e) {
+                // Another file started this millisecond; never overwrite it
+            }
+        }
+        fileBytes = 0;
+        symbols.clear();
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(startMillis);
+        drain();
+
+        List<Path> files = files(dir);
+        for (int i = 0; i < files.size() - FILES; i++) Files.deleteIfExists(files.get(i));
+    }
+
+    private void closeFile() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException e) {
+            System.err.println("Analytics: could not close the click log: " + e.getMessage());
+        }
+        out = null;
+    }
+
+    // Flushes what is left and closes the file; runs at exit
+    private void close() {
+        try {
+            writer.submit(() -> {
+                flush();
+                closeFile();
+            }).get(2, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            System.err.println("Analytics: could not close the click log: " + e);
+        }
+        writer.shutdown();
+    }
+
+    /**
+     * Lists the log files in a folder, oldest first.
+     *
+     * @param dir The folder.
+     * @return Its {@value #SUFFIX} files; none if it does not exist.
+     */
+    static List<Path> files(Path dir) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(dir)) return files;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "clicks-*" + SUFFIX)) {
+            for (Path p : ds) files.add(p);
+        }
+        files.sort((a, b) -> {
+            long[] x = startOf(a), y = startOf(b);
+            return x[0] != y[0] ? Long.compare(x[0], y[0]) : Long.compare(x[1], y[1]);
+        });
+        return files;
+    }
+
+    // The start millis and sequence number in a file's name
+    private static long[] startOf(Path p) {
+        String name = p.getFileName().toString();
+        String start = name.substring("clicks-".length(), name.length() - SUFFIX.length());
+        int dash = start.indexOf('-');
+        try {
+            return dash < 0 ? new long[] {Long.parseLong(start), 1}
+                    : new long[] {Long.parseLong(start.substring(0, dash)), Long.parseLong(start.substring(dash + 1))};
+        } catch (NumberFormatException e) {
+            return new long[] {0, 0};
+        }
+    }
+}
@@ -0,0 +1,151 @@
+import java.util.Arrays;
+
+/**
+ * Shared state engine for the combination-style puzzles (levers and dials).
+ * A lock is made of any number of slots, each showing one of the same set of
+ * symbols. The whole lock position is packed into a single mixed-radix
+ * {@code int}: slot {@code i} contributes {@code digit * radix^i}. With two
+ * symbols (levers) this is simply a bitmask, one bit per lever.
+ *
+ * <p>Moving a slot updates the packed state incrementally, so checking whether
+ * the lock is open is a single integer compare and never allocates.</p>
+ *
+ * <p>Lock codes are written the way content already writes them: symbols
+ * separated by underscores, e.g. {@code DOWN_UP_DOWN} or {@code C_A_D}. An
+ * optional alphabet may follow a slash ({@code C_A_E/A_B_C_D_E}) when the
+ * puzzle needs symbols other than the panel's defaults.</p>
+ */
+public class CombinationLock {
+    private final String[] symbols;
+    private final int radix;
+    private final int[] place;
+    private final int[] digits;
+    private final int target;
+    private int state;
+
+    /**
+     * Builds a lock over the given symbols whose solution is {@code targetDigits}.
+     *
+     * @param symbols The symbols every slot cycles through, in order.
+     * @param targetDigits The solution, one symbol index per slot.
+     * @throws IllegalArgumentException if the lock cannot be packed into an int.
+     */
+    public CombinationLock(String[] symbols, int[] targetDigits) {
+        if (symbols.length < 2) {
+            throw new IllegalArgumentException("A lock needs at least two symbols.");
+        }
+        if (targetDigits.length == 0) {
+            throw new IllegalArgumentException("A lock needs at least one slot.");
+        }
+        this.symbols = symbols;
+        this.radix = symbols.length;
+        this.place = new int[targetDigits.length];
+        this.digits = new int[targetDigits.length];
+
+        long p = 1;
+        int t = 0;
+        for (int i = 0; i < targetDigits.length; i++) {
+            if (p > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many slots for " + radix + " symbols.");
+            }
+            if (targetDigits[i] < 0 || targetDigits[i] >= radix) {
+                throw new IllegalArgumentException("Slot " + i + " is outside the symbol range.");
+            }
+            place[i] = (int) p;
+            t += targetDigits[i] * place[i];
+            p *= radix;
+        }
+        if (p - 1 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many slots for " + radix + " symbols.");
+        }
+        this.target = t;
+    }
+
+    /**
+     * Parses a lock code such as {@code DOWN_UP_DOWN} or {@code C_A_D/A_B_C_D}.
+     *
+     * @param code The code from the START_PUZZLE command.
+     * @param defaultSymbols The symbols to use when the code names no alphabet.
+     * @return A lock whose solution is the given code, reset to all-first-symbol.
+     * @throws IllegalArgumentException if the code uses an unknown symbol.
+     */
+    public static CombinationLock fromCode(String code, String[] defaultSymbols) {
+        String[] symbols = defaultSymbols;
+        String sequence = code;
+        int slash = code.indexOf('/');
+        if (slash >= 0) {
+            sequence = code.substring(0, slash);
+            symbols = code.substring(slash + 1).split("_");
+        }
+
+        String[] parts = sequence.split("_");
+        int[] digits = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            digits[i] = indexOf(symbols, parts[i]);
+            if (digits[i] < 0) {
+                throw new IllegalArgumentException("Unknown symbol '" + parts[i] + "' in lock code " + code);
+            }
+        }
+        return new CombinationLock(symbols, digits);
+    }
+
+    private static int indexOf(String[] symbols, String s) {
+        for (int i = 0; i < symbols.length; i++) {
+            if (symbols[i].equals(s)) return i;
+        }
+        return -1;
+    }
+
+    /** Returns every slot to the first symbol. */
+    public void reset() {
+        state = 0;
+        Arrays.fill(digits, 0);
+    }
+
+    /**
+     * Moves a slot forward one symbol, wrapping back to the first one.
+     * For a two-symbol lock this toggles the slot's bit.
+     *
+     * @param slot The slot to move.
+     */
+    public void advance(int slot) {
+        if (digits[slot] == radix - 1) {
+            state -= digits[slot] * place[slot];
+            digits[slot] = 0;
+        } else {
+            state += place[slot];
+            digits[slot]++;
+        }
+    }
+
+    /**
+     * @return {@code true} if the packed state equals the solution.
+     */
+    public boolean isSolved() { return state == target; }
+
+    /** @return The number of slots (levers or dials). */
+    public int getSlotCount() { return digits.length; }
+
+    /** @return The symbol index currently shown by a slot. */
+    public int getDigit(int slot) { return digits[slot]; }
+
+    /** @return The symbol currently shown by a slot. */
+    public String getSymbol(int slot) { return symbols[digits[slot]]; }
+
+    /** @return The packed state of the whole lock. */
+    public int getState() { return state; }
+
+    /**
+     * Returns the solution in display form, e.g. "DOWN, UP, DOWN".
+     *
+     * @return The target symbols separated by commas.
+     */
+    public String describeTarget() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < digits.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(symbols[(target / place[i]) % radix]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,242 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+
+/**
+ * A content condition compiled into mask tests over the {@link WorldState}.
+ *
+ * <p>The language, as written in an interaction's {@code "condition"}:</p>
+ * <pre>
+ * has(crypticSymbol) &amp;&amp; !solved(safe)
+ * selected(rustyKey) or (flag(lightsOn) and visited(library))
+ * </pre>
+ * <p>Tests are {@code has(item)}, {@code selected(item)}, {@code flag(name)},
+ * {@code solved(hotspot)} (the hotspot that opened the puzzle),
+ * {@code visited(scene)}, {@code true} and {@code false}; they combine with
+ * {@code !}/{@code not}, {@code &&}/{@code and}, {@code ||}/{@code or} and
+ * parentheses, with the usual precedence.</p>
+ *
+ * <p>At load time the expression is rewritten as an OR of terms, each an AND
+ * of facts that must hold or must not. A term becomes, per 64-bit word of the
+ * world state it touches, one {@code (word & mask) == want} test, so
+ * checking a condition on every click is a handful of instructions with no
+ * allocation, map lookups or string compares.</p>
+ */
+public final class CompiledCondition implements Condition {
+    /** Beyond this many terms an expression is rejected as too complex. */
+    static final int MAX_TERMS = 256;
+
+    private static final String[] TESTS = {"has", "selected", "flag", "solved", "visited"};
+
+    private final String source;
+    // Term t tests words index[start[t] .. start[t+1]) against mask and want
+    private final int[] start;
+    private final int[] index;
+    private final long[] mask;
+    private final long[] want;
+
+    private CompiledCondition(String source, List<TreeMap<Integer, Boolean>> terms) {
+        this.source = source;
+        List<long[]> tests = new ArrayList<>();
+        start = new int[terms.size() + 1];
+        for (int t = 0; t < terms.size(); t++) {
+            start[t] = tests.size();
+            TreeMap<Integer, long[]> byWord = new TreeMap<>();
+            terms.get(t).forEach((bit, on) -> {
+                long[] mw = byWord.computeIfAbsent(bit >>> 6, w -> new long[] {w, 0, 0});
+                mw[1] |= 1L << bit;
+                if (on) mw[2] |= 1L << bit;
+            });
+            tests.addAll(byWord.values());
+        }
+        start[terms.size()] = tests.size();
+        index = new int[tests.size()];
+        mask = new long[tests.size()];
+        want = new long[tests.size()];
+        for (int k = 0; k < tests.size(); k++) {
+            index[k] = (int) tests.get(k)[0];
+            mask[k] = tests.get(k)[1];
+            want[k] = tests.get(k)[2];
+        }
+    }
+
+    /**
+     * Compiles a condition.
+     *
+     * @param source The expression.
+     * @return The compiled condition.
+     * @throws IllegalArgumentException if the expression is malformed or too complex.
+     */
+    public static CompiledCondition compile(String source) {
+        Parser p = new Parser(source);
+        List<TreeMap<Integer, Boolean>> terms = p.or(false);
+        p.skipSpace();
+        if (p.pos < source.length()) throw p.error("unexpected '" + source.charAt(p.pos) + "'");
+        return new CompiledCondition(source, terms);
+    }
+
+    /**
+     * Tests the condition against a world state.
+     *
+     * @param world The facts to test.
+     * @return Whether the condition holds.
+     */
+    public boolean test(WorldState world) {
+        for (int t = 0, k = 0; t < start.length - 1; t++) {
+            int end = start[t + 1];
+            for (k = start[t]; k < end; k++) {
+                if ((world.word(index[k]) & mask[k]) != want[k]) break;
+            }
+            if (k == end) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isMet(Game g, Hotspot h) {
+        return test(g.getWorld());
+    }
+
+    @Override
+    public String toString() { return source; }
+
+    // --- Parsing straight into sum-of-products form ---
+
+    /**
+     * A recursive-descent parser that returns each sub-expression already as
+     * an OR of terms; a negation is pushed down to the tests (De Morgan), so
+     * NOT never survives into the compiled form.
+     */
+    private static final class Parser {
+        final String src;
+        int pos;
+
+        Parser(String src) { this.src = src; }
+
+        // or := and ('||' and)*
+        List<TreeMap<Integer, Boolean>> or(boolean negate) {
+            List<TreeMap<Integer, Boolean>> result = and(negate);
+            while (accept("||") || acceptWord("or")) {
+                List<TreeMap<Integer, Boolean>> right = and(negate);
+                // Under a negation an OR of the operands becomes an AND of their negations
+                result = negate ? product(result, right) : union(result, right);
+            }
+            return result;
+        }
+
+        // and := unary ('&&' unary)*
+        List<TreeMap<Integer, Boolean>> and(boolean negate) {
+            List<TreeMap<Integer, Boolean>> result = unary(negate);
+            while (accept("&&") || acceptWord("and")) {
+                List<TreeMap<Integer, Boolean>> right = unary(negate);
+                result = negate ? union(result, right) : product(result, right);
+            }
+            return result;
+        }
+
+        // unary := ('!' | 'not') unary | '(' or ')' | test
+        List<TreeMap<Integer, Boolean>> unary(boolean negate) {
+            if (accept("!") || acceptWord("not")) return unary(!negate);
+            if (accept("(")) {
+                List<TreeMap<Integer, Boolean>> inner = or(negate);
+                expect(")");
+                return inner;
+            }
+            String word = word().toLowerCase(Locale.ROOT);
+            if (word.equals("true") || word.equals("false")) {
+                boolean value = word.equals("true") != negate;
+                List<TreeMap<Integer, Boolean>> terms = new ArrayList<>();
+                if (value) terms.add(new TreeMap<>());
+                return terms;
+            }
+            if (!Arrays.asList(TESTS).contains(word)) {
+                throw error("unknown test '" + word + "', expected one of " + String.join(", ", TESTS));
+            }
+            expect("(");
+            String name = name();
+            expect(")");
+            TreeMap<Integer, Boolean> term = new TreeMap<>();
+            term.put(WorldState.bit(word + ":" + name), !negate);
+            List<TreeMap<Integer, Boolean>> terms = new ArrayList<>();
+            terms.add(term);
+            return terms;
+        }
+
+        List<TreeMap<Integer, Boolean>> union(List<TreeMap<Integer, Boolean>> a, List<TreeMap<Integer, Boolean>> b) {
+            List<TreeMap<Integer, Boolean>> out = new ArrayList<>(a);
+            out.addAll(b);
+            return checkSize(out);
+        }
+
+        // Every pairing of a term from each side, dropping pairings that require a fact both ways
+        List<TreeMap<Integer, Boolean>> product(List<TreeMap<Integer, Boolean>> a, List<TreeMap<Integer, Boolean>> b) {
+            List<TreeMap<Integer, Boolean>> out = new ArrayList<>();
+            for (TreeMap<Integer, Boolean> x : a) {
+                pairing:
+                for (TreeMap<Integer, Boolean> y : b) {
+                    TreeMap<Integer, Boolean> term = new TreeMap<>(x);
+                    for (var e : y.entrySet()) {
+                        Boolean prior = term.put(e.getKey(), e.getValue());
+                        if (prior != null && !prior.equals(e.getValue())) continue pairing;
+                    }
+                    out.add(term);
+                }
+            }
+            return checkSize(out);
+        }
+
+        List<TreeMap<Integer, Boolean>> checkSize(List<TreeMap<Integer, Boolean>> terms) {
+            if (terms.size() > MAX_TERMS) throw error("too complex (more than " + MAX_TERMS + " alternatives)");
+            return terms;
+        }
+
+        void skipSpace() {
+            while (pos < src.length() && Character.isWhitespace(src.charAt(pos))) pos++;
+        }
+
+        boolean accept(String symbol) {
+            skipSpace();
+            if (!src.startsWith(symbol, pos)) return false;
+            pos += symbol.length();
+            return true;
+        }
+
+        boolean acceptWord(String keyword) {
+            skipSpace();
+            int save = pos;
+            if (pos < src.length() && Character.isLetter(src.charAt(pos))
+                    && word().toLowerCase(Locale.ROOT).equals(keyword)) {
+                return true;
+            }
+            pos = save;
+            return false;
+        }
+
+        void expect(String symbol) {
+            if (!accept(symbol)) throw error("expected '" + symbol + "'");
+        }
+
+        String word() {
+            skipSpace();
+            int begin = pos;
+            while (pos < src.length() && Character.isLetter(src.charAt(pos))) pos++;
+            if (begin == pos) throw error("expected a test such as has(item)");
+            return src.substring(begin, pos);
+        }
+
+        // An item, flag, hotspot or scene id
+        String name() {
+            skipSpace();
+            int begin = pos;
+            while (pos < src.length() && (Character.isLetterOrDigit(src.charAt(pos)) || "_-.".indexOf(src.charAt(pos)) >= 0)) pos++;
+            if (begin == pos) throw error("expected a name");
+            return src.substring(begin, pos);
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Condition \"" + src + "\" at " + pos + ": " + message);
+        }
+    }
+}
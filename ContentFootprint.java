@@ -0,0 +1,251 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How much heap loaded content takes: for each scene, the bytes that only it
+ * holds (its retained size), split into the scene itself, its hotspots (with
+ * their states, bounds and names) and their interactions (with conditions and
+ * actions), and the bytes scenes share: strings, actions and interactions the
+ * loader stores once for every hotspot that repeats them.
+ *
+ * <p>The object graph is walked from each scene. Whatever one scene alone
+ * reaches is charged to it; whatever two reach is shared. Sizes are worked out
+ * from the fields of each class, laid out as a 64-bit HotSpot VM with
+ * compressed references lays them out (12-byte headers, 4-byte references,
+ * 8-byte alignment, one byte a character for Latin-1 strings); for the
+ * engine's own classes that is what a heap histogram shows. Items, the game
+ * and the loader are not content of any scene and are left out.</p>
+ *
+ * <pre>
+ * java -cp target/moonlight-manor-1.0.jar:gson-2.10.1.jar ContentFootprint [content file] [largest scenes to list]
+ * </pre>
+ */
+final class ContentFootprint {
+    static final int SCENE = 0, HOTSPOT = 1, INTERACTION = 2;
+    private static final String[] KINDS = {"scenes", "hotspots", "interactions"};
+    private static final int SHARED = -1;
+    private static final Map<Class<?>, Field[]> FIELDS = new HashMap<>();
+    private static final Map<Class<?>, Integer> SHALLOW = new HashMap<>();
+
+    /** What the walk knows about one object. */
+    private static final class Entry {
+        int owner; // The scene holding it, or SHARED
+        final int kind;
+        final long bytes;
+
+        Entry(int owner, int kind, long bytes) {
+            this.owner = owner;
+            this.kind = kind;
+            this.bytes = bytes;
+        }
+    }
+
+    /** One scene's retained bytes. */
+    static final class SceneFootprint {
+        final String id;
+        final int hotspots, interactions;
+        final long[] bytes = new long[KINDS.length];
+
+        SceneFootprint(String id, int hotspots, int interactions) {
+            this.id = id;
+            this.hotspots = hotspots;
+            this.interactions = interactions;
+        }
+
+        /** @return everything only this scene holds. */
+        long total() { return bytes[SCENE] + bytes[HOTSPOT] + bytes[INTERACTION]; }
+    }
+
+    private final IdentityHashMap<Object, Entry> seen = new IdentityHashMap<>();
+    private final List<SceneFootprint> scenes = new ArrayList<>();
+    private final long[] shared = new long[KINDS.length];
+
+    private ContentFootprint() { }
+
+    /**
+     * Measures loaded scenes. Only run it while nothing changes them, e.g. on
+     * the game-logic thread.
+     *
+     * @param loaded The scenes, e.g. every scene of a game.
+     * @return The footprint.
+     */
+    static ContentFootprint measure(Collection<Scene> loaded) {
+        ContentFootprint f = new ContentFootprint();
+        int index = 0;
+        for (Scene s : loaded) {
+            f.visit(s, SCENE, index++);
+            int interactions = 0;
+            for (Hotspot h : s.hotspots) interactions += h.interactionCount();
+            f.scenes.add(new SceneFootprint(s.id, s.hotspots.length, interactions));
+        }
+        for (Entry e : f.seen.values()) {
+            if (e.owner == SHARED) f.shared[e.kind] += e.bytes;
+            else f.scenes.get(e.owner).bytes[e.kind] += e.bytes;
+        }
+        return f;
+    }
+
+    /** @return each scene's retained bytes, in the order measured. */
+    List<SceneFootprint> scenes() { return scenes; }
+
+    /** @return the bytes more than one scene holds. */
+    long shared() { return shared[SCENE] + shared[HOTSPOT] + shared[INTERACTION]; }
+
+    /** @return everything the scenes hold, retained and shared. */
+    long total() {
+        long total = shared();
+        for (SceneFootprint s : scenes) total += s.total();
+        return total;
+    }
+
+    // Charges an object and what it refers to to a scene, or marks them shared once a second scene reaches them
+    private void visit(Object o, int kind, int scene) {
+        if (o == null || o instanceof Class || o instanceof Enum || o instanceof Game || o instanceof GameDataLoader) {
+            return;
+        }
+        kind = kindOf(o, kind);
+        Entry e = seen.get(o);
+        if (e == null) {
+            seen.put(o, new Entry(scene, kind, sizeOf(o)));
+        } else if (e.owner == scene || e.owner == SHARED) {
+            return;
+        } else {
+            e.owner = SHARED; // And again for what it refers to, so that is shared too
+            kind = e.kind;
+        }
+
+        Class<?> c = o.getClass();
+        if (o instanceof String || c.isArray() && c.getComponentType().isPrimitive()) return;
+        if (c.isArray()) {
+            for (int i = 0, n = Array.getLength(o); i < n; i++) visit(Array.get(o, i), kind, scene);
+            return;
+        }
+        for (Field field : fields(c)) {
+            if (field.getType().isPrimitive()) continue;
+            try {
+                visit(field.get(o), kind, scene);
+            } catch (IllegalAccessException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+
+    // Hotspots and interactions take what they refer to with them; anything else belongs to whoever reached it
+    private static int kindOf(Object o, int parent) {
+        if (o instanceof Scene) return SCENE;
+        if (o instanceof Hotspot || o instanceof Hotspot.State) return HOTSPOT;
+        if (o instanceof Interaction || o instanceof Action || o instanceof Condition || o instanceof PuzzleCallback) {
+            return INTERACTION;
+        }
+        return parent;
+    }
+
+    private static long sizeOf(Object o) {
+        if (o instanceof String) {
+            String s = (String) o;
+            boolean latin1 = s.chars().allMatch(ch -> ch < 256);
+            return shallow(String.class) + align(16 + (long) s.length() * (latin1 ? 1 : 2));
+        }
+        Class<?> c = o.getClass();
+        if (c.isArray()) {
+            Class<?> t = c.getComponentType();
+            return align(16 + (long) Array.getLength(o) * (t.isPrimitive() ? width(t) : 4));
+        }
+        return shallow(c);
+    }
+
+    // Header and fields of one object, without what they refer to
+    private static synchronized int shallow(Class<?> c) {
+        Integer size = SHALLOW.get(c);
+        if (size != null) return size;
+        int bytes = 12;
+        for (Class<?> k = c; k != null; k = k.getSuperclass()) {
+            for (Field f : k.getDeclaredFields()) {
+                if (!Modifier.isStatic(f.getModifiers())) bytes += f.getType().isPrimitive() ? width(f.getType()) : 4;
+            }
+        }
+        size = (int) align(bytes);
+        SHALLOW.put(c, size);
+        return size;
+    }
+
+    // The reference fields the walk can follow; those of JDK classes it may not open are counted but not followed
+    private static synchronized Field[] fields(Class<?> c) {
+        Field[] fields = FIELDS.get(c);
+        if (fields != null) return fields;
+        List<Field> list = new ArrayList<>();
+        for (Class<?> k = c; k != null; k = k.getSuperclass()) {
+            for (Field f : k.getDeclaredFields()) {
+                if (!Modifier.isStatic(f.getModifiers()) && !f.getType().isPrimitive() && f.trySetAccessible()) {
+                    list.add(f);
+                }
+            }
+        }
+        fields = list.toArray(new Field[0]);
+        FIELDS.put(c, fields);
+        return fields;
+    }
+
+    private static int width(Class<?> t) {
+        if (t == long.class || t == double.class) return 8;
+        if (t == int.class || t == float.class) return 4;
+        if (t == short.class || t == char.class) return 2;
+        return 1;
+    }
+
+    private static long align(long bytes) { return (bytes + 7) & ~7L; }
+
+    /**
+     * Prints the totals, the average per scene, hotspot and interaction, and the largest scenes.
+     *
+     * @param out Where to print.
+     * @param largest How many of the largest scenes to list.
+     */
+    void print(PrintStream out, int largest) {
+        long[] retained = new long[KINDS.length];
+        long hotspots = 0, interactions = 0;
+        for (SceneFootprint s : scenes) {
+            for (int k = 0; k < KINDS.length; k++) retained[k] += s.bytes[k];
+            hotspots += s.hotspots;
+            interactions += s.interactions;
+        }
+        long[] counts = {scenes.size(), hotspots, interactions};
+        out.printf("%,d scenes, %,d hotspots, %,d interactions: %,d bytes%n", scenes.size(), hotspots, interactions, total());
+        for (int k = 0; k < KINDS.length; k++) {
+            out.printf("  %-14s %,14d bytes retained %,10.0f per %s%n", KINDS[k], retained[k],
+                    counts[k] == 0 ? 0.0 : (double) retained[k] / counts[k], KINDS[k].substring(0, KINDS[k].length() - 1));
+        }
+        out.printf("  %-14s %,14d bytes (%,d in strings, actions and interactions, %,d in hotspot parts, %,d in scene parts)%n",
+                "shared", shared(), shared[INTERACTION], shared[HOTSPOT], shared[SCENE]);
+
+        List<SceneFootprint> bySize = new ArrayList<>(scenes);
+        bySize.sort((a, b) -> Long.compare(b.total(), a.total()));
+        out.println("Largest scenes:");
+        for (SceneFootprint s : bySize.subList(0, Math.min(largest, bySize.size()))) {
+            out.printf("  %-28s %,10d bytes (%d hotspots, %d interactions)%n", s.id, s.total(), s.hotspots, s.interactions);
+        }
+    }
+
+    /** Loads a content file and prints its footprint. */
+    public static void main(String[] args) {
+        String content = args.length > 0 ? args[0] : "gamedata.json";
+        int largest = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // The engine logs scene changes
+        Game game = new Game();
+        new GameDataLoader().loadContent(game, content);
+        System.setOut(console);
+
+        measure(game.scenes.values()).print(System.out, largest);
+    }
+}
@@ -0,0 +1,106 @@
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Development-mode hot reload. Watches the content files a
+ * {@link GameDataLoader} has read and, when one is saved, re-parses just that
+ * file and swaps its scenes into the running game, so rooms can be edited
+ * without a restart.
+ *
+ * <p>Enabled by starting the game with {@code -Dmoonlight.dev=true}. The
+ * watcher runs on its own daemon thread and ends when the game is stopped.</p>
+ */
+public class ContentWatcher implements Runnable {
+    static final String DEV_PROPERTY = "moonlight.dev";
+
+    // Editors often save in several writes; wait for them to settle before parsing.
+    private static final long SETTLE_MILLIS = 150;
+
+    private final Game game;
+    private final GameDataLoader loader;
+    private final Set<Path> files = new HashSet<>();
+    private final WatchService watchService;
+
+    private ContentWatcher(Game game, GameDataLoader loader, List<Path> loaded) throws IOException {
+        this.game = game;
+        this.loader = loader;
+        this.watchService = FileSystems.getDefault().newWatchService();
+
+        Set<Path> folders = new HashSet<>();
+        for (Path file : loaded) {
+            Path absolute = file.toAbsolutePath().normalize();
+            files.add(absolute);
+            folders.add(absolute.getParent());
+        }
+        for (Path folder : folders) {
+            folder.register(watchService, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+        }
+    }
+
+    /** @return true if the game was started in development mode. */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(DEV_PROPERTY);
+    }
+
+    /**
+     * Starts watching every file the loader has read from the file system.
+     *
+     * @param game The running game that receives reloaded scenes.
+     * @param loader The loader that loaded the game's content.
+     */
+    public static void start(Game game, GameDataLoader loader) {
+        if (loader.getLoadedFiles().isEmpty()) return;
+        try {
+            Thread t = new Thread(new ContentWatcher(game, loader, loader.getLoadedFiles()), "content-watcher");
+            t.setDaemon(true);
+            t.start();
+            System.out.println("Watching " + loader.getLoadedFiles().size() + " content file(s) for changes.");
+        } catch (IOException e) {
+            System.err.println("Hot reload disabled: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void run() {
+        try (WatchService ws = watchService) {
+            while (game.isRunning()) {
+                WatchKey key = ws.poll(1, TimeUnit.SECONDS);
+                if (key == null) continue;
+
+                Set<Path> changed = new LinkedHashSet<>();
+                collect(key, changed);
+                Thread.sleep(SETTLE_MILLIS);
+                for (WatchKey more = ws.poll(); more != null; more = ws.poll()) {
+                    collect(more, changed);
+                }
+                for (Path file : changed) {
+                    loader.reloadFile(game, file);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Content watcher stopped: " + e.getMessage());
+        }
+    }
+
+    private void collect(WatchKey key, Set<Path> changed) {
+        Path folder = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) continue;
+            Path file = folder.resolve((Path) event.context());
+            if (files.contains(file)) changed.add(file);
+        }
+        key.reset();
+    }
+}
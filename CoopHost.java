@@ -0,0 +1,253 @@
+import java.awt.Point;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hosts a co-op game: the local {@link Game} stays authoritative and other
+ * players join it over a socket with {@link RemoteGame}.
+ *
+ * <p>Start the window with {@code -Dmoonlight.coop.host=<port>} (0 for
+ * {@value CoopProtocol#DEFAULT_PORT}). Clients' clicks and puzzle inputs are
+ * queued on the game-logic thread like local input; after each step every
+ * client is sent a delta against the previous snapshot (see
+ * {@link CoopProtocol}) tagged with the input it answers. Each client has its
+ * own sender thread, so a slow connection never holds up the game.</p>
+ *
+ * <p>Metrics: {@code coop.bytes.sent}, {@code coop.deltas.sent} and the
+ * {@code coop.clients} gauge, the players connected to the open host.</p>
+ */
+public class CoopHost implements GameView {
+    private static final LongAdder BYTES_SENT = Metrics.counter("coop.bytes.sent");
+    private static final LongAdder DELTAS_SENT = Metrics.counter("coop.deltas.sent");
+
+    private static volatile CoopHost open; // The host players can join, until it is closed
+
+    static {
+        Metrics.gauge("coop.clients", () -> {
+            CoopHost h = open;
+            return h == null ? 0 : h.clients.size();
+        });
+    }
+
+    private final Game game;
+    private final ServerSocket server;
+    private final List<Client> clients = new CopyOnWriteArrayList<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    // Game-logic thread only: what the established clients have, and the input being answered
+    private GameSnapshot lastSent;
+    private final CoopProtocol.Writer shared = new CoopProtocol.Writer();
+    private final CoopProtocol.Writer fresh = new CoopProtocol.Writer();
+    private int answeringClient;
+    private int answeringSeq;
+
+    /**
+     * Opens the listening socket; call {@link #start()} to accept players.
+     *
+     * @param game The authoritative game, whose loop is running.
+     * @param port The port to listen on, 0 for the default.
+     * @throws IOException if the port cannot be opened.
+     */
+    public CoopHost(Game game, int port) throws IOException {
+        this.game = game;
+        this.server = new ServerSocket();
+        server.setReuseAddress(true);
+        server.bind(new InetSocketAddress(port == 0 ? CoopProtocol.DEFAULT_PORT : port));
+        open = this;
+    }
+
+    /** @return the port to give to joining players. */
+    public int getPort() { return server.getLocalPort(); }
+
+    /**
+     * @return the port from {@code -Dmoonlight.coop.host}, or -1 when this
+     * window does not host.
+     */
+    static int configuredPort() {
+        return Integer.getInteger("moonlight.coop.host", -1);
+    }
+
+    /** Starts accepting players on a daemon thread. */
+    public void start() {
+        Thread accept = new Thread(this::acceptLoop, "coop-accept");
+        accept.setDaemon(true);
+        accept.start();
+    }
+
+    /** Disconnects every player and stops listening. */
+    public void close() {
+        if (open == this) open = null;
+        try {
+            server.close();
+        } catch (IOException ignored) {
+            // Closing anyway
+        }
+        for (Client c : clients) c.close();
+    }
+
+    private void acceptLoop() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                Client c = new Client(nextId.getAndIncrement(), socket);
+                c.send(new CoopProtocol.Writer().b(CoopProtocol.WELCOME).varint(c.id));
+                clients.add(c);
+                System.err.println("Co-op: player " + c.id + " joined from " + socket.getRemoteSocketAddress());
+                c.startReading();
+                game.post(() -> { }); // Publishes the full state to the new player
+            } catch (IOException e) {
+                if (!server.isClosed()) System.err.println("Co-op: accept failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Sends the step's delta to every player. Runs on the game-logic thread
+     * after each step.
+     */
+    @Override
+    public void render(GameSnapshot s) {
+        boolean sharedReady = false;
+        for (Client c : clients) {
+            if (c.hasState) {
+                if (!sharedReady) {
+                    CoopProtocol.encodeDelta(shared.reset(), lastSent, s, answeringClient, answeringSeq);
+                    sharedReady = true;
+                }
+                c.send(shared);
+            } else {
+                CoopProtocol.encodeDelta(fresh.reset(), null, s, answeringClient, answeringSeq);
+                c.send(fresh);
+                c.hasState = true;
+            }
+        }
+        lastSent = s;
+        answeringClient = 0;
+        answeringSeq = 0;
+    }
+
+    // Applies one input from a player; runs on the game-logic thread
+    private void apply(Client c, CoopProtocol.Reader in, int type) {
+        answeringClient = c.id;
+        answeringSeq = in.varint();
+        switch (type) {
+            case CoopProtocol.CLICK:
+                int x = in.zigzag();
+                game.handleClick(new Point(x, in.zigzag()));
+                break;
+            case CoopProtocol.SELECT:
+                String id = in.str();
+                for (Item i : game.getInventory().getItems()) {
+                    if (i.id.equals(id)) game.selectItem(i);
+                }
+                break;
+            case CoopProtocol.KEY:
+                game.pressKey(in.str());
+                break;
+            case CoopProtocol.LOCK:
+                game.advanceLock(in.varint());
+                break;
+            case CoopProtocol.TILE:
+                game.slideTile(in.varint());
+                break;
+            case CoopProtocol.EXIT_PUZZLE:
+                game.exitPuzzle();
+                break;
+            case CoopProtocol.SKIP_CUTSCENE:
+                game.skipCutscene();
+                break;
+            case CoopProtocol.FAST_FORWARD:
+                game.fastForwardCutscene(in.varint() != 0);
+                break;
+            case CoopProtocol.UNDO:
+                game.undo();
+                break;
+            case CoopProtocol.REDO:
+                game.redo();
+                break;
+            default:
+                System.err.println("Co-op: player " + c.id + " sent unknown input " + type);
+        }
+    }
+
+    /** One joined player: a reader thread for its inputs and a sender thread for deltas. */
+    private final class Client {
+        final int id;
+        final Socket socket;
+        final OutputStream out;
+        final ExecutorService sender;
+        boolean hasState; // Game-logic thread only
+
+        Client(int id, Socket socket) throws IOException {
+            this.id = id;
+            this.socket = socket;
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+            this.sender = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "coop-send-" + id);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        // Copies the frame now, since the writer is reused for the next step
+        void send(CoopProtocol.Writer frame) {
+            byte[] body = frame.toByteArray();
+            try {
+                sender.execute(() -> {
+                    try {
+                        CoopProtocol.writeFrame(out, body);
+                        out.flush();
+                        BYTES_SENT.add(body.length);
+                        DELTAS_SENT.increment();
+                    } catch (IOException e) {
+                        close();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Already closed
+            }
+        }
+
+        void startReading() {
+            Thread reader = new Thread(() -> {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+                    while (true) {
+                        CoopProtocol.Reader input = new CoopProtocol.Reader(CoopProtocol.readFrame(in));
+                        int type = input.b();
+                        game.post(() -> apply(this, input, type));
+                    }
+                } catch (IOException e) {
+                    close();
+                }
+            }, "coop-receive-" + id);
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        void close() {
+            if (clients.remove(this)) {
+                System.err.println("Co-op: player " + id + " left.");
+            }
+            sender.shutdown();
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Already gone
+            }
+        }
+    }
+}
@@ -0,0 +1,489 @@
+import java.awt.Point;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The wire format of co-op play between a {@link CoopHost} and its
+ * {@link RemoteGame} clients.
+ *
+ * <p>Every message is a frame: a varint length, then a type byte and the
+ * body. Numbers are varints (zig-zag where they can be negative) and strings
+ * are a varint length plus UTF-8, with 0 meaning null.</p>
+ *
+ * <p>Clients send inputs, each tagged with the client's own sequence number.
+ * The host answers every game step with a delta against the previous
+ * snapshot: the snapshot sequence, the input it answers (if any), a bit set
+ * of the sections that changed and then just those sections. Hotspots and
+ * inventory items are sent as removals and additions by id; a full list is
+ * only sent when the scene changes or the order could not be rebuilt. A
+ * client joining late gets one delta against nothing, i.e. the full state.</p>
+ */
+final class CoopProtocol {
+    static final int DEFAULT_PORT = 47474;
+    static final int MAX_FRAME = 16 * 1024 * 1024; // Far above any real delta; a longer length is a broken peer
+
+    // Host to client
+    static final int WELCOME = 1;
+    static final int DELTA = 2;
+
+    // Client to host
+    static final int CLICK = 1;
+    static final int SELECT = 2;
+    static final int KEY = 3;
+    static final int LOCK = 4;
+    static final int TILE = 5;
+    static final int EXIT_PUZZLE = 6;
+    static final int SKIP_CUTSCENE = 7;
+    static final int FAST_FORWARD = 8;
+    static final int UNDO = 9;
+    static final int REDO = 10;
+
+    // Delta sections
+    private static final int SCENE = 1;
+    private static final int DESCRIPTION = 1 << 1;
+    private static final int HOTSPOTS = 1 << 2;
+    private static final int HOTSPOTS_FULL = 1 << 3;
+    private static final int INVENTORY = 1 << 4;
+    private static final int INVENTORY_FULL = 1 << 5;
+    private static final int STATE = 1 << 6;
+    private static final int COUNT = 1 << 7;
+    private static final int FEEDBACK = 1 << 8;
+    private static final int SOUNDS = 1 << 9;
+    private static final int PUZZLE = 1 << 10;
+    private static final int CUTSCENE = 1 << 11;
+
+    private static final GameState[] STATES = GameState.values();
+    private static final AudioEngine.Sound[] SOUND_VALUES = AudioEngine.Sound.values();
+    private static final KeypadEntry.Status[] KEYPAD_STATUSES = KeypadEntry.Status.values();
+
+    private CoopProtocol() { }
+
+    // --- Encoding ---
+
+    /** Grows a byte array as values are written; reused to avoid garbage per frame. */
+    static final class Writer {
+        private byte[] buf = new byte[256];
+        private int len;
+
+        Writer reset() {
+            len = 0;
+            return this;
+        }
+
+        int length() { return len; }
+
+        byte[] toByteArray() { return Arrays.copyOf(buf, len); }
+
+        Writer b(int v) {
+            if (len == buf.length) buf = Arrays.copyOf(buf, len * 2);
+            buf[len++] = (byte) v;
+            return this;
+        }
+
+        Writer varint(long v) {
+            while ((v & ~0x7FL) != 0) {
+                b((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            return b((int) v);
+        }
+
+        Writer zigzag(int v) {
+            return varint((v << 1) ^ (v >> 31));
+        }
+
+        Writer str(String s) {
+            if (s == null) return varint(0);
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length + 1);
+            for (byte x : bytes) b(x);
+            return this;
+        }
+    }
+
+    /**
+     * Encodes a delta frame body (type included, length not).
+     *
+     * @param out Receives the bytes.
+     * @param before The snapshot the client already has, or null for the full state.
+     * @param s The new snapshot.
+     * @param ackClient The client whose input produced this step, 0 for none.
+     * @param ackSeq That input's sequence number.
+     */
+    static void encodeDelta(Writer out, GameSnapshot before, GameSnapshot s, int ackClient, int ackSeq) {
+        boolean full = before == null;
+        boolean newScene = full || !Objects.equals(before.sceneId, s.sceneId);
+        int flags = 0;
+        if (newScene || !Objects.equals(before.sceneTitle, s.sceneTitle) || !Objects.equals(before.background, s.background)) {
+            flags |= SCENE;
+        }
+        if (full || !Objects.equals(before.description, s.description)) flags |= DESCRIPTION;
+
+        List<String> removedHotspots = new ArrayList<>();
+        List<GameSnapshot.HotspotView> changedHotspots = new ArrayList<>();
+        if (newScene) {
+            flags |= HOTSPOTS_FULL;
+        } else if (!before.hotspots.equals(s.hotspots)) {
+            boolean inOrder = diffHotspots(before.hotspots, s.hotspots, removedHotspots, changedHotspots);
+            flags |= inOrder ? HOTSPOTS : HOTSPOTS_FULL;
+        }
+
+        List<String> removedItems = new ArrayList<>();
+        List<Item> addedItems = new ArrayList<>();
+        if (full) {
+            flags |= INVENTORY_FULL;
+        } else if (!before.items.equals(s.items) || before.selected != s.selected || before.capacity != s.capacity) {
+            boolean inOrder = diffItems(before.items, s.items, removedItems, addedItems);
+            flags |= inOrder ? INVENTORY : INVENTORY_FULL;
+        }
+
+        if (full || before.state != s.state || !before.card.equals(s.card)) flags |= STATE;
+        if (full || before.interactionCount != s.interactionCount) flags |= COUNT;
+        if (!s.feedback.isEmpty()) flags |= FEEDBACK;
+        if (!s.sounds.isEmpty()) flags |= SOUNDS;
+        if (full || !samePuzzle(before, s)) flags |= PUZZLE;
+        if (full || before.cutscene != s.cutscene) flags |= CUTSCENE;
+
+        out.b(DELTA).varint(s.sequence).varint(ackClient).varint(ackSeq).varint(flags);
+        if ((flags & SCENE) != 0) {
+            out.str(s.sceneId).str(s.sceneTitle).str(s.background);
+        }
+        if ((flags & DESCRIPTION) != 0) out.str(s.description);
+        if ((flags & HOTSPOTS_FULL) != 0) {
+            out.varint(s.hotspots.size());
+            for (GameSnapshot.HotspotView h : s.hotspots) writeHotspot(out, h);
+        } else if ((flags & HOTSPOTS) != 0) {
+            out.varint(removedHotspots.size());
+            for (String id : removedHotspots) out.str(id);
+            out.varint(changedHotspots.size());
+            for (GameSnapshot.HotspotView h : changedHotspots) writeHotspot(out, h);
+        }
+        if ((flags & INVENTORY_FULL) != 0) {
+            out.varint(s.items.size());
+            for (Item i : s.items) writeItem(out, i);
+        } else if ((flags & INVENTORY) != 0) {
+            out.varint(removedItems.size());
+            for (String id : removedItems) out.str(id);
+            out.varint(addedItems.size());
+            for (Item i : addedItems) writeItem(out, i);
+        }
+        if ((flags & (INVENTORY | INVENTORY_FULL)) != 0) {
+            out.str(s.selected == null ? null : s.selected.id).varint(s.capacity);
+        }
+        if ((flags & STATE) != 0) out.varint(s.state.ordinal()).str(s.card);
+        if ((flags & COUNT) != 0) out.varint(s.interactionCount);
+        if ((flags & FEEDBACK) != 0) {
+            out.varint(s.feedback.size());
+            for (GameSnapshot.Feedback f : s.feedback) out.str(f.text).zigzag(f.x).zigzag(f.y);
+        }
+        if ((flags & SOUNDS) != 0) {
+            out.varint(s.sounds.size());
+            for (AudioEngine.Sound sound : s.sounds) out.varint(sound.ordinal());
+        }
+        if ((flags & PUZZLE) != 0) writePuzzle(out, s);
+        if ((flags & CUTSCENE) != 0) writeCutscene(out, s.cutscene);
+    }
+
+    // Removals then in-place changes and additions; false if that would not reproduce the new order
+    private static boolean diffHotspots(List<GameSnapshot.HotspotView> before, List<GameSnapshot.HotspotView> after,
+                                        List<String> removed, List<GameSnapshot.HotspotView> changed) {
+        Map<String, GameSnapshot.HotspotView> mirror = new LinkedHashMap<>();
+        for (GameSnapshot.HotspotView h : before) mirror.put(h.id, h);
+        Map<String, GameSnapshot.HotspotView> wanted = new LinkedHashMap<>();
+        for (GameSnapshot.HotspotView h : after) wanted.put(h.id, h);
+        for (String id : new ArrayList<>(mirror.keySet())) {
+            if (!wanted.containsKey(id)) {
+                removed.add(id);
+                mirror.remove(id);
+            }
+        }
+        for (GameSnapshot.HotspotView h : after) {
+            if (!h.equals(mirror.get(h.id))) {
+                changed.add(h);
+                mirror.put(h.id, h);
+            }
+        }
+        return new ArrayList<>(mirror.values()).equals(after);
+    }
+
+    private static boolean diffItems(List<Item> before, List<Item> after, List<String> removed, List<Item> added) {
+        List<Item> mirror = new ArrayList<>(before);
+        for (Item i : before) {
+            if (!after.contains(i)) {
+                removed.add(i.id);
+                mirror.remove(i);
+            }
+        }
+        for (Item i : after) {
+            if (!mirror.contains(i)) {
+                added.add(i);
+                mirror.add(i);
+            }
+        }
+        return mirror.equals(after);
+    }
+
+    private static boolean samePuzzle(GameSnapshot a, GameSnapshot b) {
+        return Arrays.equals(a.lockSymbols, b.lockSymbols) && Objects.equals(a.lockTarget, b.lockTarget)
+                && Arrays.equals(a.tiles, b.tiles) && a.tileSize == b.tileSize && Objects.equals(a.tileImage, b.tileImage)
+                && Objects.equals(a.keypadDisplay, b.keypadDisplay) && a.keypadStatus == b.keypadStatus;
+    }
+
+    private static void writeHotspot(Writer out, GameSnapshot.HotspotView h) {
+        out.str(h.id).str(h.name).str(h.image).zigzag(h.x).zigzag(h.y).varint(h.width).varint(h.height);
+    }
+
+    private static void writeItem(Writer out, Item i) {
+        out.str(i.id).str(i.name).str(i.desc);
+    }
+
+    private static void writePuzzle(Writer out, GameSnapshot s) {
+        if (s.lockSymbols == null) {
+            out.varint(0);
+        } else {
+            out.varint(s.lockSymbols.length + 1);
+            for (String symbol : s.lockSymbols) out.str(symbol);
+        }
+        out.str(s.lockTarget);
+        if (s.tiles == null) {
+            out.varint(0);
+        } else {
+            out.varint(s.tiles.length + 1);
+            for (int t : s.tiles) out.varint(t);
+        }
+        out.varint(s.tileSize).str(s.tileImage).str(s.keypadDisplay);
+        out.varint(s.keypadStatus == null ? 0 : s.keypadStatus.ordinal() + 1);
+    }
+
+    // Effect timing goes as time already elapsed, since the two clocks differ
+    private static void writeCutscene(Writer out, GameSnapshot.CutsceneView c) {
+        if (c == null) {
+            out.varint(0);
+            return;
+        }
+        long elapsed = Math.max(0, System.nanoTime() - c.effectStartNanos);
+        out.varint(1).str(c.id).str(c.caption);
+        out.varint(Math.round(c.fadeFrom * 1000)).varint(Math.round(c.fadeTo * 1000));
+        out.zigzag(c.panFromX).zigzag(c.panFromY).zigzag(c.panToX).zigzag(c.panToY);
+        out.varint(Math.min(elapsed, c.effectNanos)).varint(c.effectNanos);
+    }
+
+    // --- Framing ---
+
+    /** Writes one frame: the body's length, then the body. */
+    static void writeFrame(OutputStream out, byte[] body) throws IOException {
+        long n = body.length;
+        while ((n & ~0x7FL) != 0) {
+            out.write((int) ((n & 0x7F) | 0x80));
+            n >>>= 7;
+        }
+        out.write((int) n);
+        out.write(body);
+    }
+
+    /**
+     * Reads one frame body.
+     *
+     * @throws IOException also if the peer announces a length over {@link #MAX_FRAME}.
+     */
+    static byte[] readFrame(DataInputStream in) throws IOException {
+        long len = readVarint(in);
+        if (len < 0 || len > MAX_FRAME) throw new IOException("Frame of " + len + " bytes is over the limit");
+        byte[] body = new byte[(int) len];
+        in.readFully(body);
+        return body;
+    }
+
+    private static long readVarint(InputStream in) throws IOException {
+        long v = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.read();
+            if (b < 0) throw new EOFException();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+    }
+
+    /** Reads values back out of a frame body. */
+    static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf) { this.buf = buf; }
+
+        int b() { return buf[pos++] & 0xFF; }
+
+        long varlong() {
+            long v = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = b();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+            }
+        }
+
+        int varint() { return (int) varlong(); }
+
+        int zigzag() {
+            int v = varint();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        String str() {
+            int n = varint();
+            if (n == 0) return null;
+            String s = new String(buf, pos, n - 1, StandardCharsets.UTF_8);
+            pos += n - 1;
+            return s;
+        }
+    }
+
+    // --- Decoding ---
+
+    /**
+     * A client's copy of the host's game, kept up to date by applying deltas
+     * in order. Items keep their identity between deltas, as the inventory
+     * panel expects.
+     */
+    static final class Mirror {
+        private long sequence;
+        private GameState state = GameState.IDLE;
+        private String card = Game.SCENE_CARD;
+        private String sceneId, sceneTitle = "", description, background;
+        private final LinkedHashMap<String, GameSnapshot.HotspotView> hotspots = new LinkedHashMap<>();
+        private final List<Item> items = new ArrayList<>();
+        private final Map<String, Item> knownItems = new HashMap<>();
+        private Item selected;
+        private int capacity;
+        private int interactionCount;
+        private String[] lockSymbols;
+        private String lockTarget;
+        private int[] tiles;
+        private int tileSize;
+        private String tileImage;
+        private String keypadDisplay;
+        private KeypadEntry.Status keypadStatus;
+        private GameSnapshot.CutsceneView cutscene;
+
+        int ackClient;
+        int ackSeq;
+
+        /**
+         * Applies a delta frame body.
+         *
+         * @param body A DELTA frame body, type byte included.
+         * @return The snapshot it brings the mirror to.
+         */
+        GameSnapshot apply(byte[] body) {
+            Reader in = new Reader(body);
+            if (in.b() != DELTA) throw new IllegalArgumentException("Not a delta frame");
+            long seq = in.varlong();
+            if (seq <= sequence) throw new IllegalStateException("Delta " + seq + " arrived after " + sequence);
+            sequence = seq;
+            ackClient = in.varint();
+            ackSeq = in.varint();
+            int flags = in.varint();
+
+            if ((flags & SCENE) != 0) {
+                sceneId = in.str();
+                sceneTitle = in.str();
+                background = in.str();
+            }
+            if ((flags & DESCRIPTION) != 0) description = in.str();
+            if ((flags & HOTSPOTS_FULL) != 0) {
+                hotspots.clear();
+                for (int n = in.varint(); n > 0; n--) putHotspot(in);
+            } else if ((flags & HOTSPOTS) != 0) {
+                for (int n = in.varint(); n > 0; n--) hotspots.remove(in.str());
+                for (int n = in.varint(); n > 0; n--) putHotspot(in);
+            }
+            if ((flags & INVENTORY_FULL) != 0) {
+                items.clear();
+                for (int n = in.varint(); n > 0; n--) items.add(readItem(in));
+            } else if ((flags & INVENTORY) != 0) {
+                for (int n = in.varint(); n > 0; n--) items.remove(knownItems.get(in.str()));
+                for (int n = in.varint(); n > 0; n--) items.add(readItem(in));
+            }
+            if ((flags & (INVENTORY | INVENTORY_FULL)) != 0) {
+                String selectedId = in.str();
+                selected = selectedId == null ? null : knownItems.get(selectedId);
+                capacity = in.varint();
+            }
+            if ((flags & STATE) != 0) {
+                state = STATES[in.varint()];
+                card = in.str();
+            }
+            if ((flags & COUNT) != 0) interactionCount = in.varint();
+            List<GameSnapshot.Feedback> feedback = new ArrayList<>();
+            if ((flags & FEEDBACK) != 0) {
+                for (int n = in.varint(); n > 0; n--) {
+                    String text = in.str();
+                    int x = in.zigzag();
+                    feedback.add(new GameSnapshot.Feedback(text, new Point(x, in.zigzag())));
+                }
+            }
+            List<AudioEngine.Sound> sounds = new ArrayList<>();
+            if ((flags & SOUNDS) != 0) {
+                for (int n = in.varint(); n > 0; n--) sounds.add(SOUND_VALUES[in.varint()]);
+            }
+            if ((flags & PUZZLE) != 0) readPuzzle(in);
+            if ((flags & CUTSCENE) != 0) readCutscene(in);
+
+            return new GameSnapshot(sequence, state, card, sceneId, sceneTitle, description, background,
+                    List.copyOf(hotspots.values()), List.copyOf(items), selected, capacity, interactionCount,
+                    List.copyOf(feedback), List.copyOf(sounds), lockSymbols, lockTarget, tiles, tileSize, tileImage,
+                    keypadDisplay, keypadStatus, cutscene);
+        }
+
+        private void putHotspot(Reader in) {
+            GameSnapshot.HotspotView h = new GameSnapshot.HotspotView(in.str(), in.str(), in.str(),
+                    in.zigzag(), in.zigzag(), in.varint(), in.varint());
+            hotspots.put(h.id, h);
+        }
+
+        private Item readItem(Reader in) {
+            String id = in.str(), name = in.str(), desc = in.str();
+            return knownItems.computeIfAbsent(id, k -> new Item(k, name, desc));
+        }
+
+        private void readCutscene(Reader in) {
+            if (in.varint() == 0) {
+                cutscene = null;
+                return;
+            }
+            String id = in.str(), caption = in.str();
+            float fadeFrom = in.varint() / 1000f, fadeTo = in.varint() / 1000f;
+            int fromX = in.zigzag(), fromY = in.zigzag(), toX = in.zigzag(), toY = in.zigzag();
+            long elapsed = in.varlong(), nanos = in.varlong();
+            cutscene = new GameSnapshot.CutsceneView(id, caption, fadeFrom, fadeTo, fromX, fromY, toX, toY,
+                    System.nanoTime() - elapsed, nanos);
+        }
+
+        private void readPuzzle(Reader in) {
+            int symbols = in.varint();
+            lockSymbols = symbols == 0 ? null : new String[symbols - 1];
+            for (int i = 0; lockSymbols != null && i < lockSymbols.length; i++) lockSymbols[i] = in.str();
+            lockTarget = in.str();
+            int cells = in.varint();
+            tiles = cells == 0 ? null : new int[cells - 1];
+            for (int i = 0; tiles != null && i < tiles.length; i++) tiles[i] = in.varint();
+            tileSize = in.varint();
+            tileImage = in.str();
+            keypadDisplay = in.str();
+            int status = in.varint();
+            keypadStatus = status == 0 ? null : KEYPAD_STATUSES[status - 1];
+        }
+    }
+}
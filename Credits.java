@@ -1,11 +1,9 @@
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.MouseAdapter;
-import java.awt.event.MouseEvent;
 
 /**
  * The Credits class displays the credits screen for the game.
- * It provides a simple, scroll–free layout presenting the development team
+ * It provides a simple, scroll-free layout presenting the development team
  * and offers a single navigation option to return to the Main Menu.
  *
  * <p>
@@ -32,6 +30,7 @@ import java.awt.event.MouseEvent;
 public class Credits extends JPanel {
 
     private Main main; 
+    private final Theme theme = Theme.current();
 
     /**
      * Constructor initializes the credits screen.
@@ -49,12 +48,12 @@ public class Credits extends JPanel {
      */
     private void initialize() {
         this.setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
-        this.setBackground(new Color(117, 122, 148));
+        this.setBackground(theme.color("screen.background"));
 
         JLabel title = new JLabel("Credits");
         title.setAlignmentX(CENTER_ALIGNMENT);
-        title.setFont(new Font("Serif", Font.BOLD, 50));
-        title.setForeground(new Color(169, 177, 217));
+        title.setFont(theme.font("screen.title"));
+        title.setForeground(theme.color("accent"));
 
         // Names 
         JLabel createdBy = createLabel("Created By:");
@@ -64,7 +63,7 @@ public class Credits extends JPanel {
         JLabel n4 = createLabel("Keenan Rodricks");
         JLabel n5 = createLabel("Om Kothare");
 
-        JButton backButton = createButton("< Back");
+        JButton backButton = theme.menuButton("< Back");
         backButton.addActionListener(e -> goBack());
 
         this.add(Box.createVerticalStrut(120));
@@ -94,49 +93,16 @@ public class Credits extends JPanel {
     private JLabel createLabel(String text) {
         JLabel label = new JLabel(text);
         label.setAlignmentX(CENTER_ALIGNMENT);
-        label.setFont(new Font("Serif", Font.BOLD, 30));
-        label.setForeground(new Color(169, 177, 217));
+        label.setFont(theme.font("menu.label"));
+        label.setForeground(theme.color("accent"));
         return label;
     }
 
     /**
-     * Creates a custom button with styling and hover effects.
-     *
-     * @param text text displayed on the button
-     * @return fully styled JButton
-     */
-    private JButton createButton(String text) {
-        JButton button = new JButton(text);
-        button.setAlignmentX(Component.CENTER_ALIGNMENT);
-        button.setFont(new Font("Serif", Font.PLAIN, 37));
-        button.setForeground(new Color(169, 177, 217));
-        button.setBorderPainted(false);
-        button.setContentAreaFilled(false);
-        button.setFocusPainted(false);
-        button.setOpaque(false);
-
-        button.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseEntered(MouseEvent e) {
-                button.setForeground(Color.WHITE);
-            }
-
-            @Override
-            public void mouseExited(MouseEvent e) {
-                button.setForeground(new Color(169, 177, 217));
-            }
-        });
-
-        return button;
-    }
-
-    /**
-     * Returns the user to the Main Menu by replacing the content pane.
-     * Ensures UI is refreshed afterward.
+     * Returns the user to the screen the credits were opened from, normally
+     * the Main Menu. The screen is reused, not rebuilt.
      */
     private void goBack() {
-        main.setContentPane(new MainMenu(main));
-        main.revalidate();
-        main.repaint();
+        main.getNavigator().back();
     }
 }
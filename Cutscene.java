@@ -0,0 +1,91 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A cutscene from content: a timeline of steps played one after another
+ * while the game is in {@link GameState#CUTSCENE}.
+ *
+ * <pre>
+ * "cutscenes": [ { "id": "intro", "steps": [
+ *     { "type": "FADE", "to": 1 },
+ *     { "type": "SCENE", "scene": "grounds" },
+ *     { "type": "TEXT", "text": "The manor waits.", "millis": 0 },
+ *     { "type": "FADE", "to": 0, "millis": 800 },
+ *     { "type": "PAN", "dx": -120, "dy": 0, "millis": 1500 },
+ *     { "type": "SOUND", "sound": "CHIME" },
+ *     { "type": "WAIT", "millis": 1000 } ] } ]
+ * </pre>
+ *
+ * <p>Every step starts when the one before it has taken its
+ * {@code millis}. {@code TEXT} shows a caption until the next one (empty text
+ * hides it); {@code FADE} animates the overlay to {@code to} (0 clear, 1
+ * black); {@code PAN} moves the scene by {@code dx, dy} from where the last
+ * pan left it; {@code SOUND} plays an effect; {@code SCENE} changes scene;
+ * {@code WAIT} only takes time. A content interaction plays one with the
+ * command {@code PLAY_CUTSCENE:<id>}; see {@link CutscenePlayer}.</p>
+ */
+public final class Cutscene {
+    /** What a step does. */
+    public enum StepType { TEXT, PAN, FADE, SOUND, WAIT, SCENE }
+
+    /** One step, with where it falls on the timeline. */
+    public static final class Step {
+        final StepType type;
+        final String text;
+        final String scene;
+        final AudioEngine.Sound sound;
+        final float to;
+        final int dx, dy;
+        final long startNanos;
+        final long nanos;
+
+        Step(StepType type, String text, String scene, AudioEngine.Sound sound, float to, int dx, int dy,
+             long startNanos, long nanos) {
+            this.type = type;
+            this.text = text;
+            this.scene = scene;
+            this.sound = sound;
+            this.to = to;
+            this.dx = dx;
+            this.dy = dy;
+            this.startNanos = startNanos;
+            this.nanos = nanos;
+        }
+    }
+
+    final String id;
+    final Step[] steps;
+    final long totalNanos;
+
+    private Cutscene(String id, Step[] steps, long totalNanos) {
+        this.id = id;
+        this.steps = steps;
+        this.totalNanos = totalNanos;
+    }
+
+    /** Lays steps out on a timeline as they are added. */
+    static final class Builder {
+        private final String id;
+        private final List<Step> steps = new ArrayList<>();
+        private long end;
+
+        Builder(String id) { this.id = id; }
+
+        /**
+         * Appends a step.
+         *
+         * @param millis How long the step takes before the next one starts.
+         */
+        Builder add(StepType type, String text, String scene, AudioEngine.Sound sound, float to, int dx, int dy,
+                    long millis) {
+            long nanos = Math.max(0, millis) * 1_000_000L;
+            steps.add(new Step(type, text, scene, sound, Math.max(0f, Math.min(1f, to)), dx, dy, end, nanos));
+            end += nanos;
+            return this;
+        }
+
+        Cutscene build() {
+            return new Cutscene(id, steps.toArray(new Step[0]), end);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+import java.util.List;
+
+/**
+ * Plays {@link Cutscene}s for a {@link Game}, on its game-logic thread.
+ *
+ * <p>Steps are timed against one clock started when the cutscene begins:
+ * each wake-up works out the timeline position from {@link System#nanoTime()}
+ * and the current speed, starts every step that is due, and schedules the
+ * next on the game loop for the exact moment the next step is due, so
+ * lateness never adds up from step to step. Skipping applies what the
+ * remaining steps leave behind (the scene, the fade) and ends the cutscene;
+ * fast-forward plays at {@value #FAST_FORWARD}x. Without a game loop (the
+ * text front end) a cutscene plays through at once, publishing each step.</p>
+ *
+ * <p>The view only hears about step boundaries; fades and pans are
+ * interpolated by the view every frame from the {@link GameSnapshot.CutsceneView}.
+ * The scenes coming up are offered for prefetch in each snapshot. Metric:
+ * {@code cutscene.stepLateness}, from when a step was due to when it started.</p>
+ */
+final class CutscenePlayer {
+    static final float FAST_FORWARD = 4f;
+    private static final LatencyHistogram STEP_LATENESS = Metrics.histogram("cutscene.stepLateness");
+    private static final int PREFETCH_SCENES = 2;
+
+    private final Game game;
+    private Cutscene playing;
+    private int next;
+    private float speed = 1f;
+    private int run; // Bumped to cancel wake-ups scheduled before a skip or speed change
+
+    // Timeline position at originNanos; the position moves on at speed from there
+    private long originNanos;
+    private long originPosition;
+
+    // What the steps so far have left on screen
+    private String caption;
+    private float fade;
+    private int panX, panY;
+
+    // The fade or pan still running, where it started from, and its real-time span
+    private Cutscene.Step effect;
+    private float effectFade;
+    private int effectX, effectY;
+    private long effectStartNanos, effectNanos;
+
+    private GameSnapshot.CutsceneView view;
+
+    CutscenePlayer(Game game) { this.game = game; }
+
+    /** @return whether a cutscene is playing. */
+    boolean isPlaying() { return playing != null; }
+
+    /**
+     * Starts a cutscene, replacing any that is playing, and puts the game in
+     * {@link GameState#CUTSCENE}.
+     */
+    void play(Cutscene c) {
+        playing = c;
+        next = 0;
+        speed = 1f;
+        originNanos = System.nanoTime();
+        originPosition = 0;
+        caption = null;
+        fade = 0f;
+        panX = panY = 0;
+        effect = null;
+        view = null;
+        run++;
+        game.state = GameState.CUTSCENE;
+
+        if (!game.isRunning()) {
+            playThrough();
+        } else {
+            advance(run);
+        }
+    }
+
+    /** Jumps to the end: the remaining scene changes, fades and pans apply, sounds and captions are dropped. */
+    void skip() {
+        if (playing == null) return;
+        for (; next < playing.steps.length; next++) {
+            Cutscene.Step s = playing.steps[next];
+            switch (s.type) {
+                case SCENE: game.changeScene(s.scene); break;
+                case FADE: fade = s.to; break;
+                case PAN: panX += s.dx; panY += s.dy; break;
+                default: break;
+            }
+        }
+        finish();
+    }
+
+    /** Plays at {@value #FAST_FORWARD}x while on, at normal speed otherwise. */
+    void setFastForward(boolean on) {
+        float wanted = on ? FAST_FORWARD : 1f;
+        if (playing == null || wanted == speed) return;
+        long now = System.nanoTime();
+        originPosition = position(now);
+        originNanos = now;
+        speed = wanted;
+        if (effect != null) timeEffect(now, originPosition);
+        view = null;
+        advance(++run);
+    }
+
+    /** @return what the cutscene shows now, or null when none is playing. */
+    GameSnapshot.CutsceneView view() {
+        if (playing == null) return null;
+        if (view == null) {
+            boolean fading = effect != null && effect.type == Cutscene.StepType.FADE;
+            boolean panning = effect != null && effect.type == Cutscene.StepType.PAN;
+            view = new GameSnapshot.CutsceneView(playing.id, caption, fading ? effectFade : fade, fade,
+                    panning ? effectX : panX, panning ? effectY : panY, panX, panY,
+                    effect == null ? 0 : effectStartNanos, effect == null ? 0 : effectNanos);
+        }
+        return view;
+    }
+
+    /**
+     * Adds the scenes the next steps change to, for the view to decode ahead.
+     *
+     * @param out Receives scene ids.
+     */
+    void upcomingScenes(List<String> out) {
+        if (playing == null) return;
+        int found = 0;
+        for (int i = next; i < playing.steps.length && found < PREFETCH_SCENES; i++) {
+            if (playing.steps[i].type == Cutscene.StepType.SCENE) {
+                out.add(playing.steps[i].scene);
+                found++;
+            }
+        }
+    }
+
+    private long position(long now) {
+        return originPosition + (long) ((now - originNanos) * (double) speed);
+    }
+
+    // Starts every due step, then sleeps until the next one is due
+    private void advance(int token) {
+        if (token != run || playing == null) return;
+        long now = System.nanoTime();
+        long pos = position(now);
+        while (next < playing.steps.length && playing.steps[next].startNanos <= pos) {
+            Cutscene.Step s = playing.steps[next++];
+            STEP_LATENESS.record((long) ((pos - s.startNanos) / speed));
+            begin(s, now, pos);
+        }
+        if (next == playing.steps.length && pos >= playing.totalNanos) {
+            finish();
+            return;
+        }
+        long due = next < playing.steps.length ? playing.steps[next].startNanos : playing.totalNanos;
+        long waitNanos = (long) ((due - pos) / speed);
+        game.later(() -> advance(token), (waitNanos + 999_999) / 1_000_000);
+    }
+
+    private void begin(Cutscene.Step s, long now, long pos) {
+        switch (s.type) {
+            case TEXT:
+                caption = s.text == null || s.text.isEmpty() ? null : s.text;
+                break;
+            case FADE:
+                effect = s;
+                effectFade = currentFade(now);
+                fade = s.to;
+                timeEffect(now, pos);
+                break;
+            case PAN:
+                effect = s;
+                effectX = panX;
+                effectY = panY;
+                panX += s.dx;
+                panY += s.dy;
+                timeEffect(now, pos);
+                break;
+            case SOUND:
+                if (s.sound != null) game.pendingSounds.add(s.sound);
+                break;
+            case SCENE:
+                game.changeScene(s.scene);
+                break;
+            default:
+                break;
+        }
+        view = null;
+    }
+
+    // Where a fade cut short by another stands now
+    private float currentFade(long now) {
+        if (effect == null || view == null || effect.type != Cutscene.StepType.FADE) return fade;
+        return view.fadeAt(now);
+    }
+
+    // The running effect in real time, catching up if its step started late or the speed changed
+    private void timeEffect(long now, long pos) {
+        effectStartNanos = now - (long) ((pos - effect.startNanos) / speed);
+        effectNanos = (long) (effect.nanos / speed);
+    }
+
+    // Every step at once, each published, for games with no loop to schedule on
+    private void playThrough() {
+        long now = System.nanoTime();
+        for (; next < playing.steps.length; next++) {
+            Cutscene.Step s = playing.steps[next];
+            begin(s, now, s.startNanos + s.nanos);
+            game.publish();
+        }
+        finish();
+    }
+
+    private void finish() {
+        playing = null;
+        effect = null;
+        view = null;
+        run++;
+        if (game.state == GameState.CUTSCENE) game.state = GameState.IDLE;
+    }
+}
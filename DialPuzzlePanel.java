@@ -1,32 +1,27 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
-import java.util.Arrays;
 
 /**
  * The DialPuzzlePanel class represents the triple-dial lock puzzle used in the
  * game.
- * It displays three rotating letter dials (A–D) that the player can interact
- * with,
- * checks whether the entered sequence matches the target pattern, and
- * communicates
- * puzzle success or exit events back to the main Game controller.
+ * It displays rotating letter dials (A-D by default) that the player can interact
+ * with, and queues each turn on the game-logic thread, where the dial lock is
+ * checked against the target pattern.
  *
  * <p>
- * This class manages all UI and logic related to the dial puzzle, including:
+ * This class manages the UI of the dial puzzle, including:
  * <ul>
- * <li>Displaying and styling the three rotating dials</li>
- * <li>Handling user clicks to cycle letters A–D</li>
- * <li>Resetting puzzle state and updating displayed values</li>
- * <li>Checking whether the player's current dial positions match the puzzle
- * solution</li>
- * <li>Triggering callbacks when the puzzle is solved or exited</li>
- * <li>Sending feedback messages to the Game's InfoPanel</li>
+ * <li>Displaying and styling the rotating dials</li>
+ * <li>Forwarding user clicks that cycle the letters</li>
+ * <li>Rebuilding the dials when the puzzle code changes their number</li>
+ * <li>Showing the dial letters from each game snapshot</li>
+ * <li>Forwarding the exit button to the game</li>
  * </ul>
  *
  * <p>
- * Although this panel handles all puzzle-specific behavior, it relies on the
- * Game class for puzzle lifecycle control, scene transitions, and UI updates.
+ * The lock itself, and deciding when it is solved, belong to the Game class,
+ * which also controls the puzzle lifecycle and scene transitions.
  *
  * @author Ryan Matthew Alexander
  * @author Harshdeep Gill
@@ -36,11 +31,10 @@ import java.util.Arrays;
  * @version 1.0
  */
 public class DialPuzzlePanel extends JPanel {
-    private JButton[] dials = new JButton[3];
-    private int[] positions = {0, 0, 0}; 
-    private String targetSequence = ""; 
-    private final String[] letters = {"A", "B", "C", "D"};
-    private PuzzleCallback callback;
+    private JButton[] dials = new JButton[0];
+    private JPanel puzzleArea;
+    private javax.swing.border.TitledBorder titleBorder;
+    private Theme theme;
     private Game g;
     
     /**
@@ -52,101 +46,110 @@ public class DialPuzzlePanel extends JPanel {
     public DialPuzzlePanel(Game g) {
         this.g = g;
         setLayout(new GridBagLayout());
-        setBackground(new Color(20, 25, 25));
         
-        JPanel puzzleArea = new JPanel(new FlowLayout(FlowLayout.CENTER, 30, 20));
+        puzzleArea = new JPanel(new FlowLayout(FlowLayout.CENTER, 30, 20));
         puzzleArea.setPreferredSize(new Dimension(500, 200));
-        puzzleArea.setBackground(new Color(45, 45, 50));
-        puzzleArea.setBorder(BorderFactory.createTitledBorder(
-            BorderFactory.createLineBorder(Color.WHITE), 
+        titleBorder = BorderFactory.createTitledBorder(
+            BorderFactory.createEmptyBorder(), 
             "Triple Dial Lock", 
             javax.swing.border.TitledBorder.CENTER, 
-            javax.swing.border.TitledBorder.TOP, 
-            new Font("Monospaced", Font.BOLD, 20), 
-            new Color(255, 200, 150)
-        ));
+            javax.swing.border.TitledBorder.TOP
+        );
+        puzzleArea.setBorder(titleBorder);
 
-        for (int i = 0; i < dials.length; i++) {
-            JButton dial = new JButton("A");
-            dial.setPreferredSize(new Dimension(80, 80));
-            dial.setFont(new Font("Monospaced", Font.BOLD, 30));
-            dial.setBackground(new Color(100, 100, 120));
-            dial.setForeground(new Color(255, 200, 150));
-            dial.setFocusPainted(false);
-            dial.setActionCommand(String.valueOf(i));
-            dial.addActionListener(this::handleDialTurn);
-            dials[i] = dial;
-            puzzleArea.add(dial);
-        }
-        
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.insets = new Insets(10, 10, 10, 10);
         gbc.gridx = 0; gbc.gridy = 0;
         add(puzzleArea, gbc);
         
         JButton exitBtn = new JButton("STOP PUZZLE");
-        exitBtn.addActionListener(e -> {
-           if(callback != null) callback.onExit(); 
-           g.endPuzzle();
-        });
+        exitBtn.addActionListener(e -> g.post(g::exitPuzzle));
         gbc.gridy = 1;
         add(exitBtn, gbc);
+        applyTheme(Theme.current());
     }
 
     /**
-     * Initializes the puzzle for a new attempt by setting the target sequence,
-     * resetting all dials to the default "A" position, and updating the InfoPanel.
+     * Restyles the panel and any dials already built with a theme's fonts
+     * and colours.
      *
-     * @param target the solution sequence the player must match
-     * @param cb     callback for reporting puzzle events
+     * @param t the theme to use
      */
-    public void init(String target, PuzzleCallback cb) {
-        this.targetSequence = target;
-        this.callback = cb;
-        Arrays.fill(positions, 0); 
-        drawDials();
-        g.infoPanel.updateDescription("Turn the dials to match the discovered sequence (A-D).");
+    public void applyTheme(Theme t) {
+        theme = t;
+        setBackground(t.color("dial.background"));
+        puzzleArea.setBackground(t.color("dial.frame"));
+        titleBorder.setBorder(BorderFactory.createLineBorder(t.color("puzzle.border")));
+        titleBorder.setTitleFont(t.font("dial.title"));
+        titleBorder.setTitleColor(t.color("dial.text"));
+        for (JButton dial : dials) {
+            styleDial(dial);
+        }
+        puzzleArea.repaint();
     }
-    
+
     /**
-     * Updates each dial's visible letter based on its internal position value.
+     * Shows the dials from a snapshot. The number of dials and letters both
+     * come from the puzzle code, so the buttons are rebuilt when they change.
+     *
+     * @param s the latest game snapshot
+     */
+    public void render(GameSnapshot s) {
+        if (s.lockSymbols == null) return;
+        if (dials.length != s.lockSymbols.length) {
+            buildDials(s.lockSymbols.length);
+        }
+        drawDials(s.lockSymbols);
+    }
+
+    /**
+     * Replaces the dial buttons with a new set when the lock size changes.
+     *
+     * @param count the number of dials to create
      */
-    private void drawDials() {
+    private void buildDials(int count) {
+        puzzleArea.removeAll();
+        dials = new JButton[count];
         for (int i = 0; i < dials.length; i++) {
-            dials[i].setText(letters[positions[i]]);
+            JButton dial = new JButton();
+            dial.setPreferredSize(new Dimension(80, 80));
+            styleDial(dial);
+            dial.setFocusPainted(false);
+            dial.setActionCommand(String.valueOf(i));
+            dial.addActionListener(this::handleDialTurn);
+            dials[i] = dial;
+            puzzleArea.add(dial);
         }
+        puzzleArea.revalidate();
     }
     
+    private void styleDial(JButton dial) {
+        dial.setFont(theme.font("dial"));
+        dial.setBackground(theme.color("dial.face"));
+        dial.setForeground(theme.color("dial.text"));
+    }
+
     /**
-     * Handles user interaction when a dial is clicked.
-     * Cycles the dial forward one letter (A→B→C→D→A), redraws the UI,
-     * and checks whether the puzzle has been solved.
+     * Updates each dial's visible letter.
      *
-     * @param e the action event identifying which dial was clicked
+     * @param letters the letter currently shown by each dial
      */
-    private void handleDialTurn(ActionEvent e) {
-        int index = Integer.parseInt(e.getActionCommand());
-        positions[index] = (positions[index] + 1) % letters.length; 
-        drawDials();
-        
-        if (checkSolved()) {
-            g.infoPanel.updateDescription("The lock clicks open!");
-            
-            new javax.swing.Timer(500, event -> {
-                ((javax.swing.Timer)event.getSource()).stop();
-                if(callback != null) callback.onSolve();
-                g.endPuzzle();
-            }).start();
+    private void drawDials(String[] letters) {
+        for (int i = 0; i < dials.length; i++) {
+            dials[i].setText(letters[i]);
         }
     }
-
+    
     /**
-     * Checks whether the current dial positions match the target sequence.
+     * Handles user interaction when a dial is clicked by queueing the turn on
+     * the game-logic thread, which cycles the dial forward one letter
+     * (A, B, C, D, then A again) and checks whether the puzzle has been solved.
      *
-     * @return true if the combination matches the solution; false otherwise
+     * @param e the action event identifying which dial was clicked
      */
-    private boolean checkSolved() {
-        String current = letters[positions[0]] + "_" + letters[positions[1]] + "_" + letters[positions[2]];
-        return current.equals(targetSequence);
+    private void handleDialTurn(ActionEvent e) {
+        int index = Integer.parseInt(e.getActionCommand());
+        AudioEngine.play(AudioEngine.Sound.CLICK);
+        g.post(() -> g.advanceLock(index));
     }
 }
\ No newline at end of file
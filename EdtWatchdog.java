@@ -0,0 +1,192 @@
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Detects event-dispatch-thread stalls. Game logic runs on the {@link GameLoop},
+ * but painting, layout and applying each snapshot to the Swing components still
+ * happen on the EDT, so a slow paint, snapshot commit or inventory rebuild
+ * freezes the window.
+ *
+ * <p>The watchdog replaces the system {@link EventQueue} and timestamps every
+ * event it dispatches. A daemon thread watches the event in flight; once it has
+ * run longer than the threshold, the watchdog samples the EDT's stack so the
+ * report shows what the handler was doing, not just that it was slow. When the
+ * event finishes, its type, duration and stack are kept in a bounded ring
+ * buffer that can be dumped with {@link #report()} (also on exit and over JMX,
+ * through {@link Metrics}).</p>
+ *
+ * <p>An event that pumps a nested event loop (a modal {@code JOptionPane}) is
+ * not reported: the window keeps repainting while it waits for the player.
+ * The events run by that loop are timed and reported like any other.</p>
+ */
+public class EdtWatchdog extends EventQueue {
+    private static final LatencyHistogram EVENT_LATENCY = Metrics.histogram("edt.event");
+    private static final LongAdder STALLS = Metrics.counter("edt.stalls");
+
+    private static EdtWatchdog installed;
+
+    /** One recorded stall. */
+    public static class Stall {
+        public final long wallClockMillis;
+        public final String eventType;
+        public final long durationNanos;
+        public final StackTraceElement[] stack;
+
+        Stall(long wallClockMillis, String eventType, long durationNanos, StackTraceElement[] stack) {
+            this.wallClockMillis = wallClockMillis;
+            this.eventType = eventType;
+            this.durationNanos = durationNanos;
+            this.stack = stack;
+        }
+    }
+
+    private final long thresholdNanos;
+    private final Stall[] ring;
+    private int ringNext;
+    private long ringTotal;
+
+    private volatile Thread edt;
+    private volatile long inFlightSeq;
+    private volatile long inFlightStart;
+    private volatile long sampledSeq = -1;
+    private volatile StackTraceElement[] sampledStack;
+    private long seq;
+    private int depth;
+    private boolean pumped; // Whether the innermost event in flight has run others inside it
+
+    /**
+     * @param thresholdMillis How long an event may run before it counts as a stall.
+     * @param capacity How many stalls the ring buffer keeps.
+     */
+    public EdtWatchdog(long thresholdMillis, int capacity) {
+        this.thresholdNanos = thresholdMillis * 1_000_000L;
+        this.ring = new Stall[capacity];
+
+        long interval = Math.max(1, thresholdMillis / 2);
+        Thread sampler = new Thread(() -> {
+            while (true) {
+                try {
+                    Thread.sleep(interval);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                sample();
+            }
+        }, "edt-watchdog");
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    /**
+     * Installs a watchdog on the system event queue, using the
+     * {@code moonlight.edt.stallMillis} system property (default 100) as the
+     * threshold. Safe to call more than once.
+     */
+    public static synchronized void install() {
+        if (installed != null) return;
+        long threshold = Long.getLong("moonlight.edt.stallMillis", 100);
+        installed = new EdtWatchdog(threshold, 64);
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(installed);
+    }
+
+    /** @return The installed watchdog, or {@code null} if none was installed. */
+    public static EdtWatchdog get() { return installed; }
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        boolean inner = depth > 0;
+        pumped = false; // The outer event, if any, pumps this one; put back on the way out
+        depth++;
+        edt = Thread.currentThread();
+
+        long outerSeq = inFlightSeq, outerStart = inFlightStart;
+        long mySeq = ++seq;
+        long start = System.nanoTime();
+        inFlightStart = start;
+        inFlightSeq = mySeq;
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            long duration = System.nanoTime() - start;
+            depth--;
+            inFlightSeq = outerSeq;
+            inFlightStart = outerStart;
+            EVENT_LATENCY.record(duration);
+
+            boolean ranOthers = pumped;
+            pumped = inner;
+            if (duration > thresholdNanos && !ranOthers) {
+                StackTraceElement[] stack = sampledSeq == mySeq ? sampledStack : null;
+                record(new Stall(System.currentTimeMillis(), describe(event), duration, stack));
+            }
+        }
+    }
+
+    // Runs on the sampler thread: grab the EDT's stack once per stalled event.
+    private void sample() {
+        long s = inFlightSeq;
+        Thread t = edt;
+        if (s == 0 || t == null || s == sampledSeq) return;
+        if (System.nanoTime() - inFlightStart < thresholdNanos) return;
+
+        StackTraceElement[] stack = t.getStackTrace();
+        if (inFlightSeq == s) {
+            sampledStack = stack;
+            sampledSeq = s;
+        }
+    }
+
+    private static String describe(AWTEvent event) {
+        Object source = event.getSource();
+        return event.getClass().getSimpleName() + "(id=" + event.getID() + ") from "
+                + (source == null ? "null" : source.getClass().getSimpleName());
+    }
+
+    private synchronized void record(Stall stall) {
+        STALLS.increment();
+        ring[ringNext] = stall;
+        ringNext = (ringNext + 1) % ring.length;
+        ringTotal++;
+    }
+
+    /**
+     * Returns the buffered stalls, oldest first.
+     *
+     * @return A copy of the ring buffer's contents.
+     */
+    public synchronized List<Stall> getStalls() {
+        List<Stall> list = new ArrayList<>();
+        int size = (int) Math.min(ringTotal, ring.length);
+        for (int i = 0; i < size; i++) {
+            list.add(ring[(ringNext - size + i + ring.length) % ring.length]);
+        }
+        return list;
+    }
+
+    /**
+     * Formats the buffered stalls with their sampled stacks.
+     *
+     * @return A plain-text report, oldest stall first.
+     */
+    public String report() {
+        List<Stall> stalls = getStalls();
+        StringBuilder sb = new StringBuilder();
+        sb.append("# EDT stalls over ").append(thresholdNanos / 1_000_000L).append("ms (")
+          .append(stalls.size()).append(" buffered)\n");
+        for (Stall s : stalls) {
+            sb.append(String.format("%tT.%<tL  %.1fms  %s%n", s.wallClockMillis, s.durationNanos / 1e6, s.eventType));
+            if (s.stack == null) {
+                sb.append("    (finished before it could be sampled)\n");
+            } else {
+                for (StackTraceElement el : s.stack) {
+                    sb.append("    at ").append(el).append('\n');
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -1,26 +1,34 @@
-import java.awt.CardLayout;
 import java.awt.Point;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import javax.swing.JLabel;
-import javax.swing.JPanel;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * The Game class functions as the central controller for the entire game.
  * It maintains global state, manages scenes, handles player interaction logic,
- * triggers puzzle transitions, updates UI components, and routes input from the
- * PlayPanel to the appropriate Hotspot.
+ * runs puzzles, and routes input from the PlayPanel to the appropriate Hotspot.
  *
- * <p>This class bridges gameplay logic with user interface components, coordinating:
+ * <p>This class owns all mutable game state, coordinating:
  * <ul>
  *   <li>Scene navigation</li>
  *   <li>Inventory management</li>
  *   <li>Hotspot interaction resolution</li>
- *   <li>Puzzle activation and completion</li>
+ *   <li>Puzzle activation, input and completion</li>
  *   <li>Feedback messaging</li>
  *   <li>Interaction tracking</li>
  * </ul>
  *
+ * <p>The game never touches Swing. Views queue input with {@link #post(Runnable)},
+ * which runs it on the game-logic thread ({@link GameLoop}) and then publishes an
+ * immutable {@link GameSnapshot} to the {@link GameView}. Without a loop (tests,
+ * tools, benchmarks) posted steps run on the caller's thread instead.</p>
+ *
  * @author Ryan Matthew Alexander
  * @author Harshdeep Gill
  * @author Keenan Rodricks
@@ -29,51 +37,178 @@ import javax.swing.JPanel;
  * @version 1.0
  */
 public class Game {
+    private static final LatencyHistogram CLICK_LATENCY = Metrics.histogram("game.handleClick");
+    private static final LatencyHistogram HIT_TEST_LATENCY = Metrics.histogram("scene.hitTest");
+    private static final LatencyHistogram SCENE_CHANGE_LATENCY = Metrics.histogram("game.changeScene");
+    private static final LatencyHistogram PUZZLE_START_LATENCY = Metrics.histogram("game.startPuzzle");
+    private static final LatencyHistogram PUZZLE_END_LATENCY = Metrics.histogram("game.endPuzzle");
+    private static final LongAdder MISSED_CLICKS = Metrics.counter("game.clicks.missed");
+
+    // The game the gauges below report on: the last one started, or made since; weak so it can still be collected
+    private static volatile WeakReference<Game> reported = new WeakReference<>(null);
+    private static final Set<String> GAUGED_SCENES = ConcurrentHashMap.newKeySet();
+
+    static {
+        Metrics.gauge("scene.hotspots", () -> {
+            Game g = reported.get();
+            Scene s = g == null ? null : g.currentScene;
+            return s == null ? 0 : s.getHotspots().size();
+        });
+        Metrics.gauge("history.bytes", () -> {
+            Game g = reported.get();
+            return g == null ? 0 : g.history.bytes();
+        });
+    }
+
+    // Card names shared with the Swing view's CardLayout.
+    static final String SCENE_CARD = "SCENE";
+    static final String KEYPAD_CARD = "KEYPAD";
+    static final String TILE_CARD = "TILE_PUZZLE";
+    static final String LEVER_CARD = "LEVER_PUZZLE";
+    static final String DIAL_CARD = "DIAL_PUZZLE";
+
+    static final String[] LEVER_POSITIONS = {"DOWN", "UP"};
+    static final String[] DIAL_LETTERS = {"A", "B", "C", "D"};
+    static final int PUZZLE_DELAY_MILLIS = 500;
+
     Map<String, Scene> scenes = new HashMap<>();
-    Inventory inventory = new Inventory(6);
+    Map<String, Cutscene> cutscenes = new HashMap<>();
+    WorldState world = new WorldState();
+    Inventory inventory = new Inventory(6, world);
     Scene currentScene;
     GameState state = GameState.IDLE;
-    
-    // UI component references (now public fields for easier access from other classes)
-    public JLabel messageListener; // Unused in this version, but kept for structure
-    public InfoPanel infoPanel; 
-    public InventoryPanel inventoryPanel; 
-    public PlayPanel playPanel;
-    public JPanel centerContainer;
-    public CardLayout cardLayout;
-    
-    // Puzzle Panel references
-    public KeypadPanel keypad;
-    public TilePuzzlePanel tilePuzzle;
-    public LeverPuzzlePanel leverPuzzle; 
-    public DialPuzzlePanel dialPuzzle; 
-    
     int interactionCount = 0;
 
+    // What the player is shown, published in each snapshot
+    String description = "Welcome to Moonlight Manor...";
+    String card = SCENE_CARD;
+    List<GameSnapshot.Feedback> pendingFeedback = new ArrayList<>();
+    List<AudioEngine.Sound> pendingSounds = new ArrayList<>();
+
+    // The open puzzle, if any
+    PuzzleCallback puzzleCallback;
+    CombinationLock lock;
+    TileBoard tileBoard;
+    KeypadEntry keypad;
+
+    // The playing cutscene, if any
+    final CutscenePlayer cutscenePlayer = new CutscenePlayer(this);
+
+    // Checkpoints before each interaction, for undo and redo
+    final GameHistory history = new GameHistory(this);
+
+    private GameLoop loop;
+    private GameView view;
+    private long snapshotSequence;
+
+    /** Creates an empty game; load content into it with a {@link GameDataLoader}. */
+    public Game() {
+        reported = new WeakReference<>(this);
+    }
+
     /**
-     * Assigns all UI and puzzle panel references to the Game instance, allowing
-     * it to switch between panels and update UI elements throughout gameplay.
+     * Sets the view that receives a snapshot after every step.
      *
-     * @param container The container that holds the main scene and puzzle panels.
-     * @param layout The CardLayout managing view switching.
-     * @param kp The keypad puzzle panel.
-     * @param tp The tile puzzle panel.
-     * @param lp The lever puzzle panel.
-     * @param dp The dial puzzle panel.
-     * @param ip The informational display panel.
-     * @param ipanel The inventory panel.
-     * @param pp The gameplay panel containing hotspots.
+     * @param v The view, or {@code null} for none.
+     */
+    public void setView(GameView v) { this.view = v; }
+
+    /**
+     * Starts the game-logic thread. From now on posted steps run there.
      */
-    public void setupViews(JPanel container, CardLayout layout, KeypadPanel kp, TilePuzzlePanel tp, LeverPuzzlePanel lp, DialPuzzlePanel dp, InfoPanel ip, InventoryPanel ipanel, PlayPanel pp) {
-        this.centerContainer = container;
-        this.cardLayout = layout;
-        this.keypad = kp;
-        this.tilePuzzle = tp;
-        this.leverPuzzle = lp; 
-        this.dialPuzzle = dp; 
-        this.infoPanel = ip;
-        this.inventoryPanel = ipanel;
-        this.playPanel = pp;
+    public void start() {
+        if (loop == null) loop = new GameLoop();
+        reported = new WeakReference<>(this);
+    }
+
+    /** Stops the game-logic thread, dropping any queued steps. */
+    public void stop() {
+        if (loop != null) loop.shutdown();
+        if (reported.get() == this) reported = new WeakReference<>(null);
+    }
+
+    /** @return true between {@link #start()} and {@link #stop()}. */
+    public boolean isRunning() { return loop != null && !loop.isShutdown(); }
+
+    /**
+     * Queues a step (a click, a puzzle input, a content load) for the game-logic
+     * thread, and publishes a snapshot once it has run.
+     *
+     * @param step The work to do; it may read and change any game state.
+     */
+    public void post(Runnable step) {
+        if (loop == null) {
+            step.run();
+            publish();
+        } else {
+            loop.submit(() -> {
+                step.run();
+                publish();
+            });
+        }
+    }
+
+    /**
+     * Runs a step after a delay, used for the short pause before a solved
+     * puzzle closes. Without a loop the step runs immediately.
+     */
+    void later(Runnable step, long delayMillis) {
+        if (loop == null) {
+            step.run();
+        } else {
+            loop.schedule(() -> {
+                step.run();
+                publish();
+            }, delayMillis);
+        }
+    }
+
+    /**
+     * Builds a snapshot of the current state and hands it to the view. Feedback
+     * raised since the last snapshot is moved into this one.
+     */
+    public void publish() {
+        if (view == null) {
+            pendingFeedback.clear();
+            pendingSounds.clear();
+            return;
+        }
+        view.render(snapshot());
+    }
+
+    /**
+     * Captures everything a view needs to draw the game right now.
+     *
+     * @return An immutable snapshot.
+     */
+    public GameSnapshot snapshot() {
+        List<GameSnapshot.HotspotView> hotspots = new ArrayList<>();
+        List<String> nearbyBackgrounds = new ArrayList<>();
+        List<GameSnapshot.HotspotView> nearbyHotspots = new ArrayList<>();
+        if (currentScene != null) {
+            for (Hotspot h : currentScene.getHotspots()) {
+                hotspots.add(new GameSnapshot.HotspotView(h));
+            }
+            List<String> upcoming = new ArrayList<>(Arrays.asList(currentScene.exits));
+            cutscenePlayer.upcomingScenes(upcoming);
+            for (String exit : upcoming) {
+                Scene next = scenes.get(exit);
+                if (next == null) continue;
+                if (next.background != null) nearbyBackgrounds.add(next.background);
+                for (Hotspot h : next.getHotspots()) {
+                    if (h.image != null) nearbyHotspots.add(new GameSnapshot.HotspotView(h));
+                }
+            }
+        }
+        List<GameSnapshot.Feedback> feedback = List.copyOf(pendingFeedback);
+        pendingFeedback.clear();
+        List<AudioEngine.Sound> sounds = List.copyOf(pendingSounds);
+        pendingSounds.clear();
+
+        return new GameSnapshot(++snapshotSequence, state, card, currentScene, description,
+                List.copyOf(hotspots), List.copyOf(nearbyBackgrounds), List.copyOf(nearbyHotspots),
+                List.copyOf(inventory.getItems()), inventory.getSelected(),
+                inventory.capacity, interactionCount, feedback, sounds, lock, tileBoard, keypad, cutscenePlayer.view());
     }
 
     /**
@@ -81,84 +216,301 @@ public class Game {
      *
      * @param s The scene to add.
      */
-    public void addScene(Scene s) { scenes.put(s.id, s); }
-    
+    public void addScene(Scene s) {
+        scenes.put(s.id, s);
+        gaugeHotspots(s.id);
+    }
+
+    // One scene.<id>.hotspots gauge per scene id for the whole process, reading that scene in the game reported on
+    private static void gaugeHotspots(String sceneId) {
+        if (!GAUGED_SCENES.add(sceneId)) return;
+        Metrics.gauge("scene." + sceneId + ".hotspots", () -> {
+            Game g = reported.get();
+            Scene s = g == null ? null : g.scenes.get(sceneId);
+            return s == null ? 0 : s.getHotspots().size();
+        });
+    }
+
+    /**
+     * Swaps in a new version of a scene, e.g. after its content file was edited.
+     * If the player is standing in it they stay there and see the new version.
+     *
+     * @param s The replacement scene; its ID decides which scene it replaces.
+     */
+    public void replaceScene(Scene s) {
+        scenes.put(s.id, s);
+        gaugeHotspots(s.id);
+        // The new version starts over, so the world state forgets the old one's hotspots
+        for (Hotspot h : s.hotspots) h.reset(world);
+        if (currentScene != null && currentScene.id.equals(s.id)) {
+            currentScene = s;
+            if (state == GameState.IDLE) describe(s.description);
+        }
+    }
+
     /**
      * Returns the player's inventory.
      *
      * @return The Inventory object.
      */
     public Inventory getInventory() { return inventory; }
-    
+
+    /**
+     * Registers a cutscene under its ID, replacing any with the same ID.
+     *
+     * @param c The cutscene to add.
+     */
+    public void addCutscene(Cutscene c) { cutscenes.put(c.id, c); }
+
+    /**
+     * Plays a cutscene. The game is in {@link GameState#CUTSCENE}, ignoring
+     * clicks, until it ends or is skipped. An open puzzle is closed first.
+     *
+     * @param id The ID of the cutscene.
+     */
+    public void playCutscene(String id) {
+        Cutscene c = cutscenes.get(id);
+        if (c == null) {
+            System.out.println("Unknown cutscene: " + id);
+            return;
+        }
+        if (state == GameState.PUZZLE) endPuzzle();
+        cutscenePlayer.play(c);
+    }
+
+    /** Skips the rest of the playing cutscene, if any. */
+    public void skipCutscene() { cutscenePlayer.skip(); }
+
     /**
-     * Displays a floating feedback message on the PlayPanel at a specific location.
+     * Plays the cutscene faster while the player holds the fast-forward key.
+     *
+     * @param on Whether fast-forward is held.
+     */
+    public void fastForwardCutscene(boolean on) { cutscenePlayer.setFastForward(on); }
+
+    /**
+     * Takes back the last interaction: scene, inventory, selection, hotspots,
+     * flags, description and interaction count go back to what they were
+     * before it. Only between interactions, not in a puzzle or a cutscene.
+     */
+    public void undo() {
+        if (state != GameState.IDLE) return;
+        if (!history.canUndo()) {
+            showFeedback("Nothing to undo.", new Point(300, 300));
+            return;
+        }
+        history.undo();
+        showFeedback("Undone.", new Point(300, 300));
+    }
+
+    /** Does again what the last {@link #undo()} took back, if nothing has happened since. */
+    public void redo() {
+        if (state != GameState.IDLE) return;
+        if (!history.canRedo()) {
+            showFeedback("Nothing to redo.", new Point(300, 300));
+            return;
+        }
+        history.redo();
+        showFeedback("Redone.", new Point(300, 300));
+    }
+
+    /**
+     * Returns the game's progress in one packed vector: items held and selected,
+     * flags, solved puzzles, visited scenes, the current scene and the hotspots
+     * that have changed. Content conditions are tested against it.
+     *
+     * @return The game's world state.
+     */
+    public WorldState getWorld() { return world; }
+
+    /**
+     * Replaces the narrative text shown under the location title.
+     *
+     * @param text The new description.
+     */
+    public void describe(String text) { this.description = text; }
+
+    /**
+     * Raises a floating feedback message on the PlayPanel at a specific location.
      *
      * @param msg The message text.
      * @param location The on-screen location where the message should appear.
      */
     public void showFeedback(String msg, Point location) {
-        if (playPanel != null) {
-            playPanel.addFeedback(msg, location);
+        pendingFeedback.add(new GameSnapshot.Feedback(msg, location));
+    }
+
+    /**
+     * Selects (or deselects) an inventory item and shows its description.
+     *
+     * @param i The item the player clicked.
+     */
+    public void selectItem(Item i) {
+        inventory.select(i);
+        if (inventory.getSelected() == i) {
+            describe(i.desc);
         }
     }
 
     /**
-     * Changes the current scene to the one matching the provided ID.
-     * Updates the InfoPanel accordingly. Prints an error if the scene does not exist.
+     * Changes the current scene to the one matching the provided ID and shows
+     * its description. Prints an error if the scene does not exist.
      *
      * @param id The ID of the scene to switch to.
      */
     public void changeScene(String id) {
+        long start = System.nanoTime();
         Scene next = scenes.get(id);
         if (next == null) {
             System.out.println("Can't go there.");
             return;
         }
         currentScene = next;
-        if (infoPanel != null) {
-            infoPanel.updateLocation(currentScene.title, currentScene.description);
-        }
+        world.put(WorldState.SCENE, next.ordinal + 1);
+        world.set("visited:" + id, true);
+        description = currentScene.description;
         System.out.println("Location: " + currentScene.title);
+        SCENE_CHANGE_LATENCY.recordSince(start);
     }
 
     /**
-     * Initiates a puzzle by switching the UI into puzzle mode and initializing
-     * the appropriate puzzle panel. Updates UI text and interaction count.
+     * Initiates a puzzle by switching into puzzle mode and setting up the
+     * puzzle's state.
      *
      * @param puzzleName The name/type of puzzle ("Keypad", "TilePuzzle", etc.).
-     * @param code Optional initialization value used by certain puzzles.
+     * @param code Initialization value: the keypad code or the lever/dial sequence.
      * @param callback A callback object invoked when the puzzle is solved or exited.
      */
     public void startPuzzle(String puzzleName, String code, PuzzleCallback callback) {
-        state = GameState.PUZZLE;
-        infoPanel.updateDescription("Starting " + puzzleName + "...");
+        long start = System.nanoTime();
+        lock = null;
+        tileBoard = null;
+        keypad = null;
 
         if (puzzleName.equals("Keypad")) {
-            keypad.init(code, callback);
-            cardLayout.show(centerContainer, "KEYPAD");
+            keypad = new KeypadEntry(code);
+            card = KEYPAD_CARD;
+            describe("Enter the 4-digit code...");
         } else if (puzzleName.equals("TilePuzzle")) {
-            tilePuzzle.init(callback);
-            cardLayout.show(centerContainer, "TILE_PUZZLE");
-        } else if (puzzleName.equals("LeverPuzzle")) { 
-            leverPuzzle.init(callback);
-            cardLayout.show(centerContainer, "LEVER_PUZZLE");
-        } else if (puzzleName.equals("DialPuzzle")) { 
-             dialPuzzle.init("C_A_D", callback);
-             cardLayout.show(centerContainer, "DIAL_PUZZLE");
+            tileBoard = TileBoard.fromCode(code);
+            tileBoard.shuffleSolvable();
+            card = TILE_CARD;
+            describe("Solve the sliding tile puzzle...");
+        } else if (puzzleName.equals("LeverPuzzle")) {
+            lock = CombinationLock.fromCode(code, LEVER_POSITIONS);
+            card = LEVER_CARD;
+            describe("Pull the levers in the correct sequence (U or D). (Check your Journal Note for the clue!)");
+        } else if (puzzleName.equals("DialPuzzle")) {
+            lock = CombinationLock.fromCode(code, DIAL_LETTERS);
+            card = DIAL_CARD;
+            describe("Turn the dials to match the discovered sequence.");
+        } else {
+            System.out.println("Unknown puzzle: " + puzzleName);
+            return;
         }
-        infoPanel.updateInteractionCount(interactionCount);
+        state = GameState.PUZZLE;
+        puzzleCallback = callback;
+        if (lock != null && lock.isSolved()) {
+            // The code is the starting position; nothing to move, so it opens as it is
+            describe(card.equals(LEVER_CARD) ? "Sequence Correct! A hidden passage opens." : "The lock clicks open!");
+            solveAfterPause();
+        }
+        PUZZLE_START_LATENCY.recordSince(start);
     }
 
     /**
-     * Ends the current puzzle, returns the UI to scene view, restores the
-     * previous description, and resets the game state to IDLE.
+     * Ends the current puzzle, returns to the scene view, restores the
+     * scene description, and resets the game state to IDLE.
      */
     public void endPuzzle() {
+        long start = System.nanoTime();
         state = GameState.IDLE;
-        cardLayout.show(centerContainer, "SCENE");
-        infoPanel.updateInteractionCount(interactionCount);
+        card = SCENE_CARD;
+        puzzleCallback = null;
+        lock = null;
+        tileBoard = null;
+        keypad = null;
         if (currentScene != null) {
-            infoPanel.updateDescription(currentScene.description);
+            describe(currentScene.description);
+        }
+        PUZZLE_END_LATENCY.recordSince(start);
+    }
+
+    /**
+     * Closes the open puzzle as solved after a short pause, so the player
+     * sees the final position first.
+     */
+    private void solveAfterPause() {
+        PuzzleCallback solving = puzzleCallback;
+        pendingSounds.add(AudioEngine.Sound.CHIME);
+        later(() -> {
+            if (state != GameState.PUZZLE || puzzleCallback != solving) return; // exited meanwhile
+            if (solving != null) solving.onSolve();
+            if (puzzleCallback == solving) endPuzzle(); // Unless the callback ended it already
+        }, PUZZLE_DELAY_MILLIS);
+    }
+
+    /**
+     * Leaves the open puzzle without solving it.
+     */
+    public void exitPuzzle() {
+        if (state != GameState.PUZZLE) return;
+        if (puzzleCallback != null) puzzleCallback.onExit();
+        endPuzzle();
+    }
+
+    /**
+     * Handles one keypad key ("0"-"9", "CLR" or "ENT").
+     *
+     * @param key The key pressed.
+     */
+    public void pressKey(String key) {
+        if (keypad == null) return;
+        KeypadEntry entry = keypad;
+        KeypadEntry.Status status = entry.press(key);
+        if (status == KeypadEntry.Status.SUCCESS) {
+            solveAfterPause();
+        } else if (status == KeypadEntry.Status.ERROR) {
+            later(() -> {
+                if (keypad == entry) entry.clear();
+            }, PUZZLE_DELAY_MILLIS);
+        }
+    }
+
+    /**
+     * Pulls a lever or turns a dial of the open combination puzzle.
+     *
+     * @param slot The lever or dial index.
+     */
+    public void advanceLock(int slot) {
+        if (lock == null || lock.isSolved() || slot < 0 || slot >= lock.getSlotCount()) return;
+        lock.advance(slot);
+
+        if (card.equals(LEVER_CARD)) {
+            showFeedback("Lever " + (slot + 1) + " moved " + lock.getSymbol(slot), new Point(300, 300));
+            if (lock.isSolved()) {
+                describe("Sequence Correct! A hidden passage opens.");
+            } else {
+                describe("Lever position changed. The mechanism is still locked. Keep adjusting.");
+            }
+        } else if (lock.isSolved()) {
+            describe("The lock clicks open!");
+        }
+
+        if (lock.isSolved()) {
+            solveAfterPause();
+        }
+    }
+
+    /**
+     * Slides a tile of the open tile puzzle towards the empty cell.
+     *
+     * @param index The cell the player clicked.
+     */
+    public void slideTile(int index) {
+        if (tileBoard == null || tileBoard.isSolved()) return;
+        if (tileBoard.slide(index) >= 0 && tileBoard.isSolved()) {
+            solveAfterPause();
         }
     }
 
@@ -172,42 +524,95 @@ public class Game {
      * </ol>
      *
      * <p>If no valid actions apply, appropriate feedback messages are shown.
-     * Interaction count is incremented after every attempt.</p>
+     * Interaction count is incremented after every attempt. Clicks are
+     * ignored while a puzzle or a cutscene has the screen.</p>
      *
      * @param p The location of the click.
      */
     public void handleClick(Point p) {
+        long start = System.nanoTime();
+        resolveClick(p);
+        CLICK_LATENCY.recordSince(start);
+    }
+
+    /**
+     * Interacts with a hotspot of the current scene exactly as a click inside
+     * it would, for front ends that name hotspots instead of pointing at them.
+     *
+     * @param h The hotspot, which must be in the current scene.
+     * @param examineFirst If true, an available EXAMINE interaction runs
+     *                     before USE and PICKUP, so looking at a door does not walk through it.
+     */
+    public void activate(Hotspot h, boolean examineFirst) {
+        long start = System.nanoTime();
+        if (state == GameState.IDLE && currentScene != null && h.scene == currentScene && h.isShown()) {
+            history.checkpoint();
+            Scene scene = currentScene;
+            Item sel = inventory.getSelected();
+            Point p = new Point(h.x() + h.width() / 2, h.y() + h.height() / 2);
+            Interaction ex = examineFirst ? h.getInteraction(InteractionType.EXAMINE, this) : null;
+            ClickLog.Outcome outcome;
+            if (ex != null) {
+                ex.execute(this, h);
+                interactionCount++;
+                outcome = ClickLog.Outcome.EXAMINE;
+            } else {
+                outcome = resolveHotspot(h, p);
+            }
+            logClick(outcome, scene, p, h, sel);
+        }
+        CLICK_LATENCY.recordSince(start);
+    }
+
+    // The body of handleClick, split out so every early return is still timed.
+    private void resolveClick(Point p) {
         if (state != GameState.IDLE || currentScene == null) return;
-        
+
+        long hitTest = System.nanoTime();
         Hotspot h = currentScene.getHotspotByPoint(p);
+        HIT_TEST_LATENCY.recordSince(hitTest);
 
+        Scene scene = currentScene;
+        Item sel = inventory.getSelected();
         if (h == null) {
-            showFeedback("Nothing here.", p); 
-            infoPanel.updateDescription("Nothing here.");
+            MISSED_CLICKS.increment();
+            showFeedback("Nothing here.", p);
+            describe("Nothing here.");
+            logClick(ClickLog.Outcome.MISS, scene, p, null, sel);
             return;
         }
+        history.checkpoint();
+        logClick(resolveHotspot(h, p), scene, p, h, sel);
+    }
+
+    // Records a resolved click for the analytics log, when it is on
+    private static void logClick(ClickLog.Outcome outcome, Scene scene, Point p, Hotspot h, Item sel) {
+        ClickLog log = ClickLog.get();
+        if (log != null) log.record(outcome, scene, p.x, p.y, h, sel);
+    }
 
+    // Tries USE, PICKUP and EXAMINE on a hotspot in that order; p is where feedback appears
+    private ClickLog.Outcome resolveHotspot(Hotspot h, Point p) {
         Item sel = inventory.getSelected();
-        
+        String name = h.name; // As the player clicked it; running an interaction may change its state and name
+
         // Try USE
         Interaction useInt = h.getInteraction(InteractionType.USE, this);
         if (useInt != null && useInt.isAvailable(this, h)) {
-            
+
             useInt.execute(this, h);
-            
+
             // Only deselect if an item was selected, as the Action logic handles item removal/replacement.
             boolean requiresItem = sel != null && useInt.cond != null;
             if (requiresItem) {
-                showFeedback("Used " + sel.name + " on " + h.name + ".", p);
-                infoPanel.updateDescription("Used " + sel.name + " on " + h.name + ".");
-                
-                inventory.selected = null;
+                showFeedback("Used " + sel.name + " on " + name + ".", p);
+                describe("Used " + sel.name + " on " + name + ".");
+
+                inventory.setSelected(null);
             }
-            this.inventoryPanel.rebuild(); 
-            
+
             interactionCount++;
-            infoPanel.updateInteractionCount(interactionCount); 
-            return;
+            return ClickLog.Outcome.USE;
         }
 
         // Try PICKUP
@@ -215,36 +620,33 @@ public class Game {
             Interaction pick = h.getInteraction(InteractionType.PICKUP, this);
             if (pick != null && pick.isAvailable(this, h)) {
                 pick.execute(this, h);
-                currentScene.hotspots.remove(h.id); 
-                infoPanel.updateDescription("Picked up " + h.name + ".");
-                this.inventoryPanel.rebuild(); 
-                
-                interactionCount++; 
-                infoPanel.updateInteractionCount(interactionCount);
-                return;
+                currentScene.removeHotspot(h.id, world);
+                describe("Picked up " + name + ".");
+
+                interactionCount++;
+                return ClickLog.Outcome.PICKUP;
             }
         }
 
         // Try EXAMINE
         Interaction ex = h.getInteraction(InteractionType.EXAMINE, this);
         if (ex != null && ex.isAvailable(this, h)) {
-            ex.execute(this, h); 
-            
-            interactionCount++; 
-            infoPanel.updateInteractionCount(interactionCount);
-            return;
+            ex.execute(this, h);
+
+            interactionCount++;
+            return ClickLog.Outcome.EXAMINE;
         }
-        
+
         // If the hotspot was clicked, but no action was available:
         if (sel != null) {
-            showFeedback("Can't use " + sel.name + " on " + h.name + ".", p);
-            infoPanel.updateDescription("Can't use " + sel.name + " on " + h.name + ".");
+            showFeedback("Can't use " + sel.name + " on " + name + ".", p);
+            describe("Can't use " + sel.name + " on " + name + ".");
         } else {
-            showFeedback("Nothing happens at the " + h.name + ".", p);
-            infoPanel.updateDescription("Nothing happens at the " + h.name + ".");
+            showFeedback("Nothing happens at the " + name + ".", p);
+            describe("Nothing happens at the " + name + ".");
         }
-        
-        interactionCount++; 
-        infoPanel.updateInteractionCount(interactionCount);
+
+        interactionCount++;
+        return ClickLog.Outcome.NOTHING;
     }
-}
\ No newline at end of file
+}
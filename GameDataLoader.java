@@ -1,15 +1,53 @@
 import com.google.gson.Gson;
-import java.awt.Rectangle;
+import com.google.gson.JsonParseException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.FileInputStream;
 import java.io.Reader;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.nio.charset.StandardCharsets;
 
+/**
+ * Loads game content from JSON into a {@link Game}.
+ *
+ * <p>Content can live in a single file, or be split into a manifest plus
+ * content packs (for example one file per scene or per wing). A manifest is an
+ * ordinary content file with a {@code "packs"} array of file names, resolved
+ * against the manifest's own folder:</p>
+ * <pre>
+ * { "startSceneId": "grounds", "items": [...], "packs": ["grounds.json", "east_wing.json"] }
+ * </pre>
+ * <p>Packs have the same layout ({@code items} and {@code scenes}) and are
+ * parsed and built in parallel on the fork-join common pool, then merged into
+ * the game in manifest order. Items from every pack are known before any
+ * scene runs, so a pack may refer to items declared elsewhere.</p>
+ *
+ * <p>{@link #reloadFile(Game, Path)} re-parses a single file and swaps its
+ * scenes into a running game; {@link ContentWatcher} calls it when a file
+ * changes in development mode.</p>
+ */
 public class GameDataLoader {
+    private static final LatencyHistogram LOAD_LATENCY = Metrics.histogram("content.load");
+    private static final LatencyHistogram PACK_PARSE_LATENCY = Metrics.histogram("content.pack.parse");
+    private static final LatencyHistogram RELOAD_LATENCY = Metrics.histogram("content.reload");
+    private static final Gson GSON = new Gson(); // Thread-safe, shared by parallel pack parsing
+    private static final CompiledCondition ALWAYS = CompiledCondition.compile("true");
+    private static final CompiledCondition NEVER = CompiledCondition.compile("false");
+    private static final Map<String, CompiledCondition> CONDITIONS = new ConcurrentHashMap<>(); // By expression
+    private static final Action NOTHING = (g, h) -> { };
+    private static final int[] NO_FLAGS = new int[0];
+    private static final Transition[] NO_CHANGES = new Transition[0];
 
     // --- DTO Classes for JSON Parsing ---
 
@@ -17,6 +55,9 @@ public class GameDataLoader {
         public ItemData[] items;
         public SceneData[] scenes;
         public String startSceneId;
+        public String startCutscene; // Optional: played once the start scene is set
+        public CutsceneData[] cutscenes;
+        public String[] packs; // Manifest only: further content files, relative to this one
     }
 
     public static class ItemData {
@@ -29,6 +70,7 @@ public class GameDataLoader {
         public String id;
         public String title;
         public String description;
+        public String background; // Optional image file
         public HotspotData[] hotspots;
     }
 
@@ -36,21 +78,186 @@ public class GameDataLoader {
         public String id;
         public String name;
         public int[] bounds; // [x, y, width, height]
+        public String image; // Optional image file
+        public InteractionData[] interactions; // In every state, after the state's own
+        public HotspotStateData[] states; // Optional: named states, starting in the first; see Hotspot
+    }
+
+    public static class HotspotStateData {
+        public String id;
+        public String name; // Optional: the hotspot's name, bounds and image otherwise
+        public int[] bounds;
+        public String image;
+        public boolean hidden; // Out of the scene while in this state
         public InteractionData[] interactions;
     }
 
+    public static class CutsceneData {
+        public String id;
+        public CutsceneStepData[] steps;
+    }
+
+    public static class CutsceneStepData {
+        public String type; // TEXT, PAN, FADE, SOUND, WAIT or SCENE; see Cutscene
+        public String text;
+        public String scene;
+        public String sound;
+        public float to;
+        public int dx, dy;
+        public long millis;
+    }
+
     public static class InteractionData {
         public String type; 
         public String requiredItem; 
+        public String condition; // Optional, e.g. "has(crypticSymbol) && !solved(safe)"; see CompiledCondition
+        public String[] setFlags; // Optional: flags raised when the interaction runs
+        public String setState; // Optional: this hotspot's next state (once solved, for START_PUZZLE)
+        public Map<String, String> setStates; // Optional: next states of other hotspots in the scene
+        public String solvedFeedback; // Optional, START_PUZZLE: shown instead of "Success!"
+        public String solvedDescription; // Optional, START_PUZZLE: the description once solved, instead of the scene's
         public String command; 
         public String feedback; 
     }
+
+    /** A state change named in content, resolved to a hotspot and state number once its scene is built. */
+    private static final class Transition {
+        final String hotspotId, stateId;
+        Hotspot target;
+        int state;
+
+        Transition(String hotspotId, String stateId) {
+            this.hotspotId = hotspotId;
+            this.stateId = stateId;
+        }
+
+        void apply(Game g) {
+            if (target != null) target.setState(state, g.getWorld());
+        }
+    }
     
     // --- Item Map for Quick Lookup ---
     private Map<String, Item> itemMap = new HashMap<>(); 
 
+    // Actions, interactions and interaction lists built once and shared by every hotspot that repeats them
+    private final Map<String, Action> sharedActions = new ConcurrentHashMap<>();
+    private final Map<String, Interaction> sharedInteractions = new ConcurrentHashMap<>();
+    private final Map<List<Interaction>, Interaction[]> sharedArrays = new ConcurrentHashMap<>();
+    // Items that commands give, each with a hotspot giving it; checked once every pack's items are known
+    private final Map<String, String> givenItems = new ConcurrentHashMap<>();
+
+    // Content files read from the file system, in load order (watched in development mode)
+    private final List<Path> loadedFiles = new ArrayList<>();
+
+    /** A parsed content file and the scenes built from it, ready to merge. */
+    private static class Pack {
+        final Path file;
+        final GameData data;
+        final List<Scene> scenes;
+
+        Pack(Path file, GameData data, List<Scene> scenes) {
+            this.file = file;
+            this.data = data;
+            this.scenes = scenes;
+        }
+    }
+
     public void loadContent(Game game, String filePath) {
-        Gson gson = new Gson();
+        long start = System.nanoTime();
+        GameData data = read(filePath);
+        if (data == null) return;
+
+        List<Pack> packs = new ArrayList<>();
+        Path root = Paths.get(filePath);
+        packs.add(new Pack(Files.isRegularFile(root) ? root : null, data, buildScenes(data)));
+
+        // Parse and build every pack in parallel, then merge them in manifest order
+        if (data.packs != null && data.packs.length > 0) {
+            List<ForkJoinTask<Pack>> tasks = new ArrayList<>();
+            for (String name : data.packs) {
+                String packPath = root.resolveSibling(name).toString();
+                tasks.add(ForkJoinPool.commonPool().submit(() -> readPack(packPath)));
+            }
+            for (ForkJoinTask<Pack> task : tasks) {
+                Pack pack = task.join();
+                if (pack != null) packs.add(pack);
+            }
+        }
+
+        // 1. Populate the Item Map from every pack first, so scenes can use any item
+        for (Pack pack : packs) {
+            addItems(pack.data);
+            if (pack.file != null) loadedFiles.add(pack.file);
+        }
+        checkGivenItems();
+
+        // 2. Register the Scenes, Hotspots, Interactions and Cutscenes
+        for (Pack pack : packs) {
+            for (Scene scene : pack.scenes) {
+                game.addScene(scene);
+            }
+            addCutscenes(game, pack.data);
+        }
+
+        // 3. Set the starting scene
+        if (data.startSceneId != null) {
+            game.changeScene(data.startSceneId);
+        }
+        if (data.startCutscene != null) {
+            game.playCutscene(data.startCutscene);
+        }
+        forgetShared();
+        LOAD_LATENCY.recordSince(start);
+    }
+
+    /**
+     * Re-reads one content file and swaps its items and scenes into a running
+     * game. The file is parsed on the calling thread; the swap is posted to the
+     * game-logic thread. Scenes the file no longer declares are left in place.
+     *
+     * @param game The running game.
+     * @param file A content file previously loaded by this loader.
+     */
+    public void reloadFile(Game game, Path file) {
+        long start = System.nanoTime();
+        Pack pack = readPack(file.toString());
+        forgetShared();
+        if (pack == null) return; // Error already reported; the next save will retry
+
+        game.post(() -> {
+            addItems(pack.data);
+            checkGivenItems();
+            addCutscenes(game, pack.data);
+            for (Scene scene : pack.scenes) {
+                game.replaceScene(scene);
+            }
+            RELOAD_LATENCY.recordSince(start);
+            System.out.println("Reloaded " + pack.scenes.size() + " scene(s) from " + file.getFileName());
+        });
+    }
+
+    /**
+     * Returns the content files read from the file system so far, manifest first.
+     *
+     * @return An unmodifiable list of paths.
+     */
+    public List<Path> getLoadedFiles() { return Collections.unmodifiableList(loadedFiles); }
+
+    private Pack readPack(String filePath) {
+        long start = System.nanoTime();
+        GameData data = read(filePath);
+        if (data == null) return null;
+        Path file = Paths.get(filePath);
+        Pack pack = new Pack(Files.isRegularFile(file) ? file : null, data, buildScenes(data));
+        PACK_PARSE_LATENCY.recordSince(start);
+        return pack;
+    }
+
+    /**
+     * Parses one content file, looking on the classpath first and then on the
+     * file system. Errors are reported and give {@code null}.
+     */
+    private GameData read(String filePath) {
         InputStream inputStream = null;
 
         // STEP 1: Try to load as a Resource (Standard for Java projects/JARs)
@@ -64,213 +271,400 @@ public class GameDataLoader {
                 inputStream = new FileInputStream(filePath);
             } catch (IOException e) {
                 System.err.println("ERROR: Could not find '" + filePath + "' in classpath OR filesystem.");
-                return;
+                return null;
             }
         }
 
         // STEP 3: Read the stream
         try (Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
-            GameData data = gson.fromJson(reader, GameData.class);
+            GameData data = GSON.fromJson(reader, GameData.class);
 
             if (data == null) {
                 System.err.println("ERROR: JSON was found but parsed data is null.");
-                return;
             }
+            return data;
+
+        } catch (IOException | JsonParseException e) {
+            System.err.println("Error loading game data from " + filePath + ": " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private void addItems(GameData data) {
+        if (data.items != null) {
+            for (ItemData itemData : data.items) {
+                Item item = new Item(text(itemData.id), text(itemData.name), text(itemData.desc));
+                itemMap.put(item.id, item);
+            }
+        }
+    }
 
-            // 1. Populate the Item Map
-            if (data.items != null) {
-                for (ItemData itemData : data.items) {
-                    Item item = new Item(itemData.id, itemData.name, itemData.desc);
-                    itemMap.put(item.id, item);
+    private static void addCutscenes(Game game, GameData data) {
+        if (data.cutscenes == null) return;
+        for (CutsceneData cd : data.cutscenes) {
+            Cutscene.Builder builder = new Cutscene.Builder(cd.id);
+            if (cd.steps != null) {
+                for (CutsceneStepData step : cd.steps) {
+                    try {
+                        AudioEngine.Sound sound = step.sound == null ? null : AudioEngine.Sound.valueOf(step.sound);
+                        builder.add(Cutscene.StepType.valueOf(step.type), step.text, step.scene, sound,
+                                step.to, step.dx, step.dy, step.millis);
+                    } catch (IllegalArgumentException | NullPointerException e) {
+                        System.err.println("ERROR: cutscene '" + cd.id + "': bad step " + step.type + " (" + step.sound + ")");
+                    }
                 }
             }
+            game.addCutscene(builder.build());
+        }
+    }
 
-            // 2. Process Scenes, Hotspots, and Interactions
-            if (data.scenes != null) {
-                for (SceneData sceneData : data.scenes) {
-                    Scene scene = new Scene(sceneData.id, sceneData.title, sceneData.description);
-                    
-                    if (sceneData.hotspots != null) {
-                        for (HotspotData hotspotData : sceneData.hotspots) {
-                            int[] b = hotspotData.bounds;
-                            Hotspot hotspot = new Hotspot(hotspotData.id, hotspotData.name, new Rectangle(b[0], b[1], b[2], b[3]));
-                            
-                            if (hotspotData.interactions != null) {
-                                for (InteractionData idata : hotspotData.interactions) {
-                                    Interaction interaction = createInteraction(idata, hotspot, scene);
-                                    hotspot.addInteraction(interaction);
-                                }
+    // Builds scenes without touching the game or the item map, so packs can be built in parallel.
+    private List<Scene> buildScenes(GameData data) {
+        List<Scene> scenes = new ArrayList<>();
+        if (data.scenes != null) {
+            for (SceneData sceneData : data.scenes) {
+                Scene scene;
+                try {
+                    scene = new Scene(text(sceneData.id), text(sceneData.title), text(sceneData.description));
+                } catch (IllegalStateException e) {
+                    System.err.println("ERROR: " + e.getMessage());
+                    continue;
+                }
+                scene.background = text(sceneData.background);
+                List<Transition> transitions = new ArrayList<>();
+                
+                if (sceneData.hotspots != null) {
+                    for (HotspotData hotspotData : sceneData.hotspots) {
+                        int[] b = hotspotData.bounds;
+                        int box = scene.box(b[0], b[1], b[2], b[3]);
+                        Hotspot hotspot = new Hotspot(text(hotspotData.id), text(hotspotData.name), scene, box);
+                        hotspot.image = text(hotspotData.image);
+                        
+                        List<Interaction> shared = new ArrayList<>();
+                        if (hotspotData.interactions != null) {
+                            for (InteractionData idata : hotspotData.interactions) {
+                                shared.add(createInteraction(idata, hotspot, scene, transitions));
                             }
-                            scene.addHotspot(hotspot);
                         }
+                        String sharedExit = exitOf(hotspotData.interactions, null);
+                        if (hotspotData.states != null && hotspotData.states.length > 0) {
+                            hotspot.setStates(buildStates(hotspotData, hotspot, box, scene, shared, sharedExit, transitions));
+                        } else {
+                            hotspot.interactions = interactionArray(shared);
+                            hotspot.leadsTo = sharedExit;
+                        }
+                        scene.addHotspot(hotspot);
                     }
-                    game.addScene(scene);
                 }
+                resolve(scene, transitions);
+                scenes.add(scene);
             }
-            
-            // 3. Set the starting scene
-            if (data.startSceneId != null) {
-                game.changeScene(data.startSceneId);
+        }
+        return scenes;
+    }
+
+    // Each state of a hotspot, built once: its own interactions first, then the hotspot's
+    private Hotspot.State[] buildStates(HotspotData hotspotData, Hotspot hotspot, int box, Scene scene,
+                                        List<Interaction> shared, String sharedExit, List<Transition> transitions) {
+        Hotspot.State[] states = new Hotspot.State[hotspotData.states.length];
+        for (int i = 0; i < states.length; i++) {
+            HotspotStateData sd = hotspotData.states[i];
+            List<Interaction> interactions = new ArrayList<>();
+            if (sd.interactions != null) {
+                for (InteractionData idata : sd.interactions) {
+                    interactions.add(createInteraction(idata, hotspot, scene, transitions));
+                }
             }
+            interactions.addAll(shared);
+            int[] b = sd.bounds;
+            states[i] = new Hotspot.State(text(sd.id), sd.name != null ? text(sd.name) : hotspot.name,
+                    b != null ? scene.box(b[0], b[1], b[2], b[3]) : box,
+                    sd.image != null ? text(sd.image) : hotspot.image,
+                    exitOf(sd.interactions, sharedExit), interactionArray(interactions), sd.hidden);
+        }
+        return states;
+    }
 
-        } catch (IOException e) {
-            System.err.println("Error loading game data from " + filePath + ": " + e.getMessage());
-            e.printStackTrace();
+    // The scene the last CHANGE_SCENE among some interactions leads to, or the fallback
+    private static String exitOf(InteractionData[] interactions, String fallback) {
+        String exit = fallback;
+        if (interactions != null) {
+            for (InteractionData idata : interactions) {
+                if (idata.command != null && idata.command.startsWith("CHANGE_SCENE:")) {
+                    exit = text(idata.command.substring("CHANGE_SCENE:".length()));
+                }
+            }
+        }
+        return exit;
+    }
+
+    // Points each state change at its hotspot and state, now that the whole scene exists
+    private static void resolve(Scene scene, List<Transition> transitions) {
+        for (Transition t : transitions) {
+            Hotspot target = scene.getHotspot(t.hotspotId);
+            int state = target == null ? -1 : target.stateIndex(t.stateId);
+            if (state < 0) {
+                System.err.println("ERROR: scene '" + scene.id + "': no hotspot '" + t.hotspotId
+                        + "' with a state '" + t.stateId + "'");
+                continue;
+            }
+            t.target = target;
+            t.state = state;
+        }
+    }
+
+    // One copy of each string content repeats: ids, names, descriptions and feedback
+    private static String text(String s) {
+        return s == null ? null : s.intern();
+    }
+
+    // Once content is built, what it shares is held by the scenes alone; the lookup keys can go
+    private void forgetShared() {
+        sharedActions.clear();
+        sharedInteractions.clear();
+        sharedArrays.clear();
+    }
+
+    // Reports items that commands give but no content file declares; giving one does nothing
+    private void checkGivenItems() {
+        for (Map.Entry<String, String> e : givenItems.entrySet()) {
+            if (!itemMap.containsKey(e.getKey())) {
+                System.err.println("ERROR: hotspot '" + e.getValue() + "' gives unknown item '" + e.getKey() + "'.");
+            }
         }
+        givenItems.clear();
+    }
+
+    // The same interactions in the same order share one trimmed array
+    private Interaction[] interactionArray(List<Interaction> list) {
+        if (list.isEmpty()) return Hotspot.NONE;
+        return sharedArrays.computeIfAbsent(list, l -> l.toArray(Hotspot.NONE));
     }
     
     // --- The Core Logic Converter ---
-    private Interaction createInteraction(InteractionData idata, Hotspot currentHotspot, Scene currentScene) {
+    private Interaction createInteraction(InteractionData idata, Hotspot currentHotspot, Scene currentScene,
+                                          List<Transition> transitions) {
         InteractionType type = InteractionType.valueOf(idata.type);
         
         // Handle cases where command might be missing
         if (idata.command == null) {
-            return new Interaction(type, (g, h) -> true, (g, h) -> {});
+            return sharedInteractions.computeIfAbsent(type.name(), k -> new Interaction(type, ALWAYS, NOTHING));
         }
 
         String[] parts = idata.command.split(":");
         String commandType = parts[0];
+
+        // Record where this scene leads, including doors that only appear in a later state
+        if (commandType.equals("CHANGE_SCENE") && parts.length > 1) {
+            currentScene.addExit(text(parts[1]));
+        }
+        String given = commandType.equals("GIVE_ITEM") && parts.length > 1 ? parts[1]
+                : commandType.equals("ITEM_USE_RESULT") && parts.length > 4 && parts[3].equals("ADD_ITEM") ? parts[4]
+                : commandType.equals("START_PUZZLE") && parts.length > 5 && parts[4].equals("GIVE_ITEM") ? parts[5]
+                : null;
+        if (given != null && !given.equals("NONE")) givenItems.putIfAbsent(given, currentHotspot.id);
         
-        // 1. Condition (Item Requirement)
-        Condition condition = (g, h) -> {
-            if (idata.requiredItem == null || idata.requiredItem.isEmpty()) return true;
-            return g.getInventory().getSelected() != null && g.getInventory().getSelected().id.equals(idata.requiredItem);
-        };
-
-        // 2. Action (Execution Logic)
-        Action action = (g, h) -> {
-            if (idata.feedback != null && !idata.feedback.isEmpty()) {
-                g.showFeedback(idata.feedback, h.bounds.getLocation());
+        // 1. Condition (Item Requirement and/or condition expression), compiled once per expression
+        Condition condition = compileCondition(idata, currentHotspot);
+        Transition[] changes = transitions(idata, currentHotspot, parts, transitions);
+
+        // 2. Action: a hotspot's state changes and puzzles are its own; any other command is shared
+        if (changes.length > 0 || commandType.equals("START_PUZZLE")) {
+            return new Interaction(type, condition, command(idata, parts, changes, currentHotspot, currentScene));
+        }
+        String key = idata.command + '\n' + idata.feedback + '\n'
+                + (idata.setFlags == null ? "" : String.join("\n", idata.setFlags));
+        Action action = sharedActions.computeIfAbsent(key, k -> command(idata, parts, changes, currentHotspot, currentScene));
+        return sharedInteractions.computeIfAbsent(type.name() + '\n' + condition + '\n' + key,
+                k -> new Interaction(type, condition, action));
+    }
+
+    // The action for one command
+    private Command command(InteractionData idata, String[] parts, Transition[] changes, Hotspot hotspot, Scene scene) {
+        String feedback = idata.feedback != null && !idata.feedback.isEmpty() ? text(idata.feedback) : null;
+        int[] flags = NO_FLAGS;
+        if (idata.setFlags != null && idata.setFlags.length > 0) {
+            flags = new int[idata.setFlags.length];
+            for (int i = 0; i < flags.length; i++) {
+                flags[i] = WorldState.bit("flag:" + idata.setFlags[i]);
             }
+        }
+        String arg = parts.length > 1 ? text(parts[1]) : null;
 
-            switch (commandType) {
-                case "CHANGE_SCENE":
-                    if(parts.length > 1) g.changeScene(parts[1]); 
-                    break;
+        switch (parts[0]) {
+            case "CHANGE_SCENE":
+                return new Command(feedback, flags, changes) {
+                    void run(Game g, Hotspot h) { if (arg != null) g.changeScene(arg); }
+                };
 
-                case "GIVE_ITEM":
-                    if(parts.length > 1) {
-                        Item itemToGive = itemMap.get(parts[1]);
-                        if(itemToGive != null) g.getInventory().add(itemToGive);
-                    }
-                    break;
-
-                case "EXAMINE_DESC":
-                    if(parts.length > 1) g.infoPanel.updateDescription(parts[1]);
-                    break;
-                    
-                case "ITEM_USE_RESULT":
-                    // Format: ITEM_USE_RESULT:REMOVE_ITEM:rustyKey:ADD_ITEM:brassHandle:REPLACE_HOTSPOT:lockedPantry:openPantry
-                    if (parts.length > 1 && parts[1].equals("REMOVE_ITEM")) {
-                        g.getInventory().remove(g.getInventory().getSelected());
-                    }
-                    if (parts.length > 4 && parts[3].equals("ADD_ITEM")) {
-                         if(!parts[4].equals("NONE")) g.getInventory().add(itemMap.get(parts[4]));
+            case "GIVE_ITEM":
+                return new Command(feedback, flags, changes) {
+                    void run(Game g, Hotspot h) {
+                        Item itemToGive = arg == null ? null : itemMap.get(arg);
+                        if (itemToGive != null) g.getInventory().add(itemToGive);
                     }
+                };
 
-                    if (parts.length > 6 && parts[5].equals("REPLACE_HOTSPOT")) {
-                        String oldHotspotId = parts[6];
-                        String newHotspotId = parts[7];
-                        
-                        currentScene.hotspots.remove(oldHotspotId);
-                        
-                        if (newHotspotId.equals("openPantry")) {
-                            Hotspot openPantry = new Hotspot(newHotspotId, "Pantry Door (Open)", h.bounds);
-                            openPantry.addInteraction(new Interaction(InteractionType.EXAMINE, null, (gameInner, hotspotInner) -> 
-                                gameInner.infoPanel.updateDescription("The pantry is now open, nothing else of interest.")));
-                            currentScene.addHotspot(openPantry);
-                        }
-                        
-                        if (newHotspotId.equals("mechanismReady")) {
-                             Hotspot mechanismReady = new Hotspot("mechanismReady", "Dial Mechanism (Ready)", h.bounds);
-                            mechanismReady.addInteraction(new Interaction(InteractionType.USE, (gameInner, hotspotInner) -> 
-                                    gameInner.getInventory().contains("crypticSymbol"), (gameInner, hotspotInner) -> {
-                                gameInner.startPuzzle("DialPuzzle", "C_A_D", new PuzzleCallback() {
-                                    @Override public void onSolve() {
-                                        gameInner.showFeedback("The drawer slides open! Success!", hotspotInner.bounds.getLocation());
-                                        gameInner.infoPanel.updateDescription("The drawer opens! You found the Coded Dossier. Game Complete!");
-                                        gameInner.getInventory().add(itemMap.get("codedDossier"));
-                                        currentScene.hotspots.remove("mechanismReady");
-                                        gameInner.getInventory().selected = null;
-                                        gameInner.inventoryPanel.rebuild();
-                                        gameInner.endPuzzle();
-                                    }
-                                    @Override public void onExit() { gameInner.endPuzzle(); }
-                                });
-                            }));
-                            mechanismReady.addInteraction(new Interaction(InteractionType.EXAMINE, null, (gameInner, hotspotInner) -> 
-                                gameInner.infoPanel.updateDescription("The brass handle is now in place. A triple dial is visible (A, B, C, D). You need a sequence.")));
-                            currentScene.addHotspot(mechanismReady);
-                        }
-                        
-                        if (newHotspotId.equals("mainAttic")) {
-                            Hotspot mainAttic = new Hotspot("mainAttic", "Hatch to the Attic", new Rectangle(300, 100, 400, 200));
-                            mainAttic.addInteraction(new Interaction(InteractionType.USE, null, (gameInner, hotspotInner) -> gameInner.changeScene("attic_interior")));
-                            currentScene.addHotspot(mainAttic);
-                            currentScene.hotspots.remove("hatchChain");
-                        }
+            case "EXAMINE_DESC":
+                return new Command(feedback, flags, changes) {
+                    void run(Game g, Hotspot h) { if (arg != null) g.describe(arg); }
+                };
+
+            case "PLAY_CUTSCENE":
+                return new Command(feedback, flags, changes) {
+                    void run(Game g, Hotspot h) { if (arg != null) g.playCutscene(arg); }
+                };
+
+            case "ITEM_USE_RESULT": {
+                // Format: ITEM_USE_RESULT:REMOVE_ITEM:rustyKey:ADD_ITEM:brassHandle:REPLACE_HOTSPOT:lockedPantry:open
+                // REPLACE_HOTSPOT:<hotspot>:<state> is applied with the other state changes
+                boolean remove = "REMOVE_ITEM".equals(arg);
+                String add = parts.length > 4 && parts[3].equals("ADD_ITEM") && !parts[4].equals("NONE")
+                        ? text(parts[4]) : null;
+                return new Command(feedback, flags, changes) {
+                    void run(Game g, Hotspot h) {
+                        if (remove) g.getInventory().remove(g.getInventory().getSelected());
+                        Item item = add == null ? null : itemMap.get(add);
+                        if (item != null) g.getInventory().add(item);
+                        g.getInventory().setSelected(null);
                     }
-                    g.getInventory().selected = null;
-                    g.inventoryPanel.rebuild();
-                    break;
-
-                case "START_PUZZLE":
-                    String puzzleName = parts[1];
-                    String puzzleCode = parts[2];
-                    String hotspotToRemove = parts[3].equals("NONE") ? null : parts[3];
-                    String postSolveCommand = parts.length > 4 ? parts[4] + ":" + parts[5] : null;
-
-                    g.startPuzzle(puzzleName, puzzleCode, new PuzzleCallback() {
-                        @Override
-                        public void onSolve() {
-                            g.showFeedback("Success!", h.bounds.getLocation());
-                            
-                            if (postSolveCommand != null) {
-                                if (parts[4].equals("GIVE_ITEM")) {
-                                    if(itemMap.get(parts[5]) != null) {
-                                        g.getInventory().add(itemMap.get(parts[5]));
-                                        g.showFeedback("Acquired " + itemMap.get(parts[5]).name + ".", h.bounds.getLocation());
-                                    }
-                                }
-                            }
-                            
-                            if (hotspotToRemove != null) {
-                                currentScene.hotspots.remove(hotspotToRemove);
-                                
-                                if (hotspotToRemove.equals("safe")) {
-                                    Hotspot openSafe = new Hotspot("openSafe", "Open Safe (Empty)", h.bounds);
-                                    currentScene.addHotspot(openSafe);
-                                }
-                                if (hotspotToRemove.equals("tilePuzzleBox")) {
-                                    Hotspot openBox = new Hotspot("openBox", "Open Storage Box (Empty)", h.bounds);
-                                    currentScene.addHotspot(openBox);
-                                }
-                                
-                                if (hotspotToRemove.equals("leverMechanism_hatchChain")) {
-                                    currentScene.hotspots.remove("leverMechanism");
-                                    currentScene.hotspots.remove("hatchChain");
-                                    
-                                    Hotspot mainAttic = new Hotspot("mainAttic", "Hatch to the Attic", new Rectangle(300, 100, 400, 200));
-                                    mainAttic.addInteraction(new Interaction(InteractionType.USE, null, (gameInner, hotspotInner) -> gameInner.changeScene("attic_interior")));
-                                    currentScene.addHotspot(mainAttic);
-                                }
-                            }
-                            g.endPuzzle();
-                        }
-                        @Override
-                        public void onExit() {
-                            g.showFeedback("You backed away.", h.bounds.getLocation());
-                            g.endPuzzle();
-                        }
-                    });
-                    break;
-                
-                default:
-                    g.infoPanel.updateDescription("Unknown command: " + commandType);
-                    break;
+                };
             }
-        };
-        
-        return new Interaction(type, condition, action);
+
+            case "START_PUZZLE":
+                // Format: START_PUZZLE:Keypad:7138:<hotspot to remove, or NONE>[:GIVE_ITEM:rustyKey]
+                return new StartPuzzle(feedback, flags, changes, idata, parts, hotspot, scene);
+
+            default: {
+                String unknown = text("Unknown command: " + parts[0]);
+                return new Command(feedback, flags, changes) {
+                    void run(Game g, Hotspot h) { g.describe(unknown); }
+                };
+            }
+        }
+    }
+
+    /**
+     * What an interaction does: shows its feedback, raises its flags, runs its
+     * command and makes its state changes. Those without state changes are
+     * built once per distinct command and shared by every hotspot using it.
+     */
+    private abstract static class Command implements Action {
+        final String feedback; // Or null
+        final int[] flags;
+        final Transition[] changes;
+
+        Command(String feedback, int[] flags, Transition[] changes) {
+            this.feedback = feedback;
+            this.flags = flags;
+            this.changes = changes;
+        }
+
+        @Override
+        public void execute(Game g, Hotspot h) {
+            if (feedback != null) g.showFeedback(feedback, h.getLocation());
+            for (int bit : flags) g.getWorld().set(bit, true);
+            run(g, h);
+            changeStates(g);
+        }
+
+        abstract void run(Game g, Hotspot h);
+
+        void changeStates(Game g) {
+            for (Transition t : changes) t.apply(g);
+        }
+    }
+
+    /** Opens a puzzle; its reward, removal and state changes wait until it is solved. */
+    private final class StartPuzzle extends Command {
+        final String puzzleName, puzzleCode, solvedFeedback, solvedDescription;
+        final String hotspotToRemove, reward; // Or null
+        final int solvedBit;
+        final Scene scene;
+
+        StartPuzzle(String feedback, int[] flags, Transition[] changes, InteractionData idata, String[] parts,
+                    Hotspot hotspot, Scene scene) {
+            super(feedback, flags, changes);
+            puzzleName = parts.length > 1 ? text(parts[1]) : "";
+            puzzleCode = parts.length > 2 ? text(parts[2]) : "";
+            hotspotToRemove = parts.length > 3 && !parts[3].equals("NONE") ? text(parts[3]) : null;
+            reward = parts.length > 5 && parts[4].equals("GIVE_ITEM") ? text(parts[5]) : null;
+            solvedFeedback = text(idata.solvedFeedback != null ? idata.solvedFeedback : "Success!");
+            solvedDescription = text(idata.solvedDescription);
+            solvedBit = WorldState.bit("solved:" + hotspot.id);
+            this.scene = scene;
+        }
+
+        @Override
+        void run(Game g, Hotspot h) {
+            g.startPuzzle(puzzleName, puzzleCode, new PuzzleCallback() {
+                @Override
+                public void onSolve() {
+                    g.showFeedback(solvedFeedback, h.getLocation());
+                    g.getWorld().set(solvedBit, true);
+
+                    Item item = reward == null ? null : itemMap.get(reward);
+                    if (item != null) {
+                        g.getInventory().add(item);
+                        g.showFeedback("Acquired " + item.name + ".", h.getLocation());
+                    }
+                    if (hotspotToRemove != null) {
+                        scene.removeHotspot(hotspotToRemove, g.getWorld());
+                    }
+                    for (Transition t : changes) t.apply(g);
+                    g.endPuzzle();
+                    if (solvedDescription != null) g.describe(solvedDescription);
+                }
+                @Override
+                public void onExit() {
+                    g.showFeedback("You backed away.", h.getLocation());
+                    g.endPuzzle();
+                }
+            });
+        }
+
+        @Override
+        void changeStates(Game g) { } // Once solved
+    }
+
+    // The state changes an interaction makes: setState, setStates and the older REPLACE_HOTSPOT:<hotspot>:<state>
+    private static Transition[] transitions(InteractionData idata, Hotspot hotspot, String[] parts,
+                                            List<Transition> scene) {
+        List<Transition> list = new ArrayList<>();
+        if (idata.setState != null) list.add(new Transition(hotspot.id, text(idata.setState)));
+        if (idata.setStates != null) {
+            idata.setStates.forEach((id, state) -> list.add(new Transition(text(id), text(state))));
+        }
+        if (parts[0].equals("ITEM_USE_RESULT") && parts.length > 7 && parts[5].equals("REPLACE_HOTSPOT")) {
+            list.add(new Transition(text(parts[6]), text(parts[7])));
+        }
+        if (list.isEmpty()) return NO_CHANGES;
+        scene.addAll(list);
+        return list.toArray(NO_CHANGES);
+    }
+
+    // requiredItem is shorthand for selected(item); both must hold when both are given
+    private static Condition compileCondition(InteractionData idata, Hotspot hotspot) {
+        StringBuilder expr = new StringBuilder();
+        if (idata.requiredItem != null && !idata.requiredItem.isEmpty()) {
+            expr.append("selected(").append(idata.requiredItem).append(')');
+        }
+        if (idata.condition != null && !idata.condition.isBlank()) {
+            if (expr.length() > 0) expr.append(" && ");
+            expr.append('(').append(idata.condition).append(')');
+        }
+        if (expr.length() == 0) return ALWAYS;
+        String source = expr.toString();
+        CompiledCondition compiled = CONDITIONS.get(source);
+        if (compiled != null) return compiled;
+        try {
+            compiled = CompiledCondition.compile(source);
+        } catch (IllegalArgumentException e) {
+            System.err.println("ERROR: hotspot '" + hotspot.id + "': " + e.getMessage());
+            return NEVER;
+        }
+        CONDITIONS.putIfAbsent(source, compiled);
+        return compiled;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,137 @@
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * Undo and redo for a {@link Game}: a checkpoint before every interaction,
+ * as far back as a memory budget allows ({@code -Dmoonlight.undoKb}, 1024 by
+ * default) rather than a fixed number of steps.
+ *
+ * <p>A checkpoint is cheap because almost everything that makes up progress
+ * is already in the game's {@link WorldState}: items held and selected,
+ * flags, solved puzzles, the scene, hotspot states and hotspots taken away.
+ * Each checkpoint freezes that vector into a persistent trie that shares every
+ * leaf that did not change with the checkpoint before it, and keeps the
+ * inventory's order as an array shared with the previous checkpoint while it
+ * is unchanged; the description and interaction count come along as they
+ * are. Restoring thaws the vector and has every scene sync its hotspots to
+ * it.</p>
+ *
+ * <p>Like the rest of the game it is only used on the game-logic thread.
+ * Metric: {@code history.bytes}, the estimated size of both stacks of the
+ * game {@link Game} reports on.</p>
+ */
+final class GameHistory {
+    private static final long BUDGET_BYTES = Long.getLong("moonlight.undoKb", 1024) * 1024;
+    private static final int CHECKPOINT_BYTES = 64; // The checkpoint and its version, without shared parts
+
+    /** The game as it was at one point. */
+    private static final class Checkpoint {
+        final WorldState.Frozen world;
+        final Item[] items;
+        final Item selected;
+        final String sceneId;
+        final String description;
+        final int interactionCount;
+        final int bytes;
+
+        Checkpoint(WorldState.Frozen world, Item[] items, Item selected, String sceneId,
+                   String description, int interactionCount, int bytes) {
+            this.world = world;
+            this.items = items;
+            this.selected = selected;
+            this.sceneId = sceneId;
+            this.description = description;
+            this.interactionCount = interactionCount;
+            this.bytes = bytes;
+        }
+    }
+
+    private final Game game;
+    private final ArrayDeque<Checkpoint> undo = new ArrayDeque<>();
+    private final ArrayDeque<Checkpoint> redo = new ArrayDeque<>();
+    private Checkpoint latest; // The last one taken, to share parts with
+    private long bytes;
+
+    GameHistory(Game game) {
+        this.game = game;
+    }
+
+    /** @return the estimated size of both stacks. */
+    long bytes() { return bytes; }
+
+    /** Records the game as it is, before an interaction changes it; anything undone can no longer be redone. */
+    void checkpoint() {
+        for (Checkpoint c : redo) bytes -= c.bytes;
+        redo.clear();
+        push(undo, capture());
+        while (bytes > BUDGET_BYTES && undo.size() > 1) bytes -= undo.removeFirst().bytes;
+    }
+
+    /** @return whether there is anything to undo. */
+    boolean canUndo() { return !undo.isEmpty(); }
+
+    /** @return whether there is anything to redo. */
+    boolean canRedo() { return !redo.isEmpty(); }
+
+    /** Goes back to the last checkpoint, keeping the present for redo. */
+    void undo() {
+        if (undo.isEmpty()) return;
+        push(redo, capture());
+        restore(pop(undo));
+    }
+
+    /** Goes forward again to where the last undo came from. */
+    void redo() {
+        if (redo.isEmpty()) return;
+        push(undo, capture());
+        restore(pop(redo));
+    }
+
+    private void push(ArrayDeque<Checkpoint> stack, Checkpoint c) {
+        stack.addLast(c);
+        bytes += c.bytes;
+    }
+
+    private Checkpoint pop(ArrayDeque<Checkpoint> stack) {
+        Checkpoint c = stack.removeLast();
+        bytes -= c.bytes;
+        return c;
+    }
+
+    private Checkpoint capture() {
+        WorldState.Frozen world = game.world.freeze(latest == null ? null : latest.world);
+        int size = CHECKPOINT_BYTES + world.newBytes;
+
+        List<Item> held = game.inventory.getItems();
+        Item[] items = latest == null ? null : latest.items;
+        if (items == null || !sameItems(items, held)) {
+            items = held.toArray(new Item[0]);
+            size += 16 + 4 * items.length;
+        }
+        String description = game.description;
+        if (latest == null || latest.description != description) {
+            size += 40 + (description == null ? 0 : description.length());
+        }
+        latest = new Checkpoint(world, items, game.inventory.getSelected(),
+                game.currentScene == null ? null : game.currentScene.id, description, game.interactionCount, size);
+        return latest;
+    }
+
+    private static boolean sameItems(Item[] items, List<Item> held) {
+        if (items.length != held.size()) return false;
+        for (int i = 0; i < items.length; i++) {
+            if (items[i] != held.get(i)) return false;
+        }
+        return true;
+    }
+
+    private void restore(Checkpoint c) {
+        game.world.thaw(c.world);
+        game.inventory.restore(c.items, c.selected);
+        for (Scene s : game.scenes.values()) s.sync(game.world);
+        game.currentScene = c.sceneId == null ? null : game.scenes.get(c.sceneId);
+        game.description = c.description;
+        game.interactionCount = c.interactionCount;
+        latest = c;
+    }
+}
@@ -0,0 +1,101 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The single game-logic thread. Every change to a {@link Game} (clicks, puzzle
+ * input, content loading, puzzle completion delays) is queued here and runs in
+ * order, so the engine never needs locks and the EDT only ever paints.
+ *
+ * <p>After each queued step the game publishes a fresh {@link GameSnapshot} to
+ * its view.</p>
+ */
+public class GameLoop {
+    private final ScheduledExecutorService executor;
+    private volatile Thread thread;
+
+    public GameLoop() {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "game-logic");
+            t.setDaemon(true);
+            thread = t;
+            return t;
+        });
+    }
+
+    /** @return true if the caller is the game-logic thread. */
+    public boolean isLoopThread() { return Thread.currentThread() == thread; }
+
+    /**
+     * Queues a step.
+     *
+     * @param step the work to run on the game-logic thread
+     */
+    public void submit(Runnable step) {
+        try {
+            executor.execute(guard(step));
+        } catch (RejectedExecutionException e) {
+            // Shut down: the game is gone, so late input is dropped
+        }
+    }
+
+    /**
+     * Queues a step to run after a delay.
+     *
+     * @param step the work to run
+     * @param delayMillis how long to wait first
+     */
+    public void schedule(Runnable step, long delayMillis) {
+        try {
+            executor.schedule(guard(step), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shut down, as in submit
+        }
+    }
+
+    /**
+     * Queues a step and waits for it (and everything queued before it) to finish.
+     *
+     * @param step the work to run
+     */
+    public void submitAndWait(Runnable step) {
+        if (isLoopThread()) {
+            step.run();
+            return;
+        }
+        if (executor.isShutdown()) return;
+        CountDownLatch done = new CountDownLatch(1);
+        submit(() -> {
+            try {
+                step.run();
+            } finally {
+                done.countDown();
+            }
+        });
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Stops the thread. Steps already queued, or submitted later, are dropped. */
+    public void shutdown() { executor.shutdownNow(); }
+
+    /** @return true once {@link #shutdown()} has been called. */
+    public boolean isShutdown() { return executor.isShutdown(); }
+
+    // A failing step must not kill the thread, or the game would stop responding.
+    private static Runnable guard(Runnable step) {
+        return () -> {
+            try {
+                step.run();
+            } catch (RuntimeException e) {
+                System.err.println("Game step failed: " + e);
+                e.printStackTrace();
+            }
+        };
+    }
+}
@@ -46,6 +46,7 @@ public class GameReset {
             newMain.setLocationRelativeTo(oldMain);
             
             // Dispose old Game, Inventory, UI, etc
+            oldMain.stopGame();
             oldMain.dispose();
         }
     }
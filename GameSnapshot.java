@@ -0,0 +1,229 @@
+import java.awt.Point;
+import java.util.List;
+import java.util.Objects;
+
+/** Receives a snapshot after every game step. Implementations decide which thread renders it. */
+interface GameView { void render(GameSnapshot snapshot); }
+
+/**
+ * An immutable picture of everything the player can see after one game step:
+ * the scene and its visible hotspots, the inventory, the description text,
+ * feedback raised during the step, and the state of any open puzzle.
+ *
+ * <p>Snapshots are built on the game-logic thread and handed to the view, so
+ * the EDT can paint and hit-test hover from them without touching the live
+ * game.</p>
+ */
+public final class GameSnapshot {
+
+    /** The parts of a hotspot a view needs, frozen at snapshot time. */
+    public static final class HotspotView {
+        public final String id, name, image;
+        public final int x, y, width, height;
+
+        HotspotView(Hotspot h) {
+            this(h.id, h.name, h.image, h.x(), h.y(), h.width(), h.height());
+        }
+
+        HotspotView(String id, String name, String image, int x, int y, int width, int height) {
+            this.id = id;
+            this.name = name;
+            this.image = image;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        public boolean contains(Point p) {
+            return p.x >= x && p.y >= y && p.x < x + width && p.y < y + height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof HotspotView)) return false;
+            HotspotView h = (HotspotView) o;
+            return id.equals(h.id) && name.equals(h.name) && Objects.equals(image, h.image)
+                    && x == h.x && y == h.y && width == h.width && height == h.height;
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(id, x, y, width, height); }
+    }
+
+    /** A floating message raised during the step. */
+    public static final class Feedback {
+        public final String text;
+        public final int x, y;
+
+        Feedback(String text, Point p) {
+            this.text = text;
+            this.x = p.x;
+            this.y = p.y;
+        }
+    }
+
+    /**
+     * What a playing cutscene shows: its caption, and the fade and pan it is
+     * animating. The view interpolates the running effect from
+     * {@link System#nanoTime()} each frame, so the game only publishes a
+     * snapshot when a step starts.
+     */
+    public static final class CutsceneView {
+        public final String id;
+        public final String caption;
+        public final float fadeFrom, fadeTo;
+        public final int panFromX, panFromY, panToX, panToY;
+        public final long effectStartNanos, effectNanos;
+
+        CutsceneView(String id, String caption, float fadeFrom, float fadeTo, int panFromX, int panFromY,
+                     int panToX, int panToY, long effectStartNanos, long effectNanos) {
+            this.id = id;
+            this.caption = caption;
+            this.fadeFrom = fadeFrom;
+            this.fadeTo = fadeTo;
+            this.panFromX = panFromX;
+            this.panFromY = panFromY;
+            this.panToX = panToX;
+            this.panToY = panToY;
+            this.effectStartNanos = effectStartNanos;
+            this.effectNanos = effectNanos;
+        }
+
+        /** @return how far the running fade or pan has got at {@code now}, from 0 to 1. */
+        public float progress(long now) {
+            if (effectNanos <= 0) return 1f;
+            float t = (now - effectStartNanos) / (float) effectNanos;
+            return t < 0f ? 0f : Math.min(1f, t);
+        }
+
+        /** @return whether a fade or pan is still moving at {@code now}. */
+        public boolean isAnimating(long now) { return now - effectStartNanos < effectNanos; }
+
+        /** @return the overlay's opacity at {@code now}, from 0 (clear) to 1 (black). */
+        public float fadeAt(long now) { return fadeFrom + (fadeTo - fadeFrom) * progress(now); }
+
+        /** @return how far the scene is panned across at {@code now}. */
+        public int panXAt(long now) { return Math.round(panFromX + (panToX - panFromX) * progress(now)); }
+
+        /** @return how far the scene is panned down at {@code now}. */
+        public int panYAt(long now) { return Math.round(panFromY + (panToY - panFromY) * progress(now)); }
+    }
+
+    public final long sequence;
+    public final GameState state;
+    public final String card;
+    public final String sceneId, sceneTitle, description;
+    public final String background;
+    public final List<HotspotView> hotspots;
+
+    // Art of the scenes the player can walk to next, for the view to prefetch
+    public final List<String> nearbyBackgrounds;
+    public final List<HotspotView> nearbyHotspots;
+    public final List<Item> items;
+    public final Item selected;
+    public final int capacity;
+    public final int interactionCount;
+    public final List<Feedback> feedback;
+    public final List<AudioEngine.Sound> sounds; // Effects raised by the step itself, e.g. a solve chime
+
+    // Open puzzle, if any. Only the fields for the current card are set.
+    public final String[] lockSymbols;
+    public final String lockTarget;
+    public final int[] tiles;
+    public final int tileSize;
+    public final String tileImage;
+    public final String keypadDisplay;
+    public final KeypadEntry.Status keypadStatus;
+
+    // The playing cutscene, if any; the same object until one of its steps changes it
+    public final CutsceneView cutscene;
+
+    GameSnapshot(long sequence, GameState state, String card, Scene scene, String description,
+                 List<HotspotView> hotspots, List<String> nearbyBackgrounds, List<HotspotView> nearbyHotspots,
+                 List<Item> items, Item selected, int capacity,
+                 int interactionCount, List<Feedback> feedback, List<AudioEngine.Sound> sounds,
+                 CombinationLock lock, TileBoard board, KeypadEntry keypad, CutsceneView cutscene) {
+        this.sequence = sequence;
+        this.state = state;
+        this.card = card;
+        this.sceneId = scene == null ? null : scene.id;
+        this.sceneTitle = scene == null ? "" : scene.title;
+        this.description = description;
+        this.background = scene == null ? null : scene.background;
+        this.hotspots = hotspots;
+        this.nearbyBackgrounds = nearbyBackgrounds;
+        this.nearbyHotspots = nearbyHotspots;
+        this.items = items;
+        this.selected = selected;
+        this.capacity = capacity;
+        this.interactionCount = interactionCount;
+        this.feedback = feedback;
+        this.sounds = sounds;
+
+        if (lock != null) {
+            String[] symbols = new String[lock.getSlotCount()];
+            for (int i = 0; i < symbols.length; i++) symbols[i] = lock.getSymbol(i);
+            this.lockSymbols = symbols;
+            this.lockTarget = lock.describeTarget();
+        } else {
+            this.lockSymbols = null;
+            this.lockTarget = null;
+        }
+        this.tiles = board == null ? null : board.toArray();
+        this.tileSize = board == null ? 0 : board.getSize();
+        this.tileImage = board == null ? null : board.getImage();
+        this.keypadDisplay = keypad == null ? null : keypad.getDisplay();
+        this.keypadStatus = keypad == null ? null : keypad.getStatus();
+        this.cutscene = cutscene;
+    }
+
+    /**
+     * Rebuilds a snapshot from its parts, e.g. on a co-op client that mirrors
+     * the host's game instead of running one.
+     */
+    GameSnapshot(long sequence, GameState state, String card, String sceneId, String sceneTitle, String description,
+                 String background, List<HotspotView> hotspots, List<Item> items, Item selected, int capacity,
+                 int interactionCount, List<Feedback> feedback, List<AudioEngine.Sound> sounds,
+                 String[] lockSymbols, String lockTarget, int[] tiles, int tileSize, String tileImage,
+                 String keypadDisplay, KeypadEntry.Status keypadStatus, CutsceneView cutscene) {
+        this.sequence = sequence;
+        this.state = state;
+        this.card = card;
+        this.sceneId = sceneId;
+        this.sceneTitle = sceneTitle;
+        this.description = description;
+        this.background = background;
+        this.hotspots = hotspots;
+        this.nearbyBackgrounds = List.of();
+        this.nearbyHotspots = List.of();
+        this.items = items;
+        this.selected = selected;
+        this.capacity = capacity;
+        this.interactionCount = interactionCount;
+        this.feedback = feedback;
+        this.sounds = sounds;
+        this.lockSymbols = lockSymbols;
+        this.lockTarget = lockTarget;
+        this.tiles = tiles;
+        this.tileSize = tileSize;
+        this.tileImage = tileImage;
+        this.keypadDisplay = keypadDisplay;
+        this.keypadStatus = keypadStatus;
+        this.cutscene = cutscene;
+    }
+
+    /**
+     * Finds the topmost visible hotspot under a point, the same way
+     * {@link Scene#getHotspotByPoint} does for the live scene.
+     *
+     * @param p the point to test
+     * @return the hotspot under the point, or {@code null}
+     */
+    public HotspotView getHotspotByPoint(Point p) {
+        for (HotspotView h : hotspots) {
+            if (h.contains(p)) return h;
+        }
+        return null;
+    }
+}
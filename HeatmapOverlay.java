@@ -0,0 +1,131 @@
+import java.awt.Color;
+import java.awt.EventQueue;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The click heatmap on the {@link PlayPanel}, toggled with F4: where clicks
+ * in the current scene landed, from cold to hot, and under each hotspot how
+ * often it was clicked and how often that did nothing.
+ *
+ * <p>Each time it is shown the {@link ClickLog} is flushed and read again by
+ * {@link ClickHeatmap} on a background thread, so it includes this session's
+ * clicks. Each scene's grid is drawn once into a small image, one pixel per
+ * cell, and scaled up smoothly when painted.</p>
+ */
+final class HeatmapOverlay {
+    private static final int HOT_ALPHA = 190;
+
+    private final PlayPanel panel;
+    private boolean visible;
+    private ClickHeatmap data;
+    private final Map<String, BufferedImage> images = new HashMap<>();
+    private Font font;
+    private Color cold, hot, text;
+
+    HeatmapOverlay(PlayPanel panel) { this.panel = panel; }
+
+    /** @return whether the heatmap is showing. */
+    boolean isVisible() { return visible; }
+
+    /** Shows the heatmap, reading the log afresh, or hides it. Called on the EDT. */
+    void setVisible(boolean on) {
+        visible = on;
+        if (!on) {
+            panel.repaint();
+            return;
+        }
+        ClickLog log = ClickLog.get();
+        if (log == null) {
+            panel.addFeedback("Analytics are off (-Dmoonlight.analytics).", new Point(300, 300));
+            visible = false;
+            return;
+        }
+        Thread t = new Thread(() -> {
+            log.sync();
+            Path dir = log.directory();
+            try {
+                ClickHeatmap read = ClickHeatmap.read(dir);
+                EventQueue.invokeLater(() -> {
+                    data = read;
+                    images.clear();
+                    panel.repaint();
+                });
+            } catch (IOException e) {
+                System.err.println("Analytics: could not read " + dir + ": " + e.getMessage());
+            }
+        }, "heatmap-load");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** Picks up the heatmap's colours and font. */
+    void applyTheme(Theme t) {
+        font = t.font("perf");
+        cold = t.color("heat.cold");
+        hot = t.color("heat.hot");
+        text = t.color("perf.text");
+        images.clear();
+    }
+
+    /**
+     * Paints the current scene's heatmap and hotspot figures, in scene coordinates.
+     *
+     * @param g2 The panel's graphics.
+     * @param s What the panel is showing.
+     */
+    void paint(Graphics2D g2, GameSnapshot s) {
+        if (data == null || s == null || s.sceneId == null) return;
+        ClickHeatmap.SceneStats scene = data.scene(s.sceneId);
+        if (scene == null) return;
+
+        BufferedImage image = images.computeIfAbsent(scene.id, id -> draw(scene));
+        Object interpolation = g2.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2.drawImage(image, 0, 0, ClickHeatmap.COLUMNS * ClickHeatmap.CELL, ClickHeatmap.ROWS * ClickHeatmap.CELL, null);
+        if (interpolation != null) g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+
+        g2.setFont(font);
+        FontMetrics fm = g2.getFontMetrics();
+        g2.setColor(text);
+        for (GameSnapshot.HotspotView h : s.hotspots) {
+            ClickHeatmap.HotspotStats stats = scene.hotspots.get(h.id);
+            if (stats == null) continue;
+            g2.drawString(stats.clicks + " clicks, " + Math.round(100 * stats.missRate()) + "% did nothing",
+                    h.x + 4, h.y + h.height - fm.getDescent() - 2);
+        }
+        g2.drawString(scene.clicks + " clicks here, " + Math.round(100 * scene.missRate()) + "% on nothing",
+                8, panel.getHeight() - fm.getDescent() - 8);
+    }
+
+    // One pixel per cell, from transparent to the hot colour on a log scale
+    private BufferedImage draw(ClickHeatmap.SceneStats scene) {
+        BufferedImage image = new BufferedImage(ClickHeatmap.COLUMNS, ClickHeatmap.ROWS, BufferedImage.TYPE_INT_ARGB);
+        double top = Math.log1p(Math.max(1, scene.hottest));
+        for (int row = 0; row < ClickHeatmap.ROWS; row++) {
+            for (int col = 0; col < ClickHeatmap.COLUMNS; col++) {
+                int n = scene.cells[row * ClickHeatmap.COLUMNS + col];
+                if (n == 0) continue;
+                double heat = Math.log1p(n) / top;
+                int r = mix(cold.getRed(), hot.getRed(), heat);
+                int g = mix(cold.getGreen(), hot.getGreen(), heat);
+                int b = mix(cold.getBlue(), hot.getBlue(), heat);
+                int a = (int) (HOT_ALPHA * (0.35 + 0.65 * heat));
+                image.setRGB(col, row, a << 24 | r << 16 | g << 8 | b);
+            }
+        }
+        return image;
+    }
+
+    private static int mix(int from, int to, double t) {
+        return (int) Math.round(from + (to - from) * t);
+    }
+}
@@ -1,26 +1,192 @@
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Collection;
 
+/**
+ * A clickable area of a scene.
+ *
+ * <p>A hotspot may have named states in content, each with its own label,
+ * bounds, art and interactions, for props that change as they are used:</p>
+ * <pre>
+ * { "id": "pantry", "name": "Pantry Door", "bounds": [380, 100, 150, 300],
+ *   "states": [
+ *     { "id": "locked", "name": "Locked Pantry Door", "interactions": [
+ *         { "type": "USE", "requiredItem": "rustyKey", "command": "...", "setState": "open" } ] },
+ *     { "id": "open", "name": "Pantry Door (Open)", "interactions": [ ... ] },
+ *     { "id": "gone", "hidden": true } ] }
+ * </pre>
+ * <p>It starts in the first. A state leaves out what it shares with the
+ * hotspot (name, bounds, image), and the hotspot's own interactions apply in
+ * every state after the state's. A hidden state takes the hotspot out of the
+ * scene until a later change brings it back. Everything is built when content
+ * loads; changing state is a matter of switching to another prebuilt
+ * {@link State}, with no allocation.</p>
+ */
 public class Hotspot {
+    static final Interaction[] NONE = new Interaction[0];
+
     public String id, name;
-    public Rectangle bounds;
-    List<Interaction> interactions = new ArrayList<>();
-    
-    public Hotspot(String id, String name, Rectangle b) {
-        this.id = id; this.name = name; this.bounds = b;
+    public String image; // Art drawn inside the bounds, or null
+    public String leadsTo; // Scene a door or path takes the player to, or null
+    Interaction[] interactions = NONE;
+    final Scene scene;
+    private int box; // Index of the current bounds in the scene's packed boxes
+
+    /** One named state: how the hotspot looks and what it does while in it. */
+    static final class State {
+        final String id;
+        final String name;
+        final int box;
+        final String image;
+        final String leadsTo;
+        final Interaction[] interactions;
+        final boolean hidden;
+
+        State(String id, String name, int box, String image, String leadsTo,
+              Interaction[] interactions, boolean hidden) {
+            this.id = id;
+            this.name = name;
+            this.box = box;
+            this.image = image;
+            this.leadsTo = leadsTo;
+            this.interactions = interactions;
+            this.hidden = hidden;
+        }
+    }
+
+    private State[] states; // Null for a hotspot with a single, unnamed state
+    private int state;
+    private boolean hidden;
+    boolean removed; // Taken out of its scene, e.g. picked up
+    int goneBit = -1; // WorldState bit set once it is removed from its scene
+    private int stateField = -1; // WorldState field holding the state number
+
+    /**
+     * @param id The hotspot's id, unique in its scene.
+     * @param name What the player sees it called.
+     * @param scene The scene it will be added to, which keeps its bounds.
+     * @param box Its bounds, from {@link Scene#box(int, int, int, int)}.
+     */
+    public Hotspot(String id, String name, Scene scene, int box) {
+        this.id = id; this.name = name; this.scene = scene; this.box = box;
     }
     
-    public void addInteraction(Interaction i) { interactions.add(i); }
-    
-    public boolean contains(Point p) { return bounds.contains(p); }
+    public void addInteraction(Interaction i) {
+        interactions = Arrays.copyOf(interactions, interactions.length + 1);
+        interactions[interactions.length - 1] = i;
+    }
     
+    public boolean contains(Point p) { return !hidden && !removed && scene.boxContains(box, p); }
+
+    /** @return The left edge of the current bounds. */
+    public int x() { return scene.boxes[box]; }
+
+    /** @return The top edge of the current bounds. */
+    public int y() { return scene.boxes[box + 1]; }
+
+    /** @return The width of the current bounds. */
+    public int width() { return scene.boxes[box + 2]; }
+
+    /** @return The height of the current bounds. */
+    public int height() { return scene.boxes[box + 3]; }
+
+    /** @return The current bounds, as a new rectangle. */
+    public Rectangle getBounds() { return new Rectangle(x(), y(), width(), height()); }
+
+    /** @return The top-left corner of the current bounds, where feedback about it appears. */
+    public Point getLocation() { return new Point(x(), y()); }
+
     public Interaction getInteraction(InteractionType t, Game g) {
         for (Interaction i : interactions) {
             if (i.getType() == t && i.isAvailable(g, this)) return i;
         }
         return null;
     }
+
+    /**
+     * Gives the hotspot its named states and puts it in the first.
+     *
+     * @param states The states, built once when content loads.
+     */
+    void setStates(State[] states) {
+        this.states = states;
+        show(0);
+    }
+
+    // Takes its place in the world state of the scene it is added to
+    void attach(Scene scene) {
+        goneBit = WorldState.bit("gone:" + scene.id + "/" + id);
+        if (states != null) {
+            int width = Math.max(1, 32 - Integer.numberOfLeadingZeros(states.length - 1));
+            stateField = WorldState.field("state:" + scene.id + "/" + id, width);
+        }
+    }
+
+    /**
+     * Switches to another of the hotspot's states.
+     *
+     * @param index The state's number, from {@link #stateIndex(String)}.
+     * @param world Records the new state.
+     */
+    void setState(int index, WorldState world) {
+        show(index);
+        if (stateField >= 0) world.put(stateField, index);
+    }
+
+    // Takes up the state a restored world state records
+    void sync(WorldState world) {
+        if (states == null) return;
+        int index = world.get(stateField);
+        if (index < states.length && index != state) show(index);
+    }
+
+    // Back in the scene, in its first state, as when content was loaded
+    void reset(WorldState world) {
+        removed = false;
+        world.set(goneBit, false);
+        if (states != null) setState(0, world);
+    }
+
+    private void show(int index) {
+        State s = states[index];
+        state = index;
+        name = s.name;
+        box = s.box;
+        image = s.image;
+        leadsTo = s.leadsTo;
+        interactions = s.interactions;
+        hidden = s.hidden;
+    }
+
+    /**
+     * @param stateId A state's id.
+     * @return Its number, or -1 if the hotspot has no such state.
+     */
+    int stateIndex(String stateId) {
+        if (states == null) return -1;
+        for (int i = 0; i < states.length; i++) {
+            if (states[i].id.equals(stateId)) return i;
+        }
+        return -1;
+    }
+
+    /** @return How many different interactions it has, over all its states. */
+    int interactionCount() {
+        if (states == null) return interactions.length;
+        List<Interaction> distinct = new ArrayList<>();
+        for (State s : states) {
+            for (Interaction i : s.interactions) {
+                if (!distinct.contains(i)) distinct.add(i);
+            }
+        }
+        return distinct.size();
+    }
+
+    /** @return The current state's id, or null for a hotspot without named states. */
+    public String getState() { return states == null ? null : states[state].id; }
+
+    /** @return Whether the hotspot is in the scene: not removed, nor in a hidden state. */
+    public boolean isShown() { return !hidden && !removed; }
 }
\ No newline at end of file
@@ -5,10 +5,10 @@ public class InfoPanel extends JPanel {
     JLabel interactionsLabel;
     JLabel locationLabel;
     JTextArea descriptionArea;
+    JButton pauseButton;
 
     public InfoPanel(Game g) {
         setPreferredSize(new Dimension(1024, 100));
-        setBackground(new Color(60, 60, 90));
         setLayout(new GridBagLayout());
 
         GridBagConstraints gbc = new GridBagConstraints();
@@ -17,8 +17,6 @@ public class InfoPanel extends JPanel {
 
         // ------------------ Interactions Label ------------------
         interactionsLabel = new JLabel("Interactions: 0");
-        interactionsLabel.setForeground(Color.WHITE);
-        interactionsLabel.setFont(new Font("Serif", Font.BOLD, 23));
         gbc.gridx = 0;
         gbc.gridy = 0;
         gbc.weightx = 0.1;
@@ -27,8 +25,6 @@ public class InfoPanel extends JPanel {
 
         // ------------------ Location Title ------------------
         locationLabel = new JLabel("Location Name", SwingConstants.LEFT);
-        locationLabel.setForeground(new Color(169, 177, 217));
-        locationLabel.setFont(new Font("Serif", Font.BOLD, 24));
         gbc.gridx = 1; // shifted left to fill gap
         gbc.gridy = 0;
         gbc.weightx = 0.5;
@@ -40,9 +36,6 @@ public class InfoPanel extends JPanel {
         descriptionArea.setEditable(false);
         descriptionArea.setLineWrap(true);
         descriptionArea.setWrapStyleWord(true);
-        descriptionArea.setBackground(new Color(60, 60, 90));
-        descriptionArea.setForeground(Color.WHITE);
-        descriptionArea.setFont(new Font("SansSerif", Font.PLAIN, 12));
         gbc.gridx = 1;
         gbc.gridy = 1;
         gbc.weightx = 0.5;
@@ -50,9 +43,7 @@ public class InfoPanel extends JPanel {
         this.add(descriptionArea, gbc);
 
         // ------------------ Main Menu Button ------------------
-        JButton pauseButton = new JButton("Main Menu");
-        pauseButton.setBackground(new Color(40, 40, 60));
-        pauseButton.setForeground(Color.BLACK);
+        pauseButton = new JButton("Main Menu");
         pauseButton.setFocusPainted(false);
 
         pauseButton.addActionListener(e -> {
@@ -73,18 +64,50 @@ public class InfoPanel extends JPanel {
         gbc.weightx = 0.1;
         gbc.gridheight = 2;
         this.add(pauseButton, gbc);
+        applyTheme(Theme.current());
     }
 
-    public void updateInteractionCount(int count) {
-        interactionsLabel.setText("Interactions: " + count + " (turn count)");
+    /**
+     * Restyles the panel with a theme's fonts and colours.
+     *
+     * @param t the theme to use
+     */
+    public void applyTheme(Theme t) {
+        setBackground(t.color("hud.background"));
+        interactionsLabel.setForeground(t.color("hud.text"));
+        interactionsLabel.setFont(t.font("hud.count"));
+        locationLabel.setForeground(t.color("accent"));
+        locationLabel.setFont(t.font("hud.location"));
+        descriptionArea.setBackground(t.color("hud.background"));
+        descriptionArea.setForeground(t.color("hud.text"));
+        descriptionArea.setFont(t.font("hud.description"));
+        pauseButton.setBackground(t.color("hud.button"));
+        pauseButton.setForeground(t.color("hud.button.text"));
     }
 
-    public void updateLocation(String title, String description) {
-        locationLabel.setText(title);
-        descriptionArea.setText(description);
+    /**
+     * Shows the location, description and turn count from a snapshot. Only
+     * labels whose text changed are touched, so an unchanged panel causes no
+     * layout pass.
+     *
+     * @param s the latest game snapshot
+     */
+    public void render(GameSnapshot s) {
+        if (!s.sceneTitle.equals(locationLabel.getText())) {
+            locationLabel.setText(s.sceneTitle);
+        }
+        if (s.description != null && !s.description.equals(descriptionArea.getText())) {
+            descriptionArea.setText(s.description);
+        }
+        String interactions = "Interactions: " + s.interactionCount + " (turn count)";
+        if (!interactions.equals(interactionsLabel.getText())) {
+            interactionsLabel.setText(interactions);
+        }
     }
 
-    public void updateDescription(String narrative) {
-        descriptionArea.setText(narrative);
+    @Override
+    public void doLayout() {
+        SwingGameView.LAYOUT_PASSES.increment();
+        super.doLayout();
     }
 }
\ No newline at end of file
@@ -1,4 +1,5 @@
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -13,7 +14,11 @@ import java.util.List;
  * </ul>
  *
  * <p>The inventory does not enforce item uniqueness; it simply respects capacity.
- * Selection acts as a toggle—selecting an already selected item will deselect it.</p>
+ * Selection acts as a toggle - selecting an already selected item will deselect it.</p>
+ *
+ * <p>What is held and selected is mirrored into a {@link WorldState} as
+ * {@code has:<item>} and {@code selected:<item>}, for content conditions, so
+ * every change goes through the methods here.</p>
  * 
  * @author Ryan Matthew Alexander
  * @author Harshdeep Gill
@@ -25,24 +30,37 @@ import java.util.List;
 public class Inventory {
     List<Item> items = new ArrayList<>();
     int capacity = 6;
-    public Item selected = null;
+    private Item selected = null;
+    private final WorldState world;
     
     /**
      * Constructs a new inventory with the specified capacity.
      *
      * @param cap The maximum number of items allowed.
      */
-    public Inventory(int cap) { capacity = cap; }
+    public Inventory(int cap) { this(cap, new WorldState()); }
+
+    /**
+     * Constructs a new inventory that keeps a game's world state up to date.
+     *
+     * @param cap The maximum number of items allowed.
+     * @param world Receives the held and selected facts.
+     */
+    public Inventory(int cap, WorldState world) {
+        capacity = cap;
+        this.world = world;
+    }
     
     /**
      * Attempts to add an item to the inventory.
      *
      * @param i The item to add.
-     * @return {@code true} if added successfully, or {@code false} if full.
+     * @return {@code true} if added successfully, or {@code false} if full or there is no item.
      */
     public boolean add(Item i) {
-        if (items.size() >= capacity) return false;
+        if (i == null || items.size() >= capacity) return false;
         items.add(i);
+        world.set("has:" + i.id, true);
         return true;
     }
     
@@ -51,7 +69,16 @@ public class Inventory {
      *
      * @param i The item to remove.
      */
-    public void remove(Item i) { items.remove(i); }
+    public void remove(Item i) {
+        if (i != null && items.remove(i)) world.set("has:" + i.id, contains(i.id));
+    }
+
+    /** Empties the inventory and clears the selection. */
+    public void clear() {
+        for (Item i : items) world.set("has:" + i.id, false);
+        items.clear();
+        setSelected(null);
+    }
     
     /**
      * Toggles the selection state of an item.
@@ -63,8 +90,31 @@ public class Inventory {
      * @param i The item to select or deselect.
      */
     public void select(Item i) {
-        if (selected == i) selected = null;
-        else selected = i;
+        setSelected(selected == i ? null : i);
+    }
+
+    /**
+     * Selects an item, or nothing, regardless of what was selected before.
+     *
+     * @param i The item to select, or {@code null}.
+     */
+    public void setSelected(Item i) {
+        if (selected != null) world.set("selected:" + selected.id, false);
+        selected = i;
+        if (i != null) world.set("selected:" + i.id, true);
+    }
+    
+    /**
+     * Puts back what was held and selected at some earlier point, e.g. for
+     * undo. The world state is not touched: it is restored alongside.
+     *
+     * @param held The items, in order.
+     * @param sel The selected item, or {@code null}.
+     */
+    void restore(Item[] held, Item sel) {
+        items.clear();
+        Collections.addAll(items, held);
+        selected = sel;
     }
     
     /**
@@ -77,9 +127,9 @@ public class Inventory {
     /**
      * Returns the list of all items in the inventory.
      *
-     * @return A list of held items.
+     * @return An unmodifiable view of the held items.
      */
-    public List<Item> getItems() { return items; }
+    public List<Item> getItems() { return Collections.unmodifiableList(items); }
 
     /**
      * Checks whether the inventory contains an item with the specified ID.
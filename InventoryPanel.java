@@ -1,21 +1,28 @@
 import javax.swing.*;
+import javax.swing.border.Border;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class InventoryPanel extends JPanel {
+    private static final LatencyHistogram UPDATE_LATENCY = Metrics.histogram("inventoryPanel.update");
+
     Game g;
     JPanel slots;
     JLabel inventoryTitle;
+    private Theme theme;
+    private Border selectedBorder;
 
     public InventoryPanel(Game g) {
         this.g = g;
         setPreferredSize(new Dimension(1024, 70)); 
-        setBackground(new Color(60, 60, 90)); 
         setLayout(new BorderLayout());
         
         inventoryTitle = new JLabel("Inventory:", SwingConstants.LEFT);
-        inventoryTitle.setForeground(Color.WHITE);
-        inventoryTitle.setFont(new Font("SansSerif", Font.BOLD, 18));
         inventoryTitle.setBorder(new EmptyBorder(0, 10, 0, 0));
         this.add(inventoryTitle, BorderLayout.WEST);
 
@@ -25,38 +32,94 @@ public class InventoryPanel extends JPanel {
         slots.setBorder(new EmptyBorder(5, 50, 5, 10)); 
 
         this.add(slots, BorderLayout.CENTER);
-        rebuild();
+        applyTheme(Theme.current());
+        update(List.of(), null, g.inventory.capacity);
     }
 
-    public void rebuild() {
-        slots.removeAll();
-        for (Item i : g.inventory.getItems()) {
-            JButton btn = new JButton(i.name);
-            btn.setPreferredSize(new Dimension(80, 40)); 
-            btn.setFont(new Font("SansSerif", Font.PLAIN, 12));
-            btn.setFocusPainted(false);
-            btn.addActionListener(e -> {
-                g.inventory.select(i);
-                if (g.inventory.getSelected() == i) {
-                    g.infoPanel.updateDescription(i.desc); 
-                }
-                rebuild();
-            });
-            if (g.inventory.getSelected() == i) {
-                btn.setBorder(BorderFactory.createLineBorder(Color.WHITE, 3));
+    /**
+     * Restyles the panel and the slots already shown with a theme's fonts and colours.
+     *
+     * @param t the theme to use
+     */
+    public void applyTheme(Theme t) {
+        Border oldSelected = selectedBorder;
+        theme = t;
+        selectedBorder = BorderFactory.createLineBorder(t.color("inventory.selected"), 3);
+        setBackground(t.color("hud.background"));
+        inventoryTitle.setForeground(t.color("hud.text"));
+        inventoryTitle.setFont(t.font("inventory.title"));
+        for (Component c : slots.getComponents()) {
+            JComponent slot = (JComponent) c;
+            if (slot.getClientProperty(Item.class) == null) {
+                slot.setBackground(t.color("inventory.slot"));
+            } else {
+                slot.setFont(t.font("inventory.item"));
+                if (slot.getBorder() == oldSelected) slot.setBorder(selectedBorder);
             }
-            slots.add(btn);
+        }
+    }
+
+    /**
+     * Brings the slots in line with a snapshot's inventory. Buttons for items
+     * still held are reused and a selection change just swaps borders; the
+     * panel is revalidated at most once, and only if the slots changed.
+     * Clicking an item queues the selection on the game-logic thread.
+     *
+     * @param items    the held items, in order
+     * @param selected the selected item, or null
+     * @param capacity the number of slots to show
+     */
+    public void update(List<Item> items, Item selected, int capacity) {
+        long start = System.nanoTime();
+        Map<Item, JComponent> buttons = new IdentityHashMap<>();
+        List<JComponent> empties = new ArrayList<>();
+        for (Component c : slots.getComponents()) {
+            Item held = (Item) ((JComponent) c).getClientProperty(Item.class);
+            if (held != null) buttons.put(held, (JComponent) c);
+            else empties.add((JComponent) c);
+        }
+
+        List<JComponent> wanted = new ArrayList<>();
+        for (Item item : items) {
+            JComponent btn = buttons.get(item);
+            if (btn == null) btn = itemButton(item);
+            btn.setBorder(selected == item ? selectedBorder : (Border) btn.getClientProperty(Border.class));
+            wanted.add(btn);
+        }
+        for (int j = items.size(); j < capacity; j++) {
+            wanted.add(empties.isEmpty() ? emptySlot() : empties.remove(empties.size() - 1));
         }
 
-        int empty = g.inventory.capacity - g.inventory.getItems().size();
-        for (int j = 0; j < empty; j++) {
-            JPanel slot = new JPanel();
-            slot.setPreferredSize(new Dimension(80, 40));
-            slot.setBackground(new Color(217, 217, 217)); 
-            slots.add(slot);
+        if (!wanted.equals(Arrays.asList(slots.getComponents()))) {
+            slots.removeAll();
+            wanted.forEach(slots::add);
+            revalidate();
+            repaint();
         }
+        UPDATE_LATENCY.recordSince(start);
+    }
+
+    private JButton itemButton(Item i) {
+        JButton btn = new JButton(i.name);
+        btn.putClientProperty(Item.class, i);
+        btn.setPreferredSize(new Dimension(80, 40)); 
+        btn.setFont(theme.font("inventory.item"));
+        btn.setFocusPainted(false);
+        btn.addActionListener(e -> g.post(() -> g.selectItem(i)));
+        btn.putClientProperty(Border.class, btn.getBorder());
+        return btn;
+    }
+
+    private JPanel emptySlot() {
+        JPanel slot = new JPanel();
+        slot.setPreferredSize(new Dimension(80, 40));
+        slot.setBackground(theme.color("inventory.slot"));
+        return slot;
+    }
 
-        revalidate();
-        repaint();
+    @Override
+    public void doLayout() {
+        SwingGameView.LAYOUT_PASSES.increment();
+        super.doLayout();
     }
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+/**
+ * State of the keypad puzzle: the digits typed so far and the code that opens it.
+ */
+public class KeypadEntry {
+    /** What the keypad display is currently showing. */
+    public enum Status { ENTERING, SUCCESS, ERROR }
+
+    private static final int MAX_DIGITS = 8;
+
+    private final String targetCode;
+    private String input = "";
+    private Status status = Status.ENTERING;
+
+    /**
+     * @param targetCode the code that opens the keypad
+     */
+    public KeypadEntry(String targetCode) { this.targetCode = targetCode; }
+
+    /**
+     * Handles one key: a digit, "CLR" or "ENT".
+     *
+     * @param key the key label
+     * @return the display status after the key
+     */
+    public Status press(String key) {
+        if (status == Status.SUCCESS) return status;
+        if (key.equals("CLR")) {
+            clear();
+        } else if (key.equals("ENT")) {
+            status = input.equals(targetCode) ? Status.SUCCESS : Status.ERROR;
+        } else if (status == Status.ENTERING && input.length() < MAX_DIGITS) {
+            input += key;
+        }
+        return status;
+    }
+
+    /** Empties the display and returns to entry mode. */
+    public void clear() {
+        input = "";
+        status = Status.ENTERING;
+    }
+
+    public Status getStatus() { return status; }
+
+    /** @return the code that opens the keypad, for test drivers that play through puzzles. */
+    String getTargetCode() { return targetCode; }
+
+    /** @return the text the keypad display shows. */
+    public String getDisplay() {
+        switch (status) {
+            case SUCCESS: return "SUCCESS";
+            case ERROR: return "ERROR";
+            default: return input;
+        }
+    }
+}
@@ -1,29 +1,27 @@
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
 
 public class KeypadPanel extends JPanel {
     JTextField display;
-    String currentInput = "";
-    String targetCode = "";
-    PuzzleCallback callback;
+    JPanel keypadFrame;
+    List<JButton> keyButtons = new ArrayList<>();
+    private Theme theme;
+    private KeypadEntry.Status status = KeypadEntry.Status.ENTERING;
     Game g;
 
     public KeypadPanel(Game g) {
         this.g = g;
         setLayout(new GridBagLayout());
-        setBackground(new Color(20, 20, 25));
         
-        JPanel keypadFrame = new JPanel(new BorderLayout(10, 10));
-        keypadFrame.setBackground(new Color(40, 40, 50));
+        keypadFrame = new JPanel(new BorderLayout(10, 10));
         keypadFrame.setBorder(new EmptyBorder(20, 20, 20, 20));
 
         display = new JTextField();
-        display.setFont(new Font("Monospaced", Font.BOLD, 40));
         display.setHorizontalAlignment(JTextField.CENTER);
         display.setEditable(false);
-        display.setBackground(Color.BLACK);
-        display.setForeground(Color.GREEN);
         display.setPreferredSize(new Dimension(200, 60));
         keypadFrame.add(display, BorderLayout.NORTH);
 
@@ -33,65 +31,62 @@ public class KeypadPanel extends JPanel {
         String[] keys = {"7", "8", "9", "4", "5", "6", "1", "2", "3", "CLR", "0", "ENT"};
         for (String k : keys) {
             JButton btn = new JButton(k);
-            btn.setFont(new Font("SansSerif", Font.BOLD, 24));
             btn.setFocusPainted(false);
             btn.addActionListener(e -> handleInput(k));
+            keyButtons.add(btn);
             buttons.add(btn);
         }
         keypadFrame.add(buttons, BorderLayout.CENTER);
         
         JButton exitBtn = new JButton("STOP PUZZLE");
-        exitBtn.addActionListener(e -> {
-           if(callback != null) callback.onExit(); 
-           g.endPuzzle();
-        });
+        exitBtn.addActionListener(e -> g.post(g::exitPuzzle));
         keypadFrame.add(exitBtn, BorderLayout.SOUTH);
 
         add(keypadFrame);
+        applyTheme(Theme.current());
     }
 
-    public void init(String code, PuzzleCallback cb) {
-        this.targetCode = code;
-        this.callback = cb;
-        this.currentInput = "";
-        display.setText("");
-        display.setForeground(Color.GREEN);
-        g.infoPanel.updateDescription("Enter the 4-digit code...");
+    /**
+     * Restyles the panel with a theme's fonts and colours.
+     *
+     * @param t the theme to use
+     */
+    public void applyTheme(Theme t) {
+        theme = t;
+        setBackground(t.color("keypad.background"));
+        keypadFrame.setBackground(t.color("puzzle.frame"));
+        display.setFont(t.font("keypad.display"));
+        display.setBackground(t.color("keypad.display"));
+        display.setForeground(statusColor());
+        for (JButton btn : keyButtons) {
+            btn.setFont(t.font("keypad.key"));
+        }
     }
 
-    void handleInput(String k) {
-        if (k.equals("CLR")) {
-            currentInput = "";
-            display.setText("");
-            display.setForeground(Color.GREEN);
-        } else if (k.equals("ENT")) {
-            if (currentInput.equals(targetCode)) {
-                display.setForeground(Color.CYAN);
-                display.setText("SUCCESS");
-                
-                javax.swing.Timer t = new javax.swing.Timer(500, e -> {
-                    ((javax.swing.Timer)e.getSource()).stop();
-                    if(callback != null) callback.onSolve();
-                    g.endPuzzle();
-                });
-                t.start();
-            } else {
-                display.setForeground(Color.RED);
-                display.setText("ERROR");
-                
-                javax.swing.Timer t = new javax.swing.Timer(500, e -> {
-                    ((javax.swing.Timer)e.getSource()).stop();
-                    currentInput = "";
-                    display.setText("");
-                    display.setForeground(Color.GREEN);
-                });
-                t.start();
-            }
-        } else {
-            if (currentInput.length() < 8) {
-                currentInput += k;
-                display.setText(currentInput);
-            }
+    /**
+     * Shows the keypad display from a snapshot: typed digits in green,
+     * SUCCESS in cyan or ERROR in red.
+     *
+     * @param s the latest game snapshot
+     */
+    public void render(GameSnapshot s) {
+        if (s.keypadDisplay == null) return;
+        display.setText(s.keypadDisplay);
+        status = s.keypadStatus;
+        display.setForeground(statusColor());
+    }
+
+    private Color statusColor() {
+        if (status == KeypadEntry.Status.SUCCESS) {
+            return theme.color("keypad.success");
+        } else if (status == KeypadEntry.Status.ERROR) {
+            return theme.color("keypad.error");
         }
+        return theme.color("keypad.entering");
+    }
+
+    void handleInput(String k) {
+        AudioEngine.play(AudioEngine.Sound.BEEP); // Straight from the EDT, so the beep is not queued behind game steps
+        g.post(() -> g.pressKey(k));
     }
 }
\ No newline at end of file
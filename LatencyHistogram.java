@@ -0,0 +1,109 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size, lock-free latency histogram in the style of HdrHistogram.
+ * Values (nanoseconds) are kept in log-linear buckets: every power of two is
+ * split into 64 linear sub-buckets, so any recorded value is reported within
+ * about 1.5% of its true value, from 1ns up to hours, in ~30KB.
+ *
+ * <p>Recording is a couple of shifts and one atomic increment, so it is safe to
+ * call from the EDT and any worker thread on every click or frame.</p>
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 7;
+    private static final int SUB_COUNT = 1 << SUB_BITS;      // exact buckets for 0..127
+    private static final int HALF = SUB_COUNT >> 1;           // sub-buckets per power of two
+    private static final int BUCKETS = SUB_COUNT + (64 - SUB_BITS) * HALF;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+    private volatile long last;
+
+    /**
+     * Creates an empty histogram.
+     *
+     * @param name The metric name, used in reports.
+     */
+    public LatencyHistogram(String name) { this.name = name; }
+
+    public String getName() { return name; }
+
+    static int bucketOf(long v) {
+        if (v < SUB_COUNT) return (int) Math.max(0, v);
+        int msb = 63 - Long.numberOfLeadingZeros(v);
+        int shift = msb - SUB_BITS + 1;
+        int mantissa = (int) (v >>> shift);                    // in [HALF, SUB_COUNT)
+        return SUB_COUNT + (shift - 1) * HALF + (mantissa - HALF);
+    }
+
+    static long lowestValueOf(int bucket) {
+        if (bucket < SUB_COUNT) return bucket;
+        int shift = (bucket - SUB_COUNT) / HALF + 1;
+        long mantissa = (bucket - SUB_COUNT) % HALF + HALF;
+        return mantissa << shift;
+    }
+
+    /**
+     * Records one value.
+     *
+     * @param nanos The measured latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(bucketOf(nanos));
+        total.incrementAndGet();
+        sum.addAndGet(nanos);
+        last = nanos;
+        long m;
+        while (nanos > (m = max.get()) && !max.compareAndSet(m, nanos)) { }
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos} (from {@link System#nanoTime()}).
+     *
+     * @param startNanos The start timestamp.
+     */
+    public void recordSince(long startNanos) { record(System.nanoTime() - startNanos); }
+
+    public long getCount() { return total.get(); }
+
+    public long getMaxNanos() { return max.get(); }
+
+    /** @return The most recently recorded value, or 0 if none has been. */
+    public long getLastNanos() { return last; }
+
+    public double getMeanNanos() {
+        long n = total.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /**
+     * Returns the value at the given percentile.
+     *
+     * @param percentile A percentile between 0 and 100.
+     * @return The lowest value of the bucket holding that percentile, in nanoseconds.
+     */
+    public long getPercentileNanos(double percentile) {
+        long n = total.get();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(lowestValueOf(i), max.get());
+        }
+        return max.get();
+    }
+
+    /** Clears all recorded values. */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        total.set(0);
+        sum.set(0);
+        max.set(0);
+        last = 0;
+    }
+}
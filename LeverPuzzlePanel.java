@@ -1,119 +1,118 @@
 import javax.swing.*;
 import java.awt.*;
-import java.util.Arrays;
 
 public class LeverPuzzlePanel extends JPanel {
-    private JButton[] levers = new JButton[3];
-    private boolean[] currentPositions = new boolean[3]; 
-    private final String targetSequence = "DOWN_UP_DOWN"; 
-    private PuzzleCallback callback;
+    private JButton[] levers = new JButton[0];
+    private JPanel puzzleArea;
+    private javax.swing.border.TitledBorder titleBorder;
     private Game g;
+    private Theme theme;
+    private String[] positions;
     
     public LeverPuzzlePanel(Game g) {
         this.g = g;
         setLayout(new GridBagLayout());
-        setBackground(new Color(25, 20, 25));
         
-        JPanel puzzleArea = new JPanel(new FlowLayout(FlowLayout.CENTER, 40, 20));
+        puzzleArea = new JPanel(new FlowLayout(FlowLayout.CENTER, 40, 20));
         puzzleArea.setPreferredSize(new Dimension(600, 300));
-        puzzleArea.setBackground(new Color(40, 40, 50));
-        puzzleArea.setBorder(BorderFactory.createTitledBorder(
-            BorderFactory.createLineBorder(Color.WHITE), 
-            "Lever Mechanism (Target: DOWN, UP, DOWN)", 
+        titleBorder = BorderFactory.createTitledBorder(
+            BorderFactory.createEmptyBorder(), 
+            "Lever Mechanism", 
             javax.swing.border.TitledBorder.CENTER, 
-            javax.swing.border.TitledBorder.TOP, 
-            new Font("Serif", Font.BOLD, 20), 
-            Color.WHITE
-        ));
+            javax.swing.border.TitledBorder.TOP
+        );
+        puzzleArea.setBorder(titleBorder);
+        
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(10, 10, 10, 10);
+        gbc.gridx = 0; gbc.gridy = 0;
+        add(puzzleArea, gbc);
+        
+        JButton exitBtn = new JButton("STOP PUZZLE");
+        exitBtn.addActionListener(e -> g.post(g::exitPuzzle));
+        gbc.gridy = 1;
+        add(exitBtn, gbc);
+        applyTheme(Theme.current());
+    }
 
+    /**
+     * Restyles the panel with a theme's fonts and colours.
+     *
+     * @param t the theme to use
+     */
+    public void applyTheme(Theme t) {
+        theme = t;
+        setBackground(t.color("lever.background"));
+        puzzleArea.setBackground(t.color("puzzle.frame"));
+        titleBorder.setBorder(BorderFactory.createLineBorder(t.color("puzzle.border")));
+        titleBorder.setTitleFont(t.font("lever.title"));
+        titleBorder.setTitleColor(t.color("lever.title"));
+        for (JButton lever : levers) {
+            lever.setFont(t.font("lever"));
+        }
+        if (positions != null) drawLevers(positions);
+        puzzleArea.repaint();
+    }
+
+    /**
+     * Shows the levers from a snapshot. The number of levers and the target
+     * both come from the puzzle code, e.g. "DOWN_UP_DOWN".
+     *
+     * @param s the latest game snapshot
+     */
+    public void render(GameSnapshot s) {
+        if (s.lockSymbols == null) return;
+        if (levers.length != s.lockSymbols.length) {
+            buildLevers(s.lockSymbols.length);
+        }
+        titleBorder.setTitle("Lever Mechanism (Target: " + s.lockTarget + ")");
+        drawLevers(s.lockSymbols);
+    }
+    
+    private void buildLevers(int count) {
+        puzzleArea.removeAll();
+        levers = new JButton[count];
         for (int i = 0; i < levers.length; i++) {
-            JButton lever = new JButton("DOWN"); 
+            JButton lever = new JButton(Game.LEVER_POSITIONS[0]); 
             lever.setPreferredSize(new Dimension(100, 150));
             
             lever.setVerticalTextPosition(SwingConstants.BOTTOM); 
             lever.setHorizontalTextPosition(SwingConstants.CENTER);
-            lever.setFont(new Font("Serif", Font.BOLD, 24)); 
+            lever.setFont(theme.font("lever")); 
             lever.setFocusPainted(false);
             
             final int index = i; 
-            lever.addActionListener(e -> handleLeverPull(index)); 
+            lever.addActionListener(e -> {
+                AudioEngine.play(AudioEngine.Sound.CLUNK);
+                g.post(() -> g.advanceLock(index));
+            });
             
             levers[i] = lever;
             puzzleArea.add(lever);
         }
-        
-        GridBagConstraints gbc = new GridBagConstraints();
-        gbc.insets = new Insets(10, 10, 10, 10);
-        gbc.gridx = 0; gbc.gridy = 0;
-        add(puzzleArea, gbc);
-        
-        JButton exitBtn = new JButton("STOP PUZZLE");
-        exitBtn.addActionListener(e -> {
-           if(callback != null) callback.onExit(); 
-           g.endPuzzle();
-        });
-        gbc.gridy = 1;
-        add(exitBtn, gbc);
-    }
-
-    public void init(PuzzleCallback cb) {
-        this.callback = cb;
-        Arrays.fill(currentPositions, false); // Initialize all to DOWN (false)
-        drawLevers();
-        g.infoPanel.updateDescription("Pull the levers in the correct sequence (U or D). (Check your Journal Note for the clue!)");
+        puzzleArea.revalidate();
     }
     
-    private void drawLevers() {
+    private void drawLevers(String[] positions) {
+        this.positions = positions;
         for (int i = 0; i < levers.length; i++) {
-            boolean isUp = currentPositions[i];
+            boolean isUp = positions[i].equals(Game.LEVER_POSITIONS[1]);
             
-            levers[i].setText(isUp ? "UP" : "DOWN");
+            levers[i].setText(positions[i]);
             
             if (isUp) {
                 // UP State: Gold/Yellow with dark text
                 levers[i].setVerticalAlignment(SwingConstants.TOP);
-                levers[i].setBackground(new Color(255, 193, 7)); 
-                levers[i].setForeground(new Color(50, 50, 50)); 
+                levers[i].setBackground(theme.color("lever.up")); 
+                levers[i].setForeground(theme.color("lever.up.text")); 
                 levers[i].setToolTipText("Position: UP");
             } else {
                 // DOWN State: Light silver/grey with black text
                 levers[i].setVerticalAlignment(SwingConstants.BOTTOM);
-                levers[i].setBackground(new Color(192, 192, 192)); 
-                levers[i].setForeground(Color.BLACK); 
+                levers[i].setBackground(theme.color("lever.down")); 
+                levers[i].setForeground(theme.color("lever.down.text")); 
                 levers[i].setToolTipText("Position: DOWN");
             }
         }
     }
-    
-    private boolean checkSolved() {
-         String current = "";
-         for (int i = 0; i < currentPositions.length; i++) {
-             current += (currentPositions[i] ? "UP" : "DOWN");
-             if (i < currentPositions.length - 1) {
-                 current += "_";
-             }
-         }
-         return current.equals(targetSequence);
-     }
-    
-    private void handleLeverPull(int index) {
-        currentPositions[index] = !currentPositions[index]; // Toggle position
-        
-        String move = currentPositions[index] ? "UP" : "DOWN";
-        drawLevers();
-        
-        g.showFeedback(levers[index].getText() + " moved " + move, new Point(300, 300));
-        
-        if (checkSolved()) {
-            g.infoPanel.updateDescription("Sequence Correct! A hidden passage opens.");
-            
-            new javax.swing.Timer(500, event -> {
-                ((javax.swing.Timer)event.getSource()).stop();
-                if(callback != null) callback.onSolve();
-                g.endPuzzle();
-            }).start();
-        } else {
-            g.infoPanel.updateDescription("Lever position changed. The mechanism is still locked. Keep adjusting.");
-        }
-    }
 }
\ No newline at end of file
@@ -4,12 +4,16 @@ import java.awt.*;
 public class Main extends JFrame {
 
     public static void main(String[] args) {
+        Metrics.install();
+        EdtWatchdog.install();
+        AudioEngine.install();
+        ClickLog.install();
         SwingUtilities.invokeLater(Main::new);
     }
 
     // --- Main panels and Game State ---
     // ... existing component fields ...
-    Game game = new Game();
+    Game game = newGame();
     InfoPanel infoPanel = new InfoPanel(game);
     PlayPanel playPanel = new PlayPanel(game);
     KeypadPanel keypadPanel = new KeypadPanel(game);
@@ -17,6 +21,13 @@ public class Main extends JFrame {
     LeverPuzzlePanel leverPuzzlePanel = new LeverPuzzlePanel(game);
     DialPuzzlePanel dialPuzzlePanel = new DialPuzzlePanel(game);
     InventoryPanel inventoryPanel = new InventoryPanel(game);
+    private CoopHost host; // Set while other players can join this game
+
+    // Menu screens are built once and reused; see ScreenNavigator
+    ScreenNavigator navigator = new ScreenNavigator(this, this::createScreen);
+
+    // Restyles the window when another theme is picked in Settings
+    private final Runnable themeListener = this::applyTheme;
 
     JPanel mainPanel = new JPanel(new BorderLayout());
     JPanel centerContainer = new JPanel();
@@ -29,16 +40,62 @@ public class Main extends JFrame {
         setLayout(new BorderLayout());
         
         // Pass a reference to this JFrame to the MainMenu for the startNewGame action
-        setContentPane(new MainMenu(this)); // MainMenu is assumed to exist
+        navigator.home();
+        Theme.addListener(themeListener);
         
         setVisible(true);
     }
+
+    @Override
+    public void dispose() {
+        Theme.removeListener(themeListener);
+        super.dispose();
+    }
+
+    private void applyTheme() {
+        Theme t = Theme.current();
+        infoPanel.applyTheme(t);
+        playPanel.applyTheme(t);
+        keypadPanel.applyTheme(t);
+        tilePuzzlePanel.applyTheme(t);
+        leverPuzzlePanel.applyTheme(t);
+        dialPuzzlePanel.applyTheme(t);
+        inventoryPanel.applyTheme(t);
+        navigator.reset();
+    }
     
     
+    // -Dmoonlight.coop.join=host:port plays someone else's game instead of our own
+    private static Game newGame() {
+        RemoteGame remote = RemoteGame.configured();
+        return remote != null ? remote : new Game();
+    }
+
     public Game getGame() {
         return game;
     }
 
+    /** Stops the game and, if this window hosts it, disconnects the players and frees the port. */
+    public void stopGame() {
+        game.stop();
+        if (host != null) {
+            host.close();
+            host = null;
+        }
+    }
+
+    public ScreenNavigator getNavigator() {
+        return navigator;
+    }
+
+    private JPanel createScreen(ScreenNavigator.Screen screen) {
+        switch (screen) {
+            case SETTINGS: return new Settings(game, this);
+            case CREDITS: return new Credits(this);
+            default: return new MainMenu(this);
+        }
+    }
+
     // This method is called by MainMenu.startNewGame()
     void initGameContent() {
         mainPanel.removeAll();
@@ -50,18 +107,34 @@ public class Main extends JFrame {
         centerContainer.add(leverPuzzlePanel, "LEVER_PUZZLE");
         centerContainer.add(dialPuzzlePanel, "DIAL_PUZZLE");
         
-        // Setup the Game class with references to all views
-        game.setupViews(centerContainer, cardLayout, keypadPanel, tilePuzzlePanel, leverPuzzlePanel, dialPuzzlePanel, infoPanel, inventoryPanel, playPanel);    
+        // The game publishes snapshots from its logic thread; the view applies them on the EDT
+        GameView view = new SwingGameView(centerContainer, cardLayout, keypadPanel, tilePuzzlePanel, leverPuzzlePanel, dialPuzzlePanel, infoPanel, inventoryPanel, playPanel);
+        game.setView(view);
 
         mainPanel.add(infoPanel, BorderLayout.NORTH);
         mainPanel.add(centerContainer, BorderLayout.CENTER);
         mainPanel.add(inventoryPanel, BorderLayout.SOUTH);
         
-        // --- UPDATED LOADING LOGIC ---
-        GameDataLoader loader = new GameDataLoader();
-        loader.loadContent(game, "gamedata.json"); // Loads content from JSON
-        
-        inventoryPanel.rebuild();
+        if (game instanceof RemoteGame) {
+            // Co-op player: the host's deltas drive the view
+            try {
+                ((RemoteGame) game).connect();
+            } catch (java.io.IOException e) {
+                JOptionPane.showMessageDialog(this, "Could not join the game: " + e.getMessage());
+            }
+        } else {
+            game.start();
+            hostIfConfigured(view);
+
+            // --- UPDATED LOADING LOGIC ---
+            GameDataLoader loader = new GameDataLoader();
+            game.post(() -> {
+                loader.loadContent(game, "gamedata.json"); // Loads content from JSON on the game thread
+                if (ContentWatcher.isEnabled()) {
+                    ContentWatcher.start(game, loader); // -Dmoonlight.dev=true: reload edited rooms
+                }
+            });
+        }
         
         // Switch the JFrame content to the main game view
         setContentPane(mainPanel);
@@ -69,5 +142,23 @@ public class Main extends JFrame {
         repaint();
     }
     
+    // -Dmoonlight.coop.host=port: let other players join this game
+    private void hostIfConfigured(GameView view) {
+        int port = CoopHost.configuredPort();
+        if (port < 0) return;
+        try {
+            CoopHost host = new CoopHost(game, port);
+            this.host = host;
+            game.setView(s -> {
+                view.render(s);
+                host.render(s);
+            });
+            host.start();
+            System.out.println("Co-op: hosting on port " + host.getPort());
+        } catch (java.io.IOException e) {
+            JOptionPane.showMessageDialog(this, "Could not host on port " + port + ": " + e.getMessage());
+        }
+    }
+
     // The old loadDemoContent() method is now removed.
 }
\ No newline at end of file
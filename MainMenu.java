@@ -1,12 +1,11 @@
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.MouseAdapter;
-import java.awt.event.MouseEvent;
 
 public class MainMenu extends JPanel {
 
     // Hold a reference to the outer JFrame to call initGameContent
     private Main parentFrame;
+    private final Theme theme = Theme.current();
 
     public MainMenu(Main parentFrame) {
         this.parentFrame = parentFrame;
@@ -15,17 +14,17 @@ public class MainMenu extends JPanel {
 
     private void initializeMenu() {
         this.setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
-        this.setBackground(new Color(80, 82, 102));
+        this.setBackground(theme.color("menu.background"));
 
         JLabel titleP1 = new JLabel("MYSTERY OF");
         titleP1.setAlignmentX(Component.CENTER_ALIGNMENT);
         JLabel titleP2 = new JLabel("MOONLIGHT MANOR");
         titleP2.setAlignmentX(Component.CENTER_ALIGNMENT);
 
-        titleP1.setFont(new Font("Serif", Font.BOLD, 60));
-        titleP1.setForeground(new Color(169, 177, 217));
-        titleP2.setFont(new Font("Serif", Font.BOLD, 60));
-        titleP2.setForeground(new Color(169, 177, 217));
+        titleP1.setFont(theme.font("menu.title"));
+        titleP1.setForeground(theme.color("accent"));
+        titleP2.setFont(theme.font("menu.title"));
+        titleP2.setForeground(theme.color("accent"));
 
         this.add(Box.createVerticalStrut(100));
         this.add(titleP1);
@@ -33,16 +32,16 @@ public class MainMenu extends JPanel {
         this.add(titleP2);
         this.add(Box.createVerticalStrut(45));
 
-        JButton newGameButton = createButton("PLAY GAME");
+        JButton newGameButton = theme.menuButton("PLAY GAME");
         newGameButton.addActionListener(e -> startNewGame());
 
-        JButton settingsButton = createButton("SETTINGS");
+        JButton settingsButton = theme.menuButton("SETTINGS");
         settingsButton.addActionListener(e -> openSettings());
 
-        JButton creditsButton = createButton("CREDITS");
+        JButton creditsButton = theme.menuButton("CREDITS");
         creditsButton.addActionListener(e -> openCredits());
 
-        JButton exitButton = createButton("QUIT GAME");
+        JButton exitButton = theme.menuButton("QUIT GAME");
         exitButton.addActionListener(e -> System.exit(0));
 
         this.add(newGameButton);
@@ -54,31 +53,6 @@ public class MainMenu extends JPanel {
         this.add(exitButton);
     }
 
-    private JButton createButton(String text) {
-        JButton button = new JButton(text);
-        button.setAlignmentX(Component.CENTER_ALIGNMENT);
-        button.setFont(new Font("Serif", Font.PLAIN, 37));
-        button.setForeground(new Color(169, 177, 217));
-
-        button.setBorderPainted(false);
-        button.setContentAreaFilled(false);
-        button.setFocusPainted(false);
-        button.setOpaque(false);
-
-        button.addMouseListener(new MouseAdapter() {
-            public void mouseEntered(MouseEvent e) {
-                button.setForeground(Color.WHITE);
-            }
-
-            @Override
-            public void mouseExited(MouseEvent e) {
-                button.setForeground(new Color(169, 177, 217));
-            }
-        });
-
-        return button;
-    }
-
     private void startNewGame() {
         if (parentFrame != null) {
             parentFrame.initGameContent();
@@ -86,15 +60,11 @@ public class MainMenu extends JPanel {
     }
 
     private void openSettings() {
-        Settings settingsPanel = new Settings(parentFrame.getGame(), parentFrame);
-        parentFrame.setContentPane(settingsPanel);
-        parentFrame.revalidate();
+        parentFrame.getNavigator().open(ScreenNavigator.Screen.SETTINGS);
     }
 
     private void openCredits() {
         System.out.println("Opening credits...");
-        parentFrame.setContentPane(new Credits(parentFrame));
-        parentFrame.revalidate();
-        parentFrame.repaint();
+        parentFrame.getNavigator().open(ScreenNavigator.Screen.CREDITS);
     }
 }
@@ -0,0 +1,135 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide registry of engine metrics: counters, latency histograms and
+ * gauges, all looked up by dotted name (e.g. {@code "game.handleClick"}).
+ *
+ * <p>Hot paths should look their metric up once and keep it in a static field,
+ * then time their work with {@link LatencyHistogram#recordSince(long)}.</p>
+ *
+ * <p>{@link #install()} publishes the registry as the JMX MBean
+ * {@code moonlight:type=Metrics}, and when the {@code moonlight.metrics.file}
+ * system property is set, writes a report to that file when the game exits.
+ * EDT stalls caught by {@link EdtWatchdog} are included in that file.</p>
+ */
+public class Metrics {
+    static final String OBJECT_NAME = "moonlight:type=Metrics";
+
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private static final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    private Metrics() { }
+
+    /**
+     * Returns the counter with the given name, creating it on first use.
+     *
+     * @param name The counter name.
+     * @return The shared counter.
+     */
+    public static LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    /**
+     * Returns the latency histogram with the given name, creating it on first use.
+     *
+     * @param name The histogram name.
+     * @return The shared histogram.
+     */
+    public static LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    /**
+     * Registers (or replaces) a gauge whose value is read when metrics are reported.
+     *
+     * @param name The gauge name.
+     * @param value Supplies the current value.
+     */
+    public static void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    static Map<String, LongAdder> counters() { return counters; }
+    static Map<String, LatencyHistogram> histograms() { return histograms; }
+    static Map<String, LongSupplier> gauges() { return gauges; }
+
+    /** Clears every counter and histogram. Gauges are live values and are left alone. */
+    public static void reset() {
+        counters.values().forEach(LongAdder::reset);
+        histograms.values().forEach(LatencyHistogram::reset);
+    }
+
+    /**
+     * Builds a plain-text report of every metric, sorted by name.
+     *
+     * @return The report.
+     */
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# counters\n");
+        for (Map.Entry<String, LongAdder> e : new TreeMap<>(counters).entrySet()) {
+            sb.append(e.getKey()).append(" = ").append(e.getValue().sum()).append('\n');
+        }
+        sb.append("# gauges\n");
+        for (Map.Entry<String, LongSupplier> e : new TreeMap<>(gauges).entrySet()) {
+            sb.append(e.getKey()).append(" = ").append(e.getValue().getAsLong()).append('\n');
+        }
+        sb.append("# latency (microseconds)\n");
+        for (LatencyHistogram h : new TreeMap<>(histograms).values()) {
+            sb.append(String.format("%s count=%d mean=%.1f p50=%.1f p90=%.1f p99=%.1f max=%.1f%n",
+                    h.getName(), h.getCount(), h.getMeanNanos() / 1000.0,
+                    h.getPercentileNanos(50) / 1000.0, h.getPercentileNanos(90) / 1000.0,
+                    h.getPercentileNanos(99) / 1000.0, h.getMaxNanos() / 1000.0));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Registers the JMX MBean and, if requested, the on-exit report. Safe to
+     * call more than once.
+     */
+    public static synchronized void install() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsJmx(), name);
+
+                String file = System.getProperty("moonlight.metrics.file");
+                if (file != null && !file.isEmpty()) {
+                    Runtime.getRuntime().addShutdownHook(new Thread(() -> dump(file), "metrics-dump"));
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Metrics: could not register MBean: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the current report, followed by any buffered EDT stalls, to a file.
+     *
+     * @param file The file to write.
+     */
+    public static void dump(String file) {
+        try (Writer w = Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8)) {
+            w.write(report());
+            if (EdtWatchdog.get() != null) {
+                w.write(EdtWatchdog.get().report());
+            }
+        } catch (IOException e) {
+            System.err.println("Metrics: could not write " + file + ": " + e.getMessage());
+        }
+    }
+}
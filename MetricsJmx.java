@@ -0,0 +1,123 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ReflectionException;
+
+/**
+ * Exposes the {@link Metrics} registry over JMX. Every metric becomes a
+ * read-only attribute, so JConsole or VisualVM can chart them live:
+ * <ul>
+ *   <li>counters and gauges as {@code name}</li>
+ *   <li>histograms as {@code name.count}, {@code name.p50Micros},
+ *       {@code name.p99Micros} and {@code name.maxMicros}</li>
+ * </ul>
+ * The attribute list is rebuilt on each request, so metrics registered after
+ * start-up (such as per-scene hotspot counts) show up too.
+ */
+public class MetricsJmx implements DynamicMBean {
+
+    private static final String[] HISTOGRAM_FIELDS = {"count", "p50Micros", "p99Micros", "maxMicros"};
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        LongAdder counter = Metrics.counters().get(attribute);
+        if (counter != null) return counter.sum();
+
+        LongSupplier gauge = Metrics.gauges().get(attribute);
+        if (gauge != null) return gauge.getAsLong();
+
+        int dot = attribute.lastIndexOf('.');
+        if (dot > 0) {
+            LatencyHistogram h = Metrics.histograms().get(attribute.substring(0, dot));
+            if (h != null) {
+                switch (attribute.substring(dot + 1)) {
+                    case "count": return h.getCount();
+                    case "p50Micros": return h.getPercentileNanos(50) / 1000.0;
+                    case "p99Micros": return h.getPercentileNanos(99) / 1000.0;
+                    case "maxMicros": return h.getMaxNanos() / 1000.0;
+                    default: break;
+                }
+            }
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String a : attributes) {
+            try {
+                list.add(new Attribute(a, getAttribute(a)));
+            } catch (AttributeNotFoundException ignored) {
+                // Metric disappeared between getMBeanInfo and this call.
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        switch (actionName) {
+            case "report":
+                return Metrics.report();
+            case "stalls":
+                return EdtWatchdog.get() == null ? "EDT watchdog not installed." : EdtWatchdog.get().report();
+            case "reset":
+                Metrics.reset();
+                return null;
+            case "dump":
+                Metrics.dump((String) params[0]);
+                return null;
+            default:
+                throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attrs = new ArrayList<>();
+        for (String name : new TreeMap<>(Metrics.counters()).keySet()) {
+            attrs.add(new MBeanAttributeInfo(name, "long", "Counter", true, false, false));
+        }
+        for (String name : new TreeMap<>(Metrics.gauges()).keySet()) {
+            attrs.add(new MBeanAttributeInfo(name, "long", "Gauge", true, false, false));
+        }
+        for (Map.Entry<String, LatencyHistogram> e : new TreeMap<>(Metrics.histograms()).entrySet()) {
+            for (String field : HISTOGRAM_FIELDS) {
+                String type = field.equals("count") ? "long" : "double";
+                attrs.add(new MBeanAttributeInfo(e.getKey() + "." + field, type, "Latency " + field, true, false, false));
+            }
+        }
+
+        MBeanOperationInfo[] ops = {
+            new MBeanOperationInfo("report", "Plain-text report of every metric", new MBeanParameterInfo[0], "java.lang.String", MBeanOperationInfo.INFO),
+            new MBeanOperationInfo("stalls", "Buffered EDT stalls with sampled stacks", new MBeanParameterInfo[0], "java.lang.String", MBeanOperationInfo.INFO),
+            new MBeanOperationInfo("reset", "Clear counters and histograms", new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION),
+            new MBeanOperationInfo("dump", "Write the report to a file",
+                    new MBeanParameterInfo[] {new MBeanParameterInfo("file", "java.lang.String", "Output path")}, "void", MBeanOperationInfo.ACTION)
+        };
+        return new MBeanInfo(getClass().getName(), "Moonlight Manor engine metrics",
+                attrs.toArray(new MBeanAttributeInfo[0]), null, ops, null);
+    }
+}
@@ -0,0 +1,265 @@
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.EventQueue;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import javax.swing.Timer;
+
+/**
+ * The performance overlay on the {@link PlayPanel}, toggled with F3 or shown
+ * from the start with {@code -Dmoonlight.hud=true}: frame rate, paint time,
+ * the last hit tests, click latency, feedback labels, how far behind the EDT
+ * is, heap, GC pauses, and the scene with its hotspot count.
+ *
+ * <p>Showing it must not change what it measures. The figures are gathered
+ * four times a second into fixed {@code char} buffers, formatted by hand, and
+ * drawn into an image made once per theme; a frame only records its own
+ * timestamp and blits that image, after its paint time has been taken. The
+ * refreshes repaint the overlay's own rectangle, and those repaints are not
+ * counted as frames.</p>
+ *
+ * <p>Swing does not expose how many events are queued, so the EDT line shows
+ * how long a probe posted at each refresh waited to run, and how many
+ * snapshots are queued for the EDT by {@link SwingGameView}.</p>
+ */
+final class PerfHud {
+    private static final int REFRESH_MILLIS = 250;
+    private static final int LINES = 9;
+    private static final int COLUMNS = 40;
+    private static final int FRAMES = 256;           // Frame ring; more than a second at any sane rate
+    private static final int GC_WINDOW = 1000 / REFRESH_MILLIS;
+    private static final int PAD = 6;
+
+    private static final LatencyHistogram CLICK = Metrics.histogram("game.handleClick");
+    private static final LatencyHistogram HIT_TEST = Metrics.histogram("scene.hitTest");
+    private static final LatencyHistogram HOVER_HIT_TEST = Metrics.histogram("playPanel.hoverHitTest");
+
+    private final PlayPanel panel;
+    private final Timer refresh = new Timer(REFRESH_MILLIS, e -> update());
+    private boolean visible;
+
+    // End time and paint time of recent frames
+    private final long[] frameEnds = new long[FRAMES];
+    private final long[] framePaints = new long[FRAMES];
+    private int frameNext;
+
+    // The text, rewritten in place at every refresh
+    private final char[][] text = new char[LINES][COLUMNS];
+    private final int[] lengths = new int[LINES];
+    private final boolean[] warn = new boolean[LINES];
+    private int line, col;
+
+    private final Rectangle bounds = new Rectangle(PAD, PAD, 0, 0);
+    private final Rectangle clip = new Rectangle();
+    private BufferedImage image;
+    private Font font;
+    private Color background, foreground, warning;
+
+    // EDT probe: posted at a refresh, measures how long it waited in the queue
+    private long probePosted;
+    private boolean probePending;
+    private long edtWaitNanos;
+    private final Runnable probe = () -> {
+        edtWaitNanos = System.nanoTime() - probePosted;
+        probePending = false;
+    };
+
+    // Collections and collection time at each of the last GC_WINDOW refreshes
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final long[] gcCounts = new long[GC_WINDOW];
+    private final long[] gcMillis = new long[GC_WINDOW];
+    private int gcNext;
+    private long gcSamples;
+
+    PerfHud(PlayPanel panel) {
+        this.panel = panel;
+        refresh.setCoalesce(true);
+    }
+
+    /** @return whether the overlay is showing. */
+    boolean isVisible() { return visible; }
+
+    /** Shows or hides the overlay. Called on the EDT. */
+    void setVisible(boolean on) {
+        if (on == visible) return;
+        visible = on;
+        if (on) {
+            update();
+            refresh.start();
+        } else {
+            refresh.stop();
+        }
+        panel.repaint();
+    }
+
+    /** Picks up the overlay's colours and font; the image is remade at the next refresh. */
+    void applyTheme(Theme t) {
+        font = t.font("perf");
+        background = t.color("perf.background");
+        foreground = t.color("perf.text");
+        warning = t.color("perf.warning");
+        image = null;
+    }
+
+    /**
+     * Called at the end of every {@link PlayPanel#paintComponent}: records the
+     * frame unless only the overlay was being repainted, then draws the overlay.
+     *
+     * @param g2 The panel's graphics, untranslated.
+     * @param paintNanos How long the panel took to paint, not counting the overlay.
+     * @param end When it finished painting.
+     */
+    void paint(Graphics2D g2, long paintNanos, long end) {
+        g2.getClipBounds(clip);
+        if (clip.isEmpty() || !bounds.contains(clip)) {
+            frameEnds[frameNext] = end;
+            framePaints[frameNext] = paintNanos;
+            frameNext = (frameNext + 1) % FRAMES;
+        }
+        if (image != null) g2.drawImage(image, bounds.x, bounds.y, null);
+    }
+
+    // Gathers the figures into the text buffers and redraws the overlay image
+    private void update() {
+        long now = System.nanoTime();
+        if (!probePending) {
+            probePending = true;
+            probePosted = now;
+            EventQueue.invokeLater(probe);
+        }
+
+        // Frames that ended in the last second, and their worst paint
+        int frames = 0;
+        long paintMax = 0, paintLast = 0;
+        for (int i = 1; i <= FRAMES; i++) {
+            int k = (frameNext - i + FRAMES) % FRAMES;
+            if (frameEnds[k] == 0 || now - frameEnds[k] > 1_000_000_000L) break;
+            if (i == 1) paintLast = framePaints[k];
+            paintMax = Math.max(paintMax, framePaints[k]);
+            frames++;
+        }
+
+        long gcCount = 0, gcTime = 0;
+        for (GarbageCollectorMXBean gc : collectors) {
+            gcCount += Math.max(0, gc.getCollectionCount());
+            gcTime += Math.max(0, gc.getCollectionTime());
+        }
+        // Against the sample a second ago, or the first one while there is no such sample yet
+        int oldest = gcSamples < GC_WINDOW ? 0 : gcNext;
+        long gcCountSecond = gcSamples == 0 ? 0 : gcCount - gcCounts[oldest];
+        long gcMillisSecond = gcSamples == 0 ? 0 : gcTime - gcMillis[oldest];
+        gcSamples++;
+        gcCounts[gcNext] = gcCount;
+        gcMillis[gcNext] = gcTime;
+        gcNext = (gcNext + 1) % GC_WINDOW;
+
+        Runtime rt = Runtime.getRuntime();
+        long heapUsed = rt.totalMemory() - rt.freeMemory();
+        GameSnapshot s = panel.snapshot;
+
+        line = 0;
+        begin(false);
+        text("frames   ").number(frames).text("/s");
+        begin(paintLast > 8_000_000L);
+        text("paint    ").millis(paintLast).text(" ms, max ").millis(paintMax);
+        begin(false);
+        text("hit test ").millis(HIT_TEST.getLastNanos()).text(" ms, hover ").millis(HOVER_HIT_TEST.getLastNanos());
+        begin(CLICK.getLastNanos() > 16_000_000L);
+        text("click    ").millis(CLICK.getLastNanos()).text(" ms");
+        begin(false);
+        text("labels   ").number(panel.feedbackLabels.size());
+        begin(edtWaitNanos > 16_000_000L);
+        text("EDT wait ").millis(edtWaitNanos).text(" ms, queued ").number(SwingGameView.queuedCommits());
+        begin(false);
+        text("heap     ").number(heapUsed >> 20).text(" / ").number(rt.maxMemory() >> 20).text(" MB");
+        begin(gcMillisSecond > 50);
+        text("GC       ").number(gcCountSecond).text(" in 1 s, ").number(gcMillisSecond).text(" ms");
+        begin(false);
+        text("scene    ").text(s == null || s.sceneId == null ? "-" : s.sceneId)
+                .text(", ").number(s == null ? 0 : s.hotspots.size()).text(" hotspots");
+
+        draw();
+        panel.repaint(bounds.x, bounds.y, bounds.width, bounds.height);
+    }
+
+    // --- Formatting into the fixed buffers, without making strings ---
+
+    // Starts the next line, drawn in the warning colour if asked
+    private void begin(boolean warning) {
+        warn[line] = warning;
+        lengths[line] = 0;
+        line++;
+        col = 0;
+    }
+
+    private PerfHud text(String s) {
+        int n = Math.min(s.length(), COLUMNS - col);
+        s.getChars(0, n, text[line - 1], col);
+        col += n;
+        lengths[line - 1] = col;
+        return this;
+    }
+
+    private PerfHud put(char c) {
+        if (col < COLUMNS) text[line - 1][col++] = c;
+        lengths[line - 1] = col;
+        return this;
+    }
+
+    private PerfHud number(long v) {
+        if (v < 0) {
+            put('-');
+            v = -v;
+        }
+        long div = 1;
+        while (v / div >= 10) div *= 10;
+        for (; div > 0; div /= 10) put((char) ('0' + v / div % 10));
+        return this;
+    }
+
+    // Nanoseconds as milliseconds with three decimals
+    private PerfHud millis(long nanos) {
+        long micros = Math.max(0, nanos) / 1000;
+        number(micros / 1000).put('.');
+        long frac = micros % 1000;
+        put((char) ('0' + frac / 100)).put((char) ('0' + frac / 10 % 10)).put((char) ('0' + frac % 10));
+        return this;
+    }
+
+    // Redraws the overlay image from the buffers; the image is made once per theme
+    private void draw() {
+        if (image == null) {
+            BufferedImage probeImage = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D pg = probeImage.createGraphics();
+            FontMetrics fm = pg.getFontMetrics(font);
+            pg.dispose();
+            bounds.width = fm.charWidth('0') * COLUMNS + 2 * PAD;
+            bounds.height = fm.getHeight() * LINES + 2 * PAD;
+            // An opaque panel is copied, not blended: a fraction of the cost per frame
+            image = new BufferedImage(bounds.width, bounds.height, background.getAlpha() == 255
+                    ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+        Graphics2D ig = image.createGraphics();
+        ig.setComposite(AlphaComposite.Src);
+        ig.setColor(background);
+        ig.fillRect(0, 0, bounds.width, bounds.height);
+        ig.setComposite(AlphaComposite.SrcOver);
+        ig.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        ig.setFont(font);
+        FontMetrics fm = ig.getFontMetrics();
+        int y = PAD + fm.getAscent();
+        for (int i = 0; i < LINES; i++) {
+            ig.setColor(warn[i] ? warning : foreground);
+            ig.drawChars(text[i], 0, lengths[i], PAD, y);
+            y += fm.getHeight();
+        }
+        ig.dispose();
+    }
+}
@@ -1,19 +1,55 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 public class PlayPanel extends JPanel {
+    private static final LatencyHistogram PAINT_LATENCY = Metrics.histogram("playPanel.paintComponent");
+    private static final LatencyHistogram HOVER_HIT_TEST = Metrics.histogram("playPanel.hoverHitTest");
+
     Game g;
-    Hotspot hovered;
+    AssetPipeline assets = AssetPipeline.shared();
+    GameSnapshot snapshot;
+    Theme theme;
+    GameSnapshot.HotspotView hovered;
+    Point mouse;
     List<FeedbackLabel> feedbackLabels = new ArrayList<>(); 
     
     private static final int MAX_TEXT_WIDTH = 200;
+    private static final int CAPTION_MARGIN = 24;
+
+    // F3 toggles it; -Dmoonlight.hud=true shows it from the start
+    private final PerfHud hud = new PerfHud(this);
+
+    // F4 toggles the click heatmap from the analytics log
+    private final HeatmapOverlay heatmap = new HeatmapOverlay(this);
+
+    // Repaints every frame while a cutscene fade or pan is moving
+    private final AnimationClock.Animation cutsceneFrames = now -> {
+        GameSnapshot.CutsceneView c = snapshot == null ? null : snapshot.cutscene;
+        repaint();
+        return c != null && c.isAnimating(now);
+    };
+
+    // The cutscene caption, drawn once into an image whenever it changes, so frames only blit it
+    private BufferedImage captionImage;
+    private String captionText;
+    private int captionWidth;
+
+    // Fades the feedback labels on the shared clock while any are showing
+    private final AnimationClock.Animation fadeFeedback = now -> {
+        feedbackLabels.removeIf(FeedbackLabel::isExpired);
+        repaint();
+        return !feedbackLabels.isEmpty();
+    };
 
     private class FeedbackLabel {
         String text;
@@ -37,7 +73,7 @@ public class PlayPanel extends JPanel {
         // New method to wrap text based on MAX_TEXT_WIDTH and FontMetrics
         private void wrapText(Graphics2D g2) {
             wrappedLines = new ArrayList<>();
-            g2.setFont(new Font("SansSerif", Font.BOLD, 14));
+            g2.setFont(theme.font("feedback"));
             FontMetrics fm = g2.getFontMetrics();
 
             String[] words = text.split(" ");
@@ -79,7 +115,7 @@ public class PlayPanel extends JPanel {
             // Calculate vertical offset (rise)
             int yOffset = (int) (progress * 30);
             
-            g2.setFont(new Font("SansSerif", Font.BOLD, 14));
+            g2.setFont(theme.font("feedback"));
             FontMetrics fm = g2.getFontMetrics();
             int lineHeight = fm.getHeight();
             
@@ -94,11 +130,11 @@ public class PlayPanel extends JPanel {
                 int yBase = yStart + (i * lineHeight);
 
                 // Draw drop shadow
-                g2.setColor(new Color(0, 0, 0, alpha));
+                g2.setColor(theme.color("feedback.shadow", alpha));
                 g2.drawString(line, xCentered + 2, yBase + 2);
 
                 // Draw main text
-                g2.setColor(new Color(255, 255, 255, alpha));
+                g2.setColor(theme.color("feedback.text", alpha));
                 g2.drawString(line, xCentered, yBase);
             }
         }
@@ -107,12 +143,13 @@ public class PlayPanel extends JPanel {
     public PlayPanel(Game g) {
         this.g = g;
         setLayout(null); 
-        setBackground(new Color(80, 82, 102));
+        applyTheme(Theme.current());
         
         addMouseListener(new MouseAdapter() {
             public void mouseClicked(MouseEvent e) {
-                g.handleClick(e.getPoint()); 
-                repaint();
+                Point p = e.getPoint();
+                AudioEngine.play(AudioEngine.Sound.CLICK);
+                g.post(() -> g.handleClick(p)); 
             }
         });
         addMouseMotionListener(new MouseMotionAdapter() {
@@ -120,54 +157,250 @@ public class PlayPanel extends JPanel {
                 updateHover(e.getPoint());
             }
         });
-        
-        new javax.swing.Timer(50, new ActionListener() {
-            @Override
+        addComponentListener(new ComponentAdapter() {
+            public void componentResized(ComponentEvent e) {
+                if (snapshot != null) requestArt(snapshot); // Backgrounds are cached per size
+            }
+        });
+
+        // Escape skips a cutscene; holding space fast-forwards it
+        InputMap keys = getInputMap(WHEN_IN_FOCUSED_WINDOW);
+        keys.put(KeyStroke.getKeyStroke("ESCAPE"), "skipCutscene");
+        keys.put(KeyStroke.getKeyStroke("pressed SPACE"), "fastForward");
+        keys.put(KeyStroke.getKeyStroke("released SPACE"), "normalSpeed");
+        getActionMap().put("skipCutscene", cutsceneKey(() -> g.skipCutscene()));
+        getActionMap().put("fastForward", cutsceneKey(() -> g.fastForwardCutscene(true)));
+        getActionMap().put("normalSpeed", cutsceneKey(() -> g.fastForwardCutscene(false)));
+
+        keys.put(KeyStroke.getKeyStroke("F3"), "perfHud");
+        getActionMap().put("perfHud", new AbstractAction() {
             public void actionPerformed(ActionEvent e) {
-                if (!feedbackLabels.isEmpty()) {
-                    feedbackLabels.removeIf(FeedbackLabel::isExpired);
-                    repaint();
-                }
+                hud.setVisible(!hud.isVisible());
             }
-        }).start();
+        });
+        if (Boolean.getBoolean("moonlight.hud")) hud.setVisible(true);
+
+        keys.put(KeyStroke.getKeyStroke("F4"), "heatmap");
+        getActionMap().put("heatmap", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) {
+                heatmap.setVisible(!heatmap.isVisible());
+            }
+        });
+
+        // Ctrl+Z takes back the last interaction; Ctrl+Y or Ctrl+Shift+Z does it again
+        keys.put(KeyStroke.getKeyStroke("ctrl Z"), "undo");
+        keys.put(KeyStroke.getKeyStroke("ctrl Y"), "redo");
+        keys.put(KeyStroke.getKeyStroke("ctrl shift Z"), "redo");
+        getActionMap().put("undo", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) {
+                g.post(() -> g.undo());
+            }
+        });
+        getActionMap().put("redo", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) {
+                g.post(() -> g.redo());
+            }
+        });
+    }
+
+    // A key action that only reaches the game while a cutscene is showing
+    private AbstractAction cutsceneKey(Runnable step) {
+        return new AbstractAction() {
+            public void actionPerformed(ActionEvent e) {
+                if (snapshot != null && snapshot.cutscene != null) g.post(step);
+            }
+        };
     }
 
     public void addFeedback(String msg, Point location) {
         feedbackLabels.add(new FeedbackLabel(msg, location));
+        AnimationClock.shared().start(fadeFeedback);
+    }
+
+    /**
+     * Switches the colours, fonts and strokes the scene is painted with.
+     *
+     * @param t the theme to use
+     */
+    public void applyTheme(Theme t) {
+        theme = t;
+        captionText = null; // Redrawn in the new font
+        hud.applyTheme(t);
+        heatmap.applyTheme(t);
+        setBackground(t.color("menu.background"));
+        for (FeedbackLabel label : feedbackLabels) {
+            label.wrappedLines = null; // Re-wrap in the new font
+        }
+        repaint();
+    }
+
+    /**
+     * Shows the scene as of the given snapshot and starts its feedback labels.
+     * Called on the EDT.
+     *
+     * @param s the latest game snapshot
+     */
+    public void render(GameSnapshot s) {
+        GameSnapshot previous = snapshot;
+        snapshot = s;
+        for (GameSnapshot.Feedback f : s.feedback) {
+            addFeedback(f.text, new Point(f.x, f.y));
+        }
+        boolean changed = previous == null || previous.state != s.state
+                || !previous.hotspots.equals(s.hotspots) || !s.feedback.isEmpty()
+                || (previous.cutscene != s.cutscene);
+        if (s.cutscene != null && s.cutscene != (previous == null ? null : previous.cutscene)) {
+            AnimationClock.shared().start(cutsceneFrames);
+        }
+        if (previous == null || !Objects.equals(previous.sceneId, s.sceneId)
+                || !Objects.equals(previous.background, s.background) || !previous.hotspots.equals(s.hotspots)) {
+            requestArt(s);
+            changed = true;
+        }
+        if (mouse != null) {
+            changed |= updateHover(mouse);
+        }
+        if (changed) repaint();
+    }
+
+    /**
+     * Asks the asset pipeline for the scene's art, and has it decode the art of
+     * the neighbouring scenes in the background so walking there never waits.
+     */
+    private void requestArt(GameSnapshot s) {
+        int w = getWidth(), h = getHeight();
+        Runnable ready = this::repaint;
+        assets.lookup(s.background, w, h, ready);
+        for (GameSnapshot.HotspotView hv : s.hotspots) {
+            if (hv.image != null) assets.lookup(hv.image, hv.width, hv.height, ready);
+        }
+        for (String background : s.nearbyBackgrounds) {
+            assets.prefetch(background, w, h);
+        }
+        for (GameSnapshot.HotspotView hv : s.nearbyHotspots) {
+            assets.prefetch(hv.image, hv.width, hv.height);
+        }
     }
 
-    void updateHover(Point p) {
-        if (g.state != GameState.IDLE) return;
-        hovered = (g.currentScene == null) ? null : g.currentScene.getHotspotByPoint(p);
+    /**
+     * Tracks the hotspot under the mouse and repaints when it changes.
+     *
+     * @param p the mouse position
+     * @return true if the hovered hotspot changed
+     */
+    boolean updateHover(Point p) {
+        mouse = p;
+        if (snapshot == null || snapshot.state != GameState.IDLE) return false;
+        long hitTest = System.nanoTime();
+        GameSnapshot.HotspotView now = snapshot.getHotspotByPoint(p);
+        HOVER_HIT_TEST.recordSince(hitTest);
+        if (Objects.equals(now, hovered)) return false;
+        hovered = now;
         if (hovered != null) setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
         else setCursor(Cursor.getDefaultCursor());
         repaint();
+        return true;
     }
 
     protected void paintComponent(Graphics gg) {
+        long start = System.nanoTime();
         super.paintComponent(gg);
         Graphics2D g2 = (Graphics2D) gg;
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-        if (g.currentScene != null) {
-            for (Hotspot h : g.currentScene.getHotspots()) {
-                Rectangle r = h.bounds;
-                g2.setColor(new Color(100, 105, 130, 140));
-                g2.fillRect(r.x, r.y, r.width, r.height);
-                g2.setColor(Color.WHITE);
-                g2.drawString(h.name, r.x + 4, r.y + 16);
+        GameSnapshot.CutsceneView cutscene = snapshot == null ? null : snapshot.cutscene;
+        long now = System.nanoTime();
+        int panX = cutscene == null ? 0 : cutscene.panXAt(now);
+        int panY = cutscene == null ? 0 : cutscene.panYAt(now);
+        g2.translate(-panX, -panY);
+
+        if (snapshot != null) {
+            // Art that is still decoding falls back to the plain look
+            Image background = snapshot.background == null ? null : assets.peek(snapshot.background, getWidth(), getHeight());
+            if (background != null) {
+                g2.drawImage(background, 0, 0, null);
+            }
+            for (GameSnapshot.HotspotView h : snapshot.hotspots) {
+                Image art = h.image == null ? null : assets.peek(h.image, h.width, h.height);
+                if (art != null) {
+                    g2.drawImage(art, h.x, h.y, null);
+                } else {
+                    g2.setColor(theme.color("hotspot.fill"));
+                    g2.fillRect(h.x, h.y, h.width, h.height);
+                }
+                g2.setColor(theme.color("hotspot.label"));
+                g2.drawString(h.name, h.x + 4, h.y + 16);
             }
         }
 
-        if (hovered != null && g.state == GameState.IDLE) {
-            Rectangle r = hovered.bounds;
-            g2.setStroke(new BasicStroke(3));
-            g2.setColor(new Color(169, 177, 217, 200));
+        if (hovered != null && snapshot != null && snapshot.state == GameState.IDLE) {
+            GameSnapshot.HotspotView r = hovered;
+            g2.setStroke(theme.stroke("hotspot.hover"));
+            g2.setColor(theme.color("hotspot.hover"));
             g2.drawRect(r.x - 2, r.y - 2, r.width + 4, r.height + 4);
         }
+        if (heatmap.isVisible()) heatmap.paint(g2, snapshot);
         
         for (FeedbackLabel label : feedbackLabels) {
             label.draw(g2);
         }
+        g2.translate(panX, panY);
+
+        if (cutscene != null) paintCutscene(g2, cutscene, now);
+        long end = System.nanoTime();
+        PAINT_LATENCY.record(end - start);
+        if (hud.isVisible()) hud.paint(g2, end - start, end);
+    }
+
+    // The fade overlay and the caption band; allocates nothing unless the caption changed
+    private void paintCutscene(Graphics2D g2, GameSnapshot.CutsceneView c, long now) {
+        int alpha = Math.round(c.fadeAt(now) * 255);
+        if (alpha > 0) {
+            g2.setColor(theme.color("cutscene.fade", alpha));
+            g2.fillRect(0, 0, getWidth(), getHeight());
+        }
+        if (c.caption == null) return;
+        if (!c.caption.equals(captionText) || captionWidth != getWidth()) {
+            captionImage = renderCaption(c.caption, getWidth());
+            captionText = c.caption;
+            captionWidth = getWidth();
+        }
+        if (captionImage != null) {
+            g2.drawImage(captionImage, 0, getHeight() - captionImage.getHeight() - CAPTION_MARGIN, null);
+        }
+    }
+
+    private BufferedImage renderCaption(String text, int width) {
+        if (width <= 0) return null;
+        Font font = theme.font("cutscene.caption");
+        FontMetrics fm = getFontMetrics(font);
+        List<String> lines = new ArrayList<>();
+        String line = "";
+        for (String word : text.split(" ")) {
+            String wider = line.isEmpty() ? word : line + " " + word;
+            if (!line.isEmpty() && fm.stringWidth(wider) > width - 4 * CAPTION_MARGIN) {
+                lines.add(line);
+                line = word;
+            } else {
+                line = wider;
+            }
+        }
+        lines.add(line);
+
+        int height = lines.size() * fm.getHeight() + CAPTION_MARGIN;
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D ig = image.createGraphics();
+        ig.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        ig.setColor(theme.color("cutscene.band"));
+        ig.fillRect(0, 0, width, height);
+        ig.setFont(font);
+        ig.setColor(theme.color("cutscene.caption"));
+        int y = CAPTION_MARGIN / 2 + fm.getAscent();
+        for (String l : lines) {
+            ig.drawString(l, (width - fm.stringWidth(l)) / 2, y);
+            y += fm.getHeight();
+        }
+        ig.dispose();
+        return image;
     }
 }
\ No newline at end of file
@@ -0,0 +1,248 @@
+import java.awt.Point;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * A co-op player's side of a game hosted by a {@link CoopHost}.
+ *
+ * <p>It stands in for {@link Game} so the usual panels work unchanged: their
+ * clicks and puzzle inputs are sent to the host instead of being resolved
+ * here, and the host's deltas are applied to a {@link CoopProtocol.Mirror}
+ * whose snapshots go to the view. Nothing is simulated locally.</p>
+ *
+ * <p>Start the window with {@code -Dmoonlight.coop.join=host:port}.</p>
+ *
+ * <p>Metrics: {@code coop.roundTrip} from sending an input to the delta
+ * answering it, {@code coop.bytes.received} and {@code coop.deltas.received}.</p>
+ */
+public class RemoteGame extends Game {
+    private static final LatencyHistogram ROUND_TRIP = Metrics.histogram("coop.roundTrip");
+    private static final LongAdder BYTES_RECEIVED = Metrics.counter("coop.bytes.received");
+    private static final LongAdder DELTAS_RECEIVED = Metrics.counter("coop.deltas.received");
+
+    // When each of the last inputs was sent, by sequence number
+    private static final int IN_FLIGHT = 256;
+
+    private final String hostName;
+    private final int port;
+    private final long[] sentAt = new long[IN_FLIGHT];
+    private final CoopProtocol.Mirror mirror = new CoopProtocol.Mirror();
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "coop-send");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private Socket socket;
+    private OutputStream out;
+    private volatile GameView view;
+    private volatile GameSnapshot latest;
+    private volatile int clientId;
+    private int nextSeq; // Sender thread only
+    private final AtomicInteger inputsSent = new AtomicInteger();
+    private int inputsAnswered; // Guarded by this
+
+    /**
+     * @param hostName The host's name or address.
+     * @param port The host's port, 0 for the default.
+     */
+    public RemoteGame(String hostName, int port) {
+        this.hostName = hostName;
+        this.port = port == 0 ? CoopProtocol.DEFAULT_PORT : port;
+    }
+
+    /**
+     * @return a game for {@code -Dmoonlight.coop.join=host[:port]}, or null
+     * when this window is not joining one.
+     */
+    static RemoteGame configured() {
+        String join = System.getProperty("moonlight.coop.join");
+        if (join == null || join.isBlank()) return null;
+        int colon = join.lastIndexOf(':');
+        if (colon < 0) return new RemoteGame(join.trim(), 0);
+        return new RemoteGame(join.substring(0, colon).trim(), Integer.parseInt(join.substring(colon + 1).trim()));
+    }
+
+    /**
+     * Connects to the host and starts receiving its state; the first delta is
+     * the whole game.
+     *
+     * @throws IOException if the host cannot be reached.
+     */
+    public void connect() throws IOException {
+        socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.connect(new InetSocketAddress(hostName, port), 5000);
+        out = new BufferedOutputStream(socket.getOutputStream());
+        Thread reader = new Thread(this::receive, "coop-receive");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /** @return the id the host gave this player, 0 until welcomed. */
+    public int getClientId() { return clientId; }
+
+    /**
+     * Waits until the host has answered every input sent so far.
+     *
+     * @param timeoutMillis How long to wait at most.
+     * @return false if the wait timed out.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public synchronized boolean awaitAnswers(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (inputsAnswered < inputsSent.get()) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0 || !isRunning()) return false;
+            wait(left);
+        }
+        return true;
+    }
+
+    @Override
+    public void setView(GameView v) { this.view = v; }
+
+    /** There is no local loop; inputs go straight to the host. */
+    @Override
+    public void start() { }
+
+    /** Leaves the game. */
+    @Override
+    public void stop() {
+        sender.shutdown();
+        try {
+            if (socket != null) socket.close();
+        } catch (IOException ignored) {
+            // Already gone
+        }
+    }
+
+    /** @return true while connected to the host. */
+    @Override
+    public boolean isRunning() {
+        return socket != null && !socket.isClosed();
+    }
+
+    /** Snapshots come from the host, not from posted steps. */
+    @Override
+    public void publish() { }
+
+    /** @return the last state received from the host, or null before the first. */
+    @Override
+    public GameSnapshot snapshot() { return latest; }
+
+    @Override
+    public void handleClick(Point p) {
+        send(CoopProtocol.CLICK, w -> w.zigzag(p.x).zigzag(p.y));
+    }
+
+    @Override
+    public void selectItem(Item i) {
+        send(CoopProtocol.SELECT, w -> w.str(i.id));
+    }
+
+    @Override
+    public void pressKey(String key) {
+        send(CoopProtocol.KEY, w -> w.str(key));
+    }
+
+    @Override
+    public void advanceLock(int slot) {
+        send(CoopProtocol.LOCK, w -> w.varint(slot));
+    }
+
+    @Override
+    public void slideTile(int index) {
+        send(CoopProtocol.TILE, w -> w.varint(index));
+    }
+
+    @Override
+    public void exitPuzzle() {
+        send(CoopProtocol.EXIT_PUZZLE, w -> { });
+    }
+
+    @Override
+    public void skipCutscene() {
+        send(CoopProtocol.SKIP_CUTSCENE, w -> { });
+    }
+
+    @Override
+    public void fastForwardCutscene(boolean on) {
+        send(CoopProtocol.FAST_FORWARD, w -> w.varint(on ? 1 : 0));
+    }
+
+    @Override
+    public void undo() {
+        send(CoopProtocol.UNDO, w -> { });
+    }
+
+    @Override
+    public void redo() {
+        send(CoopProtocol.REDO, w -> { });
+    }
+
+    // Writes one input frame on the sender thread, so the EDT never blocks on the socket
+    private void send(int type, Consumer<CoopProtocol.Writer> args) {
+        if (out == null) return;
+        inputsSent.incrementAndGet();
+        try {
+            sender.execute(() -> {
+                int seq = ++nextSeq;
+                CoopProtocol.Writer w = new CoopProtocol.Writer().b(type).varint(seq);
+                args.accept(w);
+                sentAt[seq % IN_FLIGHT] = System.nanoTime();
+                try {
+                    CoopProtocol.writeFrame(out, w.toByteArray());
+                    out.flush();
+                } catch (IOException e) {
+                    stop();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Already left
+        }
+    }
+
+    private void receive() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            while (true) {
+                byte[] body = CoopProtocol.readFrame(in);
+                BYTES_RECEIVED.add(body.length);
+                if ((body[0] & 0xFF) == CoopProtocol.WELCOME) {
+                    CoopProtocol.Reader welcome = new CoopProtocol.Reader(body);
+                    welcome.b();
+                    clientId = welcome.varint();
+                    continue;
+                }
+                GameSnapshot s = mirror.apply(body);
+                DELTAS_RECEIVED.increment();
+                if (mirror.ackClient != 0 && mirror.ackClient == clientId) {
+                    long sent = sentAt[mirror.ackSeq % IN_FLIGHT];
+                    if (sent != 0) ROUND_TRIP.recordSince(sent);
+                    synchronized (this) {
+                        inputsAnswered = mirror.ackSeq;
+                        notifyAll();
+                    }
+                }
+                latest = s;
+                GameView v = view;
+                if (v != null) v.render(s);
+            }
+        } catch (IOException e) {
+            if (isRunning()) System.err.println("Co-op: lost the host: " + e.getMessage());
+        } finally {
+            stop();
+        }
+    }
+}
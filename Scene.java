@@ -1,24 +1,168 @@
 import java.awt.Point;
+import java.util.AbstractCollection;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedHashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Scene {
+    private static final Map<String, Integer> ORDINALS = new ConcurrentHashMap<>();
+    private static final Hotspot[] EMPTY = new Hotspot[0];
+    private static final String[] NO_EXITS = new String[0];
+
     public String id, title, description;
-    public Map<String, Hotspot> hotspots = new LinkedHashMap<>();
-    
-    public Scene(String id, String title, String description) { 
+    final int ordinal; // Stands for the scene in the WorldState; the same for every scene with this id, in any game
+    Hotspot[] hotspots = EMPTY; // In the order added, including those removed since
+    int[] boxes = new int[0]; // Bounds of every hotspot and hotspot state, packed as x, y, width, height
+    public String background; // Image file, or null for the plain backdrop
+    public String[] exits = NO_EXITS; // Scenes reachable from here, for prefetching
+
+    /**
+     * Creates a scene, giving its id an ordinal the first time any scene uses it.
+     *
+     * @throws IllegalStateException if the process has already seen as many
+     *         scene ids as a {@link WorldState} can tell apart.
+     */
+    public Scene(String id, String title, String description) {
         this.id = id; this.title = title; this.description = description;
+        Integer n = ORDINALS.get(id);
+        if (n == null) {
+            synchronized (ORDINALS) {
+                n = ORDINALS.computeIfAbsent(id, k -> {
+                    if (ORDINALS.size() >= WorldState.MAX_SCENES) {
+                        throw new IllegalStateException("No room for scene '" + k + "': the world state already tells "
+                                + WorldState.MAX_SCENES + " scene ids apart.");
+                    }
+                    return ORDINALS.size();
+                });
+            }
+        }
+        this.ordinal = n;
+    }
+
+    /**
+     * Stores the bounds of a hotspot, or of one of its states, with the rest of the scene's.
+     *
+     * @return The box, for {@link Hotspot}.
+     */
+    int box(int x, int y, int width, int height) {
+        int b = boxes.length;
+        boxes = Arrays.copyOf(boxes, b + 4);
+        boxes[b] = x;
+        boxes[b + 1] = y;
+        boxes[b + 2] = width;
+        boxes[b + 3] = height;
+        return b;
+    }
+
+    // Whether a point is inside a box; like Rectangle.contains, an empty box contains nothing
+    boolean boxContains(int b, Point p) {
+        int w = boxes[b + 2], h = boxes[b + 3];
+        int dx = p.x - boxes[b], dy = p.y - boxes[b + 1];
+        return w > 0 && h > 0 && dx >= 0 && dy >= 0 && dx < w && dy < h;
+    }
+
+    /** Records a scene this one leads to, once. */
+    void addExit(String sceneId) {
+        for (String e : exits) {
+            if (e.equals(sceneId)) return;
+        }
+        exits = Arrays.copyOf(exits, exits.length + 1);
+        exits[exits.length - 1] = sceneId;
+    }
+
+    /** Adds a hotspot, giving it its place in the {@link WorldState}; give it its states first. */
+    public void addHotspot(Hotspot h) {
+        h.attach(this);
+        for (int i = 0; i < hotspots.length; i++) {
+            if (hotspots[i].id.equals(h.id)) {
+                hotspots[i] = h;
+                return;
+            }
+        }
+        hotspots = Arrays.copyOf(hotspots, hotspots.length + 1);
+        hotspots[hotspots.length - 1] = h;
     }
-    
-    public void addHotspot(Hotspot h) { hotspots.put(h.id, h); }
-    
+
+    /**
+     * @param hotspotId A hotspot's ID.
+     * @return The hotspot, removed or not, or null if the scene has none by that ID.
+     */
+    public Hotspot getHotspot(String hotspotId) {
+        for (Hotspot h : hotspots) {
+            if (h.id.equals(hotspotId)) return h;
+        }
+        return null;
+    }
+
+    /**
+     * Takes a hotspot out of the scene for good, e.g. an item picked up.
+     *
+     * @param hotspotId The hotspot's ID; nothing happens if it is not here.
+     * @param world Records that it is gone.
+     */
+    void removeHotspot(String hotspotId, WorldState world) {
+        Hotspot h = getHotspot(hotspotId);
+        if (h == null || h.removed) return;
+        h.removed = true;
+        world.set(h.goneBit, true);
+    }
+
+    /**
+     * Brings the hotspots back in line with a world state that was restored,
+     * e.g. by undo: puts back those it does not count as gone, removes the
+     * others, and puts each in its recorded state.
+     *
+     * @param world The restored state.
+     */
+    void sync(WorldState world) {
+        for (Hotspot h : hotspots) {
+            h.sync(world);
+            h.removed = world.test(h.goneBit);
+        }
+    }
+
     public Hotspot getHotspotByPoint(Point p) {
-        for (Hotspot h : hotspots.values()) {
+        for (Hotspot h : hotspots) {
             if (h.contains(p)) return h;
         }
         return null;
     }
-    
-    public Collection<Hotspot> getHotspots() { return hotspots.values(); }
-}
\ No newline at end of file
+
+    /** @return The hotspots in the scene now, skipping those removed or in a hidden state; a live view. */
+    public Collection<Hotspot> getHotspots() { return shown; }
+
+    private final Collection<Hotspot> shown = new AbstractCollection<>() {
+        @Override
+        public Iterator<Hotspot> iterator() {
+            return new Iterator<Hotspot>() {
+                int next = advance(0);
+
+                int advance(int from) {
+                    while (from < hotspots.length && !hotspots[from].isShown()) from++;
+                    return from;
+                }
+
+                public boolean hasNext() { return next < hotspots.length; }
+
+                public Hotspot next() {
+                    if (next >= hotspots.length) throw new NoSuchElementException();
+                    Hotspot h = hotspots[next];
+                    next = advance(next + 1);
+                    return h;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            int n = 0;
+            for (Hotspot h : hotspots) {
+                if (h.isShown()) n++;
+            }
+            return n;
+        }
+    };
+}
@@ -0,0 +1,94 @@
+import java.awt.Container;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Function;
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+
+/**
+ * Moves between the menu screens of a {@link Main} window.
+ *
+ * <p>Each screen is built the first time it is opened and then kept, so going
+ * back and forth between the main menu, settings and credits only swaps the
+ * window's content pane: no fonts, buttons or listeners are created again.
+ * Opened screens form a stack; {@link #back()} returns to the one before.</p>
+ */
+public class ScreenNavigator {
+    private static final LatencyHistogram NAVIGATE_LATENCY = Metrics.histogram("ui.navigate");
+
+    /** The menu screens. */
+    public enum Screen { MAIN_MENU, SETTINGS, CREDITS }
+
+    private final JFrame frame;
+    private final Function<Screen, JPanel> factory;
+    private final Map<Screen, JPanel> built = new EnumMap<>(Screen.class);
+    private final Deque<Screen> stack = new ArrayDeque<>();
+
+    /**
+     * @param frame The window whose content pane shows the screens.
+     * @param factory Builds a screen the first time it is opened.
+     */
+    public ScreenNavigator(JFrame frame, Function<Screen, JPanel> factory) {
+        this.frame = frame;
+        this.factory = factory;
+    }
+
+    /**
+     * Opens a screen on top of the current one. Opening the screen already
+     * shown does nothing.
+     *
+     * @param screen The screen to open.
+     */
+    public void open(Screen screen) {
+        if (screen != stack.peek()) {
+            stack.push(screen);
+        }
+        show(screen);
+    }
+
+    /**
+     * Returns to the previous screen, or to the main menu if there is none.
+     */
+    public void back() {
+        stack.poll();
+        if (stack.isEmpty()) {
+            stack.push(Screen.MAIN_MENU);
+        }
+        show(stack.peek());
+    }
+
+    /**
+     * Forgets the screen history and shows the main menu.
+     */
+    public void home() {
+        stack.clear();
+        open(Screen.MAIN_MENU);
+    }
+
+    /**
+     * Drops the built screens so each is built again the next time it is
+     * opened, for instance after the theme changed. A screen on show is
+     * rebuilt straight away; the history is kept.
+     */
+    public void reset() {
+        boolean showing = built.containsValue(frame.getContentPane());
+        built.clear();
+        if (showing && !stack.isEmpty()) {
+            show(stack.peek());
+        }
+    }
+
+    private void show(Screen screen) {
+        long start = System.nanoTime();
+        JPanel panel = built.computeIfAbsent(screen, factory);
+        Container current = frame.getContentPane();
+        if (current != panel) {
+            frame.setContentPane(panel);
+            frame.revalidate();
+            frame.repaint();
+        }
+        NAVIGATE_LATENCY.recordSince(start);
+    }
+}
@@ -1,11 +1,10 @@
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.MouseAdapter;
-import java.awt.event.MouseEvent;
 
 public class Settings extends JPanel {
     private Game game;
     private Main parentFrame;
+    private final Theme theme = Theme.current();
 
     public Settings(Game game, Main parentFrame) {
         this.game = game;
@@ -15,32 +14,38 @@ public class Settings extends JPanel {
 
     private void initialize() {
         this.setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
-        this.setBackground(new Color(117, 122, 148));
+        this.setBackground(theme.color("screen.background"));
 
         JLabel title = new JLabel("Settings");
         title.setAlignmentX(CENTER_ALIGNMENT);
-        title.setFont(new Font("Serif", Font.BOLD, 50));
-        title.setForeground(new Color(169, 177, 217));
+        title.setFont(theme.font("screen.title"));
+        title.setForeground(theme.color("accent"));
 
         JLabel musicLabel = new JLabel("Music Volume");
-        musicLabel.setFont(new Font("Serif", Font.BOLD, 30));
+        musicLabel.setFont(theme.font("menu.label"));
         musicLabel.setAlignmentX(CENTER_ALIGNMENT);
-        musicLabel.setForeground(new Color(169, 177, 217));
-        JSlider musicSlider = new JSlider(0, 100, 50);
+        musicLabel.setForeground(theme.color("accent"));
+        JSlider musicSlider = createVolumeSlider(AudioEngine.Bus.MUSIC);
         musicSlider.setMaximumSize(new Dimension(600, 40));
 
         JLabel sfxLabel = new JLabel("SoundFX Volume");
-        sfxLabel.setFont(new Font("Serif", Font.BOLD, 30));
+        sfxLabel.setFont(theme.font("menu.label"));
         sfxLabel.setAlignmentX(CENTER_ALIGNMENT);
-        sfxLabel.setForeground(new Color(169, 177, 217));
-        JSlider sfxSlider = new JSlider(0, 100, 50);
+        sfxLabel.setForeground(theme.color("accent"));
+        JSlider sfxSlider = createVolumeSlider(AudioEngine.Bus.SFX);
         sfxSlider.setMaximumSize(new Dimension(600, 40));
 
-        JButton backButton = createButton("< Back");
+        JLabel themeLabel = new JLabel("Theme");
+        themeLabel.setFont(theme.font("menu.label"));
+        themeLabel.setAlignmentX(CENTER_ALIGNMENT);
+        themeLabel.setForeground(theme.color("accent"));
+        JComboBox<String> themeBox = createThemeBox();
+
+        JButton backButton = theme.menuButton("< Back");
         backButton.setAlignmentX(CENTER_ALIGNMENT);
         backButton.addActionListener(e -> goBack());
 
-        this.add(Box.createVerticalStrut(140));
+        this.add(Box.createVerticalStrut(80));
         this.add(title);
         this.add(Box.createVerticalStrut(50));
         this.add(musicLabel);
@@ -50,10 +55,40 @@ public class Settings extends JPanel {
         this.add(sfxLabel);
         this.add(Box.createVerticalStrut(20));
         this.add(createSliderWithLabel(sfxSlider));
+        this.add(Box.createVerticalStrut(40));
+        this.add(themeLabel);
+        this.add(Box.createVerticalStrut(20));
+        this.add(themeBox);
         this.add(Box.createVerticalStrut(50));
         this.add(backButton);
     }
 
+    // Slider bound to one audio bus; the engine remembers the value between runs
+    private JSlider createVolumeSlider(AudioEngine.Bus bus) {
+        AudioEngine audio = AudioEngine.get();
+        JSlider slider = new JSlider(0, 100, audio == null ? 50 : audio.getVolume(bus));
+        if (audio != null) {
+            slider.addChangeListener(e -> {
+                audio.setVolume(bus, slider.getValue());
+                if (bus == AudioEngine.Bus.SFX && !slider.getValueIsAdjusting()) {
+                    AudioEngine.play(AudioEngine.Sound.CLICK); // Preview the new level
+                }
+            });
+        }
+        return slider;
+    }
+
+    // Lists the available themes; picking one restyles the whole window straight away
+    private JComboBox<String> createThemeBox() {
+        JComboBox<String> box = new JComboBox<>(Theme.available().toArray(new String[0]));
+        box.setSelectedItem(theme.getName());
+        box.setFont(theme.font("menu.value"));
+        box.setMaximumSize(new Dimension(300, 40));
+        box.setAlignmentX(CENTER_ALIGNMENT);
+        box.addActionListener(e -> Theme.use((String) box.getSelectedItem()));
+        return box;
+    }
+
     // Helper method to create slider + % label
     private JPanel createSliderWithLabel(JSlider slider) {
         JPanel panel = new JPanel();
@@ -66,8 +101,8 @@ public class Settings extends JPanel {
         panel.setPreferredSize(fixedSize);
 
         JLabel percentLabel = new JLabel(slider.getValue() + "%");
-        percentLabel.setFont(new Font("Serif", Font.BOLD, 24));
-        percentLabel.setForeground(new Color(169, 177, 217));
+        percentLabel.setFont(theme.font("menu.value"));
+        percentLabel.setForeground(theme.color("accent"));
 
         slider.addChangeListener(e -> {
             percentLabel.setText(slider.getValue() + "%");
@@ -80,38 +115,8 @@ public class Settings extends JPanel {
         return panel;
     }
 
-    private JButton createButton(String text) {
-        JButton button = new JButton(text);
-        button.setAlignmentX(Component.CENTER_ALIGNMENT);
-        button.setFont(new Font("Serif", Font.PLAIN, 37));
-        button.setForeground(new Color(169, 177, 217));
-        button.setBorderPainted(false);
-        button.setContentAreaFilled(false);
-        button.setFocusPainted(false);
-        button.setOpaque(false);
-
-        button.addMouseListener(new MouseAdapter() {
-            public void mouseEntered(MouseEvent e) {
-                button.setForeground(Color.WHITE);
-            }
-
-            @Override
-            public void mouseExited(MouseEvent e) {
-                button.setForeground(new Color(169, 177, 217));
-            }
-        });
-
-        return button;
-    }
-
     private void goBack() {
-        MainMenu mainMenuPanel = new MainMenu(parentFrame);
-
-        // 2. Set the content pane to the new MainMenu
-        parentFrame.setContentPane(mainMenuPanel);
-
-        // 3. Update the display
-        parentFrame.revalidate();
-        parentFrame.repaint(); // Add repaint for good measure
+        // Returns to the (cached) screen this one was opened from
+        parentFrame.getNavigator().back();
     }
 }
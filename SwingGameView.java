@@ -0,0 +1,121 @@
+import java.awt.CardLayout;
+import java.awt.EventQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+
+/**
+ * Renders game snapshots into the Swing panels. Snapshots arrive from the
+ * game-logic thread and are applied on the EDT, in order.
+ *
+ * <p>Each snapshot is applied as one UI commit: it is compared with the
+ * snapshot shown before and only the parts that differ are pushed into the
+ * panels, so a click costs at most one layout pass and one repaint however
+ * many times the game changed the description or inventory along the way.
+ * The metrics {@code ui.commits}, {@code ui.layoutPasses} and
+ * {@code ui.layoutPasses.lastCommit} show how well that holds, and
+ * {@code ui.commits.queued} how many snapshots are waiting for the EDT.</p>
+ */
+public class SwingGameView implements GameView {
+    static final LongAdder LAYOUT_PASSES = Metrics.counter("ui.layoutPasses");
+    private static final LongAdder COMMITS = Metrics.counter("ui.commits");
+    private static final LatencyHistogram COMMIT_LATENCY = Metrics.histogram("ui.commit");
+    private static final AtomicInteger QUEUED = new AtomicInteger();
+    private static volatile long layoutPassesAtCommit;
+
+    static {
+        Metrics.gauge("ui.commits.queued", QUEUED::get);
+        // Layout passes run just after a commit, so this reads as the cost of the latest one
+        Metrics.gauge("ui.layoutPasses.lastCommit", () -> LAYOUT_PASSES.sum() - layoutPassesAtCommit);
+    }
+
+    private final JPanel centerContainer;
+    private final CardLayout cardLayout;
+    private final KeypadPanel keypad;
+    private final TilePuzzlePanel tilePuzzle;
+    private final LeverPuzzlePanel leverPuzzle;
+    private final DialPuzzlePanel dialPuzzle;
+    private final InfoPanel infoPanel;
+    private final InventoryPanel inventoryPanel;
+    private final PlayPanel playPanel;
+    private GameSnapshot shown;
+    private String shownCard = Game.SCENE_CARD;
+
+    /**
+     * @param container The container that holds the main scene and puzzle panels.
+     * @param layout The CardLayout managing view switching.
+     * @param kp The keypad puzzle panel.
+     * @param tp The tile puzzle panel.
+     * @param lp The lever puzzle panel.
+     * @param dp The dial puzzle panel.
+     * @param ip The informational display panel.
+     * @param ipanel The inventory panel.
+     * @param pp The gameplay panel containing hotspots.
+     */
+    public SwingGameView(JPanel container, CardLayout layout, KeypadPanel kp, TilePuzzlePanel tp, LeverPuzzlePanel lp,
+                         DialPuzzlePanel dp, InfoPanel ip, InventoryPanel ipanel, PlayPanel pp) {
+        this.centerContainer = container;
+        this.cardLayout = layout;
+        this.keypad = kp;
+        this.tilePuzzle = tp;
+        this.leverPuzzle = lp;
+        this.dialPuzzle = dp;
+        this.infoPanel = ip;
+        this.inventoryPanel = ipanel;
+        this.playPanel = pp;
+    }
+
+    @Override
+    public void render(GameSnapshot snapshot) {
+        if (EventQueue.isDispatchThread()) {
+            apply(snapshot);
+        } else {
+            QUEUED.incrementAndGet();
+            SwingUtilities.invokeLater(() -> {
+                QUEUED.decrementAndGet();
+                apply(snapshot);
+            });
+        }
+    }
+
+    /** @return How many snapshots are waiting for the EDT to apply them. */
+    static int queuedCommits() { return QUEUED.get(); }
+
+    /**
+     * Applies one snapshot as a single UI commit. Must run on the EDT (or,
+     * headless, on the only thread touching the panels).
+     *
+     * @param s The snapshot to show.
+     */
+    public void apply(GameSnapshot s) {
+        long start = System.nanoTime();
+        layoutPassesAtCommit = LAYOUT_PASSES.sum();
+        COMMITS.increment();
+
+        for (AudioEngine.Sound sound : s.sounds) {
+            AudioEngine.play(sound);
+        }
+
+        infoPanel.render(s);
+        if (shown == null || !shown.items.equals(s.items) || shown.selected != s.selected
+                || shown.capacity != s.capacity) {
+            inventoryPanel.update(s.items, s.selected, s.capacity);
+        }
+        playPanel.render(s);
+
+        switch (s.card) {
+            case Game.KEYPAD_CARD: keypad.render(s); break;
+            case Game.TILE_CARD: tilePuzzle.render(s); break;
+            case Game.LEVER_CARD: leverPuzzle.render(s); break;
+            case Game.DIAL_CARD: dialPuzzle.render(s); break;
+            default: break;
+        }
+        if (!s.card.equals(shownCard)) {
+            cardLayout.show(centerContainer, s.card);
+            shownCard = s.card;
+        }
+        shown = s;
+        COMMIT_LATENCY.recordSince(start);
+    }
+}
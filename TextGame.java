@@ -0,0 +1,376 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A text-adventure front end: plays the game over stdin and stdout with no
+ * window, sound or art.
+ *
+ * <pre>
+ * java -cp target/moonlight-manor-1.0.jar:gson-2.10.1.jar TextGame [gamedata.json] &lt; script.txt
+ * </pre>
+ *
+ * <p>Commands name hotspots and items by id or by (part of) their name:
+ * {@code look}, {@code examine safe}, {@code take stone}, {@code go foyer},
+ * {@code use rustyKey on lockedPantry}, {@code inventory}, {@code undo},
+ * {@code redo}, {@code help} and {@code quit}. Each one is resolved by the same {@link Interaction}s a click
+ * on the hotspot runs ({@link Game#activate}), so scripts exercise exactly
+ * the game the window plays; only {@code examine} looks before it uses.
+ * Puzzles take {@code enter 7138},
+ * {@code slide 5}, {@code pull 2}, {@code turn 3} and {@code leave}.</p>
+ *
+ * <p>Steps run on the calling thread, one per line, so a script plays the
+ * same way every time.</p>
+ */
+public class TextGame implements GameView {
+    private static final String NOWHERE = "You are nowhere: the content has no scene to start in.";
+
+    private final Game game;
+    private final PrintStream out;
+    private GameSnapshot shown;
+
+    /**
+     * @param game The game to play; it should have no loop started.
+     * @param out Where to write what the player sees.
+     */
+    public TextGame(Game game, PrintStream out) {
+        this.game = game;
+        this.out = out;
+        game.setView(this);
+    }
+
+    public static void main(String[] args) throws IOException {
+        String content = args.length > 0 ? args[0] : "gamedata.json";
+        Game game = new Game();
+        TextGame text = new TextGame(game, System.out);
+        game.post(() -> new GameDataLoader().loadContent(game, content));
+
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        text.prompt();
+        for (String line; (line = in.readLine()) != null; ) {
+            if (!text.execute(line)) break;
+            text.prompt();
+        }
+    }
+
+    /**
+     * Runs one command line.
+     *
+     * @param line What the player typed.
+     * @return false once the player asked to quit.
+     */
+    public boolean execute(String line) {
+        String command = line.trim();
+        if (command.isEmpty()) return true;
+        String[] words = command.split("\\s+", 2);
+        String verb = words[0].toLowerCase(Locale.ROOT);
+        String rest = words.length > 1 ? words[1] : "";
+
+        switch (verb) {
+            case "quit": case "exit":
+                return false;
+            case "help": case "?":
+                help();
+                return true;
+            case "look": case "l":
+                describeScene();
+                return true;
+            case "inventory": case "inv": case "i":
+                describeInventory();
+                return true;
+            default:
+                break;
+        }
+        if (game.state == GameState.PUZZLE) {
+            puzzleCommand(verb, rest);
+        } else {
+            sceneCommand(verb, rest);
+        }
+        return true;
+    }
+
+    // --- Scene commands ---
+
+    private void sceneCommand(String verb, String rest) {
+        switch (verb) {
+            case "examine": case "x":
+                activate(null, rest, true);
+                break;
+            case "take": case "get": case "open": case "click":
+                activate(null, rest, false);
+                break;
+            case "go": case "walk": case "enter":
+                go(rest);
+                break;
+            case "use": {
+                int on = rest.toLowerCase(Locale.ROOT).indexOf(" on ");
+                if (on < 0) {
+                    activate(null, rest, false);
+                } else {
+                    Item item = findItem(rest.substring(0, on).trim());
+                    if (item == null) {
+                        out.println("You are not carrying \"" + rest.substring(0, on).trim() + "\".");
+                    } else {
+                        activate(item, rest.substring(on + 4).trim(), false);
+                    }
+                }
+                break;
+            }
+            case "select": {
+                Item item = findItem(rest);
+                if (item == null) out.println("You are not carrying \"" + rest + "\".");
+                else game.post(() -> game.selectItem(item));
+                break;
+            }
+            case "undo":
+                game.post(() -> game.undo());
+                break;
+            case "redo":
+                game.post(() -> game.redo());
+                break;
+            default:
+                out.println("I don't know how to \"" + verb + "\". Type help for the commands.");
+        }
+    }
+
+    // Selects the item (or nothing) and interacts with the hotspot, like clicking it in the window
+    private void activate(Item item, String target, boolean examine) {
+        Hotspot h = findHotspot(target);
+        if (h == null) {
+            out.println("There is no \"" + target + "\" here.");
+            return;
+        }
+        game.post(() -> {
+            game.inventory.setSelected(item);
+            game.activate(h, examine);
+        });
+    }
+
+    // Takes the door or path leading to a scene, named by id or title, or by the hotspot itself
+    private void go(String target) {
+        Scene here = game.currentScene;
+        if (here == null) {
+            out.println(NOWHERE);
+            return;
+        }
+        String wanted = target.toLowerCase(Locale.ROOT);
+        for (Hotspot h : here.getHotspots()) {
+            if (h.leadsTo == null) continue;
+            Scene dest = game.scenes.get(h.leadsTo);
+            if (h.leadsTo.equalsIgnoreCase(target)
+                    || (dest != null && dest.title.toLowerCase(Locale.ROOT).contains(wanted))) {
+                activate(null, h.id, false);
+                return;
+            }
+        }
+        activate(null, target, false);
+    }
+
+    private Hotspot findHotspot(String target) {
+        Scene here = game.currentScene;
+        if (here == null || target.isEmpty()) return null;
+        String wanted = target.toLowerCase(Locale.ROOT);
+        Hotspot partial = null;
+        for (Hotspot h : here.getHotspots()) {
+            if (h.id.equalsIgnoreCase(target) || h.name.equalsIgnoreCase(target)) return h;
+            if (partial == null && h.name.toLowerCase(Locale.ROOT).contains(wanted)) partial = h;
+        }
+        return partial;
+    }
+
+    private Item findItem(String target) {
+        String wanted = target.toLowerCase(Locale.ROOT);
+        Item partial = null;
+        for (Item i : game.inventory.getItems()) {
+            if (i.id.equalsIgnoreCase(target) || i.name.equalsIgnoreCase(target)) return i;
+            if (partial == null && !wanted.isEmpty() && i.name.toLowerCase(Locale.ROOT).contains(wanted)) partial = i;
+        }
+        return partial;
+    }
+
+    // --- Puzzle commands ---
+
+    private void puzzleCommand(String verb, String rest) {
+        if (verb.equals("leave") || verb.equals("stop")) {
+            game.post(game::exitPuzzle);
+            return;
+        }
+        switch (game.card) {
+            case Game.KEYPAD_CARD:
+                if (verb.equals("clear")) {
+                    game.post(() -> game.pressKey("CLR"));
+                } else {
+                    String digits = verb.equals("enter") || verb.equals("type") ? rest.trim() : verb;
+                    if (!digits.matches("\\d+")) {
+                        out.println("Type the code, e.g. enter 1234, or leave.");
+                        return;
+                    }
+                    game.post(() -> {
+                        for (char c : digits.toCharArray()) game.pressKey(String.valueOf(c));
+                        game.pressKey("ENT");
+                        // A wrong code clears itself before the display is printed, so say so here
+                        if (game.state == GameState.PUZZLE) out.println("ERROR");
+                    });
+                }
+                break;
+            case Game.TILE_CARD: {
+                int tile = number(verb.equals("slide") || verb.equals("move") ? rest : verb);
+                int[] tiles = shown.tiles;
+                int index = -1;
+                for (int i = 0; tiles != null && i < tiles.length; i++) {
+                    if (tile > 0 && tiles[i] == tile) index = i;
+                }
+                if (index < 0) {
+                    out.println("Slide which tile? e.g. slide 5, or leave.");
+                    return;
+                }
+                int cell = index;
+                game.post(() -> game.slideTile(cell));
+                break;
+            }
+            case Game.LEVER_CARD:
+            case Game.DIAL_CARD: {
+                String word = game.card.equals(Game.LEVER_CARD) ? "pull" : "turn";
+                int slot = number(verb.equals(word) ? rest : verb) - 1;
+                if (shown.lockSymbols == null || slot < 0 || slot >= shown.lockSymbols.length) {
+                    out.println("Which one? e.g. " + word + " 1, or leave.");
+                    return;
+                }
+                game.post(() -> game.advanceLock(slot));
+                break;
+            }
+            default:
+                out.println("Type leave to step away.");
+        }
+    }
+
+    private static int number(String s) {
+        try {
+            return Integer.parseInt(s.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // --- Output ---
+
+    /**
+     * Prints what changed in a step: feedback, a new description, a new
+     * scene or the open puzzle.
+     */
+    @Override
+    public void render(GameSnapshot s) {
+        GameSnapshot before = shown;
+        shown = s;
+        List<String> said = new ArrayList<>();
+        for (GameSnapshot.Feedback f : s.feedback) {
+            if (!said.contains(f.text)) {
+                out.println(f.text);
+                said.add(f.text);
+            }
+        }
+        if (s.cutscene != null && s.cutscene.caption != null
+                && (before == null || before.cutscene == null || !s.cutscene.caption.equals(before.cutscene.caption))) {
+            out.println("  \"" + s.cutscene.caption + "\"");
+        }
+        if (s.state == GameState.CUTSCENE) return; // The scene is described once the cutscene ends
+        boolean newScene = s.sceneId != null && (before == null || !s.sceneId.equals(before.sceneId)
+                || before.state == GameState.CUTSCENE);
+        boolean puzzle = s.state == GameState.PUZZLE;
+        if (newScene && !puzzle) {
+            describeScene();
+            return;
+        }
+        if (s.description != null && (before == null || !s.description.equals(before.description))
+                && !said.contains(s.description)) {
+            out.println(s.description);
+        }
+        if (puzzle) describePuzzle();
+    }
+
+    private void describeScene() {
+        GameSnapshot s = shown;
+        Scene here = game.currentScene;
+        if (s == null || s.sceneId == null || here == null) {
+            out.println(NOWHERE);
+            return;
+        }
+        if (s.state == GameState.PUZZLE) {
+            describePuzzle();
+            return;
+        }
+        out.println();
+        out.println("== " + s.sceneTitle + " ==");
+        out.println(s.description);
+        List<String> names = new ArrayList<>();
+        for (GameSnapshot.HotspotView h : s.hotspots) names.add(h.name + " (" + h.id + ")");
+        out.println(names.isEmpty() ? "There is nothing here." : "You see: " + String.join(", ", names));
+        List<String> exits = new ArrayList<>();
+        for (Hotspot h : here.getHotspots()) {
+            Scene dest = h.leadsTo == null ? null : game.scenes.get(h.leadsTo);
+            if (dest != null) exits.add(h.leadsTo);
+        }
+        if (!exits.isEmpty()) out.println("Exits: " + String.join(", ", exits));
+    }
+
+    private void describeInventory() {
+        GameSnapshot s = shown;
+        if (s == null || s.items.isEmpty()) {
+            out.println("You are carrying nothing.");
+            return;
+        }
+        List<String> names = new ArrayList<>();
+        for (Item i : s.items) names.add(i.name + " (" + i.id + ")");
+        out.println("You are carrying: " + String.join(", ", names));
+    }
+
+    private void describePuzzle() {
+        GameSnapshot s = shown;
+        switch (s.card) {
+            case Game.KEYPAD_CARD:
+                out.println("Keypad: [" + (s.keypadDisplay.isEmpty() ? "____" : s.keypadDisplay) + "]  (enter <code>, clear, leave)");
+                break;
+            case Game.TILE_CARD: {
+                int width = String.valueOf(s.tiles.length - 1).length();
+                for (int row = 0; row < s.tileSize; row++) {
+                    StringBuilder line = new StringBuilder("  ");
+                    for (int col = 0; col < s.tileSize; col++) {
+                        int t = s.tiles[row * s.tileSize + col];
+                        String cell = t == 0 ? "." : String.valueOf(t);
+                        line.append(" ".repeat(width - cell.length() + 1)).append(cell);
+                    }
+                    out.println(line);
+                }
+                out.println("(slide <tile>, leave)");
+                break;
+            }
+            case Game.LEVER_CARD:
+            case Game.DIAL_CARD: {
+                StringBuilder line = new StringBuilder(s.card.equals(Game.LEVER_CARD) ? "Levers:" : "Dials:");
+                for (int i = 0; i < s.lockSymbols.length; i++) {
+                    line.append("  ").append(i + 1).append('=').append(s.lockSymbols[i]);
+                }
+                if (s.card.equals(Game.LEVER_CARD)) line.append("  (target ").append(s.lockTarget).append(')');
+                out.println(line.append(s.card.equals(Game.LEVER_CARD) ? "  (pull <n>, leave)" : "  (turn <n>, leave)"));
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    private void help() {
+        out.println("look, inventory, examine <thing>, take <thing>, go <place>, use <item> on <thing>,");
+        out.println("select <item>, undo, redo, quit. In puzzles: enter <code>, slide <tile>, pull <n>, turn <n>, leave.");
+    }
+
+    private void prompt() {
+        out.print("> ");
+        out.flush();
+    }
+}
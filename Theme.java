@@ -0,0 +1,340 @@
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Component;
+import java.awt.Stroke;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.prefs.Preferences;
+import javax.swing.JButton;
+
+/**
+ * The fonts, colours and strokes the game is drawn with, created once and
+ * shared by every panel.
+ *
+ * <p>A theme starts from the built-in look and can override any entry from a
+ * properties file in the {@code themes} folder:</p>
+ * <pre>
+ * color.accent = 169, 177, 217
+ * color.hotspot.fill = 100, 105, 130, 140
+ * font.menu.button = Serif, PLAIN, 37
+ * stroke.hotspot.hover = 3
+ * </pre>
+ * <p>{@link #use(String)} switches the current theme while the game runs;
+ * listeners (the window) then restyle what is on screen. The choice is
+ * remembered between runs.</p>
+ */
+public final class Theme {
+    static final String DEFAULT = "default";
+    static final File FOLDER = new File("themes");
+
+    private static final Map<String, String> BUILT_IN = new HashMap<>();
+    static {
+        // Menus and shared accents
+        BUILT_IN.put("color.menu.background", "80, 82, 102");
+        BUILT_IN.put("color.screen.background", "117, 122, 148");
+        BUILT_IN.put("color.accent", "169, 177, 217");
+        BUILT_IN.put("color.accent.hover", "255, 255, 255");
+        BUILT_IN.put("font.menu.title", "Serif, BOLD, 60");
+        BUILT_IN.put("font.screen.title", "Serif, BOLD, 50");
+        BUILT_IN.put("font.menu.button", "Serif, PLAIN, 37");
+        BUILT_IN.put("font.menu.label", "Serif, BOLD, 30");
+        BUILT_IN.put("font.menu.value", "Serif, BOLD, 24");
+
+        // Info and inventory bars
+        BUILT_IN.put("color.hud.background", "60, 60, 90");
+        BUILT_IN.put("color.hud.text", "255, 255, 255");
+        BUILT_IN.put("color.hud.button", "40, 40, 60");
+        BUILT_IN.put("color.hud.button.text", "0, 0, 0");
+        BUILT_IN.put("color.inventory.slot", "217, 217, 217");
+        BUILT_IN.put("color.inventory.selected", "255, 255, 255");
+        BUILT_IN.put("font.hud.count", "Serif, BOLD, 23");
+        BUILT_IN.put("font.hud.location", "Serif, BOLD, 24");
+        BUILT_IN.put("font.hud.description", "SansSerif, PLAIN, 12");
+        BUILT_IN.put("font.inventory.title", "SansSerif, BOLD, 18");
+        BUILT_IN.put("font.inventory.item", "SansSerif, PLAIN, 12");
+
+        // Play area
+        BUILT_IN.put("color.hotspot.fill", "100, 105, 130, 140");
+        BUILT_IN.put("color.hotspot.label", "255, 255, 255");
+        BUILT_IN.put("color.hotspot.hover", "169, 177, 217, 200");
+        BUILT_IN.put("color.feedback.text", "255, 255, 255");
+        BUILT_IN.put("color.feedback.shadow", "0, 0, 0");
+        BUILT_IN.put("font.feedback", "SansSerif, BOLD, 14");
+        BUILT_IN.put("stroke.hotspot.hover", "3");
+        BUILT_IN.put("color.cutscene.fade", "0, 0, 0");
+        BUILT_IN.put("color.cutscene.band", "0, 0, 0, 170");
+        BUILT_IN.put("color.cutscene.caption", "255, 255, 255");
+        BUILT_IN.put("font.cutscene.caption", "Serif, ITALIC, 24");
+        BUILT_IN.put("color.perf.background", "16, 16, 20");
+        BUILT_IN.put("color.perf.text", "140, 255, 140");
+        BUILT_IN.put("color.perf.warning", "255, 140, 90");
+        BUILT_IN.put("font.perf", "Monospaced, PLAIN, 12");
+        BUILT_IN.put("color.heat.cold", "40, 90, 255");
+        BUILT_IN.put("color.heat.hot", "255, 50, 30");
+
+        // Puzzles
+        BUILT_IN.put("color.puzzle.frame", "40, 40, 50");
+        BUILT_IN.put("color.puzzle.border", "255, 255, 255");
+        BUILT_IN.put("color.keypad.background", "20, 20, 25");
+        BUILT_IN.put("color.keypad.display", "0, 0, 0");
+        BUILT_IN.put("color.keypad.entering", "0, 255, 0");
+        BUILT_IN.put("color.keypad.success", "0, 255, 255");
+        BUILT_IN.put("color.keypad.error", "255, 0, 0");
+        BUILT_IN.put("font.keypad.display", "Monospaced, BOLD, 40");
+        BUILT_IN.put("font.keypad.key", "SansSerif, BOLD, 24");
+        BUILT_IN.put("color.lever.background", "25, 20, 25");
+        BUILT_IN.put("color.lever.title", "255, 255, 255");
+        BUILT_IN.put("color.lever.up", "255, 193, 7");
+        BUILT_IN.put("color.lever.up.text", "50, 50, 50");
+        BUILT_IN.put("color.lever.down", "192, 192, 192");
+        BUILT_IN.put("color.lever.down.text", "0, 0, 0");
+        BUILT_IN.put("font.lever.title", "Serif, BOLD, 20");
+        BUILT_IN.put("font.lever", "Serif, BOLD, 24");
+        BUILT_IN.put("color.dial.background", "20, 25, 25");
+        BUILT_IN.put("color.dial.frame", "45, 45, 50");
+        BUILT_IN.put("color.dial.face", "100, 100, 120");
+        BUILT_IN.put("color.dial.text", "255, 200, 150");
+        BUILT_IN.put("font.dial.title", "Monospaced, BOLD, 20");
+        BUILT_IN.put("font.dial", "Monospaced, BOLD, 30");
+        BUILT_IN.put("color.tile.background", "80, 82, 102");
+        BUILT_IN.put("color.tile.face", "169, 177, 217");
+        BUILT_IN.put("color.tile.text", "80, 82, 102");
+        BUILT_IN.put("color.tile.empty", "60, 60, 90");
+        BUILT_IN.put("font.tile", "Serif, BOLD, 40");
+    }
+
+    private static final Preferences PREFS = Preferences.userRoot().node("moonlight-manor/ui");
+    private static final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private static volatile Theme current;
+
+    private final String name;
+    private final Map<String, Color> colors = new HashMap<>();
+    private final Map<String, Font> fonts = new HashMap<>();
+    private final Map<String, Stroke> strokes = new HashMap<>();
+    private final Map<String, Color[]> alphaRamps = new HashMap<>();
+
+    private Theme(String name, Map<String, String> entries) {
+        this.name = name;
+        for (Map.Entry<String, String> e : entries.entrySet()) {
+            String key = e.getKey();
+            try {
+                if (key.startsWith("color.")) colors.put(key.substring(6), parseColor(e.getValue()));
+                else if (key.startsWith("font.")) fonts.put(key.substring(5), parseFont(e.getValue()));
+                else if (key.startsWith("stroke.")) strokes.put(key.substring(7), new BasicStroke(Float.parseFloat(e.getValue().trim())));
+            } catch (IllegalArgumentException ex) {
+                System.err.println("Theme " + name + ": ignoring bad " + key + " (" + ex.getMessage() + ")");
+                String fallback = BUILT_IN.get(key);
+                if (fallback != null && !fallback.equals(e.getValue())) {
+                    Map<String, String> one = new HashMap<>();
+                    one.put(key, fallback);
+                    Theme builtIn = new Theme(name, one);
+                    colors.putAll(builtIn.colors);
+                    fonts.putAll(builtIn.fonts);
+                    strokes.putAll(builtIn.strokes);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the theme in use, loading the remembered one on first call.
+     *
+     * @return The current theme.
+     */
+    public static Theme current() {
+        Theme t = current;
+        if (t == null) {
+            synchronized (Theme.class) {
+                if (current == null) current = load(System.getProperty("moonlight.theme", PREFS.get("theme", DEFAULT)));
+                t = current;
+            }
+        }
+        return t;
+    }
+
+    /**
+     * Switches to another theme, remembers the choice and notifies listeners.
+     * Call on the EDT.
+     *
+     * @param name A theme name from {@link #available()}.
+     */
+    public static void use(String name) {
+        Theme next = load(name);
+        if (next.name.equals(current().name)) return;
+        current = next;
+        PREFS.put("theme", next.name);
+        for (Runnable l : listeners) l.run();
+    }
+
+    /** @return the built-in theme plus every {@code themes/*.properties} file, by name. */
+    public static List<String> available() {
+        TreeSet<String> names = new TreeSet<>();
+        File[] files = FOLDER.listFiles((dir, n) -> n.endsWith(".properties"));
+        if (files != null) {
+            for (File f : files) names.add(f.getName().substring(0, f.getName().length() - ".properties".length()));
+        }
+        names.remove(DEFAULT);
+        List<String> all = new ArrayList<>();
+        all.add(DEFAULT);
+        all.addAll(names);
+        return all;
+    }
+
+    /** Registers a callback run after the theme changes. */
+    public static void addListener(Runnable listener) { listeners.add(listener); }
+
+    /** Removes a callback added with {@link #addListener}. */
+    public static void removeListener(Runnable listener) { listeners.remove(listener); }
+
+    /**
+     * Loads a theme: the built-in look overlaid with {@code themes/<name>.properties}
+     * (from the file system or the classpath) if there is one.
+     */
+    static Theme load(String name) {
+        Map<String, String> entries = new HashMap<>(BUILT_IN);
+        String resource = "themes/" + name + ".properties";
+        File file = new File(FOLDER, name + ".properties");
+        try (InputStream in = file.isFile() ? new FileInputStream(file) : Theme.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in != null) {
+                Properties p = new Properties();
+                try (Reader r = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                    p.load(r);
+                }
+                for (String key : p.stringPropertyNames()) entries.put(key, p.getProperty(key));
+            } else if (!name.equals(DEFAULT)) {
+                System.err.println("Theme not found: " + name + ", using the default look.");
+                name = DEFAULT;
+            }
+        } catch (IOException e) {
+            System.err.println("Could not read theme " + name + ": " + e.getMessage());
+        }
+        return new Theme(name, entries);
+    }
+
+    public String getName() { return name; }
+
+    /**
+     * @param key The colour name without the {@code color.} prefix, e.g. {@code "accent"}.
+     * @return The colour (magenta if the key is unknown, so it stands out).
+     */
+    public Color color(String key) {
+        Color c = colors.get(key);
+        return c != null ? c : Color.MAGENTA;
+    }
+
+    /**
+     * Returns a colour with a different opacity, from a ramp built once per
+     * colour, so fading text does not create a colour per frame.
+     *
+     * @param key The colour name.
+     * @param alpha Opacity, 0 to 255.
+     * @return The colour with that alpha.
+     */
+    public Color color(String key, int alpha) {
+        Color[] ramp = alphaRamps.get(key);
+        if (ramp == null) {
+            Color base = color(key);
+            ramp = new Color[256];
+            for (int a = 0; a < 256; a++) ramp[a] = new Color(base.getRed(), base.getGreen(), base.getBlue(), a);
+            alphaRamps.put(key, ramp);
+        }
+        return ramp[Math.max(0, Math.min(255, alpha))];
+    }
+
+    /**
+     * @param key The font name without the {@code font.} prefix, e.g. {@code "menu.button"}.
+     * @return The font (the default dialog font if the key is unknown).
+     */
+    public Font font(String key) {
+        Font f = fonts.get(key);
+        return f != null ? f : new Font(Font.DIALOG, Font.PLAIN, 12);
+    }
+
+    /**
+     * @param key The stroke name without the {@code stroke.} prefix.
+     * @return The stroke (1 pixel if the key is unknown).
+     */
+    public Stroke stroke(String key) {
+        Stroke s = strokes.get(key);
+        return s != null ? s : new BasicStroke(1);
+    }
+
+    /**
+     * Creates a borderless text button in the menu style, lit up while the
+     * mouse is over it.
+     *
+     * @param text The button's text.
+     * @return The styled button.
+     */
+    public JButton menuButton(String text) {
+        Color normal = color("accent");
+        Color hover = color("accent.hover");
+        JButton button = new JButton(text);
+        button.setAlignmentX(Component.CENTER_ALIGNMENT);
+        button.setFont(font("menu.button"));
+        button.setForeground(normal);
+        button.setBorderPainted(false);
+        button.setContentAreaFilled(false);
+        button.setFocusPainted(false);
+        button.setOpaque(false);
+
+        button.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseEntered(MouseEvent e) {
+                button.setForeground(hover);
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                button.setForeground(normal);
+            }
+        });
+
+        // A cached screen can be hidden while the mouse is over a button; don't bring it back highlighted
+        button.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && !button.isShowing()) {
+                button.setForeground(normal);
+            }
+        });
+        return button;
+    }
+
+    // "r, g, b" or "r, g, b, a"
+    private static Color parseColor(String value) {
+        String[] p = value.split(",");
+        if (p.length < 3) throw new IllegalArgumentException("expected r, g, b[, a]");
+        int r = Integer.parseInt(p[0].trim()), g = Integer.parseInt(p[1].trim()), b = Integer.parseInt(p[2].trim());
+        return p.length > 3 ? new Color(r, g, b, Integer.parseInt(p[3].trim())) : new Color(r, g, b);
+    }
+
+    // "Family, STYLE, size" with STYLE one of PLAIN, BOLD, ITALIC, BOLD_ITALIC
+    private static Font parseFont(String value) {
+        String[] p = value.split(",");
+        if (p.length != 3) throw new IllegalArgumentException("expected family, style, size");
+        int style;
+        switch (p[1].trim().toUpperCase()) {
+            case "PLAIN": style = Font.PLAIN; break;
+            case "BOLD": style = Font.BOLD; break;
+            case "ITALIC": style = Font.ITALIC; break;
+            case "BOLD_ITALIC": style = Font.BOLD | Font.ITALIC; break;
+            default: throw new IllegalArgumentException("unknown style " + p[1].trim());
+        }
+        return new Font(p[0].trim(), style, Integer.parseInt(p[2].trim()));
+    }
+}
@@ -0,0 +1,155 @@
+import java.util.Random;
+
+/**
+ * State and rules of the sliding tile puzzle: an NxN board of numbered tiles
+ * with one empty cell (0). The solved board reads 1..N^2-1 with the empty cell
+ * last.
+ */
+public class TileBoard {
+    private final int size;
+    private final int[] board;
+    private final String image;
+    private final Random rand = new Random();
+
+    /**
+     * Creates a solved board.
+     *
+     * @param size the number of rows and columns (3 for the classic 8-puzzle)
+     */
+    public TileBoard(int size) {
+        this(size, null);
+    }
+
+    /**
+     * Creates a solved board whose tiles show slices of a picture.
+     *
+     * @param size the number of rows and columns
+     * @param image the picture file, or null for numbered tiles
+     */
+    public TileBoard(int size, String image) {
+        if (size < 2) throw new IllegalArgumentException("A tile board needs at least 2x2 cells, not " + size);
+        this.size = size;
+        this.image = image;
+        this.board = new int[size * size];
+        for (int i = 0; i < board.length - 1; i++) board[i] = i + 1;
+    }
+
+    /**
+     * Parses a tile puzzle code: {@code NONE} for the classic numbered 3x3
+     * board, {@code 5} for a 5x5 board, or {@code 4/art/portrait.png} for a
+     * 4x4 board cut from a picture.
+     *
+     * @param code The code from the START_PUZZLE command.
+     * @return A solved board of that size.
+     * @throws IllegalArgumentException if the size is not a number of at least 2.
+     */
+    public static TileBoard fromCode(String code) {
+        if (code == null || code.equals("NONE")) return new TileBoard(3);
+        int slash = code.indexOf('/');
+        String size = slash >= 0 ? code.substring(0, slash) : code;
+        String image = slash >= 0 ? code.substring(slash + 1) : null;
+        try {
+            return new TileBoard(Integer.parseInt(size), image);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad tile puzzle size '" + size + "' in code " + code);
+        }
+    }
+
+    public int getSize() { return size; }
+
+    /** @return the picture the tiles are cut from, or null for numbered tiles. */
+    public String getImage() { return image; }
+
+    /** @return the tile at a cell, 0 for the empty cell. */
+    public int get(int index) { return board[index]; }
+
+    /** @return a copy of the board, row by row. */
+    public int[] toArray() { return board.clone(); }
+
+    /**
+     * Shuffles until the board is solvable and not already solved.
+     */
+    public void shuffleSolvable() {
+        do {
+            shuffle();
+        } while (!isSolvable(board) || isSolved());
+    }
+
+    /** Fisher-Yates shuffle of every cell, including the empty one. */
+    void shuffle() {
+        for (int i = board.length - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int temp = board[i];
+            board[i] = board[j];
+            board[j] = temp;
+        }
+    }
+
+    /**
+     * Checks the inversion parity rule. On odd-width boards, a board is
+     * solvable when the number of inversions is even. On even-width boards the
+     * empty cell's row counted from the bottom also matters.
+     *
+     * @param cells a board laid out like this one
+     * @return true if the solved position can be reached
+     */
+    boolean isSolvable(int[] cells) {
+        int inversions = 0;
+        int emptyRow = 0;
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] == 0) {
+                emptyRow = i / size;
+                continue;
+            }
+            for (int j = i + 1; j < cells.length; j++) {
+                if (cells[j] != 0 && cells[i] > cells[j]) {
+                    inversions++;
+                }
+            }
+        }
+        if (size % 2 == 1) return inversions % 2 == 0;
+        int rowFromBottom = size - emptyRow;
+        return (inversions + rowFromBottom) % 2 == 1;
+    }
+
+    /** @return the index of the empty cell. */
+    public int findEmpty() {
+        for (int i = 0; i < board.length; i++) {
+            if (board[i] == 0) return i;
+        }
+        return -1;
+    }
+
+    private boolean canMove(int tileIndex, int emptyIndex) {
+        int tileRow = tileIndex / size;
+        int tileCol = tileIndex % size;
+        int emptyRow = emptyIndex / size;
+        int emptyCol = emptyIndex % size;
+
+        return (tileRow == emptyRow && Math.abs(tileCol - emptyCol) == 1) ||
+               (tileCol == emptyCol && Math.abs(tileRow - emptyRow) == 1);
+    }
+
+    /**
+     * Slides the tile at {@code index} into the empty cell if they are adjacent.
+     *
+     * @param index the cell the player clicked
+     * @return the cell the tile moved into, or -1 if the tile could not move
+     */
+    public int slide(int index) {
+        if (index < 0 || index >= board.length) return -1;
+        int emptyIndex = findEmpty();
+        if (!canMove(index, emptyIndex)) return -1;
+        board[emptyIndex] = board[index];
+        board[index] = 0;
+        return emptyIndex;
+    }
+
+    /** @return true if the tiles are in order with the empty cell last. */
+    public boolean isSolved() {
+        for (int i = 0; i < board.length - 1; i++) {
+            if (board[i] != i + 1) return false;
+        }
+        return board[board.length - 1] == 0;
+    }
+}
@@ -0,0 +1,319 @@
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+import javax.swing.JComponent;
+
+/**
+ * The sliding tile board, painted as one component rather than a button per
+ * tile, for boards of any size.
+ *
+ * <p>When a move arrives only the two cells involved are repainted, and the
+ * tile slides across on the shared {@link AnimationClock}; the rest of the
+ * board is left alone. Tiles are numbered, or cut from a picture: the picture
+ * is decoded by the {@link AssetPipeline} and sliced once into sub-images
+ * that share its pixels.</p>
+ *
+ * <p>Metrics: {@code tileGrid.paint}, and {@code tileGrid.inputToFrame} from
+ * pressing a tile to the first frame showing the move.</p>
+ */
+public class TileGrid extends JComponent {
+    private static final LatencyHistogram PAINT_LATENCY = Metrics.histogram("tileGrid.paint");
+    private static final LatencyHistogram INPUT_TO_FRAME = Metrics.histogram("tileGrid.inputToFrame");
+    static final long SLIDE_NANOS = 120_000_000L;
+    private static final int GAP = 5;
+
+    private final IntConsumer onPress;
+    private final AssetPipeline assets = AssetPipeline.shared();
+    private Theme theme = Theme.current();
+
+    private int size;
+    private int[] tiles;
+    private String image;
+    private int pressed = -1;
+    private long pressNanos;
+    private boolean moveShown = true;
+
+    // The tile sliding from one cell into another, if any
+    private int slideFrom = -1;
+    private int slideTo = -1;
+    private long slideStart;
+    private final AnimationClock.Animation slide = this::tickSlide;
+
+    // Geometry for the current size; see layoutCells
+    private int cell;
+    private int originX;
+    private int originY;
+    private final Rectangle scratch = new Rectangle();
+    private final Rectangle scratch2 = new Rectangle();
+
+    // Picture slices, cut again only when the decoded picture changes
+    private BufferedImage slicedFrom;
+    private BufferedImage[] slices;
+
+    // Tile font scaled to the cell size
+    private Font tileFont;
+    private int tileFontCell;
+
+    /**
+     * @param onPress Called with the cell index when the player presses a tile.
+     */
+    public TileGrid(IntConsumer onPress) {
+        this.onPress = onPress;
+        setOpaque(true);
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                press(cellAt(e.getX(), e.getY()));
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if (pressed >= 0) repaintCell(pressed);
+                pressed = -1;
+            }
+        });
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                requestPicture(); // Pictures are cached per size
+            }
+        });
+    }
+
+    /**
+     * Shows a board. A single move is animated and repaints only its two
+     * cells; any other change repaints the cells that differ, and a new size
+     * or picture repaints everything.
+     *
+     * @param newSize rows and columns
+     * @param newTiles the cells row by row, 0 for the empty one
+     * @param newImage the picture the tiles are cut from, or null
+     */
+    public void setBoard(int newSize, int[] newTiles, String newImage) {
+        if (newTiles == null) return;
+        if (tiles == null || newSize != size || !Objects.equals(newImage, image)) {
+            endSlide();
+            size = newSize;
+            tiles = newTiles.clone();
+            image = newImage;
+            tileFont = null;
+            pressNanos = 0;
+            requestPicture();
+            repaint();
+            return;
+        }
+
+        int changed = 0, from = -1, to = -1;
+        for (int i = 0; i < tiles.length; i++) {
+            if (tiles[i] != newTiles[i]) {
+                changed++;
+                if (newTiles[i] == 0) from = i;
+                else to = i;
+            }
+        }
+        if (changed == 0) return;
+
+        endSlide();
+        int[] old = tiles;
+        tiles = newTiles.clone();
+        moveShown = false;
+        if (changed == 2 && from >= 0 && to >= 0 && old[to] == 0) {
+            slideFrom = from;
+            slideTo = to;
+            slideStart = System.nanoTime();
+            repaintCell(from);
+            repaintCell(to);
+            AnimationClock.shared().start(slide);
+        } else {
+            for (int i = 0; i < tiles.length; i++) {
+                if (old[i] != tiles[i]) repaintCell(i);
+            }
+        }
+    }
+
+    /**
+     * Switches the colours and font the board is painted with.
+     *
+     * @param t the theme to use
+     */
+    public void setTheme(Theme t) {
+        theme = t;
+        tileFont = null;
+        repaint();
+    }
+
+    private void press(int index) {
+        if (index < 0 || tiles[index] == 0) return;
+        pressed = index;
+        pressNanos = System.nanoTime();
+        repaintCell(index); // Acknowledge the press straight away, before the game answers
+        onPress.accept(index);
+    }
+
+    private boolean tickSlide(long now) {
+        if (slideFrom < 0) return false;
+        repaintCell(slideFrom);
+        repaintCell(slideTo);
+        if (now - slideStart >= SLIDE_NANOS) {
+            slideFrom = slideTo = -1;
+            return false;
+        }
+        return true;
+    }
+
+    // Jumps a running slide to its end
+    private void endSlide() {
+        if (slideFrom < 0) return;
+        AnimationClock.shared().stop(slide);
+        repaintCell(slideFrom);
+        repaintCell(slideTo);
+        slideFrom = slideTo = -1;
+    }
+
+    private void requestPicture() {
+        layoutCells();
+        if (image != null && cell > 0) {
+            assets.lookup(image, cell * size, cell * size, this::repaint);
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        long start = System.nanoTime();
+        Graphics2D g2 = (Graphics2D) g;
+        Rectangle clip = g2.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+        g2.setColor(theme.color("tile.background"));
+        g2.fillRect(clip.x, clip.y, clip.width, clip.height);
+        if (tiles == null) return;
+
+        layoutCells();
+        if (cell <= 0) return;
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        BufferedImage[] pictures = slices();
+
+        for (int i = 0; i < tiles.length; i++) {
+            cellBounds(i, scratch);
+            if (!scratch.intersects(clip)) continue;
+            if (tiles[i] == 0 || i == slideTo) {
+                g2.setColor(theme.color("tile.empty"));
+                g2.fillRect(scratch.x, scratch.y, cell, cell);
+            } else {
+                paintTile(g2, tiles[i], scratch.x, scratch.y, pictures, i == pressed);
+            }
+        }
+
+        if (slideTo >= 0) {
+            float t = Math.min(1f, (System.nanoTime() - slideStart) / (float) SLIDE_NANOS);
+            float eased = 1 - (1 - t) * (1 - t);
+            cellBounds(slideFrom, scratch);
+            cellBounds(slideTo, scratch2);
+            int x = Math.round(scratch.x + (scratch2.x - scratch.x) * eased);
+            int y = Math.round(scratch.y + (scratch2.y - scratch.y) * eased);
+            paintTile(g2, tiles[slideTo], x, y, pictures, false);
+        }
+
+        if (!moveShown) {
+            moveShown = true;
+            if (pressNanos != 0) INPUT_TO_FRAME.recordSince(pressNanos);
+            pressNanos = 0;
+        }
+        PAINT_LATENCY.recordSince(start);
+    }
+
+    private void paintTile(Graphics2D g2, int tile, int x, int y, BufferedImage[] pictures, boolean down) {
+        if (pictures != null) {
+            g2.drawImage(pictures[tile - 1], x, y, null);
+        } else {
+            g2.setColor(theme.color("tile.face"));
+            g2.fillRect(x, y, cell, cell);
+            g2.setColor(theme.color("tile.text"));
+            g2.setFont(tileFont());
+            FontMetrics fm = g2.getFontMetrics();
+            String label = Integer.toString(tile);
+            g2.drawString(label, x + (cell - fm.stringWidth(label)) / 2, y + (cell - fm.getHeight()) / 2 + fm.getAscent());
+        }
+        if (down) {
+            g2.setColor(theme.color("tile.text", 70));
+            g2.fillRect(x, y, cell, cell);
+        }
+    }
+
+    // The theme's tile font, shrunk to fit small cells on large boards
+    private Font tileFont() {
+        if (tileFont == null || tileFontCell != cell) {
+            Font base = theme.font("tile");
+            float fit = cell * 0.45f;
+            tileFont = fit < base.getSize2D() ? base.deriveFont(fit) : base;
+            tileFontCell = cell;
+        }
+        return tileFont;
+    }
+
+    // Slices of the decoded picture in solved order, or null while it is not ready
+    private BufferedImage[] slices() {
+        if (image == null) return null;
+        BufferedImage picture = assets.peek(image, cell * size, cell * size);
+        if (picture == null) return null;
+        if (picture != slicedFrom) {
+            slices = new BufferedImage[size * size - 1];
+            for (int k = 0; k < slices.length; k++) {
+                slices[k] = picture.getSubimage((k % size) * cell, (k / size) * cell, cell, cell);
+            }
+            slicedFrom = picture;
+        }
+        return slices;
+    }
+
+    // Fits the largest square board into the component, centred
+    private void layoutCells() {
+        if (size == 0) {
+            cell = 0;
+            return;
+        }
+        int side = Math.min(getWidth(), getHeight());
+        cell = (side - GAP * (size - 1)) / size;
+        int board = cell * size + GAP * (size - 1);
+        originX = (getWidth() - board) / 2;
+        originY = (getHeight() - board) / 2;
+    }
+
+    /**
+     * Gets where a cell is drawn.
+     *
+     * @param index the cell, row by row
+     * @param out receives the cell's bounds
+     */
+    void cellBounds(int index, Rectangle out) {
+        out.setBounds(originX + (index % size) * (cell + GAP), originY + (index / size) * (cell + GAP), cell, cell);
+    }
+
+    private void repaintCell(int index) {
+        layoutCells();
+        if (cell <= 0) return;
+        cellBounds(index, scratch);
+        repaint(scratch.x, scratch.y, scratch.width, scratch.height);
+    }
+
+    // The cell under a point, or -1 for a gap or outside the board
+    private int cellAt(int x, int y) {
+        if (tiles == null) return -1;
+        layoutCells();
+        if (cell <= 0) return -1;
+        int col = (x - originX) / (cell + GAP), row = (y - originY) / (cell + GAP);
+        if (x < originX || y < originY || col >= size || row >= size) return -1;
+        int index = row * size + col;
+        cellBounds(index, scratch);
+        return scratch.contains(x, y) ? index : -1;
+    }
+}
@@ -0,0 +1,312 @@
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A game's progress, packed into a {@code long[]}: one bit each for items
+ * held ({@code has:<item>}), the selected item ({@code selected:<item>}),
+ * world flags ({@code flag:<name>}), solved puzzles ({@code solved:<hotspot>}),
+ * visited scenes ({@code visited:<scene>}) and hotspots taken out of their
+ * scene ({@code gone:<scene>/<hotspot>}), and small number fields for the
+ * current scene ({@link #SCENE}) and the state of each multi-state hotspot
+ * ({@code state:<scene>/<hotspot>}).
+ *
+ * <p>Bit numbers and fields are handed out once per name for the whole
+ * process, so a {@link CompiledCondition} can be built while content is
+ * parsed, on any thread, before the game that will run it exists. Every game
+ * and reload that names the same fact gets the same bit back, so the vector
+ * only grows with the number of distinct names, not with play. The vector
+ * itself belongs to one {@link Game} and, like the rest of its state, is only
+ * touched on the game-logic thread; the {@link Inventory}, the scenes and the
+ * game keep it up to date as they change.</p>
+ *
+ * <p>The vector carries a Zobrist hash: every bit has a fixed random key, and
+ * the hash is the XOR of the keys of the bits that are set, kept up to date
+ * one flip at a time. Two games in the same state have the same hash however
+ * they got there, so the hash and {@link #copy()} are all a tool exploring
+ * the state space needs to recognise where it has been.</p>
+ */
+public final class WorldState {
+    private static final Map<String, Integer> BITS = new ConcurrentHashMap<>();
+    private static final Map<String, Integer> FIELDS = new ConcurrentHashMap<>();
+    private static int nextBit; // Guarded by BITS
+    private static final int LEAF = 8;     // Words per leaf of a frozen version
+    private static final int FANOUT = 16;  // Children per node above the leaves
+
+    /** How many distinct scene ids {@link #SCENE} can tell apart. */
+    static final int MAX_SCENES = (1 << 16) - 1;
+
+    /** The current scene's {@link Scene#ordinal} plus one, or 0 before the first scene. */
+    static final int SCENE = field("scene", 16);
+
+    private long[] words = new long[2];
+    private long hash;
+
+    /**
+     * Gets the bit that stands for a fact, allocating one the first time.
+     *
+     * @param name The fact, e.g. {@code "has:rustyKey"}.
+     * @return Its bit number.
+     */
+    static int bit(String name) {
+        Integer bit = BITS.get(name);
+        if (bit != null) return bit;
+        synchronized (BITS) {
+            return BITS.computeIfAbsent(name, k -> nextBit++);
+        }
+    }
+
+    /**
+     * Gets the field that holds a small number, allocating one the first time.
+     * A field never straddles two words. Asking for a name wider than its
+     * field so far, e.g. for a hotspot a reloaded pack gives more states,
+     * moves the name to a new field of that width, so no number is cut short;
+     * those still holding the old field keep it.
+     *
+     * @param name The field, e.g. {@code "state:kitchen/lockedPantry"}.
+     * @param width The size in bits it needs, 1 to 32.
+     * @return The field, for {@link #get(int)} and {@link #put(int, int)}; at least {@code width} bits wide.
+     */
+    static int field(String name, int width) {
+        if (width < 1 || width > 32) throw new IllegalArgumentException("Field width " + width);
+        Integer field = FIELDS.get(name);
+        if (field != null && (field & 63) >= width) return field;
+        synchronized (BITS) {
+            return FIELDS.compute(name, (k, old) -> {
+                if (old != null && (old & 63) >= width) return old;
+                if ((nextBit & 63) + width > 64) nextBit = (nextBit | 63) + 1;
+                int offset = nextBit;
+                nextBit += width;
+                return offset << 6 | width;
+            });
+        }
+    }
+
+    /**
+     * Sets or clears a fact.
+     *
+     * @param bit The fact's bit, from {@link #bit(String)}.
+     * @param on Whether it now holds.
+     */
+    void set(int bit, boolean on) {
+        int w = bit >>> 6;
+        if (w >= words.length) {
+            if (!on) return;
+            words = Arrays.copyOf(words, Math.max(words.length * 2, w + 1));
+        }
+        long old = words[w];
+        if (on) words[w] |= 1L << bit;
+        else words[w] &= ~(1L << bit);
+        if (words[w] != old) hash ^= key(bit);
+    }
+
+    /**
+     * Sets or clears a fact by name.
+     *
+     * @param name The fact, e.g. {@code "flag:lightsOn"}.
+     * @param on Whether it now holds.
+     */
+    public void set(String name, boolean on) { set(bit(name), on); }
+
+    /**
+     * @param name The fact, e.g. {@code "visited:library"}.
+     * @return Whether it holds.
+     */
+    public boolean test(String name) { return test(bit(name)); }
+
+    /**
+     * @param bit A fact's bit, from {@link #bit(String)}.
+     * @return Whether it holds.
+     */
+    boolean test(int bit) {
+        return ((word(bit >>> 6) >>> bit) & 1) != 0;
+    }
+
+    /**
+     * @param field A field, from {@link #field(String, int)}.
+     * @return The number it holds; 0 until one is put there.
+     */
+    int get(int field) {
+        int offset = field >>> 6, width = field & 63;
+        return (int) ((word(offset >>> 6) >>> offset) & mask(width));
+    }
+
+    /**
+     * Puts a number in a field, updating the hash for just the bits that change.
+     *
+     * @param field A field, from {@link #field(String, int)}.
+     * @param value The number; only the field's width of low bits is kept.
+     */
+    void put(int field, int value) {
+        int offset = field >>> 6, width = field & 63;
+        int w = offset >>> 6;
+        long m = mask(width) << offset;
+        long bits = ((long) value << offset) & m;
+        if (w >= words.length) {
+            if (bits == 0) return;
+            words = Arrays.copyOf(words, Math.max(words.length * 2, w + 1));
+        }
+        long changed = (words[w] ^ bits) & m;
+        words[w] ^= changed;
+        for (; changed != 0; changed &= changed - 1) {
+            hash ^= key(w << 6 | Long.numberOfTrailingZeros(changed));
+        }
+    }
+
+    /** @return The packed word holding bits {@code 64*i} to {@code 64*i+63}. */
+    long word(int i) {
+        return i < words.length ? words[i] : 0;
+    }
+
+    /** @return The Zobrist hash of everything the vector holds; 0 when it is clear. */
+    public long hash() { return hash; }
+
+    /** @return An independent copy of the vector, hash and all. */
+    public WorldState copy() {
+        WorldState c = new WorldState();
+        c.copyFrom(this);
+        return c;
+    }
+
+    /**
+     * Makes this vector the same as another, reusing its words when they fit.
+     *
+     * @param other The state to copy.
+     */
+    public void copyFrom(WorldState other) {
+        if (words.length < other.words.length) words = new long[other.words.length];
+        System.arraycopy(other.words, 0, words, 0, other.words.length);
+        Arrays.fill(words, other.words.length, words.length, 0);
+        hash = other.hash;
+    }
+
+    /**
+     * An immutable version of a world state, kept as a trie of
+     * {@value #LEAF}-word leaves under nodes of {@value #FANOUT}, so versions
+     * taken one after another share every leaf that did not change. Each
+     * version costs a changed leaf and the nodes above it, O(log n), rather
+     * than a copy of the whole vector.
+     */
+    static final class Frozen {
+        final Object root; // long[] leaf when depth is 0, Object[] node otherwise
+        final int depth;
+        final long hash;
+        final int newBytes; // Roughly what this version added to the one it was frozen against
+
+        private Frozen(Object root, int depth, long hash, int newBytes) {
+            this.root = root;
+            this.depth = depth;
+            this.hash = hash;
+            this.newBytes = newBytes;
+        }
+    }
+
+    private int frozenBytes; // Counts the nodes a freeze makes
+
+    /**
+     * Takes an immutable version of the vector.
+     *
+     * @param previous A version to share unchanged parts with, usually the last one taken, or null.
+     * @return The version.
+     */
+    Frozen freeze(Frozen previous) {
+        int depth = 0;
+        for (long span = LEAF; span < words.length; span *= FANOUT) depth++;
+        Object shared = previous != null && previous.depth == depth ? previous.root : null;
+        frozenBytes = 0;
+        Object root = freeze(depth, 0, shared);
+        return new Frozen(root, depth, hash, frozenBytes);
+    }
+
+    private Object freeze(int depth, int from, Object previous) {
+        if (depth == 0) {
+            long[] old = (long[]) previous;
+            boolean same = old != null;
+            for (int i = 0; same && i < LEAF; i++) same = old[i] == word(from + i);
+            if (same) return old;
+            long[] leaf = new long[LEAF];
+            for (int i = 0; i < LEAF; i++) leaf[i] = word(from + i);
+            frozenBytes += 16 + 8 * LEAF;
+            return leaf;
+        }
+        Object[] old = (Object[]) previous;
+        Object[] node = null;
+        int span = span(depth - 1);
+        for (int i = 0; i < FANOUT; i++) {
+            int start = from + i * span;
+            Object child = old == null ? null : old[i];
+            Object next = start >= words.length ? null : freeze(depth - 1, start, child);
+            if (node == null && next != child) {
+                node = old == null ? new Object[FANOUT] : old.clone();
+                frozenBytes += 16 + 4 * FANOUT;
+            }
+            if (node != null) node[i] = next;
+        }
+        return node == null ? old : node;
+    }
+
+    /**
+     * Makes the vector what it was when a version was taken.
+     *
+     * @param f A version from {@link #freeze(Frozen)}.
+     */
+    void thaw(Frozen f) {
+        Arrays.fill(words, 0);
+        thaw(f.root, f.depth, 0);
+        hash = f.hash;
+    }
+
+    private void thaw(Object node, int depth, int from) {
+        if (node == null) return;
+        if (depth == 0) {
+            long[] leaf = (long[]) node;
+            int last = from + LEAF;
+            while (last > from && leaf[last - from - 1] == 0) last--;
+            if (last > words.length) words = Arrays.copyOf(words, last);
+            System.arraycopy(leaf, 0, words, from, last - from);
+            return;
+        }
+        int span = span(depth - 1);
+        Object[] children = (Object[]) node;
+        for (int i = 0; i < FANOUT; i++) thaw(children[i], depth - 1, from + i * span);
+    }
+
+    // Words under one node at a depth
+    private static int span(int depth) {
+        int span = LEAF;
+        for (int d = 0; d < depth; d++) span *= FANOUT;
+        return span;
+    }
+
+    /** Clears every fact and field. */
+    public void clear() {
+        Arrays.fill(words, 0);
+        hash = 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof WorldState)) return false;
+        WorldState other = (WorldState) o;
+        if (hash != other.hash) return false;
+        for (int i = Math.max(words.length, other.words.length) - 1; i >= 0; i--) {
+            if (word(i) != other.word(i)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() { return Long.hashCode(hash); }
+
+    private static long mask(int width) {
+        return width == 64 ? -1L : (1L << width) - 1;
+    }
+
+    // The bit's Zobrist key: SplitMix64 of its number, so keys are the same in every run
+    private static long key(int bit) {
+        long z = (bit + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,65 @@
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two result files written by {@link BenchmarkRunner} (for example one
+ * from before a change and one from after) and prints the relative change of
+ * every benchmark present in both. Changes within the combined error bars are
+ * marked as noise.
+ *
+ * <p>Usage: {@code java BenchmarkCompare before.json after.json}</p>
+ */
+public class BenchmarkCompare {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: BenchmarkCompare <before.json> <after.json>");
+            System.exit(2);
+        }
+        Map<String, JsonObject> before = load(args[0]);
+        Map<String, JsonObject> after = load(args[1]);
+
+        System.out.printf("%-72s %12s %12s %9s%n", "benchmark", "before", "after", "change");
+        for (Map.Entry<String, JsonObject> e : after.entrySet()) {
+            JsonObject old = before.get(e.getKey());
+            if (old == null) continue;
+
+            double a = old.get("score").getAsDouble();
+            double b = e.getValue().get("score").getAsDouble();
+            double noise = error(old) + error(e.getValue());
+            double change = (b - a) / a * 100.0;
+            String verdict = Math.abs(b - a) <= noise ? " (noise)" : "";
+            System.out.printf("%-72s %12.1f %12.1f %+8.1f%%%s%n", e.getKey(), a, b, change, verdict);
+        }
+    }
+
+    private static double error(JsonObject metric) {
+        JsonElement err = metric.get("scoreError");
+        if (err == null || !err.isJsonPrimitive()) return 0;
+        double d = err.getAsDouble();
+        return Double.isNaN(d) ? 0 : d;
+    }
+
+    /** Reads a result file into "benchmark {params}" -> primaryMetric. */
+    private static Map<String, JsonObject> load(String file) throws IOException {
+        Map<String, JsonObject> byName = new LinkedHashMap<>();
+        try (Reader r = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+            JsonArray results = JsonParser.parseReader(r).getAsJsonArray();
+            for (JsonElement el : results) {
+                JsonObject o = el.getAsJsonObject();
+                String key = o.get("benchmark").getAsString() + " " + o.get("params");
+                byName.put(key, o.getAsJsonObject("primaryMetric"));
+            }
+        }
+        return byName;
+    }
+}
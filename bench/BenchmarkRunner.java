@@ -0,0 +1,188 @@
+import com.google.gson.GsonBuilder;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * A small JMH-style harness for the engine benchmarks in {@link EngineBenchmarks}.
+ *
+ * <p>JMH refuses benchmark classes in the default package, and the game lives
+ * in the default package, so this runner does the same job by hand: for every
+ * content size it runs warmup iterations, then timed iterations of a fixed
+ * duration, and reports the average time per operation with a 99% confidence
+ * error. Results are written in JMH's JSON layout so they can be diffed with
+ * {@link BenchmarkCompare} or any JMH result viewer.</p>
+ *
+ * <p>Options:
+ * <pre>
+ *   -scenes 10,200     scene counts to generate
+ *   -hotspots 8,32     hotspots per scene
+ *   -items 20          item counts
+ *   -wi 3              warmup iterations
+ *   -i 5               measured iterations
+ *   -t 500             milliseconds per iteration
+ *   -f regex           only run benchmarks whose name matches
+ *   -o file.json       where to write results
+ * </pre></p>
+ */
+public class BenchmarkRunner {
+
+    /** One benchmarked operation. Implementations keep their state between calls. */
+    interface Case {
+        /** Prepares the case for one content size. */
+        void setUp(Fixture f) throws Exception;
+
+        /** Runs one operation and returns something derived from it, to defeat dead-code elimination. */
+        int op() throws Exception;
+    }
+
+    /** Generated content and a headless game for one parameter combination. */
+    static class Fixture {
+        final ContentGenerator content;
+        final Path contentFile;
+        final Map<String, String> params = new LinkedHashMap<>();
+
+        Fixture(int scenes, int hotspots, int items) throws IOException {
+            content = new ContentGenerator(scenes, hotspots, items);
+            contentFile = content.writeTemp();
+            params.put("scenes", String.valueOf(scenes));
+            params.put("hotspots", String.valueOf(hotspots));
+            params.put("items", String.valueOf(items));
+        }
+
+        /** Returns a freshly loaded headless game, positioned on the start scene. */
+        HeadlessGame freshGame() {
+            return new HeadlessGame(contentFile.toString());
+        }
+    }
+
+    static volatile int sink;
+
+    public static void main(String[] args) throws Exception {
+        List<Integer> scenes = List.of(10, 200);
+        List<Integer> hotspots = List.of(8, 32);
+        List<Integer> items = List.of(20);
+        int warmups = 3, iterations = 5;
+        long iterationMillis = 500;
+        Pattern filter = Pattern.compile(".*");
+        Path out = Paths.get("bench-results.json");
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-scenes": scenes = parseList(args[++i]); break;
+                case "-hotspots": hotspots = parseList(args[++i]); break;
+                case "-items": items = parseList(args[++i]); break;
+                case "-wi": warmups = Integer.parseInt(args[++i]); break;
+                case "-i": iterations = Integer.parseInt(args[++i]); break;
+                case "-t": iterationMillis = Long.parseLong(args[++i]); break;
+                case "-f": filter = Pattern.compile(args[++i]); break;
+                case "-o": out = Paths.get(args[++i]); break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        PrintStream console = System.out;
+        PrintStream quiet = new PrintStream(OutputStream.nullOutputStream());
+        List<Map<String, Object>> results = new ArrayList<>();
+
+        for (int s : scenes) {
+            for (int h : hotspots) {
+                for (int it : items) {
+                    Fixture fixture = new Fixture(s, h, it);
+                    for (Map.Entry<String, Case> e : EngineBenchmarks.cases().entrySet()) {
+                        if (!filter.matcher(e.getKey()).find()) continue;
+
+                        // The engine logs scene changes to stdout; keep that out of the timings.
+                        System.setOut(quiet);
+                        double[] nsPerOp;
+                        try {
+                            Case c = e.getValue();
+                            c.setUp(fixture);
+                            for (int w = 0; w < warmups; w++) measure(c, iterationMillis);
+                            nsPerOp = new double[iterations];
+                            for (int m = 0; m < iterations; m++) nsPerOp[m] = measure(c, iterationMillis);
+                        } finally {
+                            System.setOut(console);
+                        }
+
+                        Map<String, Object> result = result(e.getKey(), fixture.params, nsPerOp);
+                        results.add(result);
+                        @SuppressWarnings("unchecked")
+                        Map<String, Object> metric = (Map<String, Object>) result.get("primaryMetric");
+                        console.printf("%-40s %-32s %12.1f +- %8.1f ns/op%n", e.getKey(), fixture.params,
+                                (Double) metric.get("score"), (Double) metric.get("scoreError"));
+                    }
+                }
+            }
+        }
+
+        if (out.getParent() != null) Files.createDirectories(out.getParent());
+        try (Writer w = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues().create().toJson(results, w);
+        }
+        console.println("Results written to " + out.toAbsolutePath());
+        System.exit(0); // PlayPanel's Swing timers would otherwise keep the VM alive
+    }
+
+    /** Runs a case for roughly {@code millis} and returns the average nanoseconds per operation. */
+    private static double measure(Case c, long millis) throws Exception {
+        long start = System.nanoTime();
+        long deadline = start + millis * 1_000_000L;
+        long ops = 0;
+        int acc = 0;
+        int batch = 1;
+        long batchStart = start;
+        long now;
+        do {
+            // Grow the batch until it takes ~0.1ms, so reading the clock stays out of fast ops.
+            for (int k = 0; k < batch; k++) acc += c.op();
+            ops += batch;
+            now = System.nanoTime();
+            if (now - batchStart < 100_000L && batch < (1 << 20)) batch <<= 1;
+            batchStart = now;
+        } while (now < deadline);
+        sink = acc;
+        return (double) (now - start) / ops;
+    }
+
+    static Map<String, Object> result(String name, Map<String, String> params, double[] samples) {
+        double mean = 0;
+        for (double v : samples) mean += v;
+        mean /= samples.length;
+        double var = 0;
+        for (double v : samples) var += (v - mean) * (v - mean);
+        double error = samples.length > 1 ? 2.576 * Math.sqrt(var / (samples.length - 1)) / Math.sqrt(samples.length) : Double.NaN;
+
+        Map<String, Object> metric = new LinkedHashMap<>();
+        metric.put("score", mean);
+        metric.put("scoreError", error);
+        metric.put("scoreConfidence", new double[] {mean - error, mean + error});
+        metric.put("scoreUnit", "ns/op");
+        metric.put("rawData", new double[][] {samples});
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("benchmark", name);
+        result.put("mode", "avgt");
+        result.put("params", params);
+        result.put("primaryMetric", metric);
+        return result;
+    }
+
+    static List<Integer> parseList(String s) {
+        List<Integer> list = new ArrayList<>();
+        for (String p : s.split(",")) list.add(Integer.parseInt(p.trim()));
+        return list;
+    }
+}
@@ -0,0 +1,380 @@
+import java.awt.Point;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Random-walk fuzzer for content and the engine: runs one headless
+ * {@link Game} per core, each loading the content and then clicking random
+ * points and hotspots, selecting random items and feeding random puzzle
+ * inputs until something throws.
+ *
+ * <p>Now and then a walk in a puzzle types the keypad code or sets the
+ * levers and dials to their solution, with ordinary inputs, so the commands
+ * that run after a puzzle is solved get played too. Sliding-tile puzzles are
+ * only ever left or slid at random.</p>
+ *
+ * <p>Every input goes into the walk's trace. When an exception escapes the
+ * engine, the trace is cut at the input that raised it and minimized (chunks
+ * of inputs are dropped for as long as a fresh game still fails the same way,
+ * same exception at the same place), then written as a text file that
+ * {@code -replay} plays back with the full stack trace:</p>
+ * <pre>
+ * java -XX:-OmitStackTraceInFastThrow -Djava.awt.headless=true -cp target/classes:&lt;gson jar&gt; ContentFuzzer -content gamedata.json -seconds 60
+ * java -Djava.awt.headless=true -cp target/classes:&lt;gson jar&gt; ContentFuzzer -replay target/fuzz/crash-1.txt
+ * </pre>
+ *
+ * <p>Options: {@code -content} (file or manifest), {@code -threads} (default
+ * one per core), {@code -seconds}, {@code -steps} (inputs per walk before
+ * starting a fresh game), {@code -seed}, {@code -out} (where traces are
+ * written, default {@code target/fuzz}). Without
+ * {@code -XX:-OmitStackTraceInFastThrow} the JIT drops the stack of an
+ * exception thrown often enough, and those failures can no longer be told
+ * apart by where they were thrown.</p>
+ */
+public class ContentFuzzer {
+    // Inputs, packed as op << 32 | argument
+    static final int CLICK = 1, SELECT = 2, KEY = 3, LOCK = 4, TILE = 5, EXIT = 6, SKIP = 7;
+    static final String[] OPS = {null, "click", "select", "key", "lock", "tile", "exit", "skip"};
+    static final String[] KEYS = {"0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "CLR", "ENT"};
+    static final int WIDTH = 1024, HEIGHT = 598;
+    static final int MAX_SLOTS = 6, MAX_TILES = 25;
+
+    /** One distinct failure, and the smallest trace found for it. */
+    static final class Finding {
+        final String signature;
+        final LongAdder hits = new LongAdder();
+        volatile long[] trace;
+        volatile boolean reproduced;
+
+        Finding(String signature) { this.signature = signature; }
+    }
+
+    private final String content;
+    private final Map<String, Finding> findings = new ConcurrentHashMap<>();
+    private final LongAdder interactions = new LongAdder();
+    private final LongAdder walks = new LongAdder();
+
+    ContentFuzzer(String content) { this.content = content; }
+
+    public static void main(String[] args) throws Exception {
+        String content = "gamedata.json";
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seconds = 60;
+        int steps = 500;
+        long seed = System.nanoTime();
+        Path out = Paths.get("target", "fuzz");
+        Path replay = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-content": content = args[i + 1]; break;
+                case "-threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "-seconds": seconds = Long.parseLong(args[i + 1]); break;
+                case "-steps": steps = Integer.parseInt(args[i + 1]); break;
+                case "-seed": seed = Long.parseLong(args[i + 1]); break;
+                case "-out": out = Paths.get(args[i + 1]); break;
+                case "-replay": replay = Paths.get(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (replay != null) {
+            replay(replay);
+            System.exit(0);
+        }
+
+        if (!ManagementFactory.getRuntimeMXBean().getInputArguments().contains("-XX:-OmitStackTraceInFastThrow")) {
+            System.out.println("Warning: run with -XX:-OmitStackTraceInFastThrow, or frequent failures lose their stacks");
+        }
+
+        // One load with the console on, so content errors the loader reports are seen once
+        new GameDataLoader().loadContent(new Game(), content);
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+
+        ContentFuzzer fuzzer = new ContentFuzzer(content);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long workerSeed = seed + t;
+            int walkSteps = steps;
+            Thread worker = new Thread(() -> fuzzer.run(new SplittableRandom(workerSeed), walkSteps, deadline),
+                    "fuzz-" + t);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+
+        long start = System.nanoTime();
+        long lastCount = 0, lastTime = start;
+        while (System.nanoTime() < deadline) {
+            Thread.sleep(Math.min(5000, Math.max(1, (deadline - System.nanoTime()) / 1_000_000)));
+            long n = fuzzer.interactions.sum(), now = System.nanoTime();
+            if (now >= deadline) break;
+            console.printf("%,d interactions (%,.0f/min), %,d walks, %d distinct failures%n",
+                    n, (n - lastCount) / ((now - lastTime) / 60e9), fuzzer.walks.sum(), fuzzer.findings.size());
+            lastCount = n;
+            lastTime = now;
+        }
+        for (Thread worker : workers) worker.join();
+
+        Files.createDirectories(out);
+        int k = 0;
+        for (Finding f : fuzzer.findings.values()) {
+            Path file = out.resolve("crash-" + (++k) + ".txt");
+            Files.write(file, fuzzer.format(f).getBytes(StandardCharsets.UTF_8));
+            console.printf("%n%s%n  seen %,d times, minimized to %d inputs%s: %s%n", f.signature, f.hits.sum(),
+                    f.trace.length, f.reproduced ? "" : " (did not fail again on replay)", file);
+        }
+        long n = fuzzer.interactions.sum();
+        console.printf("%n%,d interactions in %d s on %d threads (%,.0f per minute), %d distinct failures%n",
+                n, seconds, threads, n / ((System.nanoTime() - start) / 60e9), fuzzer.findings.size());
+        System.exit(fuzzer.findings.isEmpty() ? 0 : 1);
+    }
+
+    // One worker: walk after walk, each on a freshly loaded game, until the deadline
+    private void run(SplittableRandom random, int steps, long deadline) {
+        long[] trace = new long[steps];
+        long[] solving = new long[64];
+        while (System.nanoTime() < deadline) {
+            Game game = newGame();
+            int queued = 0, next = 0;
+            int n = 0;
+            try {
+                for (; n < steps; n++) {
+                    long input;
+                    if (next < queued) {
+                        input = solving[next++];
+                    } else {
+                        input = pick(game, random);
+                        if (game.state == GameState.PUZZLE && random.nextInt(16) == 0) {
+                            queued = solve(game, solving);
+                            next = 0;
+                        }
+                    }
+                    trace[n] = input;
+                    apply(game, input);
+                }
+            } catch (RuntimeException | StackOverflowError e) {
+                report(e, Arrays.copyOf(trace, n + 1));
+            }
+            interactions.add(n);
+            walks.increment();
+        }
+    }
+
+    // A random input that makes sense in the game's state most of the time
+    static long pick(Game game, SplittableRandom random) {
+        if (game.state == GameState.CUTSCENE) return pack(SKIP, 0);
+        int roll = random.nextInt(100);
+        if (game.state == GameState.PUZZLE) {
+            if (roll < 3) return pack(EXIT, 0);
+            if (roll < 35) return pack(KEY, random.nextInt(KEYS.length));
+            if (roll < 65) return pack(LOCK, random.nextInt(MAX_SLOTS));
+            if (roll < 95) return pack(TILE, random.nextInt(MAX_TILES));
+        } else if (roll < 20) {
+            return pack(SELECT, random.nextInt(64));
+        } else if (roll < 75 && game.currentScene != null && game.currentScene.hotspots.length > 0) {
+            // Somewhere inside a random hotspot
+            Hotspot[] all = game.currentScene.hotspots;
+            Hotspot h = all[random.nextInt(all.length)];
+            if (!h.isShown()) return pack(CLICK, random.nextInt(WIDTH) << 16 | random.nextInt(HEIGHT));
+            int x = h.x() + random.nextInt(Math.max(1, h.width()));
+            int y = h.y() + random.nextInt(Math.max(1, h.height()));
+            return pack(CLICK, clamp(x, WIDTH) << 16 | clamp(y, HEIGHT));
+        }
+        return pack(CLICK, random.nextInt(WIDTH) << 16 | random.nextInt(HEIGHT));
+    }
+
+    // Queues the inputs that solve the open keypad, lever or dial puzzle; returns how many
+    static int solve(Game game, long[] out) {
+        int n = 0;
+        if (game.keypad != null) {
+            out[n++] = pack(KEY, 10);
+            for (char c : game.keypad.getTargetCode().toCharArray()) {
+                if (c >= '0' && c <= '9' && n < out.length - 1) out[n++] = pack(KEY, c - '0');
+            }
+            out[n++] = pack(KEY, 11);
+        } else if (game.lock != null) {
+            String[] target = game.lock.describeTarget().split(", ");
+            for (int slot = 0; slot < game.lock.getSlotCount(); slot++) {
+                List<String> ahead = symbolsAhead(game.lock, slot);
+                for (int turn = ahead.indexOf(target[slot]); turn > 0 && n < out.length; turn--) {
+                    out[n++] = pack(LOCK, slot);
+                }
+            }
+        }
+        return n;
+    }
+
+    // The symbols a slot shows as it is turned, starting with the current one; a full turn leaves it as it was
+    private static List<String> symbolsAhead(CombinationLock lock, int slot) {
+        List<String> symbols = new ArrayList<>();
+        int start = lock.getDigit(slot);
+        do {
+            symbols.add(lock.getSymbol(slot));
+            lock.advance(slot);
+        } while (lock.getDigit(slot) != start);
+        return symbols;
+    }
+
+    static long pack(int op, int arg) { return (long) op << 32 | (arg & 0xffffffffL); }
+
+    private static int clamp(int v, int limit) { return Math.max(0, Math.min(limit - 1, v)); }
+
+    /** Plays one input on the game and publishes, as the game loop would. */
+    static void apply(Game game, long input) {
+        int arg = (int) input;
+        switch ((int) (input >>> 32)) {
+            case CLICK: game.handleClick(new Point(arg >>> 16, arg & 0xffff)); break;
+            case SELECT: {
+                List<Item> items = game.getInventory().getItems();
+                if (!items.isEmpty()) game.selectItem(items.get(arg % items.size()));
+                break;
+            }
+            case KEY: game.pressKey(KEYS[arg]); break;
+            case LOCK: game.advanceLock(arg); break;
+            case TILE: game.slideTile(arg); break;
+            case EXIT: game.exitPuzzle(); break;
+            case SKIP: game.skipCutscene(); break;
+            default: throw new IllegalArgumentException("Unknown input " + input);
+        }
+        game.publish();
+    }
+
+    private Game newGame() {
+        Game game = new Game();
+        game.setView(snapshot -> { }); // Snapshots are still built, as for a window
+        new GameDataLoader().loadContent(game, content);
+        return game;
+    }
+
+    // Same exception type thrown from the same place
+    static String signature(Throwable e) {
+        StackTraceElement[] stack = e.getStackTrace();
+        return e.getClass().getName() + (stack.length == 0 ? "" : " at " + stack[0]);
+    }
+
+    private void report(Throwable e, long[] trace) {
+        String signature = signature(e);
+        Finding f = findings.computeIfAbsent(signature, Finding::new);
+        f.hits.increment();
+        long[] known = f.trace;
+        if (known != null && known.length <= trace.length) return;
+        // Tile puzzles shuffle at random, so a walk through one may not fail the same way twice
+        boolean reproduced = failsAt(trace, signature) >= 0;
+        long[] smaller = reproduced ? minimize(trace, signature) : trace;
+        synchronized (f) {
+            if (f.trace == null || (reproduced || !f.reproduced) && smaller.length < f.trace.length) {
+                f.trace = smaller;
+                f.reproduced = reproduced;
+            }
+        }
+    }
+
+    /**
+     * Drops chunks of inputs, halving the chunk size down to single inputs,
+     * for as long as the rest still fails the same way.
+     */
+    long[] minimize(long[] trace, String signature) {
+        for (int chunk = Math.max(1, trace.length / 2); chunk >= 1; chunk /= 2) {
+            boolean shrunk;
+            do {
+                shrunk = false;
+                for (int start = 0; start + chunk <= trace.length; ) {
+                    long[] candidate = new long[trace.length - chunk];
+                    System.arraycopy(trace, 0, candidate, 0, start);
+                    System.arraycopy(trace, start + chunk, candidate, start, trace.length - start - chunk);
+                    int failedAt = failsAt(candidate, signature);
+                    if (failedAt >= 0) {
+                        trace = Arrays.copyOf(candidate, failedAt + 1);
+                        shrunk = true;
+                    } else {
+                        start += chunk;
+                    }
+                }
+            } while (shrunk && chunk > 1);
+        }
+        return trace;
+    }
+
+    // Index of the input that fails with this signature on a fresh game, or -1
+    private int failsAt(long[] trace, String signature) {
+        Game game = newGame();
+        for (int i = 0; i < trace.length; i++) {
+            try {
+                apply(game, trace[i]);
+            } catch (RuntimeException | StackOverflowError e) {
+                return signature(e).equals(signature) ? i : -1;
+            }
+        }
+        return -1;
+    }
+
+    // --- Trace files ---
+
+    private String format(Finding f) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# ").append(f.signature).append('\n');
+        sb.append("content ").append(content).append('\n');
+        for (long input : f.trace) sb.append(describe(input)).append('\n');
+        return sb.toString();
+    }
+
+    // One input as a line of a trace file
+    static String describe(long input) {
+        int op = (int) (input >>> 32), arg = (int) input;
+        switch (op) {
+            case CLICK: return "click " + (arg >>> 16) + " " + (arg & 0xffff);
+            case KEY: return "key " + KEYS[arg];
+            case EXIT: case SKIP: return OPS[op];
+            default: return OPS[op] + " " + arg;
+        }
+    }
+
+    // Plays a trace file on a fresh game, printing each input, and shows what it throws
+    private static void replay(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        String content = "gamedata.json";
+        List<Long> inputs = new ArrayList<>();
+        for (String line : lines) {
+            String[] w = line.trim().split("\\s+");
+            if (w[0].isEmpty() || w[0].startsWith("#")) continue;
+            switch (w[0]) {
+                case "content": content = w[1]; break;
+                case "click": inputs.add(pack(CLICK, Integer.parseInt(w[1]) << 16 | Integer.parseInt(w[2]))); break;
+                case "select": inputs.add(pack(SELECT, Integer.parseInt(w[1]))); break;
+                case "key": inputs.add(pack(KEY, Arrays.asList(KEYS).indexOf(w[1]))); break;
+                case "lock": inputs.add(pack(LOCK, Integer.parseInt(w[1]))); break;
+                case "tile": inputs.add(pack(TILE, Integer.parseInt(w[1]))); break;
+                case "exit": inputs.add(pack(EXIT, 0)); break;
+                case "skip": inputs.add(pack(SKIP, 0)); break;
+                default: throw new IllegalArgumentException("Unknown input '" + line + "'");
+            }
+        }
+        Game game = new ContentFuzzer(content).newGame();
+        for (int i = 0; i < inputs.size(); i++) {
+            System.out.println("[" + (i + 1) + "] " + describe(inputs.get(i)));
+            try {
+                apply(game, inputs.get(i));
+            } catch (RuntimeException | StackOverflowError e) {
+                System.out.println("Failed at input " + (i + 1) + ":");
+                e.printStackTrace(System.out);
+                return;
+            }
+        }
+        System.out.println("Replayed " + inputs.size() + " inputs without a failure.");
+    }
+}
@@ -0,0 +1,232 @@
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Generates synthetic game content of a given size in the same JSON format as
+ * {@code gamedata.json}, so benchmarks can measure how the engine scales.
+ *
+ * <p>Every scene is laid out the same way so a benchmark can click a fixed point:
+ * <ul>
+ *   <li>slot 0 - a door ({@code CHANGE_SCENE}) to the next scene in a ring</li>
+ *   <li>slot 1 - an {@code EXAMINE_DESC} note</li>
+ *   <li>slot 2 - a {@code PICKUP} that gives one of the items</li>
+ *   <li>slot 3 - a lock that consumes that item ({@code ITEM_USE_RESULT})</li>
+ *   <li>remaining slots - plain examine props</li>
+ * </ul>
+ * Hotspots are placed on a grid inside the 1024x600 play area with a gap
+ * between cells, so points between cells always miss.</p>
+ */
+public class ContentGenerator {
+    static final int PLAY_WIDTH = 1000;
+    static final int PLAY_HEIGHT = 580;
+    static final int GAP = 6;
+
+    final int sceneCount;
+    final int hotspotsPerScene;
+    final int itemCount;
+
+    /**
+     * @param sceneCount number of scenes to generate (at least 1)
+     * @param hotspotsPerScene hotspots in each scene (at least 4)
+     * @param itemCount number of distinct items (at least 1)
+     */
+    public ContentGenerator(int sceneCount, int hotspotsPerScene, int itemCount) {
+        this.sceneCount = Math.max(1, sceneCount);
+        this.hotspotsPerScene = Math.max(4, hotspotsPerScene);
+        this.itemCount = Math.max(1, itemCount);
+    }
+
+    static String sceneId(int s) { return "scene" + s; }
+    static String itemId(int i) { return "item" + i; }
+
+    int columns() { return (int) Math.ceil(Math.sqrt(hotspotsPerScene)); }
+    int rows() { return (hotspotsPerScene + columns() - 1) / columns(); }
+
+    /**
+     * Returns the bounds of a hotspot slot as {x, y, width, height}.
+     *
+     * @param slot the hotspot index within its scene
+     * @return the slot's rectangle
+     */
+    int[] bounds(int slot) {
+        int cols = columns();
+        int cellW = PLAY_WIDTH / cols;
+        int cellH = PLAY_HEIGHT / rows();
+        int col = slot % cols;
+        int row = slot / cols;
+        return new int[] {col * cellW + GAP, row * cellH + GAP, cellW - 2 * GAP, cellH - 2 * GAP};
+    }
+
+    /** @return the center of a hotspot slot. */
+    java.awt.Point center(int slot) {
+        int[] b = bounds(slot);
+        return new java.awt.Point(b[0] + b[2] / 2, b[1] + b[3] / 2);
+    }
+
+    /** @return a point in the gap before a slot, which no hotspot covers. */
+    java.awt.Point miss(int slot) {
+        int[] b = bounds(slot);
+        return new java.awt.Point(b[0] - GAP / 2, b[1] - GAP / 2);
+    }
+
+    /** @return the item handed out and consumed in a scene. */
+    String itemFor(int scene) { return itemId(scene % itemCount); }
+
+    /**
+     * Builds the content as loader DTOs.
+     *
+     * @return the generated game data
+     */
+    public GameDataLoader.GameData generate() {
+        GameDataLoader.GameData data = new GameDataLoader.GameData();
+        data.startSceneId = sceneId(0);
+        data.items = items();
+
+        data.scenes = new GameDataLoader.SceneData[sceneCount];
+        for (int s = 0; s < sceneCount; s++) {
+            GameDataLoader.SceneData scene = new GameDataLoader.SceneData();
+            scene.id = sceneId(s);
+            scene.title = "Room " + s;
+            scene.description = "A generated room. It is the " + s + "th of " + sceneCount + ".";
+            scene.hotspots = new GameDataLoader.HotspotData[hotspotsPerScene];
+            for (int h = 0; h < hotspotsPerScene; h++) {
+                scene.hotspots[h] = hotspot(s, h);
+            }
+            data.scenes[s] = scene;
+        }
+        return data;
+    }
+
+    /** @return the generated items, {@code item0} to {@code item<itemCount-1>}. */
+    GameDataLoader.ItemData[] items() {
+        GameDataLoader.ItemData[] items = new GameDataLoader.ItemData[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            GameDataLoader.ItemData item = new GameDataLoader.ItemData();
+            item.id = itemId(i);
+            item.name = "Item " + i;
+            item.desc = "A generated item, number " + i + ".";
+            items[i] = item;
+        }
+        return items;
+    }
+
+    private GameDataLoader.HotspotData hotspot(int s, int h) {
+        GameDataLoader.HotspotData hd = new GameDataLoader.HotspotData();
+        hd.id = "s" + s + "h" + h;
+        hd.bounds = bounds(h);
+        switch (h) {
+            case 0:
+                hd.name = "Door to Room " + ((s + 1) % sceneCount);
+                hd.interactions = new GameDataLoader.InteractionData[] {
+                    interaction("USE", null, "CHANGE_SCENE:" + sceneId((s + 1) % sceneCount), "You walk on.")
+                };
+                break;
+            case 1:
+                hd.name = "Note";
+                hd.interactions = new GameDataLoader.InteractionData[] {
+                    interaction("EXAMINE", null, "EXAMINE_DESC:A note with some writing on it.", null)
+                };
+                break;
+            case 2:
+                hd.name = "Loose Board";
+                hd.interactions = new GameDataLoader.InteractionData[] {
+                    interaction("PICKUP", null, "GIVE_ITEM:" + itemFor(s), "You found something.")
+                };
+                break;
+            case 3:
+                hd.name = "Lock";
+                hd.interactions = new GameDataLoader.InteractionData[] {
+                    interaction("USE", itemFor(s), "ITEM_USE_RESULT:REMOVE_ITEM:" + itemFor(s) + ":ADD_ITEM:NONE", "It fits."),
+                    interaction("EXAMINE", null, "EXAMINE_DESC:A lock waiting for a key.", null)
+                };
+                break;
+            default:
+                hd.name = "Prop " + h;
+                hd.interactions = new GameDataLoader.InteractionData[] {
+                    interaction("EXAMINE", null, "EXAMINE_DESC:Nothing special about prop " + h + ".", null)
+                };
+                break;
+        }
+        return hd;
+    }
+
+    static GameDataLoader.InteractionData interaction(String type, String requiredItem, String command, String feedback) {
+        GameDataLoader.InteractionData id = new GameDataLoader.InteractionData();
+        id.type = type;
+        id.requiredItem = requiredItem;
+        id.command = command;
+        id.feedback = feedback;
+        return id;
+    }
+
+    /**
+     * Writes the generated content to a JSON file.
+     *
+     * @param file where to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writeTo(Path file) throws IOException {
+        Gson gson = new GsonBuilder().create();
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            gson.toJson(generate(), w);
+        }
+    }
+
+    /**
+     * Writes the same content split into a manifest (items and start scene) plus
+     * one pack file per {@code scenesPerPack} scenes, in a new temp folder.
+     *
+     * @param scenesPerPack how many scenes go in each pack
+     * @return the path of the manifest
+     * @throws IOException if the files cannot be written
+     */
+    public Path writeTempPacks(int scenesPerPack) throws IOException {
+        Gson gson = new GsonBuilder().create();
+        Path dir = Files.createTempDirectory("moonlight-packs-" + sceneCount + "x" + hotspotsPerScene + "x" + itemCount + "-");
+        dir.toFile().deleteOnExit();
+
+        GameDataLoader.GameData all = generate();
+        int packCount = (sceneCount + scenesPerPack - 1) / scenesPerPack;
+        GameDataLoader.GameData manifest = new GameDataLoader.GameData();
+        manifest.startSceneId = all.startSceneId;
+        manifest.items = all.items;
+        manifest.packs = new String[packCount];
+
+        for (int p = 0; p < packCount; p++) {
+            GameDataLoader.GameData pack = new GameDataLoader.GameData();
+            int from = p * scenesPerPack;
+            pack.scenes = Arrays.copyOfRange(all.scenes, from, Math.min(sceneCount, from + scenesPerPack));
+            manifest.packs[p] = "pack" + p + ".json";
+            write(gson, pack, dir.resolve(manifest.packs[p]));
+        }
+        Path file = dir.resolve("manifest.json");
+        write(gson, manifest, file);
+        return file;
+    }
+
+    private static void write(Gson gson, GameDataLoader.GameData data, Path file) throws IOException {
+        file.toFile().deleteOnExit();
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            gson.toJson(data, w);
+        }
+    }
+
+    /**
+     * Writes a content file of the given size to a temp file.
+     *
+     * @return the path of the generated file
+     * @throws IOException if the file cannot be written
+     */
+    public Path writeTemp() throws IOException {
+        Path file = Files.createTempFile("moonlight-" + sceneCount + "x" + hotspotsPerScene + "x" + itemCount + "-", ".json");
+        file.toFile().deleteOnExit();
+        writeTo(file);
+        return file;
+    }
+}
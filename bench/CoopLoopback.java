@@ -0,0 +1,152 @@
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Loopback test for co-op play: hosts a game on localhost, joins it with
+ * several headless {@link RemoteGame} clients, and has each of them click
+ * around generated content (see {@link ContentGenerator}) one interaction at
+ * a time, waiting for the host's answer before the next.
+ *
+ * <p>Checks that every client's mirrored state ends up equal to the host's,
+ * and reports the bytes the host sent per interaction (to all clients, and
+ * to each), the size of a full-state frame for comparison, and the
+ * round-trip time from a client's input to the delta answering it.</p>
+ *
+ * <pre>
+ * java -Djava.awt.headless=true -cp target/classes:&lt;gson jar&gt; CoopLoopback -clients 4 -interactions 500
+ * </pre>
+ */
+public class CoopLoopback {
+
+    public static void main(String[] args) throws Exception {
+        int clients = 4;
+        int interactions = 500;
+        int port = 0;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-clients": clients = Integer.parseInt(args[i + 1]); break;
+                case "-interactions": interactions = Integer.parseInt(args[i + 1]); break;
+                case "-port": port = Integer.parseInt(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        ContentGenerator content = new ContentGenerator(10, 8, 20);
+        Path file = content.writeTemp();
+
+        Game game = new Game();
+        game.start();
+        CoopHost host = new CoopHost(game, port);
+        game.setView(host);
+        game.post(() -> new GameDataLoader().loadContent(game, file.toString()));
+        host.start();
+
+        List<RemoteGame> players = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            RemoteGame remote = new RemoteGame("localhost", host.getPort());
+            remote.connect();
+            players.add(remote);
+        }
+        for (RemoteGame remote : players) {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (remote.snapshot() == null && System.currentTimeMillis() < deadline) Thread.sleep(5);
+            if (remote.snapshot() == null) throw new IllegalStateException("A client never received the game");
+        }
+
+        LongAdder sent = Metrics.counter("coop.bytes.sent");
+        LongAdder deltas = Metrics.counter("coop.deltas.sent");
+        LatencyHistogram roundTrip = Metrics.histogram("coop.roundTrip");
+        long bytesBefore = sent.sum();
+        long deltasBefore = deltas.sum();
+        roundTrip.reset();
+
+        // Each player clicks random slots (doors, notes, pickups, locks, props) and the gaps between them
+        int each = interactions;
+        CountDownLatch done = new CountDownLatch(clients);
+        List<Throwable> failures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            RemoteGame remote = players.get(c);
+            Random random = new Random(c);
+            Thread t = new Thread(() -> {
+                try {
+                    for (int n = 0; n < each; n++) {
+                        int slot = random.nextInt(content.hotspotsPerScene);
+                        remote.handleClick(random.nextInt(5) == 0 ? content.miss(slot) : content.center(slot));
+                        if (!remote.awaitAnswers(5000)) throw new IllegalStateException("No answer from the host");
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "player-" + c);
+            t.start();
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        if (!failures.isEmpty()) throw new IllegalStateException("A player failed", failures.get(0));
+
+        // Let the last deltas (and any delayed puzzle steps) arrive, then compare
+        CountDownLatch settled = new CountDownLatch(1);
+        game.post(settled::countDown);
+        settled.await();
+        Thread.sleep(200);
+        GameSnapshot truth = hostSnapshot(game);
+        for (RemoteGame remote : players) {
+            String diff = compare(truth, remote.snapshot());
+            if (diff != null) throw new IllegalStateException("Client state diverged: " + diff);
+        }
+
+        CoopProtocol.Writer full = new CoopProtocol.Writer();
+        CoopProtocol.encodeDelta(full, null, truth, 0, 0);
+
+        long total = clients * (long) each;
+        long bytes = sent.sum() - bytesBefore;
+        System.out.printf("clients %d, interactions %d (%d each), %.1f interactions/s%n",
+                clients, total, each, total / (elapsed / 1e9));
+        System.out.printf("deltas sent %d, bytes sent %d%n", deltas.sum() - deltasBefore, bytes);
+        System.out.printf("bytes per interaction: %.1f to all clients, %.1f per client (full state frame: %d)%n",
+                bytes / (double) total, bytes / (double) total / clients, full.length());
+        System.out.printf("round trip: mean %.3f ms, p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                roundTrip.getMeanNanos() / 1e6, roundTrip.getPercentileNanos(50) / 1e6,
+                roundTrip.getPercentileNanos(99) / 1e6, roundTrip.getMaxNanos() / 1e6);
+
+        for (RemoteGame remote : players) remote.stop();
+        host.close();
+        game.stop();
+        System.exit(0);
+    }
+
+    // A fresh snapshot of the host, taken on its game thread
+    private static GameSnapshot hostSnapshot(Game game) throws InterruptedException {
+        GameSnapshot[] result = new GameSnapshot[1];
+        CountDownLatch taken = new CountDownLatch(1);
+        game.post(() -> {
+            result[0] = game.snapshot();
+            taken.countDown();
+        });
+        taken.await();
+        return result[0];
+    }
+
+    // What differs between the host's state and a client's copy, or null
+    private static String compare(GameSnapshot host, GameSnapshot client) {
+        if (!host.sceneId.equals(client.sceneId)) return "scene " + client.sceneId + " vs " + host.sceneId;
+        if (!host.description.equals(client.description)) return "description";
+        if (!host.hotspots.equals(client.hotspots)) return "hotspots";
+        if (host.items.size() != client.items.size()) return "inventory";
+        for (int i = 0; i < host.items.size(); i++) {
+            if (!host.items.get(i).id.equals(client.items.get(i).id)) return "inventory order";
+        }
+        if (host.state != client.state || !host.card.equals(client.card)) return "state";
+        if (host.interactionCount != client.interactionCount) return "interaction count";
+        return null;
+    }
+}
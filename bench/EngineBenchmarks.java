@@ -0,0 +1,226 @@
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The engine hot paths measured by {@link BenchmarkRunner}. Each entry is one
+ * benchmark; the runner repeats it for every generated content size.
+ *
+ * <p>Cases that change game state (pickups, item use) put the state back inside
+ * the same operation, so their score includes that small reset.</p>
+ */
+public class EngineBenchmarks {
+    static final int SCENES_PER_PACK = 16;
+
+    static Map<String, BenchmarkRunner.Case> cases() {
+        Map<String, BenchmarkRunner.Case> cases = new LinkedHashMap<>();
+
+        cases.put("GameDataLoader.loadContent", new BenchmarkRunner.Case() {
+            String path;
+            public void setUp(BenchmarkRunner.Fixture f) { path = f.contentFile.toString(); }
+            public int op() {
+                Game game = new Game();
+                new GameDataLoader().loadContent(game, path);
+                return game.scenes.size();
+            }
+        });
+
+        cases.put("GameDataLoader.loadContent.packs", new BenchmarkRunner.Case() {
+            String path;
+            public void setUp(BenchmarkRunner.Fixture f) throws IOException {
+                path = f.content.writeTempPacks(SCENES_PER_PACK).toString();
+            }
+            public int op() {
+                Game game = new Game();
+                new GameDataLoader().loadContent(game, path);
+                return game.scenes.size();
+            }
+        });
+
+        cases.put("Scene.getHotspotByPoint.last", new HitTest(true));
+        cases.put("Scene.getHotspotByPoint.miss", new HitTest(false));
+
+        cases.put("Game.handleClick.examine", new Click(1));
+        cases.put("Game.handleClick.changeScene", new Click(0));
+        cases.put("Game.handleClick.miss", new Click(-1));
+
+        cases.put("Game.handleClick.pickup", new BenchmarkRunner.Case() {
+            HeadlessGame hg;
+            Point p;
+            Hotspot pickup;
+            public void setUp(BenchmarkRunner.Fixture f) {
+                hg = f.freshGame();
+                p = f.content.center(2);
+                pickup = hg.game.currentScene.getHotspotByPoint(p);
+            }
+            public int op() {
+                hg.click(p);
+                int held = hg.game.inventory.getItems().size();
+                hg.game.inventory.clear();
+                hg.game.currentScene.addHotspot(pickup);
+                hg.playPanel.feedbackLabels.clear();
+                return held;
+            }
+        });
+
+        cases.put("Game.handleClick.useItem", new BenchmarkRunner.Case() {
+            HeadlessGame hg;
+            Point p;
+            Item key;
+            public void setUp(BenchmarkRunner.Fixture f) {
+                hg = f.freshGame();
+                p = f.content.center(3);
+                hg.click(f.content.center(2));
+                key = hg.game.inventory.getItems().get(0);
+                hg.game.inventory.clear();
+            }
+            public int op() {
+                hg.game.inventory.add(key);
+                hg.game.selectItem(key);
+                hg.click(p);
+                hg.playPanel.feedbackLabels.clear();
+                return hg.game.inventory.getItems().size();
+            }
+        });
+
+        cases.put("Inventory.contains.hit", new Contains(true));
+        cases.put("Inventory.contains.miss", new Contains(false));
+
+        cases.put("TileBoard.shuffleSolvable", new BenchmarkRunner.Case() {
+            final TileBoard board = new TileBoard(3);
+            public void setUp(BenchmarkRunner.Fixture f) { }
+            public int op() {
+                board.shuffleSolvable();
+                return board.get(0);
+            }
+        });
+
+        cases.put("TileBoard.isSolvable", new BenchmarkRunner.Case() {
+            final TileBoard board = new TileBoard(3);
+            final int[] cells = {8, 1, 3, 4, 0, 2, 7, 6, 5};
+            public void setUp(BenchmarkRunner.Fixture f) { }
+            public int op() { return board.isSolvable(cells) ? 1 : 0; }
+        });
+
+        cases.put("TileGrid.slide.5x5", new BenchmarkRunner.Case() {
+            final TileGrid grid = new TileGrid(index -> { });
+            final BufferedImage image = new BufferedImage(450, 450, BufferedImage.TYPE_INT_RGB);
+            final Graphics2D g2 = image.createGraphics();
+            final Rectangle dirty = new Rectangle();
+            final Rectangle other = new Rectangle();
+            final int[][] boards = new int[2][];
+            int moves;
+            public void setUp(BenchmarkRunner.Fixture f) {
+                TileBoard board = new TileBoard(5);
+                boards[0] = board.toArray();
+                board.slide(board.findEmpty() - 1);
+                boards[1] = board.toArray();
+                grid.setSize(450, 450);
+                grid.setBoard(5, boards[0], null);
+            }
+            public int op() {
+                // One move, then the frame that shows it: only the two cells involved are painted
+                grid.setBoard(5, boards[++moves & 1], null);
+                grid.cellBounds(23, dirty);
+                grid.cellBounds(24, other);
+                dirty.add(other);
+                g2.setClip(dirty);
+                grid.paintComponent(g2);
+                return image.getRGB(dirty.x, dirty.y);
+            }
+        });
+
+        cases.put("AudioEngine.mixPeriod", new BenchmarkRunner.Case() {
+            final AudioEngine engine = new AudioEngine();
+            int periods;
+            public void setUp(BenchmarkRunner.Fixture f) { }
+            public int op() {
+                // Keep about eight effects overlapping
+                if (periods++ % 16 == 0) {
+                    engine.trigger(AudioEngine.Sound.CHIME);
+                    engine.trigger(AudioEngine.Sound.CLUNK);
+                }
+                engine.mixPeriod(System.nanoTime());
+                return periods;
+            }
+        });
+
+        cases.put("PlayPanel.paintComponent", new BenchmarkRunner.Case() {
+            HeadlessGame hg;
+            BufferedImage image;
+            Graphics2D g2;
+            public void setUp(BenchmarkRunner.Fixture f) {
+                hg = f.freshGame();
+                image = new BufferedImage(hg.playPanel.getWidth(), hg.playPanel.getHeight(), BufferedImage.TYPE_INT_RGB);
+                g2 = image.createGraphics();
+                hg.playPanel.updateHover(f.content.center(1));
+            }
+            public int op() {
+                hg.playPanel.paintComponent(g2);
+                return image.getRGB(0, 0);
+            }
+        });
+
+        return cases;
+    }
+
+    /** Hit-tests the last hotspot of the start scene (worst case for a linear scan) or a gap. */
+    static class HitTest implements BenchmarkRunner.Case {
+        final boolean hit;
+        Scene scene;
+        Point p;
+
+        HitTest(boolean hit) { this.hit = hit; }
+
+        public void setUp(BenchmarkRunner.Fixture f) {
+            scene = f.freshGame().game.currentScene;
+            int last = f.content.hotspotsPerScene - 1;
+            p = hit ? f.content.center(last) : f.content.miss(last);
+        }
+
+        public int op() { return scene.getHotspotByPoint(p) == null ? 0 : 1; }
+    }
+
+    /** Clicks a fixed hotspot slot, or a gap when {@code slot} is negative. */
+    static class Click implements BenchmarkRunner.Case {
+        final int slot;
+        HeadlessGame hg;
+        Point p;
+
+        Click(int slot) { this.slot = slot; }
+
+        public void setUp(BenchmarkRunner.Fixture f) {
+            hg = f.freshGame();
+            p = slot < 0 ? f.content.miss(1) : f.content.center(slot);
+        }
+
+        public int op() {
+            hg.click(p);
+            hg.playPanel.feedbackLabels.clear();
+            return hg.game.interactionCount;
+        }
+    }
+
+    /** Looks up the last held item of a full inventory, or an item that is not held. */
+    static class Contains implements BenchmarkRunner.Case {
+        final boolean hit;
+        Inventory inventory;
+        String id;
+
+        Contains(boolean hit) { this.hit = hit; }
+
+        public void setUp(BenchmarkRunner.Fixture f) {
+            inventory = new Inventory(6);
+            for (int i = 0; i < inventory.capacity; i++) {
+                inventory.add(new Item(ContentGenerator.itemId(i), "Item " + i, ""));
+            }
+            id = hit ? ContentGenerator.itemId(inventory.capacity - 1) : "missing";
+        }
+
+        public int op() { return inventory.contains(id) ? 1 : 0; }
+    }
+}
@@ -0,0 +1,52 @@
+import java.awt.CardLayout;
+import java.awt.Point;
+import javax.swing.JPanel;
+
+/**
+ * Wires up a {@link Game} with all of its panels like {@code Main.initGameContent},
+ * but without a window or game-logic thread, so it can run under
+ * {@code java.awt.headless=true}. Steps run on the caller's thread and each
+ * snapshot is applied to the panels immediately.
+ */
+public class HeadlessGame {
+    final Game game = new Game();
+    final InfoPanel infoPanel = new InfoPanel(game);
+    final PlayPanel playPanel = new PlayPanel(game);
+    final KeypadPanel keypadPanel = new KeypadPanel(game);
+    final TilePuzzlePanel tilePuzzlePanel = new TilePuzzlePanel(game);
+    final LeverPuzzlePanel leverPuzzlePanel = new LeverPuzzlePanel(game);
+    final DialPuzzlePanel dialPuzzlePanel = new DialPuzzlePanel(game);
+    final InventoryPanel inventoryPanel = new InventoryPanel(game);
+    final JPanel centerContainer = new JPanel();
+    final CardLayout cardLayout = new CardLayout();
+
+    /**
+     * Builds the views and loads the given content file into the game.
+     *
+     * @param contentPath path of a game data JSON file
+     */
+    public HeadlessGame(String contentPath) {
+        centerContainer.setLayout(cardLayout);
+        centerContainer.add(playPanel, "SCENE");
+        centerContainer.add(keypadPanel, "KEYPAD");
+        centerContainer.add(tilePuzzlePanel, "TILE_PUZZLE");
+        centerContainer.add(leverPuzzlePanel, "LEVER_PUZZLE");
+        centerContainer.add(dialPuzzlePanel, "DIAL_PUZZLE");
+        SwingGameView view = new SwingGameView(centerContainer, cardLayout, keypadPanel, tilePuzzlePanel, leverPuzzlePanel, dialPuzzlePanel, infoPanel, inventoryPanel, playPanel);
+        game.setView(view::apply);
+
+        game.post(() -> new GameDataLoader().loadContent(game, contentPath));
+
+        playPanel.setSize(1024, 598);
+    }
+
+    /**
+     * Clicks the play area and applies the resulting snapshot, like a mouse click would.
+     *
+     * @param p where to click
+     */
+    void click(Point p) {
+        game.handleClick(p);
+        game.publish();
+    }
+}
@@ -0,0 +1,297 @@
+import com.google.gson.GsonBuilder;
+import java.awt.Point;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.ref.Reference;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+/**
+ * Load test: generates solvable content of each size (see
+ * {@link QuestGenerator}) and has scripted bots play it through on headless
+ * {@link Game}s, one per thread, reporting how long the content takes to load,
+ * how much heap a loaded game takes, and how many interactions a second the
+ * bots get through as the content grows.
+ *
+ * <p>A bot plays every scene the way the chain was built to be solved:
+ * wanders a little (examines props, clicks where there is nothing), reads the
+ * clue or turns on the power, gets the key (typing the keypad code or setting
+ * the dials or levers with ordinary inputs, as {@link ContentFuzzer} does),
+ * selects it, unlocks the door and goes through. It checks it got where the
+ * content says it should, so a run also shows generated content of that size
+ * really can be finished; a bot that gets stuck fails the run. At the end of
+ * the chain it starts over on a freshly loaded game.</p>
+ *
+ * <p>Heap per game is the growth in used heap, after a full GC, from
+ * loading one more game per bot, on top of the last game timed loading, which
+ * is held so what games share (fact bits, metrics and interned strings) is not
+ * counted. It is the loaded content and game state before any play.</p>
+ *
+ * <pre>
+ * java -Xmx8g -Djava.awt.headless=true -cp target/classes:&lt;gson jar&gt; LoadTest -scenes 100,1000,10000 -hotspots 20 -items 5000
+ * </pre>
+ *
+ * <p>Options: {@code -scenes}, {@code -hotspots}, {@code -items} (comma
+ * separated), {@code -bots} (default one per core), {@code -seconds} (of play
+ * per size), {@code -loads} (timed loads per size), {@code -pack} (split the
+ * content into a manifest and packs of this many scenes; 0, the default,
+ * writes one file), {@code -wander} (extra clicks per scene) and {@code -o}.
+ * Results are written in the layout {@link BenchmarkRunner} uses, so two runs
+ * can be diffed with {@link BenchmarkCompare}.</p>
+ */
+public class LoadTest {
+    /** One scripted player, on its own thread and its own game. */
+    private static final class Bot {
+        final QuestGenerator content;
+        final String file;
+        final SplittableRandom random;
+        final int wander;
+        final long[] solving = new long[64];
+        Game game;
+        int scene;
+        long interactions, playNanos;
+        int scenesCleared, playthroughs;
+        String failure;
+
+        Bot(QuestGenerator content, String file, Game game, long seed, int wander) {
+            this.content = content;
+            this.file = file;
+            this.game = game;
+            this.random = new SplittableRandom(seed);
+            this.wander = wander;
+        }
+
+        void run(long deadline) {
+            try {
+                while (failure == null && System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    interactions += playScene();
+                    playNanos += System.nanoTime() - start;
+                    if (failure != null) break;
+                    scenesCleared++;
+                    if (++scene == content.sceneCount) {
+                        playthroughs++;
+                        scene = 0;
+                        game = load(file);
+                    }
+                }
+            } catch (RuntimeException e) {
+                failure = "room " + scene + ": " + ContentFuzzer.signature(e);
+            }
+        }
+
+        // Plays the current scene and goes on to the next; returns the inputs it took
+        private int playScene() {
+            int n = 0;
+            for (int w = 0; w < wander; w++, n++) {
+                int props = content.hotspotsPerScene - QuestGenerator.CLUE - 1;
+                click(props > 0 && random.nextBoolean()
+                        ? content.center(QuestGenerator.CLUE + 1 + random.nextInt(props))
+                        : content.miss(random.nextInt(content.hotspotsPerScene)));
+            }
+            click(content.center(QuestGenerator.CLUE));
+            click(content.center(QuestGenerator.SOURCE));
+            n += 2;
+            if (game.state == GameState.PUZZLE) {
+                int inputs = ContentFuzzer.solve(game, solving);
+                for (int i = 0; i < inputs; i++) ContentFuzzer.apply(game, solving[i]);
+                n += inputs;
+                if (game.state != GameState.IDLE) return fail("the puzzle did not open", n);
+            }
+
+            String keyId = content.itemFor(scene);
+            Item key = null;
+            for (Item item : game.getInventory().getItems()) {
+                if (item.id.equals(keyId)) key = item;
+            }
+            if (key == null) return fail("no " + keyId + " to open the door with", n);
+            game.selectItem(key);
+            game.publish();
+            click(content.center(QuestGenerator.DOOR));
+            click(content.center(QuestGenerator.DOOR));
+            n += 3;
+
+            boolean through = scene == content.sceneCount - 1
+                    ? game.getWorld().test("flag:" + QuestGenerator.ESCAPED)
+                    : game.currentScene != null && game.currentScene.id.equals(ContentGenerator.sceneId(scene + 1));
+            return through ? n : fail("the door did not open", n);
+        }
+
+        private void click(Point p) {
+            game.handleClick(p);
+            game.publish();
+        }
+
+        private int fail(String why, int n) {
+            failure = "room " + scene + ": " + why;
+            return n;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Integer> scenes = List.of(100, 1000, 10000);
+        List<Integer> hotspots = List.of(20);
+        List<Integer> items = List.of(5000);
+        int bots = Runtime.getRuntime().availableProcessors();
+        long seconds = 10;
+        int loads = 5, pack = 0, wander = 2;
+        Path out = Paths.get("loadtest-results.json");
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-scenes": scenes = BenchmarkRunner.parseList(args[i + 1]); break;
+                case "-hotspots": hotspots = BenchmarkRunner.parseList(args[i + 1]); break;
+                case "-items": items = BenchmarkRunner.parseList(args[i + 1]); break;
+                case "-bots": bots = Integer.parseInt(args[i + 1]); break;
+                case "-seconds": seconds = Long.parseLong(args[i + 1]); break;
+                case "-loads": loads = Integer.parseInt(args[i + 1]); break;
+                case "-pack": pack = Integer.parseInt(args[i + 1]); break;
+                case "-wander": wander = Integer.parseInt(args[i + 1]); break;
+                case "-o": out = Paths.get(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        // The engine logs scene changes to stdout; keep that out of the report
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        console.printf("%8s %8s %6s %9s %9s %12s %14s %10s %12s%n", "scenes", "hotspots", "items",
+                "file MB", "load ms", "heap/game MB", "interactions/s", "rooms", "playthroughs");
+        List<Map<String, Object>> results = new ArrayList<>();
+        boolean failed = false;
+        for (int s : scenes) {
+            for (int h : hotspots) {
+                for (int i : items) {
+                    failed |= !run(new QuestGenerator(s, h, i), bots, seconds, loads, pack, wander, results, console);
+                }
+            }
+        }
+
+        if (out.getParent() != null) Files.createDirectories(out.getParent());
+        try (Writer w = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues().create().toJson(results, w);
+        }
+        console.println("Results written to " + out.toAbsolutePath());
+        System.exit(failed ? 1 : 0);
+    }
+
+    // One content size: load, measure heap, play; returns whether every bot got on
+    private static boolean run(QuestGenerator content, int bots, long seconds, int loads, int pack, int wander,
+                               List<Map<String, Object>> results, PrintStream console) throws Exception {
+        Path file = pack > 0 ? content.writeTempPacks(pack) : content.writeTemp();
+        long fileBytes;
+        try (Stream<Path> files = Files.list(file.getParent())) {
+            fileBytes = pack > 0 ? files.mapToLong(LoadTest::size).sum() : size(file);
+        }
+        String path = file.toString();
+
+        load(path); // Warm-up
+        Game held = null; // The last game timed, holding what further games share with it
+        double[] loadNs = new double[Math.max(1, loads)];
+        for (int k = 0; k < loadNs.length; k++) {
+            long start = System.nanoTime();
+            held = load(path);
+            loadNs[k] = System.nanoTime() - start;
+        }
+
+        long before = usedHeap();
+        Game[] games = new Game[bots];
+        for (int b = 0; b < bots; b++) games[b] = load(path);
+        double heapPerGame = (double) (usedHeap() - before) / bots;
+        Reference.reachabilityFence(held);
+
+        List<Bot> players = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        for (int b = 0; b < bots; b++) {
+            Bot bot = new Bot(content, path, games[b], b, wander);
+            games[b] = null;
+            Thread t = new Thread(() -> bot.run(deadline), "bot-" + b);
+            t.setDaemon(true);
+            t.start();
+            players.add(bot);
+            threads.add(t);
+        }
+        for (Thread t : threads) t.join();
+
+        double[] nsPerInteraction = new double[bots];
+        double rate = 0;
+        long rooms = 0, playthroughs = 0;
+        boolean ok = true;
+        for (int b = 0; b < bots; b++) {
+            Bot bot = players.get(b);
+            nsPerInteraction[b] = bot.interactions == 0 ? Double.NaN : (double) bot.playNanos / bot.interactions;
+            rate += bot.playNanos == 0 ? 0 : bot.interactions / (bot.playNanos / 1e9);
+            rooms += bot.scenesCleared;
+            playthroughs += bot.playthroughs;
+            if (bot.failure != null) {
+                console.println("  bot " + b + " got stuck in " + bot.failure);
+                ok = false;
+            }
+        }
+
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("scenes", String.valueOf(content.sceneCount));
+        params.put("hotspots", String.valueOf(content.hotspotsPerScene));
+        params.put("items", String.valueOf(content.itemCount));
+        Map<String, Object> load = BenchmarkRunner.result("LoadTest.load", params, loadNs);
+        results.add(load);
+        Map<String, Object> heap = BenchmarkRunner.result("LoadTest.heapPerGame", params, new double[] {heapPerGame});
+        unit(heap, "B/game");
+        results.add(heap);
+        Map<String, String> playParams = new LinkedHashMap<>(params);
+        playParams.put("bots", String.valueOf(bots));
+        results.add(BenchmarkRunner.result("LoadTest.interaction", playParams, nsPerInteraction));
+
+        console.printf("%8d %8d %6d %9.1f %9.1f %12.2f %14.0f %10d %12d%n", content.sceneCount,
+                content.hotspotsPerScene, content.itemCount, fileBytes / 1048576.0, mean(loadNs) / 1e6,
+                heapPerGame / 1048576.0, rate, rooms, playthroughs);
+        return ok;
+    }
+
+    // A game with the content loaded, publishing snapshots to nowhere as the fuzzer's do
+    private static Game load(String file) {
+        Game game = new Game();
+        game.setView(snapshot -> { });
+        new GameDataLoader().loadContent(game, file);
+        return game;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long size(Path p) {
+        try {
+            return Files.size(p);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double v : values) sum += v;
+        return sum / values.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void unit(Map<String, Object> result, String unit) {
+        ((Map<String, Object>) result.get("primaryMetric")).put("scoreUnit", unit);
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * Generates content of any size that can be played from start to finish: a
+ * chain of scenes, each behind a locked door whose key is found in the scene
+ * before it, by picking it up, solving a keypad, dial or lever puzzle, or
+ * turning on the power first. The chain is what lets a bot (see
+ * {@link LoadTest}) play generated content through like a player would,
+ * rather than clicking around one room.
+ *
+ * <p>Scenes use the grid of {@link ContentGenerator}, laid out the same way
+ * in every scene:
+ * <ul>
+ *   <li>slot 0 - the door on to the next scene, locked until that scene's key
+ *       is used on it ({@code locked} and {@code open} states); in the last
+ *       scene the way out, which raises {@code flag(escaped)}</li>
+ *   <li>slot 1 - the door back to the previous scene (a window in the first)</li>
+ *   <li>slot 2 - where the key comes from, depending on {@link #kind(int)}</li>
+ *   <li>slot 3 - the clue: a note with the puzzle's code, or the fuse box
+ *       that powers the cabinet</li>
+ *   <li>remaining slots - plain examine props</li>
+ * </ul>
+ * The key for scene {@code s} is {@code item<s % itemCount>}; it is used up at
+ * the door before the next scene's key can be found, so items can repeat
+ * along the chain.</p>
+ */
+public class QuestGenerator extends ContentGenerator {
+    static final int DOOR = 0, BACK = 1, SOURCE = 2, CLUE = 3;
+    static final int PICKUP = 0, KEYPAD = 1, DIAL = 2, LEVERS = 3, POWER = 4;
+    static final String ESCAPED = "escaped";
+
+    /**
+     * @param sceneCount number of scenes in the chain (at least 1)
+     * @param hotspotsPerScene hotspots in each scene (at least 4)
+     * @param itemCount number of distinct items (at least 1)
+     */
+    public QuestGenerator(int sceneCount, int hotspotsPerScene, int itemCount) {
+        super(sceneCount, hotspotsPerScene, itemCount);
+    }
+
+    /** @return how the key in a scene is found: {@link #PICKUP}, {@link #KEYPAD}, {@link #DIAL}, {@link #LEVERS} or {@link #POWER}. */
+    static int kind(int scene) { return scene % 5; }
+
+    /** @return the 4-digit keypad code in a {@link #KEYPAD} scene. */
+    static String keypadCode(int scene) {
+        return String.format("%04d", (scene * 7919L + 1234) % 10000);
+    }
+
+    /** @return the dial letters in a {@link #DIAL} scene; the first dial always has to turn. */
+    static String dialCode(int scene) {
+        return "BCD".charAt(scene % 3) + "_" + "ABCD".charAt(scene / 3 % 4) + "_" + "ABCD".charAt(scene / 12 % 4);
+    }
+
+    /** @return the lever positions in a {@link #LEVERS} scene; the first lever always has to move. */
+    static String leverCode(int scene) {
+        return "UP_" + ((scene & 1) == 0 ? "DOWN" : "UP") + "_" + ((scene & 2) == 0 ? "DOWN" : "UP");
+    }
+
+    @Override
+    public GameDataLoader.GameData generate() {
+        GameDataLoader.GameData data = new GameDataLoader.GameData();
+        data.startSceneId = sceneId(0);
+        data.items = items();
+        data.scenes = new GameDataLoader.SceneData[sceneCount];
+        for (int s = 0; s < sceneCount; s++) {
+            GameDataLoader.SceneData scene = new GameDataLoader.SceneData();
+            scene.id = sceneId(s);
+            scene.title = "Room " + s;
+            scene.description = "Room " + s + " of " + sceneCount + ". The door ahead is locked.";
+            scene.hotspots = new GameDataLoader.HotspotData[hotspotsPerScene];
+            scene.hotspots[DOOR] = door(s);
+            scene.hotspots[BACK] = back(s);
+            scene.hotspots[SOURCE] = source(s);
+            scene.hotspots[CLUE] = clue(s);
+            for (int h = CLUE + 1; h < hotspotsPerScene; h++) {
+                scene.hotspots[h] = hotspot(s, h, "Prop " + h,
+                        interaction("EXAMINE", null, "EXAMINE_DESC:Nothing special about prop " + h + ".", null));
+            }
+            data.scenes[s] = scene;
+        }
+        return data;
+    }
+
+    // Locked until the scene's key is used on it, then opens on to the next scene (or out)
+    private GameDataLoader.HotspotData door(int s) {
+        boolean last = s == sceneCount - 1;
+        String key = itemFor(s);
+        GameDataLoader.HotspotData hd = hotspot(s, DOOR, last ? "Front Door" : "Door to Room " + (s + 1));
+
+        GameDataLoader.InteractionData unlock = interaction("USE", key,
+                "ITEM_USE_RESULT:REMOVE_ITEM:" + key + ":ADD_ITEM:NONE", "The lock turns.");
+        unlock.setState = "open";
+        GameDataLoader.HotspotStateData locked = state("locked", unlock,
+                interaction("EXAMINE", null, "EXAMINE_DESC:Locked. It takes Item " + (s % itemCount) + ".", null));
+
+        GameDataLoader.InteractionData through;
+        if (last) {
+            through = interaction("USE", null, "EXAMINE_DESC:You step out into the night. The end.", null);
+            through.setFlags = new String[] {ESCAPED};
+        } else {
+            through = interaction("USE", null, "CHANGE_SCENE:" + sceneId(s + 1), "You walk on.");
+        }
+        hd.states = new GameDataLoader.HotspotStateData[] {locked, state("open", through)};
+        return hd;
+    }
+
+    private GameDataLoader.HotspotData back(int s) {
+        if (s == 0) {
+            return hotspot(s, BACK, "Window",
+                    interaction("EXAMINE", null, "EXAMINE_DESC:Rain on the glass.", null));
+        }
+        return hotspot(s, BACK, "Door to Room " + (s - 1),
+                interaction("USE", null, "CHANGE_SCENE:" + sceneId(s - 1), "You go back."));
+    }
+
+    // Where the key is found
+    private GameDataLoader.HotspotData source(int s) {
+        String key = itemFor(s);
+        switch (kind(s)) {
+            case PICKUP:
+                return hotspot(s, SOURCE, "Loose Board",
+                        interaction("PICKUP", null, "GIVE_ITEM:" + key, "Something was under the board."));
+            case POWER: {
+                GameDataLoader.InteractionData take = interaction("PICKUP", null, "GIVE_ITEM:" + key, "The cabinet slides open.");
+                take.condition = "flag(power" + s + ")";
+                return hotspot(s, SOURCE, "Cabinet", take,
+                        interaction("EXAMINE", null, "EXAMINE_DESC:An electric cabinet. There is no power.", null));
+            }
+            default: {
+                String puzzle = kind(s) == KEYPAD ? "Keypad:" + keypadCode(s)
+                        : kind(s) == DIAL ? "DialPuzzle:" + dialCode(s) : "LeverPuzzle:" + leverCode(s);
+                GameDataLoader.InteractionData open = interaction("USE", null,
+                        "START_PUZZLE:" + puzzle + ":NONE:GIVE_ITEM:" + key, null);
+                open.setState = "open";
+                GameDataLoader.HotspotData hd = hotspot(s, SOURCE, "Strongbox");
+                hd.states = new GameDataLoader.HotspotStateData[] {
+                    state("shut", open),
+                    state("open", interaction("EXAMINE", null, "EXAMINE_DESC:The strongbox is empty.", null))
+                };
+                return hd;
+            }
+        }
+    }
+
+    private GameDataLoader.HotspotData clue(int s) {
+        switch (kind(s)) {
+            case KEYPAD:
+                return note(s, "Scribbled on the back: " + keypadCode(s) + ".");
+            case DIAL:
+                return note(s, "Three letters, underlined: " + dialCode(s).replace('_', ' ') + ".");
+            case LEVERS:
+                return note(s, "A sketch of three levers: " + leverCode(s).replace('_', ' ').toLowerCase() + ".");
+            case POWER: {
+                GameDataLoader.InteractionData on = interaction("USE", null, "EXAMINE_DESC:The lights flicker on.", null);
+                on.setFlags = new String[] {"power" + s};
+                return hotspot(s, CLUE, "Fuse Box", on);
+            }
+            default:
+                return note(s, "A note. It says to look under the floor.");
+        }
+    }
+
+    private GameDataLoader.HotspotData note(int s, String text) {
+        return hotspot(s, CLUE, "Note", interaction("EXAMINE", null, "EXAMINE_DESC:" + text, null));
+    }
+
+    private GameDataLoader.HotspotData hotspot(int s, int h, String name, GameDataLoader.InteractionData... interactions) {
+        GameDataLoader.HotspotData hd = new GameDataLoader.HotspotData();
+        hd.id = "s" + s + "h" + h;
+        hd.name = name;
+        hd.bounds = bounds(h);
+        hd.interactions = interactions.length == 0 ? null : interactions;
+        return hd;
+    }
+
+    private static GameDataLoader.HotspotStateData state(String id, GameDataLoader.InteractionData... interactions) {
+        GameDataLoader.HotspotStateData sd = new GameDataLoader.HotspotStateData();
+        sd.id = id;
+        sd.interactions = interactions;
+        return sd;
+    }
+}
@@ -0,0 +1,249 @@
+import com.google.gson.GsonBuilder;
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.EventQueue;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.JComponent;
+import javax.swing.RepaintManager;
+
+/**
+ * Offscreen rendering benchmark: paints the {@link PlayPanel} and each puzzle
+ * panel into a {@link BufferedImage} under {@code java.awt.headless=true} and
+ * reports the time and the bytes allocated per frame.
+ *
+ * <p>The play area is painted for generated scenes (see
+ * {@link ContentGenerator}) with every combination of hotspot count and
+ * active feedback labels, with one hotspot hovered; the puzzle panels are
+ * painted whole, buttons and all, with a puzzle of each kind open. Frames are
+ * painted on the EDT, as in the game, with Swing's double buffering off so
+ * each frame draws straight into the image. Allocation is read from
+ * {@code com.sun.management.ThreadMXBean} around each iteration.</p>
+ *
+ * <p>Results are written in the layout {@link BenchmarkRunner} uses, with the
+ * bytes per frame as the secondary metric {@code gc.alloc.rate.norm} (with the
+ * leading middle dot JMH's GC profiler gives it), so two runs can be diffed
+ * with {@link BenchmarkCompare}.</p>
+ *
+ * <pre>
+ * java -Djava.awt.headless=true -cp target/classes:&lt;gson jar&gt; RenderBenchmark -hotspots 8,64 -labels 0,16
+ * </pre>
+ */
+public class RenderBenchmark {
+    private static final int WIDTH = 1024;
+    private static final int HEIGHT = 598;
+    private static final String[] LABEL_TEXTS = {
+        "Nothing here.",
+        "Acquired Rusty Key.",
+        "A faded portrait of the manor's first owner, its eyes following you across the room.",
+        "The drawer is locked.",
+    };
+
+    /** One panel to paint, set up before the frames are timed. */
+    private static final class Subject {
+        final String name;
+        final Map<String, String> params;
+        final JComponent panel;
+        final Runnable beforeIteration;
+
+        Subject(String name, Map<String, String> params, JComponent panel, Runnable beforeIteration) {
+            this.name = name;
+            this.params = params;
+            this.panel = panel;
+            this.beforeIteration = beforeIteration;
+        }
+    }
+
+    static volatile int sink;
+
+    public static void main(String[] args) throws Exception {
+        List<Integer> hotspots = List.of(8, 64);
+        List<Integer> labels = List.of(0, 16);
+        int warmups = 3, iterations = 5;
+        long iterationMillis = 500;
+        Path out = Paths.get("render-results.json");
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-hotspots": hotspots = BenchmarkRunner.parseList(args[i + 1]); break;
+                case "-labels": labels = BenchmarkRunner.parseList(args[i + 1]); break;
+                case "-wi": warmups = Integer.parseInt(args[i + 1]); break;
+                case "-i": iterations = Integer.parseInt(args[i + 1]); break;
+                case "-t": iterationMillis = Long.parseLong(args[i + 1]); break;
+                case "-o": out = Paths.get(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        // The engine logs scene changes to stdout; keep that out of the report
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        List<Subject> subjects = new ArrayList<>();
+        EventQueue.invokeAndWait(() -> RepaintManager.currentManager(null).setDoubleBufferingEnabled(false));
+        for (int h : hotspots) {
+            ContentGenerator content = new ContentGenerator(4, h, 4);
+            Path file = content.writeTemp();
+            for (int m : labels) subjects.add(playPanel(content, file, m));
+        }
+        Path plain = new ContentGenerator(4, 8, 4).writeTemp();
+        subjects.add(puzzle("KeypadPanel.paint", plain, "Keypad", "7138", hg -> {
+            hg.game.pressKey("7");
+            hg.game.pressKey("1");
+            return hg.keypadPanel;
+        }));
+        subjects.add(puzzle("TilePuzzlePanel.paint.3x3", plain, "TilePuzzle", "NONE", hg -> hg.tilePuzzlePanel));
+        subjects.add(puzzle("TilePuzzlePanel.paint.5x5", plain, "TilePuzzle", "5", hg -> hg.tilePuzzlePanel));
+        subjects.add(puzzle("LeverPuzzlePanel.paint", plain, "LeverPuzzle", "DOWN_UP_DOWN", hg -> {
+            hg.game.advanceLock(1);
+            return hg.leverPuzzlePanel;
+        }));
+        subjects.add(puzzle("DialPuzzlePanel.paint", plain, "DialPuzzle", "C_A_D", hg -> {
+            hg.game.advanceLock(0);
+            return hg.dialPuzzlePanel;
+        }));
+        System.setOut(console);
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (Subject s : subjects) {
+            BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+            for (int w = 0; w < warmups; w++) measure(s, image, iterationMillis);
+            double[] nsPerFrame = new double[iterations];
+            double bytes = 0;
+            for (int m = 0; m < iterations; m++) {
+                double[] r = measure(s, image, iterationMillis);
+                nsPerFrame[m] = r[0];
+                bytes += r[1] / iterations;
+            }
+
+            Map<String, Object> result = BenchmarkRunner.result(s.name, s.params, nsPerFrame);
+            Map<String, Object> alloc = new LinkedHashMap<>();
+            alloc.put("score", bytes);
+            alloc.put("scoreUnit", "B/op");
+            result.put("secondaryMetrics", Map.of("\u00b7gc.alloc.rate.norm", alloc));
+            results.add(result);
+            @SuppressWarnings("unchecked")
+            Map<String, Object> metric = (Map<String, Object>) result.get("primaryMetric");
+            System.out.printf("%-28s %-24s %10.1f +- %7.1f us/frame %10.0f B/frame%n", s.name, s.params,
+                    (Double) metric.get("score") / 1e3, (Double) metric.get("scoreError") / 1e3, bytes);
+        }
+
+        if (out.getParent() != null) Files.createDirectories(out.getParent());
+        try (Writer w = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues().create().toJson(results, w);
+        }
+        System.out.println("Results written to " + out.toAbsolutePath());
+        System.exit(0); // The animation clock's timer would otherwise keep the VM alive
+    }
+
+    // The play area of the start scene with the given number of feedback labels showing
+    private static Subject playPanel(ContentGenerator content, Path file, int labels) throws Exception {
+        HeadlessGame hg = onEdt(() -> new HeadlessGame(file.toString()));
+        PlayPanel panel = hg.playPanel;
+        Point hover = content.center(1);
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("hotspots", String.valueOf(content.hotspotsPerScene));
+        params.put("labels", String.valueOf(labels));
+        onEdt(() -> {
+            panel.setSize(WIDTH, HEIGHT);
+            panel.updateHover(hover);
+            return null;
+        });
+        // Labels start fading after three seconds, so each iteration (-t) starts with fresh ones
+        Runnable freshLabels = () -> {
+            panel.feedbackLabels.clear();
+            for (int i = 0; i < labels; i++) {
+                panel.addFeedback(LABEL_TEXTS[i % LABEL_TEXTS.length],
+                        content.center(i % content.hotspotsPerScene));
+            }
+        };
+        return new Subject("PlayPanel.paintComponent", params, panel, freshLabels);
+    }
+
+    private interface PanelSetup {
+        JComponent open(HeadlessGame hg);
+    }
+
+    // A puzzle panel showing a freshly opened puzzle of one kind
+    private static Subject puzzle(String name, Path file, String kind, String code, PanelSetup setup) throws Exception {
+        HeadlessGame hg = onEdt(() -> new HeadlessGame(file.toString()));
+        JComponent panel = onEdt(() -> {
+            hg.game.startPuzzle(kind, code, new PuzzleCallback() {
+                public void onSolve() { }
+                public void onExit() { }
+            });
+            JComponent p = setup.open(hg);
+            hg.game.publish();
+            p.setSize(WIDTH, HEIGHT);
+            layOut(p);
+            return p;
+        });
+        return new Subject(name, new LinkedHashMap<>(), panel, () -> { });
+    }
+
+    // Lays out a component tree that has no window to do it
+    private static void layOut(Component c) {
+        if (!(c instanceof Container)) return;
+        Container container = (Container) c;
+        container.doLayout();
+        for (Component child : container.getComponents()) layOut(child);
+    }
+
+    /** Paints frames for about {@code millis} on the EDT; returns {nanoseconds, bytes} per frame. */
+    private static double[] measure(Subject s, BufferedImage image, long millis) throws Exception {
+        return onEdt(() -> {
+            s.beforeIteration.run();
+            com.sun.management.ThreadMXBean threads =
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            Graphics2D g2 = image.createGraphics();
+            int acc = 0;
+            long frames = 0;
+            long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            long deadline = start + millis * 1_000_000L;
+            long now;
+            do {
+                if (s.panel instanceof PlayPanel) ((PlayPanel) s.panel).paintComponent(g2);
+                else s.panel.paint(g2);
+                acc += image.getRGB(frames % 2 == 0 ? 0 : WIDTH / 2, HEIGHT / 2);
+                frames++;
+                now = System.nanoTime();
+            } while (now < deadline);
+            long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+            g2.dispose();
+            sink = acc;
+            return new double[] {(double) (now - start) / frames, (double) bytes / frames};
+        });
+    }
+
+    private interface EdtTask<T> {
+        T run() throws Exception;
+    }
+
+    // Runs a task on the EDT, where Swing painting belongs, and hands back its result
+    private static <T> T onEdt(EdtTask<T> task) throws Exception {
+        List<T> result = new ArrayList<>(1);
+        Exception[] failure = new Exception[1];
+        EventQueue.invokeAndWait(() -> {
+            try {
+                result.add(task.run());
+            } catch (Exception e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) throw failure[0];
+        return result.get(0);
+    }
+}